@@ -6,6 +6,7 @@ import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 import eu.qualimaster.adaptation.AdaptationConfiguration;
 import eu.qualimaster.adaptation.AdaptationManager;
+import eu.qualimaster.common.signal.SignalCodecs;
 import eu.qualimaster.coordination.CoordinationManager;
 import eu.qualimaster.dataManagement.DataManager;
 import eu.qualimaster.dataManagement.events.IShutdownListener;
@@ -64,6 +65,7 @@ public class Main extends ToolBase implements IShutdownListener {
             AdaptationConfiguration.configure(configFile);
         }
         LOGGER.info("Starting event bus ...");
+        SignalCodecs.register();
         EventManager.startServer();  
         EventManager.disableLoggingFor(MonitoringInformationEvent.class);
         LOGGER.info("Starting data manager ...");
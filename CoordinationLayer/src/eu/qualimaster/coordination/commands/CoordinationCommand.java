@@ -5,13 +5,15 @@ import eu.qualimaster.common.QMName;
 import eu.qualimaster.common.QMNoSimulation;
 import eu.qualimaster.events.AbstractReturnableEvent;
 import eu.qualimaster.events.EventManager;
+import eu.qualimaster.events.EventPriority;
+import eu.qualimaster.events.IPrioritizedEvent;
 
 /**
  * Abstract Coordination Layer command.
  * 
  * @author Holger Eichelberger
  */
-public abstract class CoordinationCommand extends AbstractReturnableEvent {
+public abstract class CoordinationCommand extends AbstractReturnableEvent implements IPrioritizedEvent {
     
     private static final long serialVersionUID = 1053944335618155461L;
 
@@ -41,6 +43,12 @@ public abstract class CoordinationCommand extends AbstractReturnableEvent {
     protected boolean prepareExecution() {
         return true;
     }
+
+    @QMInternal
+    @Override
+    public EventPriority getPriority() {
+        return EventPriority.CONTROL;
+    }
     
     /**
      * Returns a simplified version of this command, e.g., if a container just contains one element. This 
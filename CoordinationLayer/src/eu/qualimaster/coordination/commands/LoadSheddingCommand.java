@@ -79,6 +79,28 @@ public class LoadSheddingCommand extends AbstractPipelineElementCommand {
             parameter.put(param, value);
         }
     }
+
+    /**
+     * Sets a double parameter.
+     * 
+     * @param param the parameter identifier
+     * @param value the value
+     */
+    public void setDoubleParameter(ILoadSheddingParameter param, double value) {
+        setDoubleParameter(param.name(), value);
+    }
+
+    /**
+     * Sets a double parameter.
+     * 
+     * @param param the parameter identifier
+     * @param value the value
+     */
+    public void setDoubleParameter(String param, double value) {
+        if (null != param) {
+            parameter.put(param, value);
+        }
+    }
     
     /**
      * Sets a generic parameter value (if not specific to the parameter type, String parsing will be used
@@ -45,6 +45,16 @@ public class ObservationFactory {
         registerPipelineObservationAggregator(ResourceUsage.CAPACITY, IAggregationFunction.SUM, true, 
             IAggregationFunction.MAX);
         registerConstantPipelineNodeAggregator(ResourceUsage.CAPACITY, IAggregationFunction.AVG);
+
+        // percentiles of parallel processors cannot be merged, take the worst one
+        registerConstantPipelineNodeAggregator(TimeBehavior.LATENCY_P50, IAggregationFunction.MAX);
+        registerConstantPipelineNodeAggregator(TimeBehavior.LATENCY_P95, IAggregationFunction.MAX);
+        registerConstantPipelineNodeAggregator(TimeBehavior.LATENCY_P99, IAggregationFunction.MAX);
+        registerConstantPipelineNodeAggregator(TimeBehavior.LATENCY_MAX, IAggregationFunction.MAX);
+        registerConstantPipelineNodeAggregator(TimeBehavior.TRACE_LATENCY_P50, IAggregationFunction.MAX);
+        registerConstantPipelineNodeAggregator(TimeBehavior.TRACE_LATENCY_P95, IAggregationFunction.MAX);
+        registerConstantPipelineNodeAggregator(TimeBehavior.TRACE_LATENCY_P99, IAggregationFunction.MAX);
+        registerConstantPipelineNodeAggregator(TimeBehavior.TRACE_LATENCY_MAX, IAggregationFunction.MAX);
     }
     
     /**
@@ -403,6 +413,14 @@ public class ObservationFactory {
         registerCreator(TimeBehavior.THROUGHPUT_ITEMS, null, CREATOR_COMPOUND_TOPOLOGY_SINK_SUM);
         registerCreator(TimeBehavior.THROUGHPUT_VOLUME, null, CREATOR_COMPOUND_TOPOLOGY_SINK_SUM);
         registerCreator(TimeBehavior.LATENCY, null, CREATOR_TOPOLOGY_COMPOUND);
+        registerCreator(TimeBehavior.LATENCY_P50, null, CREATOR_COMPOUND);
+        registerCreator(TimeBehavior.LATENCY_P95, null, CREATOR_COMPOUND);
+        registerCreator(TimeBehavior.LATENCY_P99, null, CREATOR_COMPOUND);
+        registerCreator(TimeBehavior.LATENCY_MAX, null, CREATOR_COMPOUND);
+        registerCreator(TimeBehavior.TRACE_LATENCY_P50, null, CREATOR_COMPOUND);
+        registerCreator(TimeBehavior.TRACE_LATENCY_P95, null, CREATOR_COMPOUND);
+        registerCreator(TimeBehavior.TRACE_LATENCY_P99, null, CREATOR_COMPOUND);
+        registerCreator(TimeBehavior.TRACE_LATENCY_MAX, null, CREATOR_COMPOUND);
 
         registerCreator(FunctionalSuitability.ACCURACY_CONFIDENCE, null, CREATOR_SINGLE);
         registerCreator(FunctionalSuitability.ACCURACY_ERROR_RATE, null, CREATOR_SINGLE);
@@ -447,13 +465,17 @@ public class ObservationFactory {
         
         registerPart(PartType.PIPELINE, 
             TimeBehavior.LATENCY, TimeBehavior.THROUGHPUT_ITEMS, TimeBehavior.THROUGHPUT_VOLUME, 
+                TimeBehavior.TRACE_LATENCY_P50, TimeBehavior.TRACE_LATENCY_P95, TimeBehavior.TRACE_LATENCY_P99, 
+                TimeBehavior.TRACE_LATENCY_MAX, 
             FunctionalSuitability.ACCURACY_CONFIDENCE, FunctionalSuitability.ACCURACY_ERROR_RATE, 
             ResourceUsage.CAPACITY, ResourceUsage.EXECUTORS, ResourceUsage.TASKS, ResourceUsage.HOSTS,
             Scalability.VOLUME, Scalability.VELOCITY, Scalability.VOLATILITY, Scalability.VARIETY, Scalability.ITEMS,
             AnalysisObservables.IS_VALID, AnalysisObservables.IS_ENACTING);
         registerPart(PartType.PIPELINE_NODE, 
             TimeBehavior.LATENCY, TimeBehavior.ENACTMENT_DELAY, TimeBehavior.THROUGHPUT_ITEMS, 
-                TimeBehavior.THROUGHPUT_VOLUME, 
+                TimeBehavior.THROUGHPUT_VOLUME, TimeBehavior.LATENCY_P50, TimeBehavior.LATENCY_P95, 
+                TimeBehavior.LATENCY_P99, TimeBehavior.LATENCY_MAX, TimeBehavior.TRACE_LATENCY_P50, 
+                TimeBehavior.TRACE_LATENCY_P95, TimeBehavior.TRACE_LATENCY_P99, TimeBehavior.TRACE_LATENCY_MAX, 
             ResourceUsage.MEMORY_USE, ResourceUsage.CAPACITY, ResourceUsage.EXECUTORS, ResourceUsage.TASKS, 
                 ResourceUsage.HOSTS,
             FunctionalSuitability.ACCURACY_CONFIDENCE, FunctionalSuitability.COMPLETENESS,
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import eu.qualimaster.common.signal.AlgorithmChangeSignal;
+import eu.qualimaster.common.signal.LoadSheddingSignal;
+import eu.qualimaster.common.signal.ParameterChangeSignal;
+import eu.qualimaster.common.signal.SignalCodecs;
+import eu.qualimaster.events.EventCodecs;
+import eu.qualimaster.events.IEvent;
+import eu.qualimaster.monitoring.events.ComponentKey;
+import eu.qualimaster.monitoring.events.PipelineElementMultiObservationMonitoringEvent;
+import eu.qualimaster.monitoring.events.PipelineElementObservationMonitoringEvent;
+import eu.qualimaster.monitoring.events.PipelineObservationMonitoringEvent;
+import eu.qualimaster.observables.IObservable;
+import eu.qualimaster.observables.ResourceUsage;
+import eu.qualimaster.observables.Scalability;
+import eu.qualimaster.observables.TimeBehavior;
+
+/**
+ * Creates the sample events used by the benchmarks, i.e., the main monitoring events and signals with realistic
+ * contents. Running this class prints the serialized sizes of the sample events.
+ * 
+ * @author Holger Eichelberger
+ */
+public class BenchmarkEvents {
+
+    public static final String ELEMENT_OBSERVATION = "elementObservation";
+    public static final String ELEMENT_MULTI_OBSERVATION = "elementMultiObservation";
+    public static final String PIPELINE_OBSERVATION = "pipelineObservation";
+    public static final String ALGORITHM_CHANGE = "algorithmChange";
+    public static final String PARAMETER_CHANGE = "parameterChange";
+    public static final String LOAD_SHEDDING = "loadShedding";
+    public static final String[] NAMES = {ELEMENT_OBSERVATION, ELEMENT_MULTI_OBSERVATION, PIPELINE_OBSERVATION, 
+        ALGORITHM_CHANGE, PARAMETER_CHANGE, LOAD_SHEDDING};
+
+    private static final String PIPELINE = "PriorityPip";
+    private static final String ELEMENT = "FinancialCorrelation";
+    private static final ComponentKey KEY = new ComponentKey("worker1.qualimaster.eu", 6701, 12);
+
+    static {
+        SignalCodecs.register();
+    }
+
+    /**
+     * Prevents external creation.
+     */
+    private BenchmarkEvents() {
+    }
+
+    /**
+     * Creates a sample event.
+     * 
+     * @param name the name of the event, one of {@link #NAMES}
+     * @return the event
+     * @throws IllegalArgumentException if <code>name</code> is unknown
+     */
+    public static IEvent create(String name) {
+        IEvent result;
+        if (ELEMENT_OBSERVATION.equals(name)) {
+            result = new PipelineElementObservationMonitoringEvent(PIPELINE, ELEMENT, KEY, TimeBehavior.LATENCY, 
+                Double.valueOf(12.5));
+        } else if (ELEMENT_MULTI_OBSERVATION.equals(name)) {
+            Map<IObservable, Double> observations = new HashMap<IObservable, Double>();
+            observations.put(TimeBehavior.LATENCY, 12.5);
+            observations.put(TimeBehavior.THROUGHPUT_ITEMS, 1500.0);
+            observations.put(Scalability.ITEMS, 42000.0);
+            observations.put(ResourceUsage.EXECUTORS, 4.0);
+            result = new PipelineElementMultiObservationMonitoringEvent(PIPELINE, ELEMENT, KEY, observations);
+        } else if (PIPELINE_OBSERVATION.equals(name)) {
+            result = new PipelineObservationMonitoringEvent(PIPELINE, KEY, Scalability.ITEMS, Double.valueOf(42000));
+        } else if (ALGORITHM_CHANGE.equals(name)) {
+            result = new AlgorithmChangeSignal(PIPELINE, ELEMENT, "TopoSoftwareCorrelationFinancial", "msg-4711");
+        } else if (PARAMETER_CHANGE.equals(name)) {
+            result = new ParameterChangeSignal(PIPELINE, ELEMENT, "windowSize", 30, "msg-4711");
+        } else if (LOAD_SHEDDING.equals(name)) {
+            Map<String, Serializable> parameter = new HashMap<String, Serializable>();
+            parameter.put("ratio", 0.25);
+            result = new LoadSheddingSignal(PIPELINE, ELEMENT, "PROBABILISTIC", parameter, "msg-4711");
+        } else {
+            throw new IllegalArgumentException("unknown event " + name);
+        }
+        return result;
+    }
+
+    /**
+     * Turns an event into a frame using Java serialization, i.e., without considering registered codecs.
+     * 
+     * @param event the event
+     * @return the frame
+     * @throws IOException in case that serializing the event fails
+     */
+    public static byte[] toSerializedFrame(IEvent event) throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buf);
+        out.writeInt(0); // length, patched below
+        out.writeShort(EventCodecs.SERIALIZED);
+        ObjectOutputStream oos = new ObjectOutputStream(out);
+        oos.writeObject(event);
+        oos.flush();
+        byte[] frame = buf.toByteArray();
+        int length = frame.length - EventCodecs.HEADER_LENGTH;
+        frame[0] = (byte) (length >>> 24);
+        frame[1] = (byte) (length >>> 16);
+        frame[2] = (byte) (length >>> 8);
+        frame[3] = (byte) length;
+        return frame;
+    }
+
+    /**
+     * Prints the frame sizes of the sample events.
+     * 
+     * @param args ignored
+     * @throws IOException in case that encoding an event fails
+     */
+    public static void main(String[] args) throws IOException {
+        System.out.println("event\tclass\tframe bytes\tserialized bytes");
+        for (String name : NAMES) {
+            IEvent event = create(name);
+            System.out.println(name + "\t" + event.getClass().getSimpleName() + "\t" + EventCodecs.toFrame(event).length
+                + "\t" + toSerializedFrame(event).length);
+        }
+    }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.benchmarks;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.qualimaster.Configuration;
+import eu.qualimaster.events.EventHandler;
+import eu.qualimaster.events.EventManager;
+import eu.qualimaster.events.IEvent;
+import eu.qualimaster.monitoring.events.PipelineElementObservationMonitoringEvent;
+
+/**
+ * Measures the send-to-handle throughput and latency of the {@link EventManager}, either within one event manager 
+ * in local mode or from a client event manager to a server event manager over loopback sockets. An operation
+ * completes when the handler on the receiving side was called.
+ * 
+ * @author Holger Eichelberger
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class EventBusBenchmark {
+
+    public static final String LOCAL = "local";
+    public static final String LOOPBACK = "loopback";
+    static final int BATCH = 1000;
+
+    @Param({LOCAL, LOOPBACK})
+    private String mode;
+
+    private EventManager server;
+    private EventManager client;
+    private EventManager source;
+    private CountingHandler handler;
+    private IEvent event;
+    private long expected;
+
+    /**
+     * Counts the received events.
+     * 
+     * @author Holger Eichelberger
+     */
+    private static class CountingHandler extends EventHandler<PipelineElementObservationMonitoringEvent> {
+
+        private final AtomicLong count = new AtomicLong();
+
+        /**
+         * Creates the handler.
+         */
+        private CountingHandler() {
+            super(PipelineElementObservationMonitoringEvent.class);
+        }
+
+        @Override
+        protected void handle(PipelineElementObservationMonitoringEvent event) {
+            count.incrementAndGet();
+        }
+
+        /**
+         * Waits until the given number of events was received.
+         * 
+         * @param target the number of events
+         */
+        private void await(long target) {
+            while (count.get() < target) {
+                Thread.yield();
+            }
+        }
+
+    }
+
+    /**
+     * Starts the event managers.
+     * 
+     * @throws IOException if no free port can be determined
+     */
+    @Setup
+    public void setUp() throws IOException {
+        Configuration.configureLocal();
+        Properties prop = new Properties();
+        prop.put(Configuration.PORT_EVENT, String.valueOf(getFreePort()));
+        prop.put(Configuration.EVENT_SEND_OVERFLOW, "BLOCK");
+        Configuration.configure(prop, false);
+        event = BenchmarkEvents.create(BenchmarkEvents.ELEMENT_OBSERVATION);
+        server = new EventManager();
+        server.doDisableLoggingFor(PipelineElementObservationMonitoringEvent.class);
+        if (LOOPBACK.equals(mode)) {
+            server.doStart(false, true);
+            client = new EventManager();
+            client.doDisableLoggingFor(PipelineElementObservationMonitoringEvent.class);
+            client.doStart(false, false);
+            source = client;
+        } else {
+            server.doStart(true, true);
+            source = server;
+        }
+        handler = new CountingHandler();
+        server.doRegister(handler);
+        expected = 0;
+    }
+
+    /**
+     * Stops the event managers.
+     */
+    @TearDown
+    public void tearDown() {
+        if (null != client) {
+            client.doStop();
+            client = null;
+        }
+        server.doUnregister(handler);
+        server.doStop();
+        Configuration.configureLocal();
+    }
+
+    /**
+     * Returns a free local port.
+     * 
+     * @return the port
+     * @throws IOException if no port can be determined
+     */
+    private static int getFreePort() throws IOException {
+        ServerSocket socket = new ServerSocket(0);
+        int port = socket.getLocalPort();
+        socket.close();
+        return port;
+    }
+
+    /**
+     * Sends a batch of events and waits until all were handled.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @OperationsPerInvocation(BATCH)
+    public void throughput() {
+        for (int e = 0; e < BATCH; e++) {
+            source.doHandle(event);
+        }
+        expected += BATCH;
+        handler.await(expected);
+    }
+
+    /**
+     * Sends a single event and waits until it was handled.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void latency() {
+        source.doHandle(event);
+        expected++;
+        handler.await(expected);
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.qualimaster.events.EventCodecs;
+import eu.qualimaster.events.IEvent;
+
+/**
+ * Measures the costs of encoding and decoding the main monitoring events and signals, via the registered 
+ * {@link EventCodecs binary codecs} and via plain Java serialization for comparison. The frame sizes are printed
+ * by {@link BenchmarkEvents#main(String[])}.
+ * 
+ * @author Holger Eichelberger
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class EventCodecBenchmark {
+
+    @Param({BenchmarkEvents.ELEMENT_OBSERVATION, BenchmarkEvents.ELEMENT_MULTI_OBSERVATION, 
+        BenchmarkEvents.PIPELINE_OBSERVATION, BenchmarkEvents.ALGORITHM_CHANGE, BenchmarkEvents.PARAMETER_CHANGE, 
+        BenchmarkEvents.LOAD_SHEDDING})
+    private String event;
+
+    private IEvent instance;
+    private byte[] frame;
+    private byte[] serializedFrame;
+
+    /**
+     * Creates the sample event and its frames.
+     * 
+     * @throws IOException shall not occur
+     */
+    @Setup
+    public void setUp() throws IOException {
+        instance = BenchmarkEvents.create(event);
+        frame = EventCodecs.toFrame(instance);
+        serializedFrame = BenchmarkEvents.toSerializedFrame(instance);
+    }
+
+    /**
+     * Encodes the event via its codec.
+     * 
+     * @return the frame
+     * @throws IOException shall not occur
+     */
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return EventCodecs.toFrame(instance);
+    }
+
+    /**
+     * Encodes the event via Java serialization.
+     * 
+     * @return the frame
+     * @throws IOException shall not occur
+     */
+    @Benchmark
+    public byte[] encodeSerialized() throws IOException {
+        return BenchmarkEvents.toSerializedFrame(instance);
+    }
+
+    /**
+     * Decodes the event via its codec.
+     * 
+     * @return the event
+     */
+    @Benchmark
+    public IEvent decode() {
+        return EventCodecs.fromFrame(frame, EventCodecs.HEADER_LENGTH, frame.length - EventCodecs.HEADER_LENGTH);
+    }
+
+    /**
+     * Decodes the event via Java serialization.
+     * 
+     * @return the event
+     */
+    @Benchmark
+    public IEvent decodeSerialized() {
+        return EventCodecs.fromFrame(serializedFrame, EventCodecs.HEADER_LENGTH, 
+            serializedFrame.length - EventCodecs.HEADER_LENGTH);
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.qualimaster.Configuration;
+import eu.qualimaster.events.EventHandler;
+import eu.qualimaster.events.EventManager;
+import eu.qualimaster.events.IEvent;
+import eu.qualimaster.monitoring.events.MonitoringEvent;
+import eu.qualimaster.monitoring.events.PipelineElementObservationMonitoringEvent;
+
+/**
+ * Measures the handler lookup cost of the {@link EventManager} depending on the number of registered handlers. The
+ * handlers consume the event, i.e., handing in an event looks up and calls the handlers synchronously without
+ * dispatching. Half of the handlers are registered for the event class, half for its superclass.
+ * 
+ * @author Holger Eichelberger
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class HandlerLookupBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    private int handlers;
+
+    private EventManager manager;
+    private ConsumingHandler<?>[] registered;
+    private ConsumingHandler<?> extra;
+    private IEvent event;
+
+    /**
+     * A handler consuming all events.
+     * 
+     * @param <E> the event type
+     * @author Holger Eichelberger
+     */
+    private static class ConsumingHandler<E extends IEvent> extends EventHandler<E> {
+
+        /**
+         * Creates the handler.
+         * 
+         * @param cls the handled event class
+         */
+        private ConsumingHandler(Class<E> cls) {
+            super(cls);
+        }
+
+        @Override
+        protected boolean consume(IEvent event) {
+            return true;
+        }
+
+        @Override
+        protected void handle(E event) {
+        }
+
+    }
+
+    /**
+     * Starts the event manager and registers the handlers.
+     */
+    @Setup
+    public void setUp() {
+        Configuration.configureLocal();
+        event = BenchmarkEvents.create(BenchmarkEvents.ELEMENT_OBSERVATION);
+        manager = new EventManager();
+        manager.doDisableLoggingFor(PipelineElementObservationMonitoringEvent.class);
+        manager.doStart(true, true);
+        registered = new ConsumingHandler<?>[handlers];
+        for (int h = 0; h < handlers; h++) {
+            registered[h] = h % 2 == 0 
+                ? new ConsumingHandler<PipelineElementObservationMonitoringEvent>(
+                    PipelineElementObservationMonitoringEvent.class) 
+                : new ConsumingHandler<MonitoringEvent>(MonitoringEvent.class);
+            manager.doRegister(registered[h]);
+        }
+        extra = new ConsumingHandler<PipelineElementObservationMonitoringEvent>(
+            PipelineElementObservationMonitoringEvent.class);
+    }
+
+    /**
+     * Unregisters the handlers and stops the event manager.
+     */
+    @TearDown
+    public void tearDown() {
+        for (int h = 0; h < registered.length; h++) {
+            manager.doUnregister(registered[h]);
+        }
+        manager.doStop();
+    }
+
+    /**
+     * Hands in an event with cached handler lookup.
+     */
+    @Benchmark
+    public void handle() {
+        manager.doHandle(event);
+    }
+
+    /**
+     * Changes the registrations and hands in an event, i.e., includes rebuilding the handler lookup.
+     */
+    @Benchmark
+    public void registerAndHandle() {
+        manager.doRegister(extra);
+        manager.doHandle(event);
+        manager.doUnregister(extra);
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * JMH microbenchmarks for the event bus.
+ */
+package eu.qualimaster.benchmarks;
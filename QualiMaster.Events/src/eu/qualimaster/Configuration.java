@@ -75,6 +75,182 @@ public class Configuration {
      */
     public static final String DEFAULT_EVENT_DISABLE_LOGGING = EMPTY_VALUE;
 
+    /**
+     * Denotes the maximum number of events an event bus client writes in one batch, i.e., before flushing the 
+     * connection (Integer, at least 1).
+     */
+    public static final String EVENT_SEND_BATCH_SIZE = "eventBus.send.batchSize";
+
+    /**
+     * The default value for {@link #EVENT_SEND_BATCH_SIZE}, {@value}.
+     */
+    public static final int DEFAULT_EVENT_SEND_BATCH_SIZE = 200;
+
+    /**
+     * Denotes the time an event bus client waits for further events to complete a batch (Integer in ms, no waiting 
+     * if not positive).
+     */
+    public static final String EVENT_SEND_LINGER = "eventBus.send.linger";
+
+    /**
+     * The default value for {@link #EVENT_SEND_LINGER}, {@value}.
+     */
+    public static final int DEFAULT_EVENT_SEND_LINGER = 0;
+
+    /**
+     * Denotes whether an event bus client conflates queued {@link eu.qualimaster.events.IConflatableEvent 
+     * conflatable events}, i.e., replaces a queued event by a newer one with the same conflation key (Boolean).
+     */
+    public static final String EVENT_SEND_CONFLATE = "eventBus.send.conflate";
+
+    /**
+     * The default value for {@link #EVENT_SEND_CONFLATE}, {@value}.
+     */
+    public static final boolean DEFAULT_EVENT_SEND_CONFLATE = false;
+
+    /**
+     * Denotes the maximum number of events queued by an event bus client for sending (Integer, at least 1).
+     */
+    public static final String EVENT_SEND_CAPACITY = "eventBus.send.capacity";
+
+    /**
+     * The default value for {@link #EVENT_SEND_CAPACITY}, {@value}.
+     */
+    public static final int DEFAULT_EVENT_SEND_CAPACITY = 10000;
+
+    /**
+     * Denotes what happens if the send queue of an event bus client is full and there is no queued telemetry event
+     * to drop (String, one of <code>BLOCK</code>, <code>DROP_OLDEST</code>, <code>DROP_NEWEST</code>).
+     */
+    public static final String EVENT_SEND_OVERFLOW = "eventBus.send.overflow";
+
+    /**
+     * The default value for {@link #EVENT_SEND_OVERFLOW}, {@value}.
+     */
+    public static final String DEFAULT_EVENT_SEND_OVERFLOW = "DROP_OLDEST";
+
+    /**
+     * Denotes the number of I/O threads serving the connections of the event bus server (Integer, at least 1).
+     */
+    public static final String EVENT_SERVER_IO_THREADS = "eventBus.server.ioThreads";
+
+    /**
+     * The default value for {@link #EVENT_SERVER_IO_THREADS}, {@value}.
+     */
+    public static final int DEFAULT_EVENT_SERVER_IO_THREADS = 2;
+
+    /**
+     * Denotes the maximum number of bytes the event bus server queues for sending to a single client (Integer, at 
+     * least one event is always queued). Further events for a slow client are dropped.
+     */
+    public static final String EVENT_SERVER_SEND_CAPACITY = "eventBus.server.sendCapacity";
+
+    /**
+     * The default value for {@link #EVENT_SERVER_SEND_CAPACITY}, {@value}.
+     */
+    public static final int DEFAULT_EVENT_SERVER_SEND_CAPACITY = 16 * 1024 * 1024;
+
+    /**
+     * Denotes the number of threads dispatching events to the event handlers (Integer, at least 1).
+     */
+    public static final String EVENT_DISPATCH_THREADS = "eventBus.dispatch.threads";
+
+    /**
+     * The default value for {@link #EVENT_DISPATCH_THREADS}, {@value}.
+     */
+    public static final int DEFAULT_EVENT_DISPATCH_THREADS = 4;
+
+    /**
+     * Denotes the maximum number of events queued for a single event handler (Integer, at least 1).
+     */
+    public static final String EVENT_DISPATCH_CAPACITY = "eventBus.dispatch.capacity";
+
+    /**
+     * The default value for {@link #EVENT_DISPATCH_CAPACITY}, {@value}.
+     */
+    public static final int DEFAULT_EVENT_DISPATCH_CAPACITY = 10000;
+
+    /**
+     * Denotes what happens if the event queue of an event handler is full (String, one of <code>BLOCK</code>, 
+     * <code>DROP_OLDEST</code>, <code>DROP_NEWEST</code>).
+     */
+    public static final String EVENT_DISPATCH_OVERFLOW = "eventBus.dispatch.overflow";
+
+    /**
+     * The default value for {@link #EVENT_DISPATCH_OVERFLOW}, {@value}.
+     */
+    public static final String DEFAULT_EVENT_DISPATCH_OVERFLOW = "BLOCK";
+
+    /**
+     * Denotes the bound for the starvation of lower {@link eu.qualimaster.events.EventPriority event priorities}, i.e.,
+     * the maximum number of events (dispatch runs) of the next higher priority which may overtake a queued event 
+     * (dispatch run) of lower priority (Integer, at least 1).
+     */
+    public static final String EVENT_PRIORITY_AGING = "eventBus.priority.aging";
+
+    /**
+     * The default value for {@link #EVENT_PRIORITY_AGING}, {@value}.
+     */
+    public static final int DEFAULT_EVENT_PRIORITY_AGING = 100;
+
+    /**
+     * Denotes the directory for the binary {@link eu.qualimaster.events.EventAuditLog event audit log} (String). If
+     * given, events are recorded there instead of being logged one by one via the logging framework. Empty disables
+     * the audit log.
+     */
+    public static final String EVENT_AUDIT_DIR = "eventBus.audit.dir";
+
+    /**
+     * The default value for {@link #EVENT_AUDIT_DIR}, {@value}.
+     */
+    public static final String DEFAULT_EVENT_AUDIT_DIR = "";
+
+    /**
+     * Denotes the maximum number of audit records waiting for the writer of the event audit log before further 
+     * records are dropped (Integer).
+     */
+    public static final String EVENT_AUDIT_CAPACITY = "eventBus.audit.capacity";
+
+    /**
+     * The default value for {@link #EVENT_AUDIT_CAPACITY}, {@value}.
+     */
+    public static final int DEFAULT_EVENT_AUDIT_CAPACITY = 65536;
+
+    /**
+     * Denotes additional event bus server shards as comma-separated list of <code>host:port</code> (String). If 
+     * given, clients route pipeline-scoped events by consistent hashing of the pipeline name to one of the shards 
+     * including the server at {@link #HOST_EVENT}/{@link #PORT_EVENT}, which also receives all other events and 
+     * bridges the events subscribed by its own handlers from the further shards. Empty for a single server.
+     */
+    public static final String EVENT_SHARDS = "eventBus.shards";
+
+    /**
+     * The default value for {@link #EVENT_SHARDS}, {@value}.
+     */
+    public static final String DEFAULT_EVENT_SHARDS = "";
+
+    /**
+     * Denotes the period for publishing the event bus telemetry as monitoring event in ms (Integer). The telemetry is 
+     * always collected and can be queried in-process, not positive values disable publishing.
+     */
+    public static final String EVENT_TELEMETRY_PERIOD = "eventBus.telemetry.period";
+
+    /**
+     * The default value for {@link #EVENT_TELEMETRY_PERIOD}, {@value}.
+     */
+    public static final int DEFAULT_EVENT_TELEMETRY_PERIOD = 0;
+
+    /**
+     * Denotes the minimum size of the encoded event in bytes from which event frames are compressed (Integer). Not
+     * positive values disable compression. Receivers decompress frames regardless of this setting.
+     */
+    public static final String EVENT_COMPRESSION_THRESHOLD = "eventBus.compression.threshold";
+
+    /**
+     * The default value for {@link #EVENT_COMPRESSION_THRESHOLD}, {@value}.
+     */
+    public static final int DEFAULT_EVENT_COMPRESSION_THRESHOLD = 4096;
+
     // ----------------------------------------------
     
     
@@ -120,6 +296,17 @@ public class Configuration {
      * The default value for {@link #PIPELINE_SIGNALS_CURATOR}, {@value}.
      */
     public static final boolean DEFAULT_PIPELINE_SIGNALS_CURATOR = true;
+
+    /**
+     * Denotes the sampling rate for end-to-end tuple tracing in pipelines (Integer), i.e., spouts stamp a trace header
+     * on one out of the given number of tuples. Not positive values disable tracing.
+     */
+    public static final String PIPELINE_TRACE_SAMPLING = "pipeline.trace.sampling";
+
+    /**
+     * The default value for {@link #PIPELINE_TRACE_SAMPLING}, {@value}.
+     */
+    public static final int DEFAULT_PIPELINE_TRACE_SAMPLING = 0;
     
     /**
      * Denotes the waiting time after sending pipeline shutdown events (Integer in ms, ignored if not positive).
@@ -239,6 +426,38 @@ public class Configuration {
         = createIntegerOption(PORT_EVENT, DEFAULT_PORT_EVENT);
     private static ConfigurationOption<String> eventDisableLogging 
         = createStringOption(EVENT_DISABLE_LOGGING, DEFAULT_EVENT_DISABLE_LOGGING);
+    private static ConfigurationOption<Integer> eventSendBatchSize 
+        = createIntegerOption(EVENT_SEND_BATCH_SIZE, DEFAULT_EVENT_SEND_BATCH_SIZE);
+    private static ConfigurationOption<Integer> eventSendLinger 
+        = createIntegerOption(EVENT_SEND_LINGER, DEFAULT_EVENT_SEND_LINGER);
+    private static ConfigurationOption<Boolean> eventSendConflate 
+        = createBooleanOption(EVENT_SEND_CONFLATE, DEFAULT_EVENT_SEND_CONFLATE);
+    private static ConfigurationOption<Integer> eventSendCapacity 
+        = createIntegerOption(EVENT_SEND_CAPACITY, DEFAULT_EVENT_SEND_CAPACITY);
+    private static ConfigurationOption<String> eventSendOverflow 
+        = createStringOption(EVENT_SEND_OVERFLOW, DEFAULT_EVENT_SEND_OVERFLOW);
+    private static ConfigurationOption<Integer> eventServerIoThreads 
+        = createIntegerOption(EVENT_SERVER_IO_THREADS, DEFAULT_EVENT_SERVER_IO_THREADS);
+    private static ConfigurationOption<Integer> eventServerSendCapacity 
+        = createIntegerOption(EVENT_SERVER_SEND_CAPACITY, DEFAULT_EVENT_SERVER_SEND_CAPACITY);
+    private static ConfigurationOption<Integer> eventDispatchThreads 
+        = createIntegerOption(EVENT_DISPATCH_THREADS, DEFAULT_EVENT_DISPATCH_THREADS);
+    private static ConfigurationOption<Integer> eventDispatchCapacity 
+        = createIntegerOption(EVENT_DISPATCH_CAPACITY, DEFAULT_EVENT_DISPATCH_CAPACITY);
+    private static ConfigurationOption<String> eventDispatchOverflow 
+        = createStringOption(EVENT_DISPATCH_OVERFLOW, DEFAULT_EVENT_DISPATCH_OVERFLOW);
+    private static ConfigurationOption<Integer> eventPriorityAging 
+        = createIntegerOption(EVENT_PRIORITY_AGING, DEFAULT_EVENT_PRIORITY_AGING);
+    private static ConfigurationOption<String> eventAuditDir 
+        = createStringOption(EVENT_AUDIT_DIR, DEFAULT_EVENT_AUDIT_DIR);
+    private static ConfigurationOption<Integer> eventAuditCapacity 
+        = createIntegerOption(EVENT_AUDIT_CAPACITY, DEFAULT_EVENT_AUDIT_CAPACITY);
+    private static ConfigurationOption<String> eventShards 
+        = createStringOption(EVENT_SHARDS, DEFAULT_EVENT_SHARDS);
+    private static ConfigurationOption<Integer> eventTelemetryPeriod 
+        = createIntegerOption(EVENT_TELEMETRY_PERIOD, DEFAULT_EVENT_TELEMETRY_PERIOD);
+    private static ConfigurationOption<Integer> eventCompressionThreshold 
+        = createIntegerOption(EVENT_COMPRESSION_THRESHOLD, DEFAULT_EVENT_COMPRESSION_THRESHOLD);
 
     // storm commons
     
@@ -248,6 +467,8 @@ public class Configuration {
         = createIntegerOption(PORT_ZOOKEEPER, DEFAULT_PORT_ZOOKEEPER);
     private static ConfigurationOption<Boolean> pipelineSignalsCurator 
         = createBooleanOption(PIPELINE_SIGNALS_CURATOR, DEFAULT_PIPELINE_SIGNALS_CURATOR);
+    private static ConfigurationOption<Integer> pipelineTraceSampling 
+        = createIntegerOption(PIPELINE_TRACE_SAMPLING, DEFAULT_PIPELINE_TRACE_SAMPLING);
     private static ConfigurationOption<Integer> shutdownEventWaitingTime 
         = createIntegerOption(TIME_SHUTDOWN_EVENTS, DEFAULT_TIME_SHUTDOWN_EVENTS);
     
@@ -542,6 +763,15 @@ public class Configuration {
     public static boolean getPipelineSignalsQmEvents() {
         return !pipelineSignalsCurator.getValue();
     }
+
+    /**
+     * Returns the sampling rate for end-to-end tuple tracing.
+     * 
+     * @return one out of the returned number of tuples is traced, not positive if tracing is disabled
+     */
+    public static int getPipelineTraceSampling() {
+        return pipelineTraceSampling.getValue();
+    }
     
     /**
      * Returns whether <code>value</code> is empty (@link {@link #EMPTY_VALUE}).
@@ -571,6 +801,151 @@ public class Configuration {
         return eventDisableLogging.getValue();
     }
     
+    /**
+     * Returns the maximum number of events an event bus client writes in one batch.
+     * 
+     * @return the maximum batch size (at least 1)
+     */
+    public static int getEventSendBatchSize() {
+        return Math.max(1, eventSendBatchSize.getValue());
+    }
+
+    /**
+     * Returns the time an event bus client waits for further events to complete a batch.
+     * 
+     * @return the linger time in ms (no waiting if not positive)
+     */
+    public static int getEventSendLinger() {
+        return eventSendLinger.getValue();
+    }
+
+    /**
+     * Returns whether an event bus client conflates queued conflatable events.
+     * 
+     * @return <code>true</code> for conflation, <code>false</code> else
+     */
+    public static boolean getEventSendConflate() {
+        return eventSendConflate.getValue();
+    }
+
+    /**
+     * Returns the maximum number of events queued by an event bus client for sending.
+     * 
+     * @return the maximum number of queued events (at least 1)
+     */
+    public static int getEventSendCapacity() {
+        return Math.max(1, eventSendCapacity.getValue());
+    }
+
+    /**
+     * Returns what happens if the send queue of an event bus client is full.
+     * 
+     * @return the overflow policy name
+     */
+    public static String getEventSendOverflow() {
+        return eventSendOverflow.getValue();
+    }
+
+    /**
+     * Returns the number of I/O threads serving the connections of the event bus server.
+     * 
+     * @return the number of I/O threads (at least 1)
+     */
+    public static int getEventServerIoThreads() {
+        return Math.max(1, eventServerIoThreads.getValue());
+    }
+
+    /**
+     * Returns the maximum number of bytes the event bus server queues for sending to a single client.
+     * 
+     * @return the maximum number of bytes
+     */
+    public static int getEventServerSendCapacity() {
+        return eventServerSendCapacity.getValue();
+    }
+
+    /**
+     * Returns the number of threads dispatching events to the event handlers.
+     * 
+     * @return the number of dispatch threads (at least 1)
+     */
+    public static int getEventDispatchThreads() {
+        return Math.max(1, eventDispatchThreads.getValue());
+    }
+
+    /**
+     * Returns the maximum number of events queued for a single event handler.
+     * 
+     * @return the maximum number of queued events (at least 1)
+     */
+    public static int getEventDispatchCapacity() {
+        return Math.max(1, eventDispatchCapacity.getValue());
+    }
+
+    /**
+     * Returns what happens if the event queue of an event handler is full.
+     * 
+     * @return the overflow policy name
+     */
+    public static String getEventDispatchOverflow() {
+        return eventDispatchOverflow.getValue();
+    }
+
+    /**
+     * Returns the bound for the starvation of lower event priorities.
+     * 
+     * @return the maximum number of events (dispatch runs) overtaking an event (dispatch run) of the next lower 
+     *     priority, at least 1
+     */
+    public static int getEventPriorityAging() {
+        return Math.max(1, eventPriorityAging.getValue());
+    }
+
+    /**
+     * Returns the directory of the event audit log.
+     * 
+     * @return the directory, empty if the audit log is disabled
+     */
+    public static String getEventAuditDir() {
+        return eventAuditDir.getValue();
+    }
+
+    /**
+     * Returns the maximum number of audit records waiting for the writer of the event audit log.
+     * 
+     * @return the maximum number of waiting records
+     */
+    public static int getEventAuditCapacity() {
+        return eventAuditCapacity.getValue();
+    }
+
+    /**
+     * Returns the additional event bus server shards.
+     * 
+     * @return the shards as comma-separated list of <code>host:port</code>, empty for a single server
+     */
+    public static String getEventShards() {
+        return eventShards.getValue();
+    }
+
+    /**
+     * Returns the period for publishing the event bus telemetry.
+     * 
+     * @return the period in ms, not positive if disabled
+     */
+    public static int getEventTelemetryPeriod() {
+        return eventTelemetryPeriod.getValue();
+    }
+
+    /**
+     * Returns the minimum size of encoded events for compressing event frames.
+     * 
+     * @return the size in bytes, not positive if compression is disabled
+     */
+    public static int getEventCompressionThreshold() {
+        return eventCompressionThreshold.getValue();
+    }
+    
     /**
      * Turns the given text into a set of strings by splitting it using "," as delimiter.
      * 
@@ -604,6 +979,21 @@ public class Configuration {
         config.put(Configuration.HOST_EVENT, getEventHost());
         config.put(Configuration.PORT_EVENT, getEventPort());
         config.put(Configuration.EVENT_DISABLE_LOGGING, getEventDisableLogging());
+        config.put(Configuration.EVENT_SEND_BATCH_SIZE, getEventSendBatchSize());
+        config.put(Configuration.EVENT_SEND_LINGER, getEventSendLinger());
+        config.put(Configuration.EVENT_SEND_CONFLATE, getEventSendConflate());
+        config.put(Configuration.EVENT_SEND_CAPACITY, getEventSendCapacity());
+        config.put(Configuration.EVENT_SEND_OVERFLOW, getEventSendOverflow());
+        config.put(Configuration.EVENT_DISPATCH_THREADS, getEventDispatchThreads());
+        config.put(Configuration.EVENT_DISPATCH_CAPACITY, getEventDispatchCapacity());
+        config.put(Configuration.EVENT_DISPATCH_OVERFLOW, getEventDispatchOverflow());
+        config.put(Configuration.EVENT_PRIORITY_AGING, getEventPriorityAging());
+        config.put(Configuration.EVENT_AUDIT_DIR, getEventAuditDir());
+        config.put(Configuration.EVENT_AUDIT_CAPACITY, getEventAuditCapacity());
+        config.put(Configuration.EVENT_SHARDS, getEventShards());
+        config.put(Configuration.EVENT_TELEMETRY_PERIOD, getEventTelemetryPeriod());
+        config.put(Configuration.EVENT_COMPRESSION_THRESHOLD, getEventCompressionThreshold());
+        config.put(Configuration.PIPELINE_TRACE_SAMPLING, getPipelineTraceSampling());
     }
 
     /**
@@ -626,11 +1016,41 @@ public class Configuration {
         if (null != conf.get(Configuration.EVENT_DISABLE_LOGGING)) {
             prop.put(Configuration.EVENT_DISABLE_LOGGING, conf.get(Configuration.EVENT_DISABLE_LOGGING));
         }
+        transfer(conf, prop, Configuration.EVENT_SEND_BATCH_SIZE);
+        transfer(conf, prop, Configuration.EVENT_SEND_LINGER);
+        transfer(conf, prop, Configuration.EVENT_SEND_CONFLATE);
+        transfer(conf, prop, Configuration.EVENT_SEND_CAPACITY);
+        transfer(conf, prop, Configuration.EVENT_SEND_OVERFLOW);
+        transfer(conf, prop, Configuration.EVENT_DISPATCH_THREADS);
+        transfer(conf, prop, Configuration.EVENT_DISPATCH_CAPACITY);
+        transfer(conf, prop, Configuration.EVENT_DISPATCH_OVERFLOW);
+        transfer(conf, prop, Configuration.EVENT_PRIORITY_AGING);
+        transfer(conf, prop, Configuration.EVENT_AUDIT_DIR);
+        transfer(conf, prop, Configuration.EVENT_AUDIT_CAPACITY);
+        transfer(conf, prop, Configuration.EVENT_SHARDS);
+        transfer(conf, prop, Configuration.EVENT_TELEMETRY_PERIOD);
+        transfer(conf, prop, Configuration.EVENT_COMPRESSION_THRESHOLD);
+        transfer(conf, prop, Configuration.PIPELINE_TRACE_SAMPLING);
         if (prop.size() > 0) {
             Configuration.configure(prop, false);
         }
     }
     
+    /**
+     * Transfers a single (non-null) value from a Storm configuration into the given properties.
+     * 
+     * @param conf the storm configuration as map
+     * @param prop the properties to be modified as a side effect
+     * @param key the configuration key
+     */
+    @SuppressWarnings({ "rawtypes" })
+    protected static void transfer(Map conf, Properties prop, String key) {
+        Object value = conf.get(key);
+        if (null != value) {
+            prop.put(key, value);
+        }
+    }
+    
     /**
      * Clears the configuration. Intended for testing to ensure a fresh state.
      */
@@ -16,17 +16,63 @@
 package eu.qualimaster.events;
 
 /**
- * Basic implementation for handling {@link TimerEvent}.
+ * Basic implementation for handling {@link TimerEvent}. A handler with a positive {@link #getTimerPeriod() timer 
+ * period} receives timer events in its own period (independent of other timer handlers) after registration, else it
+ * receives the timer events of the global {@link EventManager#setTimerPeriod(long) timer period}.
  * 
  * @author Holger Eichelberger
  */
 public abstract class AbstractTimerEventHandler extends EventHandler<TimerEvent> {
 
+    private volatile long period;
+    private volatile EventManager manager;
+
     /**
-     * Creates a handler instance.
+     * Creates a handler instance receiving the timer events of the global timer period.
      */
     protected AbstractTimerEventHandler() {
+        this(0);
+    }
+
+    /**
+     * Creates a handler instance with own timer period.
+     * 
+     * @param period the timer period in ms (the global timer period applies if not positive)
+     */
+    protected AbstractTimerEventHandler(long period) {
         super(TimerEvent.class);
+        this.period = Math.max(0, period);
+    }
+
+    /**
+     * Returns the own timer period.
+     * 
+     * @return the timer period in ms, <code>0</code> if the global timer period applies
+     */
+    public long getTimerPeriod() {
+        return period;
+    }
+
+    /**
+     * Changes the own timer period. Takes effect immediately if this handler is registered.
+     * 
+     * @param period the timer period in ms (the global timer period applies if not positive)
+     */
+    public void setTimerPeriod(long period) {
+        this.period = Math.max(0, period);
+        EventManager mgr = manager;
+        if (null != mgr) {
+            mgr.updateTimer(this);
+        }
+    }
+
+    /**
+     * Attaches this handler to the event manager it is registered with.
+     * 
+     * @param manager the event manager, <b>null</b> if unregistered
+     */
+    void attach(EventManager manager) {
+        this.manager = manager;
     }
 
     @Override
@@ -1,10 +1,10 @@
 /*
- * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ * Copyright 2009-2016 University of Hildesheim, Software Systems Engineering
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
  * You may obtain a copy of the License at
- * 
+ *
  *   http://www.apache.org/licenses/LICENSE-2.0
  *
  * Unless required by applicable law or agreed to in writing, software
@@ -15,81 +15,295 @@
  */
 package eu.qualimaster.events;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
-import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.log4j.LogManager;
 
 /**
- * Represents a client connection, in particular a sharable output stream.
- * 
+ * Represents a (non-blocking) client connection on the server side of the event bus. Received data is parsed into
+ * the client id handshake and {@link EventCodecs event frames}, outgoing frames are queued and written by the
+ * {@link EventServer} I/O thread owning this connection. The queued bytes are bounded, i.e., frames for a slow client
+ * are dropped rather than blocking the sender or exhausting the memory of the server. Frames of 
+ * {@link EventPriority#CONTROL control events} are never dropped and overtake the other queued frames, but at most 
+ * <code>aging</code> control frames in a row.
+ *
  * @author Holger Eichelberger
  */
 class ClientConnection {
-    private Socket socket;
-    private ObjectOutputStream out;
-    private boolean closed;
-    private String clientId;
+
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+    private static final int WRITE_BATCH = 64;
+
+    private SocketChannel channel;
+    private EventServer.IoWorker worker;
+    private SocketAddress remoteAddress;
+    private ByteBuffer in = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private Queue<ByteBuffer> out = new ConcurrentLinkedQueue<ByteBuffer>();
+    private Queue<ByteBuffer> control = new ConcurrentLinkedQueue<ByteBuffer>();
+    private Queue<ByteBuffer> partial; // queue with a partially written head [I/O thread]
+    private int overtaken; // control frames written while other frames were waiting [I/O thread]
+    private int aging;
+    private ByteBuffer[] writeBatch = new ByteBuffer[WRITE_BATCH];
+    private AtomicBoolean writeRequested = new AtomicBoolean();
+    private AtomicLong pending = new AtomicLong();
+    private AtomicLong dropped = new AtomicLong();
+    private AtomicBoolean dropping = new AtomicBoolean();
+    private long capacity;
+    private EventBusTelemetry telemetry;
+    private volatile boolean closed;
+    private volatile String clientId;
 
     /**
      * Creates the client connection.
-     * 
-     * @param clientId the client id
-     * @param socket the client socket
+     *
+     * @param channel the client channel (non-blocking)
+     * @param worker the I/O worker serving this connection
+     * @param capacity the maximum number of bytes queued for sending (at least one frame is always queued)
+     * @param aging the maximum number of control frames overtaking other frames in a row
+     * @param telemetry the telemetry to record received events, written bytes and dropped frames in
      */
-    ClientConnection(String clientId, Socket socket) {
-        this.socket = socket;
-        this.clientId = clientId;
+    ClientConnection(SocketChannel channel, EventServer.IoWorker worker, long capacity, int aging, 
+        EventBusTelemetry telemetry) {
+        this.channel = channel;
+        this.worker = worker;
+        this.capacity = capacity;
+        this.aging = Math.max(1, aging);
+        this.telemetry = telemetry;
+        this.remoteAddress = channel.socket().getRemoteSocketAddress();
         closed = false;
     }
-    
+
     /**
      * Returns the client id.
-     * 
-     * @return the client id
+     *
+     * @return the client id, <b>null</b> if the client did not send its id so far
      */
     String getClientId() {
         return clientId;
     }
-    
+
+    /**
+     * Returns the underlying channel.
+     *
+     * @return the channel
+     */
+    SocketChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * Returns whether this connection is closed.
+     *
+     * @return <code>true</code> if closed, <code>false</code> else
+     */
+    boolean isClosed() {
+        return closed;
+    }
+
     /**
-     * Returns the client socket.
-     * 
-     * @return the socket, may be <b>null</b> if the connection is closed
+     * Returns the number of frames dropped so far as the client did not take them fast enough.
+     *
+     * @return the number of dropped frames
      */
-    Socket getSocket() {
-        return socket;
+    long getDropped() {
+        return dropped.get();
     }
 
     /**
-     * Returns the sharable output stream. Creates the stream upon first use.
-     * 
-     * @return the output stream, may be <b>null</b> if the connection is closed
+     * Returns the number of bytes queued for sending.
+     *
+     * @return the number of bytes
+     */
+    long getPending() {
+        return pending.get();
+    }
+
+    /**
+     * Queues a frame for sending. Does not block. May be called by any thread. The frame is not modified, i.e., the
+     * same frame may be sent to multiple clients.
+     *
+     * @param frame the frame as created by {@link EventCodecs#toFrame(IEvent)}
+     * @param priority the priority of the event in <code>frame</code>
+     * @return <code>true</code> if the frame was queued or dropped as the client is too slow, <code>false</code> if 
+     *     the connection is closed
+     */
+    boolean send(byte[] frame, EventPriority priority) {
+        boolean result = !closed;
+        if (result) {
+            long size = pending.addAndGet(frame.length);
+            if (EventPriority.CONTROL == priority) {
+                control.add(ByteBuffer.wrap(frame));
+                if (writeRequested.compareAndSet(false, true)) {
+                    worker.requestWrite(this);
+                }
+            } else if (size > capacity && size > frame.length) {
+                pending.addAndGet(-frame.length);
+                dropped.incrementAndGet();
+                telemetry.frameDropped();
+                if (dropping.compareAndSet(false, true)) {
+                    LogManager.getLogger(getClass()).warn("Client " + this + " is too slow. Dropping events.");
+                }
+            } else {
+                out.add(ByteBuffer.wrap(frame));
+                if (writeRequested.compareAndSet(false, true)) {
+                    worker.requestWrite(this);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads available data from the channel and parses it. [I/O thread]
+     *
+     * @param received the received events (modified as a side effect)
+     * @return <code>true</code> if the connection is still open, <code>false</code> if the client closed it
+     * @throws IOException in case of I/O problems or if the stream is corrupted
+     */
+    boolean read(List<IEvent> received) throws IOException {
+        boolean open = channel.read(in) >= 0;
+        in.flip();
+        int required = 0;
+        while (0 == required && in.hasRemaining()) {
+            int pos = in.position();
+            int available = in.remaining();
+            if (null == clientId) { // handshake as written by DataOutputStream.writeUTF
+                required = available < 2 ? 2 : 2 + (in.getShort(pos) & 0xFFFF);
+                if (available >= required) {
+                    DataInputStream din = new DataInputStream(
+                        new ByteArrayInputStream(in.array(), in.arrayOffset() + pos, required));
+                    clientId = din.readUTF();
+                    in.position(pos + required);
+                    required = 0;
+                }
+            } else {
+                required = EventCodecs.HEADER_LENGTH;
+                if (available >= required) {
+                    int length = in.getInt(pos);
+                    EventCodecs.checkFrameLength(length);
+                    required += length;
+                    if (available >= required) {
+                        IEvent event = EventCodecs.fromFrame(in.array(),
+                            in.arrayOffset() + pos + EventCodecs.HEADER_LENGTH, length);
+                        if (null != event) { // else skip frame
+                            received.add(event);
+                            telemetry.received(event, required);
+                        }
+                        in.position(pos + required);
+                        required = 0;
+                    }
+                }
+            }
+        }
+        if (required > in.capacity()) {
+            ByteBuffer tmp = ByteBuffer.allocate(required);
+            tmp.put(in);
+            in = tmp;
+        } else {
+            in.compact();
+        }
+        return open;
+    }
+
+    /**
+     * Writes queued frames to the channel as far as possible without blocking. [I/O thread]
+     *
+     * @return <code>true</code> if all queued frames were written, <code>false</code> if the channel cannot take
+     *     further data for now
      * @throws IOException in case of I/O problems
      */
-    ObjectOutputStream getStream() throws IOException {
-        if (!closed && null == out) {
-            out = new ObjectOutputStream(socket.getOutputStream());
-            out.flush();
+    boolean write() throws IOException {
+        writeRequested.set(false); // before writing, frames added meanwhile cause a further request
+        boolean done = false;
+        boolean blocked = false;
+        while (!done && !blocked) {
+            Queue<ByteBuffer> source = selectSource();
+            int count = 0;
+            Iterator<ByteBuffer> iter = source.iterator();
+            while (count < WRITE_BATCH && iter.hasNext()) {
+                writeBatch[count++] = iter.next();
+            }
+            if (0 == count) {
+                done = true;
+            } else {
+                channel.write(writeBatch, 0, count);
+                int written = 0;
+                for (int b = 0; b < count; b++) {
+                    if (writeBatch[b].hasRemaining()) {
+                        blocked = true;
+                    } else if (!blocked) {
+                        int bytes = source.poll().capacity();
+                        pending.addAndGet(-bytes);
+                        telemetry.written(bytes);
+                        written++;
+                    }
+                    writeBatch[b] = null;
+                }
+                partial = blocked && source.peek().position() > 0 ? source : null;
+                if (source == control) {
+                    overtaken += out.isEmpty() ? 0 : written;
+                } else {
+                    overtaken = 0;
+                }
+            }
         }
-        return out;
+        if (done && dropping.get() && dropping.compareAndSet(true, false)) {
+            LogManager.getLogger(getClass()).warn("Client " + this + " caught up. Dropped " + dropped.get() 
+                + " events so far.");
+        }
+        return done;
+    }
+
+    /**
+     * Selects the queue to take the next frames from. A partially written frame must be completed first, else
+     * control frames take precedence unless they overtook other frames {@link #aging} times in a row. [I/O thread]
+     *
+     * @return the queue
+     */
+    private Queue<ByteBuffer> selectSource() {
+        Queue<ByteBuffer> result;
+        if (null != partial) {
+            result = partial;
+        } else if (!control.isEmpty() && (overtaken < aging || out.isEmpty())) {
+            result = control;
+        } else {
+            result = out;
+        }
+        return result;
     }
-    
+
     /**
-     * Closes the connection.
+     * Closes the connection. May be called by any thread.
      */
     void close() {
-        closed = true;
-        if (null != out) {
+        if (!closed) {
+            closed = true;
+            out.clear();
+            control.clear();
+            pending.set(0);
             try {
-                out.close();
+                channel.close();
             } catch (IOException e) {
-                LogManager.getLogger(getClass()).error("While closing client " + socket.getRemoteSocketAddress() 
-                    + " : " + e.getMessage(), e);
+                LogManager.getLogger(getClass()).error("While closing client " + remoteAddress + " : "
+                    + e.getMessage(), e);
             }
-            out = null;
         }
-        // don't close the socket, this is done by the client reader on server side
     }
-}
\ No newline at end of file
+
+    @Override
+    public String toString() {
+        return null == clientId ? String.valueOf(remoteAddress) : clientId + "@" + remoteAddress;
+    }
+
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2009-2016 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.events;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.InetAddress;
+import java.util.HashMap;
+import java.util.Map;
+
+import eu.qualimaster.logging.events.LoggingEvent;
+import eu.qualimaster.monitoring.events.ComponentKey;
+import eu.qualimaster.monitoring.events.HardwareAliveEvent;
+import eu.qualimaster.monitoring.events.PipelineElementMultiObservationMonitoringEvent;
+import eu.qualimaster.monitoring.events.PipelineElementObservationMonitoringEvent;
+import eu.qualimaster.monitoring.events.PipelineObservationMonitoringEvent;
+import eu.qualimaster.observables.IObservable;
+import eu.qualimaster.observables.ObservationSnapshot;
+
+/**
+ * The codecs for the high-volume events defined in this component. Type tags 1-15 are reserved for this class.
+ *
+ * @author Holger Eichelberger
+ */
+class DefaultEventCodecs {
+
+    static final short ID_PIPELINE_ELEMENT_OBSERVATION = 1;
+    static final short ID_PIPELINE_ELEMENT_MULTI_OBSERVATION = 2;
+    static final short ID_PIPELINE_OBSERVATION = 3;
+    static final short ID_LOGGING = 4;
+    static final short ID_HARDWARE_ALIVE = 5;
+
+    private static final byte KEY_NULL = 0;
+    private static final byte KEY_COMPONENT = 1;
+
+    /**
+     * The codec for {@link PipelineElementObservationMonitoringEvent}.
+     */
+    static final IEventCodec<PipelineElementObservationMonitoringEvent> PIPELINE_ELEMENT_OBSERVATION
+        = new IEventCodec<PipelineElementObservationMonitoringEvent>() {
+
+            @Override
+            public Class<PipelineElementObservationMonitoringEvent> handles() {
+                return PipelineElementObservationMonitoringEvent.class;
+            }
+
+            @Override
+            public void encode(PipelineElementObservationMonitoringEvent event, DataOutput out) throws IOException {
+                EventCodecs.writeString(out, event.getPipeline());
+                EventCodecs.writeString(out, event.getPipelineElement());
+                writeKey(out, event.getKey());
+                EventCodecs.writeObservable(out, event.getObservable());
+                EventCodecs.writeDouble(out, event.getObservation());
+            }
+
+            @Override
+            public PipelineElementObservationMonitoringEvent decode(DataInput in) throws IOException {
+                String pipeline = EventCodecs.readString(in);
+                String element = EventCodecs.readString(in);
+                ComponentKey key = readComponentKey(in);
+                IObservable observable = EventCodecs.readObservable(in);
+                Double observation = EventCodecs.readDouble(in);
+                return new PipelineElementObservationMonitoringEvent(pipeline, element, key, observable, observation);
+            }
+
+        };
+
+    /**
+     * The codec for {@link PipelineElementMultiObservationMonitoringEvent}.
+     */
+    static final IEventCodec<PipelineElementMultiObservationMonitoringEvent> PIPELINE_ELEMENT_MULTI_OBSERVATION
+        = new IEventCodec<PipelineElementMultiObservationMonitoringEvent>() {
+
+            @Override
+            public Class<PipelineElementMultiObservationMonitoringEvent> handles() {
+                return PipelineElementMultiObservationMonitoringEvent.class;
+            }
+
+            @Override
+            public void encode(PipelineElementMultiObservationMonitoringEvent event, DataOutput out)
+                throws IOException {
+                EventCodecs.writeString(out, event.getPipeline());
+                EventCodecs.writeString(out, event.getPipelineElement());
+                writeKey(out, event.getKey());
+                Map<IObservable, Double> observations = event.getObservations();
+                if (null == observations) {
+                    out.writeInt(-1);
+                } else if (observations instanceof ObservationSnapshot) {
+                    writeSnapshot(out, (ObservationSnapshot) observations);
+                } else {
+                    out.writeInt(observations.size());
+                    for (Map.Entry<IObservable, Double> entry : observations.entrySet()) {
+                        EventCodecs.writeObservable(out, entry.getKey());
+                        EventCodecs.writeDouble(out, entry.getValue());
+                    }
+                }
+            }
+
+            @Override
+            public PipelineElementMultiObservationMonitoringEvent decode(DataInput in) throws IOException {
+                String pipeline = EventCodecs.readString(in);
+                String element = EventCodecs.readString(in);
+                ComponentKey key = readComponentKey(in);
+                Map<IObservable, Double> observations = null;
+                int count = in.readInt();
+                if (count >= 0) {
+                    observations = new HashMap<IObservable, Double>();
+                    for (int o = 0; o < count; o++) {
+                        IObservable observable = EventCodecs.readObservable(in);
+                        observations.put(observable, EventCodecs.readDouble(in));
+                    }
+                }
+                return new PipelineElementMultiObservationMonitoringEvent(pipeline, element, key, observations);
+            }
+
+        };
+
+    /**
+     * The codec for {@link PipelineObservationMonitoringEvent}.
+     */
+    static final IEventCodec<PipelineObservationMonitoringEvent> PIPELINE_OBSERVATION
+        = new IEventCodec<PipelineObservationMonitoringEvent>() {
+
+            @Override
+            public Class<PipelineObservationMonitoringEvent> handles() {
+                return PipelineObservationMonitoringEvent.class;
+            }
+
+            @Override
+            public void encode(PipelineObservationMonitoringEvent event, DataOutput out) throws IOException {
+                EventCodecs.writeString(out, event.getPipeline());
+                writeKey(out, event.getKey());
+                EventCodecs.writeObservable(out, event.getObservable());
+                EventCodecs.writeDouble(out, event.getObservation());
+            }
+
+            @Override
+            public PipelineObservationMonitoringEvent decode(DataInput in) throws IOException {
+                String pipeline = EventCodecs.readString(in);
+                ComponentKey key = readComponentKey(in);
+                IObservable observable = EventCodecs.readObservable(in);
+                Double observation = EventCodecs.readDouble(in);
+                return new PipelineObservationMonitoringEvent(pipeline, key, observable, observation);
+            }
+
+        };
+
+    /**
+     * The codec for {@link LoggingEvent}.
+     */
+    static final IEventCodec<LoggingEvent> LOGGING = new IEventCodec<LoggingEvent>() {
+
+        @Override
+        public Class<LoggingEvent> handles() {
+            return LoggingEvent.class;
+        }
+
+        @Override
+        public void encode(LoggingEvent event, DataOutput out) throws IOException {
+            out.writeLong(event.getTimeStamp());
+            EventCodecs.writeString(out, event.getLevel());
+            EventCodecs.writeString(out, event.getMessage());
+            EventCodecs.writeString(out, event.getThreadName());
+            InetAddress address = event.getHostAddress();
+            if (null == address) {
+                out.writeByte(0);
+            } else {
+                byte[] raw = address.getAddress();
+                out.writeByte(raw.length);
+                out.write(raw);
+                String text = address.toString(); // host name only if already known, no reverse lookup
+                int pos = text.indexOf('/');
+                EventCodecs.writeString(out, pos > 0 ? text.substring(0, pos) : null);
+            }
+        }
+
+        @Override
+        public LoggingEvent decode(DataInput in) throws IOException {
+            long timeStamp = in.readLong();
+            String level = EventCodecs.readString(in);
+            String message = EventCodecs.readString(in);
+            String threadName = EventCodecs.readString(in);
+            InetAddress address = null;
+            int length = in.readByte();
+            if (length > 0) {
+                byte[] raw = new byte[length];
+                in.readFully(raw);
+                address = InetAddress.getByAddress(EventCodecs.readString(in), raw);
+            }
+            return new LoggingEvent(timeStamp, level, message, threadName, address);
+        }
+
+    };
+
+    /**
+     * The codec for {@link HardwareAliveEvent}.
+     */
+    static final IEventCodec<HardwareAliveEvent> HARDWARE_ALIVE = new IEventCodec<HardwareAliveEvent>() {
+
+        @Override
+        public Class<HardwareAliveEvent> handles() {
+            return HardwareAliveEvent.class;
+        }
+
+        @Override
+        public void encode(HardwareAliveEvent event, DataOutput out) throws IOException {
+            EventCodecs.writeString(out, event.getIdentifier());
+        }
+
+        @Override
+        public HardwareAliveEvent decode(DataInput in) throws IOException {
+            return new HardwareAliveEvent(EventCodecs.readString(in));
+        }
+
+    };
+
+    /**
+     * Prevents external creation.
+     */
+    private DefaultEventCodecs() {
+    }
+
+    /**
+     * Registers the default codecs.
+     */
+    static void register() {
+        EventCodecs.register(ID_PIPELINE_ELEMENT_OBSERVATION, PIPELINE_ELEMENT_OBSERVATION);
+        EventCodecs.register(ID_PIPELINE_ELEMENT_MULTI_OBSERVATION, PIPELINE_ELEMENT_MULTI_OBSERVATION);
+        EventCodecs.register(ID_PIPELINE_OBSERVATION, PIPELINE_OBSERVATION);
+        EventCodecs.register(ID_LOGGING, LOGGING);
+        EventCodecs.register(ID_HARDWARE_ALIVE, HARDWARE_ALIVE);
+    }
+
+    /**
+     * Writes an observation snapshot in the same format as an observation map, but without boxing the values.
+     *
+     * @param out the output
+     * @param observations the observations
+     * @throws IOException in case of I/O problems or if an observable is unknown
+     */
+    private static void writeSnapshot(DataOutput out, ObservationSnapshot observations) throws IOException {
+        out.writeInt(observations.size());
+        for (int o = observations.nextIndex(0); o >= 0; o = observations.nextIndex(o + 1)) {
+            out.writeShort(o); // as EventCodecs.writeObservable
+            boolean isNull = observations.isNull(o);
+            out.writeBoolean(!isNull); // as EventCodecs.writeDouble
+            if (!isNull) {
+                out.writeDouble(observations.getValue(o));
+            }
+        }
+        Map<IObservable, Double> others = observations.getOtherObservations();
+        if (null != others) {
+            for (Map.Entry<IObservable, Double> entry : others.entrySet()) {
+                EventCodecs.writeObservable(out, entry.getKey());
+                EventCodecs.writeDouble(out, entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Writes a monitoring component key. Component keys are written directly, other keys via Java serialization.
+     *
+     * @param out the output
+     * @param key the key (may be <b>null</b>)
+     * @throws IOException in case of I/O problems
+     */
+    private static void writeKey(DataOutput out, Serializable key) throws IOException {
+        if (null == key) {
+            out.writeByte(KEY_NULL);
+        } else if (key instanceof ComponentKey) {
+            ComponentKey cKey = (ComponentKey) key;
+            out.writeByte(KEY_COMPONENT);
+            EventCodecs.writeString(out, cKey.getHostName());
+            out.writeInt(cKey.getPort());
+            out.writeInt(cKey.getTaskId());
+            out.writeLong(cKey.getThreadId());
+        } else {
+            throw new IOException("Unsupported key type " + key.getClass().getName()); // -> serialization
+        }
+    }
+
+    /**
+     * Reads a key written by {@link #writeKey(DataOutput, Serializable)}.
+     *
+     * @param in the input
+     * @return the key (may be <b>null</b>)
+     * @throws IOException in case of I/O problems
+     */
+    private static ComponentKey readComponentKey(DataInput in) throws IOException {
+        ComponentKey result = null;
+        byte type = in.readByte();
+        if (KEY_COMPONENT == type) {
+            result = new ComponentKey(EventCodecs.readString(in), in.readInt(), in.readInt());
+            result.setThreadId(in.readLong());
+        } else if (KEY_NULL != type) {
+            throw new IOException("Unsupported key type " + type);
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.events;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed thread pool running the {@link DispatchLane dispatch lanes} in the order of their virtual deadlines rather
+ * than first-come first-served, i.e., lanes holding control events overtake lanes holding telemetry events. A 
+ * scheduled lane is overtaken by at most <code>aging</code> lane runs per higher {@link EventPriority priority} 
+ * class. Accepts only {@link DispatchLane dispatch lanes}.
+ * 
+ * @author Holger Eichelberger
+ */
+class DispatchExecutor extends ThreadPoolExecutor {
+
+    private final int aging;
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Creates a dispatch executor.
+     * 
+     * @param threads the number of threads (at least 1)
+     * @param aging the starvation bound for lower priorities (at least 1)
+     * @param factory the thread factory
+     */
+    DispatchExecutor(int threads, int aging, ThreadFactory factory) {
+        super(Math.max(1, threads), Math.max(1, threads), 0L, TimeUnit.MILLISECONDS, 
+            new PriorityBlockingQueue<Runnable>(), factory);
+        this.aging = Math.max(1, aging);
+    }
+
+    /**
+     * Returns the virtual deadline for scheduling a lane.
+     * 
+     * @param priority the highest priority of the events queued in the lane
+     * @return the deadline
+     */
+    long deadline(EventPriority priority) {
+        return priority.deadline(sequence.getAndIncrement(), aging);
+    }
+
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2009-2016 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.events;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * A bounded dispatch queue for a single event handler. Events are handled serially in the order of their arrival,
+ * at most one thread of the dispatch pool works on a lane at a time. To be fair to other lanes, a lane gives up
+ * its thread after {@link #BATCH} events. A lane is scheduled with the highest {@link EventPriority priority} of its
+ * queued events, i.e., a waiting lane is re-scheduled if a more important event joins. The lane records the time 
+ * from queuing until dispatching an event in the {@link EventBusTelemetry telemetry} of the event manager.
+ *
+ * @author Holger Eichelberger
+ */
+class DispatchLane implements Runnable, Comparable<DispatchLane> {
+
+    static final int BATCH = 64;
+    private static final Logger LOGGER = LogManager.getLogger(DispatchLane.class);
+    private static final long BLOCK_WAIT = 200;
+    private static final EventPriority[] PRIORITIES = EventPriority.values();
+
+    private final EventHandler<?> handler;
+    private final int capacity;
+    private final DispatchOverflowPolicy policy;
+    private final DispatchExecutor executor;
+    private final AtomicInteger unprocessed;
+    private final EventBusTelemetry telemetry;
+    private final ArrayDeque<IEvent> queue = new ArrayDeque<IEvent>();
+    private long[] arrivals = new long[16]; // queuing times of the events in queue, circular, same order
+    private int arrivalsHead;
+    private final int[] priorities = new int[PRIORITIES.length]; // queued events per priority
+    private volatile long deadline;
+    private boolean scheduled;
+    private boolean closed;
+    private int waiting;
+    private final AtomicLong processed = new AtomicLong();
+    private long dropped;
+
+    /**
+     * Creates a dispatch lane.
+     *
+     * @param handler the handler to dispatch to
+     * @param capacity the maximum number of queued events
+     * @param policy the overflow policy
+     * @param executor the executor running the lane
+     * @param unprocessed the counter for unprocessed events of the event manager, decremented for each event
+     *     processed or dropped by this lane
+     * @param telemetry the telemetry to record dispatched and dropped events
+     */
+    DispatchLane(EventHandler<?> handler, int capacity, DispatchOverflowPolicy policy, DispatchExecutor executor,
+        AtomicInteger unprocessed, EventBusTelemetry telemetry) {
+        this.handler = handler;
+        this.capacity = Math.max(1, capacity);
+        this.policy = policy;
+        this.executor = executor;
+        this.unprocessed = unprocessed;
+        this.telemetry = telemetry;
+    }
+
+    /**
+     * Queues an event for dispatching. The caller must have counted <code>event</code> as unprocessed.
+     *
+     * @param event the event
+     * @param mayBlock whether the calling thread may block (only relevant for
+     *     {@link DispatchOverflowPolicy#BLOCK})
+     * @return <code>true</code> if the event was queued, <code>false</code> if it was dropped
+     */
+    boolean offer(IEvent event, boolean mayBlock) {
+        boolean queued = true;
+        boolean schedule = false;
+        synchronized (this) {
+            if (DispatchOverflowPolicy.BLOCK == policy && mayBlock) {
+                while (!closed && queue.size() >= capacity) {
+                    waiting++;
+                    try {
+                        wait(BLOCK_WAIT);
+                    } catch (InterruptedException e) {
+                    }
+                    waiting--;
+                }
+            } else if (DispatchOverflowPolicy.DROP_OLDEST == policy && queue.size() >= capacity) {
+                IEvent oldest = queue.poll();
+                pollArrival();
+                priorities[EventPriority.of(oldest).ordinal()]--;
+                telemetry.dropped(oldest);
+                dropped++;
+                unprocessed.decrementAndGet();
+            } else if (DispatchOverflowPolicy.DROP_NEWEST == policy && queue.size() >= capacity) {
+                queued = false;
+            } // BLOCK && !mayBlock: exceed the capacity rather than dead-locking the dispatch threads
+            if (closed) {
+                queued = false;
+            }
+            if (queued) {
+                int priority = EventPriority.of(event).ordinal();
+                boolean raises = priority < highestPriority();
+                addArrival(System.nanoTime());
+                queue.add(event);
+                priorities[priority]++;
+                if (!scheduled) {
+                    scheduled = true;
+                    schedule = true;
+                    updateDeadline();
+                } else if (raises) {
+                    reschedule();
+                }
+            } else {
+                telemetry.dropped(event);
+                dropped++;
+                unprocessed.decrementAndGet();
+            }
+        }
+        if (schedule) {
+            schedule();
+        }
+        return queued;
+    }
+
+    /**
+     * Records the queuing time of an event added to the tail of {@link #queue}. Requires the monitor of this 
+     * instance.
+     * 
+     * @param time the queuing time in nanoseconds
+     */
+    private void addArrival(long time) {
+        int size = queue.size();
+        if (size == arrivals.length) {
+            long[] tmp = new long[2 * size];
+            for (int a = 0; a < size; a++) {
+                tmp[a] = arrivals[(arrivalsHead + a) % size];
+            }
+            arrivals = tmp;
+            arrivalsHead = 0;
+        }
+        arrivals[(arrivalsHead + size) % arrivals.length] = time;
+    }
+
+    /**
+     * Removes the queuing time of the event at the head of {@link #queue}. Requires the monitor of this instance and
+     * must be called before removing the head event.
+     * 
+     * @return the queuing time in nanoseconds
+     */
+    private long pollArrival() {
+        long result = arrivals[arrivalsHead];
+        arrivalsHead = (arrivalsHead + 1) % arrivals.length;
+        return result;
+    }
+
+    /**
+     * Returns the highest priority of the queued events. Requires the monitor of this instance.
+     * 
+     * @return the ordinal of the priority, the lowest priority if no event is queued
+     */
+    private int highestPriority() {
+        int p = 0;
+        while (p < priorities.length - 1 && 0 == priorities[p]) {
+            p++;
+        }
+        return p;
+    }
+
+    /**
+     * Determines the deadline for scheduling this lane from the highest priority of the queued events. Requires the 
+     * monitor of this instance.
+     */
+    private void updateDeadline() {
+        deadline = executor.deadline(PRIORITIES[highestPriority()]);
+    }
+
+    /**
+     * Re-keys this lane in the queue of the executor after the highest priority of the queued events rose. The 
+     * deadline must not change while this lane is queued, so it is removed and re-inserted. Does nothing if this lane 
+     * is not waiting, e.g., as it is running. Requires the monitor of this instance.
+     */
+    private void reschedule() {
+        BlockingQueue<Runnable> pending = executor.getQueue();
+        if (pending.remove(this)) {
+            updateDeadline();
+            pending.add(this);
+        }
+    }
+
+    @Override
+    public int compareTo(DispatchLane other) {
+        return deadline < other.deadline ? -1 : (deadline == other.deadline ? 0 : 1);
+    }
+
+    /**
+     * Schedules this lane for execution.
+     */
+    private void schedule() {
+        try {
+            executor.execute(this);
+        } catch (RejectedExecutionException e) { // executor was shut down
+            close();
+        }
+    }
+
+    @Override
+    public void run() {
+        boolean reschedule = false;
+        for (int i = 0; i < BATCH; i++) {
+            IEvent event;
+            long arrival;
+            synchronized (this) {
+                if (queue.isEmpty()) {
+                    scheduled = false;
+                    break;
+                }
+                arrival = pollArrival();
+                event = queue.poll();
+                priorities[EventPriority.of(event).ordinal()]--;
+                if (waiting > 0) {
+                    notifyAll();
+                }
+            }
+            telemetry.dispatched(event, System.nanoTime() - arrival);
+            try {
+                handler.doHandle(event);
+            } catch (Throwable t) { // keep the lane alive, runs on a shared thread
+                LOGGER.error("While handling " + event + " in " + handler.getClass().getName() + ": "
+                    + t.getMessage(), t);
+            }
+            processed.incrementAndGet();
+            unprocessed.decrementAndGet();
+            if (BATCH - 1 == i) {
+                synchronized (this) {
+                    reschedule = !queue.isEmpty();
+                    scheduled = reschedule;
+                    if (reschedule) {
+                        updateDeadline();
+                    }
+                }
+            }
+        }
+        if (reschedule) {
+            schedule();
+        }
+    }
+
+    /**
+     * Closes this lane, i.e., drops all queued events and all further events. Releases blocked threads.
+     */
+    synchronized void close() {
+        closed = true;
+        int size = queue.size();
+        for (IEvent event : queue) {
+            telemetry.dropped(event);
+        }
+        queue.clear();
+        arrivalsHead = 0;
+        Arrays.fill(priorities, 0);
+        dropped += size;
+        unprocessed.addAndGet(-size);
+        scheduled = false;
+        notifyAll();
+    }
+
+    /**
+     * Returns the statistics of this lane.
+     *
+     * @return the statistics
+     */
+    synchronized DispatchLaneStatistics getStatistics() {
+        return new DispatchLaneStatistics(handler.getClass().getName(), handler.getEventClassName(), queue.size(),
+            capacity, processed.get(), dropped);
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2009-2016 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.events;
+
+/**
+ * A snapshot of the statistics of the dispatch lane of an event handler.
+ *
+ * @author Holger Eichelberger
+ */
+public class DispatchLaneStatistics {
+
+    private String handler;
+    private String eventClass;
+    private int depth;
+    private int capacity;
+    private long processed;
+    private long dropped;
+
+    /**
+     * Creates a statistics snapshot.
+     *
+     * @param handler the handler class name
+     * @param eventClass the name of the event class handled
+     * @param depth the number of queued events
+     * @param capacity the maximum number of queued events
+     * @param processed the number of processed events
+     * @param dropped the number of dropped events
+     */
+    DispatchLaneStatistics(String handler, String eventClass, int depth, int capacity, long processed,
+        long dropped) {
+        this.handler = handler;
+        this.eventClass = eventClass;
+        this.depth = depth;
+        this.capacity = capacity;
+        this.processed = processed;
+        this.dropped = dropped;
+    }
+
+    /**
+     * Returns the class name of the handler.
+     *
+     * @return the class name
+     */
+    public String getHandler() {
+        return handler;
+    }
+
+    /**
+     * Returns the name of the event class handled.
+     *
+     * @return the event class name
+     */
+    public String getEventClass() {
+        return eventClass;
+    }
+
+    /**
+     * Returns the number of queued events.
+     *
+     * @return the number of queued events
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the maximum number of queued events.
+     *
+     * @return the maximum number of queued events
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of processed events.
+     *
+     * @return the number of processed events
+     */
+    public long getProcessed() {
+        return processed;
+    }
+
+    /**
+     * Returns the number of dropped events.
+     *
+     * @return the number of dropped events
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    @Override
+    public String toString() {
+        return handler + " (" + eventClass + "): depth " + depth + "/" + capacity + " processed " + processed
+            + " dropped " + dropped;
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2009-2016 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.events;
+
+/**
+ * Defines what happens if a bounded event queue, e.g., the dispatch queue of an event handler, is full.
+ *
+ * @author Holger Eichelberger
+ */
+public enum DispatchOverflowPolicy {
+
+    /**
+     * Block the handing-in thread until there is space in the queue. Dispatch threads handing in events (e.g.,
+     * handlers sending events) are not blocked to avoid dead-locks, event server I/O threads are not blocked to keep 
+     * serving all connections. Events handed in by these threads exceed the capacity rather than being dropped.
+     */
+    BLOCK,
+
+    /**
+     * Drop the oldest queued event in favor of the new one.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Drop the new event.
+     */
+    DROP_NEWEST;
+
+    /**
+     * Turns a policy name into a policy.
+     *
+     * @param name the name (may be <b>null</b>, case is ignored)
+     * @param dflt the default policy if <code>name</code> does not denote a policy
+     * @return the policy
+     */
+    public static DispatchOverflowPolicy parse(String name, DispatchOverflowPolicy dflt) {
+        DispatchOverflowPolicy result = dflt;
+        if (null != name) {
+            try {
+                result = valueOf(name.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                // use dflt
+            }
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2009-2016 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.events;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable snapshot of the handler registrations of an {@link EventManager} including a lazily filled
+ * dispatch cache mapping (event class, channel) to the handlers to be called. Registering or unregistering a handler
+ * creates a new table (copy-on-write), i.e., a cache hit during dispatching neither allocates nor locks.
+ *
+ * @author Holger Eichelberger
+ */
+class DispatchTable {
+
+    static final DispatchTable EMPTY = new DispatchTable(Collections.<String, EventHandler<?>[]>emptyMap());
+    private static final EventHandler<?>[] NO_HANDLERS = new EventHandler<?>[0];
+
+    private final Map<String, EventHandler<?>[]> registrations;
+    private final Map<Class<?>, CacheEntry> cache = new ConcurrentHashMap<Class<?>, CacheEntry>();
+
+    /**
+     * The cached handlers for an event class.
+     *
+     * @author Holger Eichelberger
+     */
+    private static class CacheEntry {
+
+        private volatile EventHandler<?>[] noChannel; // channel null, not allowed as key
+        private final Map<String, EventHandler<?>[]> channels = new ConcurrentHashMap<String, EventHandler<?>[]>();
+
+    }
+
+    /**
+     * Creates a dispatch table.
+     *
+     * @param registrations the registrations (event class name - handlers, not modified afterwards)
+     */
+    private DispatchTable(Map<String, EventHandler<?>[]> registrations) {
+        this.registrations = registrations;
+    }
+
+    /**
+     * Returns a new table with <code>handler</code> registered in addition.
+     *
+     * @param handler the handler to register
+     * @return the new table
+     */
+    DispatchTable register(EventHandler<?> handler) {
+        Map<String, EventHandler<?>[]> regs = new HashMap<String, EventHandler<?>[]>(registrations);
+        String name = handler.getEventClassName();
+        EventHandler<?>[] handlers = regs.get(name);
+        if (null == handlers) {
+            handlers = new EventHandler<?>[] {handler};
+        } else {
+            handlers = Arrays.copyOf(handlers, handlers.length + 1);
+            handlers[handlers.length - 1] = handler;
+        }
+        regs.put(name, handlers);
+        return new DispatchTable(regs);
+    }
+
+    /**
+     * Returns a new table with (one registration of) <code>handler</code> removed.
+     *
+     * @param handler the handler to unregister
+     * @return the new table, <b>this</b> if <code>handler</code> is not registered
+     */
+    DispatchTable unregister(EventHandler<?> handler) {
+        DispatchTable result = this;
+        String name = handler.getEventClassName();
+        EventHandler<?>[] handlers = registrations.get(name);
+        int pos = -1;
+        for (int h = 0; pos < 0 && null != handlers && h < handlers.length; h++) {
+            if (handlers[h] == handler) {
+                pos = h;
+            }
+        }
+        if (pos >= 0) {
+            Map<String, EventHandler<?>[]> regs = new HashMap<String, EventHandler<?>[]>(registrations);
+            if (1 == handlers.length) {
+                regs.remove(name);
+            } else {
+                EventHandler<?>[] tmp = new EventHandler<?>[handlers.length - 1];
+                System.arraycopy(handlers, 0, tmp, 0, pos);
+                System.arraycopy(handlers, pos + 1, tmp, pos, handlers.length - pos - 1);
+                regs.put(name, tmp);
+            }
+            result = new DispatchTable(regs);
+        }
+        return result;
+    }
+
+    /**
+     * Returns all registered handlers.
+     *
+     * @return the handlers (a copy, may be empty)
+     */
+    List<EventHandler<?>> getHandlers() {
+        List<EventHandler<?>> result = new ArrayList<EventHandler<?>>();
+        for (EventHandler<?>[] handlers : registrations.values()) {
+            result.addAll(Arrays.asList(handlers));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the handlers for events of <code>cls</code> on <code>channel</code>, i.e., the handlers registered for
+     * <code>cls</code>, its superclasses or interfaces and accepting <code>channel</code>.
+     *
+     * @param cls the event class
+     * @param channel the event channel (may be <b>null</b>)
+     * @return the handlers (do not modify, may be empty)
+     */
+    EventHandler<?>[] getHandlers(Class<?> cls, String channel) {
+        CacheEntry entry = cache.get(cls);
+        if (null == entry) {
+            entry = new CacheEntry();
+            cache.put(cls, entry); // concurrent creation just leads to recalculation
+        }
+        EventHandler<?>[] result = null == channel ? entry.noChannel : entry.channels.get(channel);
+        if (null == result) {
+            Set<EventHandler<?>> handlers = new LinkedHashSet<EventHandler<?>>();
+            collectHandlers(cls, channel, handlers);
+            result = handlers.isEmpty() ? NO_HANDLERS : handlers.toArray(new EventHandler<?>[handlers.size()]);
+            if (null == channel) {
+                entry.noChannel = result;
+            } else {
+                entry.channels.put(channel, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Collects the handlers for <code>cls</code>, its superclasses and interfaces.
+     *
+     * @param cls the event class to search for
+     * @param channel the event channel name (may be <b>null</b>)
+     * @param handlers the handlers collected so far (modified as a side effect)
+     */
+    private void collectHandlers(Class<?> cls, String channel, Set<EventHandler<?>> handlers) {
+        EventHandler<?>[] tmp = registrations.get(cls.getName());
+        if (null != tmp) {
+            for (int t = 0; t < tmp.length; t++) {
+                EventHandler<?> handler = tmp[t];
+                if (handler.handlesChannel(channel)) {
+                    handlers.add(handler);
+                }
+            }
+        }
+        if (null != cls.getSuperclass()) {
+            collectHandlers(cls.getSuperclass(), channel, handlers);
+        }
+        Class<?>[] ifaces = cls.getInterfaces();
+        for (int i = 0, n = ifaces.length; i < n; i++) {
+            collectHandlers(ifaces[i], channel, handlers);
+        }
+    }
+
+}
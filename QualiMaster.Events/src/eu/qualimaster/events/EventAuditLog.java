@@ -0,0 +1,401 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.events;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * An asynchronous binary audit log of the events passing an event manager. Recording an event just queues a small
+ * record without formatting the event, i.e., auditing can stay enabled in production. If the queue is full, records
+ * are dropped (and counted) rather than blocking the caller. A background thread appends the records to a
+ * memory-mapped segment file per day (<code>events-yyyyMMdd.qmaudit</code>), which is extended in chunks of
+ * {@link #CHUNK_SIZE} bytes. The file starts with {@link #MAGIC} and {@link #VERSION}, followed by records of the form
+ * <code>int length, long timestamp, byte kind, int size, string eventClass, string channel, string pipeline,
+ * string pipelineElement</code> where <code>length</code> is the number of bytes following the length field and a
+ * string is a <code>short</code> byte count (-1 for <b>null</b>) followed by UTF-8 bytes. A zero length marks the
+ * end of the data, i.e., the zero-filled unused rest of the last chunk. Use {@link EventAuditReader} to read a
+ * segment.
+ *
+ * @author Holger Eichelberger
+ */
+public class EventAuditLog {
+
+    public static final int MAGIC = 0x514D414C; // QMAL
+    public static final int VERSION = 1;
+    public static final String FILE_PREFIX = "events-";
+    public static final String FILE_SUFFIX = ".qmaudit";
+    static final Charset UTF8 = Charset.forName("UTF-8");
+    static final int CHUNK_SIZE = 16 * 1024 * 1024;
+    private static final Logger LOGGER = LogManager.getLogger(EventAuditLog.class);
+    private static final long POLL_WAIT = 200;
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    private static final int MAX_STRING = Short.MAX_VALUE;
+
+    private final File dir;
+    private final BlockingQueue<Record> queue;
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean running;
+    private Thread writer;
+    // [writer thread]
+    private RandomAccessFile file;
+    private MappedByteBuffer buffer;
+    private long bufferStart;
+    private long dayStart;
+    private long dayEnd;
+
+    /**
+     * The kind of an audit record.
+     *
+     * @author Holger Eichelberger
+     */
+    public enum Kind {
+
+        /**
+         * An event was received by the event manager for handling or sending.
+         */
+        RECEIVED,
+
+        /**
+         * An event was sent to the event bus server.
+         */
+        SENT,
+
+        /**
+         * An event was dispatched to a handler.
+         */
+        DISPATCHED,
+
+        /**
+         * An event was consumed by a handler.
+         */
+        CONSUMED
+    }
+
+    /**
+     * A queued audit record.
+     *
+     * @author Holger Eichelberger
+     */
+    private static class Record {
+
+        private final long timestamp;
+        private final Kind kind;
+        private final IEvent event;
+        private final int size;
+
+        /**
+         * Creates a record.
+         *
+         * @param timestamp the timestamp in ms
+         * @param kind the kind of record
+         * @param event the event (not modified, evaluated by the writer thread)
+         * @param size the serialized size of the event in bytes, -1 if unknown
+         */
+        private Record(long timestamp, Kind kind, IEvent event, int size) {
+            this.timestamp = timestamp;
+            this.kind = kind;
+            this.event = event;
+            this.size = size;
+        }
+
+    }
+
+    /**
+     * Creates an audit log. Call {@link #start()} to start writing.
+     *
+     * @param dir the directory to write the segments into (created if it does not exist)
+     * @param capacity the maximum number of queued records (at least 1)
+     */
+    public EventAuditLog(File dir, int capacity) {
+        this.dir = dir;
+        this.queue = new ArrayBlockingQueue<Record>(Math.max(1, capacity));
+    }
+
+    /**
+     * Records an event. Does not block.
+     *
+     * @param kind the kind of record
+     * @param event the event
+     * @param size the serialized size of the event in bytes, -1 if unknown
+     */
+    public void record(Kind kind, IEvent event, int size) {
+        if (!queue.offer(new Record(System.currentTimeMillis(), kind, event, size))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the number of records dropped so far as the queue was full.
+     *
+     * @return the number of dropped records
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Starts the background writer.
+     */
+    public synchronized void start() {
+        if (!running) {
+            running = true;
+            writer = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    write();
+                }
+
+            }, "EventAudit");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    /**
+     * Stops the background writer after writing the queued records.
+     */
+    public synchronized void stop() {
+        if (running) {
+            running = false;
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+            }
+            writer = null;
+        }
+    }
+
+    /**
+     * The loop of the writer thread.
+     */
+    private void write() {
+        while (running || !queue.isEmpty()) {
+            try {
+                Record record = queue.poll(POLL_WAIT, TimeUnit.MILLISECONDS);
+                if (null != record) {
+                    write(record);
+                }
+            } catch (InterruptedException e) {
+            } catch (IOException e) {
+                LOGGER.error("While writing event audit log: " + e.getMessage(), e);
+                closeSegment();
+            }
+        }
+        closeSegment();
+        long drp = dropped.get();
+        if (drp > 0) {
+            LOGGER.warn("Event audit log dropped " + drp + " records.");
+        }
+    }
+
+    /**
+     * Writes a record. [writer thread]
+     *
+     * @param record the record
+     * @throws IOException in case that writing fails
+     */
+    private void write(Record record) throws IOException {
+        IEvent event = record.event;
+        String pipeline = null;
+        String element = null;
+        if (event instanceof IPipelineScopedEvent) {
+            IPipelineScopedEvent evt = (IPipelineScopedEvent) event;
+            pipeline = evt.getPipeline();
+            element = evt.getPipelineElement();
+        }
+        byte[] cls = toBytes(event.getClass().getName());
+        byte[] channel = toBytes(event.getChannel());
+        byte[] pip = toBytes(pipeline);
+        byte[] elt = toBytes(element);
+        int length = 8 + 1 + 4 + length(cls) + length(channel) + length(pip) + length(elt);
+        ensureSegment(record.timestamp, 4 + length);
+        buffer.putInt(length);
+        buffer.putLong(record.timestamp);
+        buffer.put((byte) record.kind.ordinal());
+        buffer.putInt(record.size);
+        put(cls);
+        put(channel);
+        put(pip);
+        put(elt);
+    }
+
+    /**
+     * Turns a string into its UTF-8 bytes.
+     *
+     * @param string the string (may be <b>null</b>)
+     * @return the bytes, <b>null</b> if <code>string</code> is <b>null</b>, truncated to {@link #MAX_STRING} bytes
+     */
+    private static byte[] toBytes(String string) {
+        byte[] result = null;
+        if (null != string) {
+            result = string.getBytes(UTF8);
+            if (result.length > MAX_STRING) {
+                byte[] tmp = new byte[MAX_STRING];
+                System.arraycopy(result, 0, tmp, 0, MAX_STRING);
+                result = tmp;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of bytes needed to write a string.
+     *
+     * @param bytes the bytes of the string (may be <b>null</b>)
+     * @return the number of bytes
+     */
+    private static int length(byte[] bytes) {
+        return 2 + (null == bytes ? 0 : bytes.length);
+    }
+
+    /**
+     * Writes the bytes of a string. [writer thread]
+     *
+     * @param bytes the bytes (may be <b>null</b>)
+     */
+    private void put(byte[] bytes) {
+        if (null == bytes) {
+            buffer.putShort((short) -1);
+        } else {
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    /**
+     * Ensures that the segment for <code>timestamp</code> is open and can take <code>bytes</code>. [writer thread]
+     *
+     * @param timestamp the timestamp of the record to write
+     * @param bytes the number of bytes to write
+     * @throws IOException in case that the segment cannot be opened or extended
+     */
+    private void ensureSegment(long timestamp, int bytes) throws IOException {
+        if (null == file || timestamp < dayStart || timestamp >= dayEnd) {
+            closeSegment();
+            openSegment(timestamp);
+        }
+        if (buffer.remaining() < bytes) {
+            map(bufferStart + buffer.position(), Math.max(CHUNK_SIZE, bytes));
+        }
+    }
+
+    /**
+     * Opens (or continues) the segment for the day of <code>timestamp</code>. [writer thread]
+     *
+     * @param timestamp the timestamp
+     * @throws IOException in case that the segment cannot be opened
+     */
+    private void openSegment(long timestamp) throws IOException {
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        Date date = new Date(timestamp);
+        String day = new SimpleDateFormat("yyyyMMdd").format(date);
+        try {
+            dayStart = new SimpleDateFormat("yyyyMMdd").parse(day).getTime();
+        } catch (ParseException e) {
+            dayStart = timestamp - timestamp % DAY;
+        }
+        dayEnd = dayStart + DAY; // DST days are fine, the next record determines the next segment
+        file = new RandomAccessFile(new File(dir, FILE_PREFIX + day + FILE_SUFFIX), "rw");
+        long end = file.length();
+        if (0 == end) {
+            map(0, CHUNK_SIZE);
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+        } else {
+            map(0, Math.min(end, Integer.MAX_VALUE));
+            long pos = skipRecords();
+            map(pos, CHUNK_SIZE);
+        }
+    }
+
+    /**
+     * Skips the header and the records of an existing segment. [writer thread]
+     *
+     * @return the position after the last record
+     * @throws IOException if the segment is not an audit log
+     */
+    private long skipRecords() throws IOException {
+        long pos;
+        try {
+            if (MAGIC != buffer.getInt() || VERSION != buffer.getInt()) {
+                throw new IOException("Not an event audit log of version " + VERSION);
+            }
+            pos = buffer.position();
+            boolean more = true;
+            while (more && buffer.remaining() >= 4) {
+                int length = buffer.getInt();
+                more = length > 0 && buffer.remaining() >= length; // else end or incomplete record to overwrite
+                if (more) {
+                    buffer.position(buffer.position() + length);
+                    pos = buffer.position();
+                }
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Corrupted event audit log");
+        }
+        return pos;
+    }
+
+    /**
+     * Maps a region of the current segment file. [writer thread]
+     *
+     * @param position the start position of the region
+     * @param size the size of the region
+     * @throws IOException in case that mapping fails
+     */
+    private void map(long position, long size) throws IOException {
+        bufferStart = position;
+        buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, position, size);
+    }
+
+    /**
+     * Closes the current segment. [writer thread]
+     */
+    private void closeSegment() {
+        if (null != buffer) {
+            buffer.force();
+            buffer = null;
+        }
+        if (null != file) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                LOGGER.error("While closing event audit log: " + e.getMessage(), e);
+            }
+            file = null;
+        }
+    }
+
+}
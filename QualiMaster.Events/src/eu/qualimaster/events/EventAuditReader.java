@@ -0,0 +1,237 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.events;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Reads segments written by {@link EventAuditLog}. Can be used as a command line tool printing the records of the
+ * given segment files, one record per line.
+ *
+ * @author Holger Eichelberger
+ */
+public class EventAuditReader implements Closeable {
+
+    private static final EventAuditLog.Kind[] KINDS = EventAuditLog.Kind.values();
+
+    private DataInputStream in;
+
+    /**
+     * Represents a record of the audit log.
+     *
+     * @author Holger Eichelberger
+     */
+    public static class Entry {
+
+        private long timestamp;
+        private EventAuditLog.Kind kind;
+        private int size;
+        private String eventClass;
+        private String channel;
+        private String pipeline;
+        private String pipelineElement;
+
+        /**
+         * Returns the timestamp of the record.
+         *
+         * @return the timestamp in ms
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * Returns the kind of the record.
+         *
+         * @return the kind
+         */
+        public EventAuditLog.Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * Returns the serialized size of the event.
+         *
+         * @return the size in bytes, -1 if unknown
+         */
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * Returns the name of the event class.
+         *
+         * @return the name of the event class
+         */
+        public String getEventClass() {
+            return eventClass;
+        }
+
+        /**
+         * Returns the channel of the event.
+         *
+         * @return the channel (may be <b>null</b>)
+         */
+        public String getChannel() {
+            return channel;
+        }
+
+        /**
+         * Returns the pipeline of the event.
+         *
+         * @return the pipeline (may be <b>null</b>)
+         */
+        public String getPipeline() {
+            return pipeline;
+        }
+
+        /**
+         * Returns the pipeline element of the event.
+         *
+         * @return the pipeline element (may be <b>null</b>)
+         */
+        public String getPipelineElement() {
+            return pipelineElement;
+        }
+
+        @Override
+        public String toString() {
+            return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date(timestamp)) + " " + kind + " "
+                + eventClass + " size " + size + " channel " + channel + " pipeline " + pipeline + " element "
+                + pipelineElement;
+        }
+
+    }
+
+    /**
+     * Opens a segment for reading.
+     *
+     * @param file the segment file
+     * @throws IOException in case that the file cannot be opened or is not an audit log segment
+     */
+    public EventAuditReader(File file) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (EventAuditLog.MAGIC != in.readInt() || EventAuditLog.VERSION != in.readInt()) {
+                throw new IOException(file + " is not an event audit log of version " + EventAuditLog.VERSION);
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the next record, <b>null</b> if there are no more records
+     * @throws IOException in case that reading fails
+     */
+    public Entry next() throws IOException {
+        Entry result = null;
+        try {
+            int length = in.readInt();
+            if (length > 0) {
+                byte[] data = new byte[length];
+                in.readFully(data);
+                DataInputStream rec = new DataInputStream(new ByteArrayInputStream(data));
+                result = new Entry();
+                result.timestamp = rec.readLong();
+                int kind = rec.readByte();
+                result.kind = kind >= 0 && kind < KINDS.length ? KINDS[kind] : null;
+                result.size = rec.readInt();
+                result.eventClass = readString(rec);
+                result.channel = readString(rec);
+                result.pipeline = readString(rec);
+                result.pipelineElement = readString(rec);
+            }
+        } catch (EOFException e) {
+            result = null; // end of data or incomplete record
+        }
+        return result;
+    }
+
+    /**
+     * Reads a string.
+     *
+     * @param in the input stream
+     * @return the string (may be <b>null</b>)
+     * @throws IOException in case that reading fails
+     */
+    private static String readString(DataInputStream in) throws IOException {
+        String result = null;
+        int length = in.readShort();
+        if (length >= 0) {
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            result = new String(bytes, EventAuditLog.UTF8);
+        }
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Prints the records of a segment.
+     *
+     * @param file the segment file
+     * @param out the stream to print to
+     * @throws IOException in case that reading fails
+     */
+    public static void print(File file, PrintStream out) throws IOException {
+        EventAuditReader reader = new EventAuditReader(file);
+        try {
+            Entry entry;
+            while (null != (entry = reader.next())) {
+                out.println(entry);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Prints the records of the segment files given as arguments.
+     *
+     * @param args the segment files
+     */
+    public static void main(String[] args) {
+        if (0 == args.length) {
+            System.out.println("usage: " + EventAuditReader.class.getName() + " <segment file>+");
+        }
+        for (int a = 0; a < args.length; a++) {
+            try {
+                print(new File(args[a]), System.out);
+            } catch (IOException e) {
+                System.err.println(args[a] + ": " + e.getMessage());
+            }
+        }
+    }
+
+}
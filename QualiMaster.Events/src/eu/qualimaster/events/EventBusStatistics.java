@@ -0,0 +1,178 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.events;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A snapshot of the event bus statistics of an event manager. Counters are cumulative since the creation of the 
+ * event manager, i.e., rates are obtained from the difference of two snapshots.
+ *
+ * @author Holger Eichelberger
+ */
+public class EventBusStatistics implements Serializable {
+
+    private static final long serialVersionUID = -2264934093452873018L;
+    private String id;
+    private long timestamp;
+    private long bytesSent;
+    private long bytesReceived;
+    private long framesDropped;
+    private int sendQueueDepth;
+    private long forwardQueueBytes;
+    private int dispatchQueueDepth;
+    private Map<String, EventClassStatistics> classes;
+
+    /**
+     * Creates a statistics snapshot.
+     *
+     * @param id the id of the event manager
+     * @param timestamp the time of taking the snapshot
+     * @param bytesSent the number of bytes sent over the wire
+     * @param bytesReceived the number of bytes received over the wire
+     * @param framesDropped the number of frames dropped on server side for slow clients
+     * @param sendQueueDepth the number of events queued for sending to the server
+     * @param forwardQueueBytes the number of bytes queued for sending to clients
+     * @param dispatchQueueDepth the number of events queued for dispatching to handlers
+     * @param classes the statistics per event class name
+     */
+    EventBusStatistics(String id, long timestamp, long bytesSent, long bytesReceived, long framesDropped, 
+        int sendQueueDepth, long forwardQueueBytes, int dispatchQueueDepth, Map<String, EventClassStatistics> classes) {
+        this.id = id;
+        this.timestamp = timestamp;
+        this.bytesSent = bytesSent;
+        this.bytesReceived = bytesReceived;
+        this.framesDropped = framesDropped;
+        this.sendQueueDepth = sendQueueDepth;
+        this.forwardQueueBytes = forwardQueueBytes;
+        this.dispatchQueueDepth = dispatchQueueDepth;
+        this.classes = classes;
+    }
+
+    /**
+     * Returns the id of the event manager.
+     *
+     * @return the id
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the time of taking this snapshot.
+     *
+     * @return the time in ms since 1970
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns the number of bytes sent over the wire.
+     *
+     * @return the number of bytes
+     */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * Returns the number of bytes received over the wire.
+     *
+     * @return the number of bytes
+     */
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    /**
+     * Returns the number of frames dropped on server side as clients did not take them fast enough.
+     *
+     * @return the number of dropped frames
+     */
+    public long getFramesDropped() {
+        return framesDropped;
+    }
+
+    /**
+     * Returns the number of events queued for sending to the server (client side).
+     *
+     * @return the number of events
+     */
+    public int getSendQueueDepth() {
+        return sendQueueDepth;
+    }
+
+    /**
+     * Returns the number of bytes queued for sending to clients (server side).
+     *
+     * @return the number of bytes
+     */
+    public long getForwardQueueBytes() {
+        return forwardQueueBytes;
+    }
+
+    /**
+     * Returns the number of events queued for dispatching to local handlers.
+     *
+     * @return the number of events
+     */
+    public int getDispatchQueueDepth() {
+        return dispatchQueueDepth;
+    }
+
+    /**
+     * Returns the statistics per event class.
+     *
+     * @return the statistics per event class name
+     */
+    public Map<String, EventClassStatistics> getClasses() {
+        return Collections.unmodifiableMap(classes);
+    }
+
+    /**
+     * Returns the statistics of an event class.
+     *
+     * @param cls the event class
+     * @return the statistics, <b>null</b> if there are none
+     */
+    public EventClassStatistics getClassStatistics(Class<? extends IEvent> cls) {
+        return classes.get(cls.getName());
+    }
+
+    /**
+     * Returns the latencies over all event classes.
+     *
+     * @return the latencies in microseconds
+     */
+    public LatencyHistogram.Snapshot getLatency() {
+        LatencyHistogram.Snapshot result = new LatencyHistogram.Snapshot();
+        for (EventClassStatistics stat : classes.values()) {
+            result.add(stat.getLatency());
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return id + ": sent " + bytesSent + " bytes received " + bytesReceived + " bytes frames dropped " 
+            + framesDropped + " send queue " + sendQueueDepth + " forward queue " + forwardQueueBytes 
+            + " bytes dispatch queue " + dispatchQueueDepth + " " + classes.values();
+    }
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.events;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Collects the telemetry of an {@link EventManager}, i.e., counters per event class, the bytes on the wire and the
+ * latencies from handing an event to the event manager until dispatching it to a handler. Recording does not lock
+ * (except for the first event of a class), i.e., it can be called on all event paths. Counters are cumulative, the
+ * latency histograms are either taken for the current period (and reset) or cumulative since creation.
+ * 
+ * @author Holger Eichelberger
+ */
+class EventBusTelemetry {
+
+    static final int SENT = 0;
+    static final int RECEIVED = 1;
+    static final int DISPATCHED = 2;
+    static final int DROPPED = 3;
+    private static final int COUNTERS = 4;
+
+    private final ConcurrentMap<Class<?>, ClassTelemetry> classes = new ConcurrentHashMap<Class<?>, ClassTelemetry>();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong framesDropped = new AtomicLong();
+
+    /**
+     * The telemetry of an event class.
+     * 
+     * @author Holger Eichelberger
+     */
+    private static class ClassTelemetry {
+
+        private final AtomicLongArray counters = new AtomicLongArray(COUNTERS);
+        private final LatencyHistogram latency = new LatencyHistogram(); // current period
+        private final LatencyHistogram.Snapshot total = new LatencyHistogram.Snapshot(); // previous periods
+
+    }
+
+    /**
+     * Returns the telemetry for an event class.
+     * 
+     * @param cls the event class
+     * @return the telemetry
+     */
+    private ClassTelemetry get(Class<?> cls) {
+        ClassTelemetry result = classes.get(cls);
+        if (null == result) {
+            ClassTelemetry tmp = new ClassTelemetry();
+            result = classes.putIfAbsent(cls, tmp);
+            if (null == result) {
+                result = tmp;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Counts an event sent over the wire. On server side, an event is counted when its frame is queued for a client.
+     * 
+     * @param event the event
+     */
+    void sent(IEvent event) {
+        get(event.getClass()).counters.incrementAndGet(SENT);
+    }
+
+    /**
+     * Counts bytes written to the wire.
+     * 
+     * @param bytes the number of bytes
+     */
+    void written(long bytes) {
+        bytesSent.addAndGet(bytes);
+    }
+
+    /**
+     * Counts an event received over the wire.
+     * 
+     * @param event the event
+     * @param bytes the size of the frame in bytes
+     */
+    void received(IEvent event, int bytes) {
+        get(event.getClass()).counters.incrementAndGet(RECEIVED);
+        bytesReceived.addAndGet(bytes);
+    }
+
+    /**
+     * Counts an event dispatched to a handler.
+     * 
+     * @param event the event
+     * @param latencyNanos the time from handing in the event until dispatching it in nanoseconds
+     */
+    void dispatched(IEvent event, long latencyNanos) {
+        ClassTelemetry tel = get(event.getClass());
+        tel.counters.incrementAndGet(DISPATCHED);
+        tel.latency.recordNanos(latencyNanos);
+    }
+
+    /**
+     * Counts a dropped event.
+     * 
+     * @param event the event
+     */
+    void dropped(IEvent event) {
+        get(event.getClass()).counters.incrementAndGet(DROPPED);
+    }
+
+    /**
+     * Counts a frame dropped on server side as a client did not take it fast enough. The event class is not known
+     * at that point.
+     */
+    void frameDropped() {
+        framesDropped.incrementAndGet();
+    }
+
+    /**
+     * Returns a counter of an event class. [testing]
+     * 
+     * @param cls the event class
+     * @param counter the counter, one of {@link #SENT}, {@link #RECEIVED}, {@link #DISPATCHED}, {@link #DROPPED}
+     * @return the value of the counter
+     */
+    long get(Class<?> cls, int counter) {
+        ClassTelemetry tel = classes.get(cls);
+        return null == tel ? 0 : tel.counters.get(counter);
+    }
+
+    /**
+     * Creates a snapshot of the telemetry with the latencies since creation.
+     * 
+     * @param id the id of the event manager
+     * @param sendQueueDepth the number of events queued for sending
+     * @param forwardQueueBytes the number of bytes queued for sending to clients
+     * @param dispatchQueueDepth the number of events queued for dispatching
+     * @return the snapshot
+     */
+    EventBusStatistics snapshot(String id, int sendQueueDepth, long forwardQueueBytes, int dispatchQueueDepth) {
+        return snapshot(id, sendQueueDepth, forwardQueueBytes, dispatchQueueDepth, false);
+    }
+
+    /**
+     * Creates a snapshot of the telemetry with the latencies since the last call and starts a new period, e.g., for
+     * publishing the telemetry periodically. The latencies remain in the cumulative view of 
+     * {@link #snapshot(String, int, long, int)}.
+     * 
+     * @param id the id of the event manager
+     * @param sendQueueDepth the number of events queued for sending
+     * @param forwardQueueBytes the number of bytes queued for sending to clients
+     * @param dispatchQueueDepth the number of events queued for dispatching
+     * @return the snapshot
+     */
+    EventBusStatistics snapshotAndReset(String id, int sendQueueDepth, long forwardQueueBytes, 
+        int dispatchQueueDepth) {
+        return snapshot(id, sendQueueDepth, forwardQueueBytes, dispatchQueueDepth, true);
+    }
+
+    /**
+     * Creates a snapshot of the telemetry.
+     * 
+     * @param id the id of the event manager
+     * @param sendQueueDepth the number of events queued for sending
+     * @param forwardQueueBytes the number of bytes queued for sending to clients
+     * @param dispatchQueueDepth the number of events queued for dispatching
+     * @param reset whether the latencies of the current period shall be taken and reset, else the cumulative ones
+     * @return the snapshot
+     */
+    private EventBusStatistics snapshot(String id, int sendQueueDepth, long forwardQueueBytes, 
+        int dispatchQueueDepth, boolean reset) {
+        Map<String, EventClassStatistics> stats = new TreeMap<String, EventClassStatistics>();
+        for (Map.Entry<Class<?>, ClassTelemetry> ent : classes.entrySet()) {
+            ClassTelemetry tel = ent.getValue();
+            LatencyHistogram.Snapshot latency;
+            synchronized (tel) { // recording does not lock, only taking snapshots
+                if (reset) {
+                    latency = tel.latency.snapshotAndReset();
+                    tel.total.add(latency);
+                } else {
+                    latency = new LatencyHistogram.Snapshot();
+                    latency.add(tel.total);
+                    latency.add(tel.latency.snapshot());
+                }
+            }
+            stats.put(ent.getKey().getName(), new EventClassStatistics(ent.getKey().getName(), 
+                tel.counters.get(SENT), tel.counters.get(RECEIVED), tel.counters.get(DISPATCHED), 
+                tel.counters.get(DROPPED), latency));
+        }
+        return new EventBusStatistics(id, System.currentTimeMillis(), bytesSent.get(), bytesReceived.get(), 
+            framesDropped.get(), sendQueueDepth, forwardQueueBytes, dispatchQueueDepth, stats);
+    }
+
+}
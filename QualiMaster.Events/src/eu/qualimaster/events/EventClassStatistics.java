@@ -0,0 +1,117 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.events;
+
+import java.io.Serializable;
+
+/**
+ * A snapshot of the event bus statistics of an event class.
+ *
+ * @author Holger Eichelberger
+ */
+public class EventClassStatistics implements Serializable {
+
+    private static final long serialVersionUID = 6081513373283585624L;
+    private String eventClass;
+    private long sent;
+    private long received;
+    private long dispatched;
+    private long dropped;
+    private LatencyHistogram.Snapshot latency;
+
+    /**
+     * Creates a statistics snapshot.
+     *
+     * @param eventClass the name of the event class
+     * @param sent the number of events sent over the wire
+     * @param received the number of events received over the wire
+     * @param dispatched the number of events dispatched to handlers
+     * @param dropped the number of dropped events
+     * @param latency the latencies from handing in until dispatching
+     */
+    EventClassStatistics(String eventClass, long sent, long received, long dispatched, long dropped,
+        LatencyHistogram.Snapshot latency) {
+        this.eventClass = eventClass;
+        this.sent = sent;
+        this.received = received;
+        this.dispatched = dispatched;
+        this.dropped = dropped;
+        this.latency = latency;
+    }
+
+    /**
+     * Returns the name of the event class.
+     *
+     * @return the event class name
+     */
+    public String getEventClass() {
+        return eventClass;
+    }
+
+    /**
+     * Returns the number of events sent over the wire. On server side, an event forwarded to multiple clients is
+     * counted once per client.
+     *
+     * @return the number of sent events
+     */
+    public long getSent() {
+        return sent;
+    }
+
+    /**
+     * Returns the number of events received over the wire.
+     *
+     * @return the number of received events
+     */
+    public long getReceived() {
+        return received;
+    }
+
+    /**
+     * Returns the number of events dispatched to handlers. An event dispatched to multiple handlers is counted once 
+     * per handler.
+     *
+     * @return the number of dispatched events
+     */
+    public long getDispatched() {
+        return dispatched;
+    }
+
+    /**
+     * Returns the number of events dropped by send or dispatch queues.
+     *
+     * @return the number of dropped events
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Returns the latencies from handing an event to the local event manager until dispatching it to a handler.
+     *
+     * @return the latencies in microseconds
+     */
+    public LatencyHistogram.Snapshot getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String toString() {
+        return eventClass + ": sent " + sent + " received " + received + " dispatched " + dispatched + " dropped "
+            + dropped + " latency " + latency;
+    }
+
+}
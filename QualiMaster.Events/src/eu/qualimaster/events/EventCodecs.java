@@ -0,0 +1,642 @@
+/*
+ * Copyright 2009-2016 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.events;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import eu.qualimaster.Configuration;
+import eu.qualimaster.common.QMInternal;
+import eu.qualimaster.observables.IObservable;
+import eu.qualimaster.observables.Observables;
+
+/**
+ * The registry of event codecs and the wire format of the event bus. Each event is transferred as a
+ * length-prefixed frame, i.e., the length of the frame content (int), the type tag of the codec (short) and the
+ * encoded event. Events without {@link #register(short, IEventCodec) registered} codec are transferred in
+ * terms of Java serialization (type tag {@link #SERIALIZED}). Encoded events of at least 
+ * {@link Configuration#getEventCompressionThreshold()} bytes are deflated if this reduces their size, which is
+ * indicated by the {@link #COMPRESSED} flag in the type tag. This class also provides helper methods for
+ * implementing codecs.
+ *
+ * @author Holger Eichelberger
+ */
+@QMInternal
+public class EventCodecs {
+
+    /**
+     * The type tag of events transferred via Java serialization.
+     */
+    public static final short SERIALIZED = 0;
+
+    /**
+     * The maximum length of a frame (to detect corrupted streams).
+     */
+    public static final int MAX_FRAME_LENGTH = 64 * 1024 * 1024;
+
+    /**
+     * The length of the frame header, i.e., the length of the frame content.
+     */
+    public static final int HEADER_LENGTH = 4;
+
+    /**
+     * The flag in the type tag of compressed frames. The type tag is followed by the length of the encoded event 
+     * (int) and the deflated encoded event.
+     */
+    public static final short COMPRESSED = (short) 0x8000;
+
+    private static final int TAG_LENGTH = 2;
+    private static final ThreadLocal<Deflater> DEFLATER = new ThreadLocal<Deflater>() {
+
+        @Override
+        protected Deflater initialValue() {
+            return new Deflater();
+        }
+
+    };
+    private static final int MAX_DEFLATED_BUFFER = 1024 * 1024; // larger buffers are not kept per thread
+    private static final ThreadLocal<byte[]> DEFLATED = new ThreadLocal<byte[]>() {
+
+        @Override
+        protected byte[] initialValue() {
+            return new byte[256];
+        }
+
+    };
+    private static final ThreadLocal<Inflater> INFLATER = new ThreadLocal<Inflater>() {
+
+        @Override
+        protected Inflater initialValue() {
+            return new Inflater();
+        }
+
+    };
+
+    private static final Logger LOGGER = LogManager.getLogger(EventCodecs.class);
+    private static final Map<Class<?>, Registration> BY_CLASS = new ConcurrentHashMap<Class<?>, Registration>();
+    private static final Map<Short, Registration> BY_ID = new ConcurrentHashMap<Short, Registration>();
+
+    private static final byte VALUE_NULL = 0;
+    private static final byte VALUE_STRING = 1;
+    private static final byte VALUE_INTEGER = 2;
+    private static final byte VALUE_LONG = 3;
+    private static final byte VALUE_DOUBLE = 4;
+    private static final byte VALUE_BOOLEAN = 5;
+    private static final byte VALUE_SERIALIZED = 9;
+
+    /**
+     * Stores a codec registration.
+     *
+     * @author Holger Eichelberger
+     */
+    private static class Registration {
+
+        private short id;
+        private IEventCodec<?> codec;
+
+        /**
+         * Creates a registration.
+         *
+         * @param id the type tag
+         * @param codec the codec
+         */
+        private Registration(short id, IEventCodec<?> codec) {
+            this.id = id;
+            this.codec = codec;
+        }
+
+        /**
+         * Encodes the given event.
+         *
+         * @param <E> the event type
+         * @param codec the codec
+         * @param event the event
+         * @param out the output
+         * @throws IOException in case that encoding fails
+         */
+        private static <E extends IEvent> void encode(IEventCodec<E> codec, IEvent event, DataOutput out)
+            throws IOException {
+            codec.encode(codec.handles().cast(event), out);
+        }
+
+    }
+
+    /**
+     * A byte array output stream which can be truncated and turned into a frame.
+     *
+     * @author Holger Eichelberger
+     */
+    private static class FrameBuffer extends ByteArrayOutputStream {
+
+        /**
+         * Creates a frame buffer.
+         */
+        private FrameBuffer() {
+            super(256);
+        }
+
+        /**
+         * Truncates the buffer to the given size.
+         *
+         * @param size the new size
+         */
+        private void truncate(int size) {
+            count = Math.min(count, size);
+        }
+
+        /**
+         * Deflates the encoded event following the type tag if it is at least <code>threshold</code> bytes long and
+         * compressing reduces its size. The deflated event is collected in a buffer reused per thread.
+         *
+         * @param threshold the minimum size of the encoded event, not positive for no compression
+         */
+        private void compress(int threshold) {
+            int start = HEADER_LENGTH + TAG_LENGTH;
+            int length = count - start;
+            int max = length - 4; // not worth if not smaller including the length
+            if (threshold > 0 && length >= threshold && max > 0) {
+                Deflater deflater = DEFLATER.get();
+                deflater.reset();
+                deflater.setInput(buf, start, length);
+                deflater.finish();
+                byte[] tmp = DEFLATED.get();
+                if (tmp.length < max) {
+                    tmp = new byte[max];
+                    if (max <= MAX_DEFLATED_BUFFER) {
+                        DEFLATED.set(tmp);
+                    }
+                }
+                int size = 0;
+                while (!deflater.finished() && size < max) {
+                    size += deflater.deflate(tmp, size, max - size);
+                }
+                if (deflater.finished()) {
+                    buf[HEADER_LENGTH] |= (byte) (COMPRESSED >>> 8);
+                    count = start;
+                    write(length >>> 24);
+                    write(length >>> 16);
+                    write(length >>> 8);
+                    write(length);
+                    write(tmp, 0, size);
+                }
+            }
+        }
+
+        /**
+         * Turns the buffer into a frame by writing the content length into the first {@link #HEADER_LENGTH} bytes.
+         *
+         * @return the frame
+         */
+        private byte[] toFrame() {
+            int length = count - HEADER_LENGTH;
+            buf[0] = (byte) (length >>> 24);
+            buf[1] = (byte) (length >>> 16);
+            buf[2] = (byte) (length >>> 8);
+            buf[3] = (byte) length;
+            return toByteArray();
+        }
+
+    }
+
+    static {
+        DefaultEventCodecs.register();
+    }
+
+    /**
+     * Prevents external creation.
+     */
+    private EventCodecs() {
+    }
+
+    /**
+     * Registers a codec. Registering the same codec class again for the same type tag is ignored.
+     *
+     * @param id the type tag (positive, must be the same on all communicating machines)
+     * @param codec the codec
+     * @throws IllegalArgumentException if <code>id</code> is not positive or already registered for a different
+     *     event class
+     */
+    public static synchronized void register(short id, IEventCodec<?> codec) {
+        if (id <= SERIALIZED) {
+            throw new IllegalArgumentException("Codec id must be positive: " + id);
+        }
+        Registration existing = BY_ID.get(id);
+        if (null != existing) {
+            if (existing.codec.handles() != codec.handles()) {
+                throw new IllegalArgumentException("There is already a codec with id " + id + " for "
+                    + existing.codec.handles().getName() + ". Cannot override.");
+            }
+        } else {
+            Registration reg = new Registration(id, codec);
+            BY_ID.put(id, reg);
+            BY_CLASS.put(codec.handles(), reg);
+        }
+    }
+
+    /**
+     * Unregisters the codec for the given type tag.
+     *
+     * @param id the type tag
+     */
+    public static synchronized void unregister(short id) {
+        Registration reg = BY_ID.remove(id);
+        if (null != reg) {
+            BY_CLASS.remove(reg.codec.handles());
+        }
+    }
+
+    /**
+     * Returns whether there is a codec for the given event class.
+     *
+     * @param cls the event class
+     * @return <code>true</code> for a codec, <code>false</code> for Java serialization
+     */
+    public static boolean hasCodec(Class<?> cls) {
+        return BY_CLASS.containsKey(cls);
+    }
+
+    /**
+     * Turns an event into a frame.
+     *
+     * @param event the event
+     * @return the frame
+     * @throws IOException in case that encoding the event fails
+     */
+    public static byte[] toFrame(IEvent event) throws IOException {
+        FrameBuffer buf = new FrameBuffer();
+        DataOutputStream out = new DataOutputStream(buf);
+        out.writeInt(0); // length, set by toFrame
+        Registration reg = BY_CLASS.get(event.getClass());
+        boolean done = false;
+        if (null != reg) {
+            out.writeShort(reg.id);
+            try {
+                Registration.encode(reg.codec, event, out);
+                done = true;
+            } catch (IOException e) {
+                // codec cannot handle this instance, fall back to serialization
+                buf.truncate(HEADER_LENGTH);
+            }
+        }
+        if (!done) {
+            out.writeShort(SERIALIZED);
+            ObjectOutputStream oos = new ObjectOutputStream(out);
+            oos.writeObject(event);
+            oos.flush();
+        }
+        out.flush();
+        buf.compress(Configuration.getEventCompressionThreshold());
+        return buf.toFrame();
+    }
+
+    /**
+     * Writes an event as frame to the given output stream. Does not flush <code>out</code>.
+     *
+     * @param event the event
+     * @param out the output stream
+     * @throws IOException in case of I/O problems
+     */
+    public static void writeFrame(IEvent event, OutputStream out) throws IOException {
+        out.write(toFrame(event));
+    }
+
+    /**
+     * Reads a frame from the given input stream and turns it into an event.
+     *
+     * @param in the input stream
+     * @return the event, <b>null</b> if the frame cannot be decoded (the frame is skipped)
+     * @throws IOException in case of I/O problems or if the stream is corrupted
+     */
+    public static IEvent readFrame(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        checkFrameLength(length);
+        byte[] data = new byte[length];
+        in.readFully(data);
+        return fromFrame(data, 0, length);
+    }
+
+    /**
+     * Checks a frame (content) length.
+     *
+     * @param length the length
+     * @throws IOException if the length is not valid, i.e., the stream is corrupted
+     */
+    public static void checkFrameLength(int length) throws IOException {
+        if (length < 2 || length > MAX_FRAME_LENGTH) {
+            throw new IOException("Corrupted event stream: illegal frame length " + length);
+        }
+    }
+
+    /**
+     * Turns frame content (type tag and encoded event, without length header) into an event.
+     *
+     * @param data the data
+     * @param offset the offset of the frame content within <code>data</code>
+     * @param length the length of the frame content
+     * @return the event, <b>null</b> if the frame cannot be decoded (including runtime exceptions while decoding)
+     */
+    public static IEvent fromFrame(byte[] data, int offset, int length) {
+        IEvent result = null;
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, offset, length));
+        short id = 0;
+        try {
+            id = in.readShort();
+            if (0 != (id & COMPRESSED)) {
+                id = (short) (id & ~COMPRESSED);
+                in = inflate(data, offset + TAG_LENGTH, length - TAG_LENGTH);
+            }
+            if (SERIALIZED == id) {
+                ObjectInputStream ois = new ObjectInputStream(in);
+                Object obj = ois.readObject();
+                if (obj instanceof IEvent) {
+                    result = (IEvent) obj;
+                } else {
+                    LOGGER.error("Received a non-event object: " + obj);
+                }
+            } else {
+                Registration reg = BY_ID.get(id);
+                if (null == reg) {
+                    LOGGER.error("No event codec registered for id " + id + ". Frame ignored.");
+                } else {
+                    result = reg.codec.decode(in);
+                }
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            LOGGER.error("While decoding event frame (codec " + id + "): " + e.getMessage());
+        } catch (RuntimeException e) { // e.g., from custom deserialization, skip the frame
+            LOGGER.error("While decoding event frame (codec " + id + "): " + e.getMessage(), e);
+        }
+        return result;
+    }
+
+    /**
+     * Inflates the content of a compressed frame.
+     *
+     * @param data the data
+     * @param offset the offset of the compressed content (after the type tag) within <code>data</code>
+     * @param length the length of the compressed content
+     * @return the stream of the encoded event
+     * @throws IOException if the compressed content is corrupted
+     */
+    private static DataInputStream inflate(byte[] data, int offset, int length) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, offset, length));
+        int size = in.readInt();
+        checkFrameLength(size + TAG_LENGTH);
+        byte[] result = new byte[size];
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(data, offset + 4, length - 4);
+        try {
+            int pos = 0;
+            while (pos < size) {
+                int read = inflater.inflate(result, pos, size - pos);
+                if (0 == read && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Corrupted compressed frame");
+                }
+                pos += read;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupted compressed frame: " + e.getMessage());
+        }
+        return new DataInputStream(new ByteArrayInputStream(result));
+    }
+
+    // ------------------------------- helpers for codecs -------------------------------
+
+    /**
+     * Checks a length read from the input against the remaining bytes of the input before allocating memory for it, 
+     * i.e., a corrupted or hostile frame is dropped rather than exhausting the memory. Frames are decoded from byte 
+     * arrays, i.e., the remaining bytes of inputs which are streams are known.
+     *
+     * @param in the input
+     * @param length the length to check
+     * @throws IOException if the length is negative or exceeds the remaining bytes of the input
+     */
+    private static void checkLength(DataInput in, int length) throws IOException {
+        if (length < 0 || (in instanceof InputStream && length > ((InputStream) in).available())) {
+            throw new IOException("Corrupted event frame: length " + length + " exceeds the frame");
+        }
+    }
+
+    /**
+     * Writes a (nullable) string. Unlike {@link DataOutput#writeUTF(String)}, the length of the string is not
+     * limited.
+     *
+     * @param out the output
+     * @param string the string (may be <b>null</b>)
+     * @throws IOException in case of I/O problems
+     */
+    public static void writeString(DataOutput out, String string) throws IOException {
+        if (null == string) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = string.getBytes("UTF-8");
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Reads a string written by {@link #writeString(DataOutput, String)}.
+     *
+     * @param in the input
+     * @return the string (may be <b>null</b>)
+     * @throws IOException in case of I/O problems or if the length exceeds the input
+     */
+    public static String readString(DataInput in) throws IOException {
+        String result;
+        int length = in.readInt();
+        if (length < 0) {
+            result = null;
+        } else {
+            checkLength(in, length);
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            result = new String(bytes, "UTF-8");
+        }
+        return result;
+    }
+
+    /**
+     * Writes a (nullable) double.
+     *
+     * @param out the output
+     * @param value the value (may be <b>null</b>)
+     * @throws IOException in case of I/O problems
+     */
+    public static void writeDouble(DataOutput out, Double value) throws IOException {
+        out.writeBoolean(null != value);
+        if (null != value) {
+            out.writeDouble(value);
+        }
+    }
+
+    /**
+     * Reads a double written by {@link #writeDouble(DataOutput, Double)}.
+     *
+     * @param in the input
+     * @return the value (may be <b>null</b>)
+     * @throws IOException in case of I/O problems
+     */
+    public static Double readDouble(DataInput in) throws IOException {
+        Double result = null;
+        if (in.readBoolean()) {
+            result = in.readDouble();
+        }
+        return result;
+    }
+
+    /**
+     * Writes a (nullable) observable in terms of its index in {@link Observables#OBSERVABLES}.
+     *
+     * @param out the output
+     * @param observable the observable (may be <b>null</b>)
+     * @throws IOException in case of I/O problems or if the observable is unknown
+     */
+    public static void writeObservable(DataOutput out, IObservable observable) throws IOException {
+        if (null == observable) {
+            out.writeShort(-1);
+        } else {
+            int index = Observables.indexOf(observable);
+            if (index < 0) {
+                throw new IOException("Unknown observable " + observable);
+            }
+            out.writeShort(index);
+        }
+    }
+
+    /**
+     * Reads an observable written by {@link #writeObservable(DataOutput, IObservable)}.
+     *
+     * @param in the input
+     * @return the observable (may be <b>null</b>)
+     * @throws IOException in case of I/O problems or if the observable is unknown
+     */
+    public static IObservable readObservable(DataInput in) throws IOException {
+        IObservable result = null;
+        int index = in.readShort();
+        if (index >= Observables.OBSERVABLES.length) {
+            throw new IOException("Unknown observable index " + index);
+        } else if (index >= 0) {
+            result = Observables.OBSERVABLES[index];
+        }
+        return result;
+    }
+
+    /**
+     * Writes a (nullable) serializable value. Strings and primitive wrappers are written directly, all other values
+     * via Java serialization.
+     *
+     * @param out the output
+     * @param value the value (may be <b>null</b>)
+     * @throws IOException in case of I/O problems
+     */
+    public static void writeValue(DataOutput out, Serializable value) throws IOException {
+        if (null == value) {
+            out.writeByte(VALUE_NULL);
+        } else if (value instanceof String) {
+            out.writeByte(VALUE_STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(VALUE_INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(VALUE_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(VALUE_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(VALUE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else {
+            out.writeByte(VALUE_SERIALIZED);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream oos = new ObjectOutputStream(bytes);
+            oos.writeObject(value);
+            oos.close();
+            out.writeInt(bytes.size());
+            out.write(bytes.toByteArray());
+        }
+    }
+
+    /**
+     * Reads a value written by {@link #writeValue(DataOutput, Serializable)}.
+     *
+     * @param in the input
+     * @return the value (may be <b>null</b>)
+     * @throws IOException in case of I/O problems or if a length exceeds the input
+     */
+    public static Serializable readValue(DataInput in) throws IOException {
+        Serializable result;
+        byte type = in.readByte();
+        switch (type) {
+        case VALUE_NULL:
+            result = null;
+            break;
+        case VALUE_STRING:
+            result = readString(in);
+            break;
+        case VALUE_INTEGER:
+            result = in.readInt();
+            break;
+        case VALUE_LONG:
+            result = in.readLong();
+            break;
+        case VALUE_DOUBLE:
+            result = in.readDouble();
+            break;
+        case VALUE_BOOLEAN:
+            result = in.readBoolean();
+            break;
+        case VALUE_SERIALIZED:
+            int length = in.readInt();
+            checkLength(in, length);
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes));
+            try {
+                result = (Serializable) ois.readObject();
+            } catch (ClassNotFoundException | ClassCastException e) {
+                throw new IOException(e.getMessage());
+            }
+            ois.close();
+            break;
+        default:
+            throw new IOException("Unknown value type " + type);
+        }
+        return result;
+    }
+
+}
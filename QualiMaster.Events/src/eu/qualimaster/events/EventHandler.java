@@ -74,5 +74,36 @@ public abstract class EventHandler <E extends IEvent> {
     public boolean handlesChannel(String channel) {
         return true;
     }
+
+    /**
+     * Returns the subscription restricting the events forwarded by the event bus server to this handler if it is 
+     * registered on client side. The subscription shall not accept less events than {@link #handlesChannel(String)}.
+     * Override to reduce the forwarding traffic.
+     * 
+     * @return the subscription, <b>null</b> for all events of the {@link #handles() handled event class} (default)
+     */
+    protected EventSubscription getSubscription() {
+        return null;
+    }
+
+    /**
+     * Returns the maximum number of events queued for this handler. Override to change the default.
+     * 
+     * @return the maximum number of queued events, the {@link eu.qualimaster.Configuration#getEventDispatchCapacity() 
+     *     configured capacity} if not positive
+     */
+    protected int getDispatchCapacity() {
+        return 0;
+    }
+
+    /**
+     * Returns what happens if the event queue of this handler is full. Override to change the default.
+     * 
+     * @return the overflow policy, the {@link eu.qualimaster.Configuration#getEventDispatchOverflow() configured 
+     *     policy} if <b>null</b>
+     */
+    protected DispatchOverflowPolicy getDispatchOverflowPolicy() {
+        return null;
+    }
     
 }
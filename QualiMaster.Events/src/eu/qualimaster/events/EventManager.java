@@ -1,36 +1,39 @@
 package eu.qualimaster.events;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.EOFException;
+import java.io.File;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.InetAddress;
-import java.net.ServerSocket;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
 import java.rmi.dgc.VMID;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.ConcurrentModificationException;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.UUID;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 
 import eu.qualimaster.Configuration;
+import eu.qualimaster.monitoring.events.ComponentKey;
+import eu.qualimaster.monitoring.events.EventBusMonitoringEvent;
 
 /**
  * Generic event manager for the infrastructure. Multiple event handlers
@@ -40,7 +43,14 @@ import eu.qualimaster.Configuration;
  * The event manager provides a simple timer mechanism for the client side, i.e., after setting 
  * {@link #setTimerPeriod(long)} regular {@link TimerEvent timer events} are passed to respective
  * event handlers (on the {@link TimerEvent#CHANNEL timer event channel}, consider {@link AbstractTimerEventHandler} for
- * implementation). The timer mechanism is intended to reduce the number of running threads.
+ * implementation). Instances of {@link AbstractTimerEventHandler} may also define their own timer period. Further 
+ * periodic or one-shot tasks can be {@link #schedule(Runnable, long, long) scheduled}. All timers run on a single 
+ * {@link TimerWheel timer wheel} thread, i.e., the timer mechanism is intended to reduce the number of running threads.
+ * <br/>
+ * The event bus may be partitioned into {@link Configuration#getEventShards() shards}. Clients connect to all shards,
+ * subscribe their handlers on all shards and send pipeline-scoped events to the shard of the pipeline according to a
+ * consistent hashing {@link ShardRing ring}, all other events to the primary server. The primary server bridges the
+ * events subscribed by its local handlers from the further shards, which are started by {@link #startShard(int)}.
  * 
  * @author Holger Eichelberger
  */
@@ -50,24 +60,45 @@ public class EventManager {
     public static final int SO_TIMEOUT = 5000;
     private static final Logger LOGGER = LogManager.getLogger(EventManager.class);
     private static final EventManager INSTANCE = new EventManager();
-    private static final long WRITE_WAIT = 20;
+    private static final long POLL_WAIT = 200;
+    private static final long RECONNECT_WAIT = 1000;
+    private static final long TIMER_TICK = 10;
+    private static final int TIMER_WHEEL_SIZE = 512;
+    private static final String TIMER_THREAD = "EventTimer";
     
     private final String managerId = new VMID().toString() + "-" +  System.nanoTime(); // not static for testing
-    private final Map<String, List<EventHandler<? extends IEvent>>> registrations = 
-        Collections.synchronizedMap(new HashMap<String, List<EventHandler<? extends IEvent>>>());
-    private final Set<Class<? extends IEvent>> disableLogging = Collections.synchronizedSet(
-        new HashSet<Class<? extends IEvent>>());
-    private ExecutorService executor;
+    private final Object registrationLock = new Object();
+    private volatile DispatchTable dispatchTable = DispatchTable.EMPTY;
+    private final Set<Class<? extends IEvent>> disableLogging = Collections.newSetFromMap(
+        new ConcurrentHashMap<Class<? extends IEvent>, Boolean>());
+    private DispatchExecutor executor;
+    private ConcurrentMap<EventHandler<?>, DispatchLane> lanes 
+        = new ConcurrentHashMap<EventHandler<?>, DispatchLane>();
     private AtomicInteger unprocessed = new AtomicInteger();
+    private AtomicInteger unsent = new AtomicInteger();
     private boolean isRunning;
-    private ServerSocket serverSocket;
-    private BlockingQueue<IEvent> toSend;
-    private Map<String, ClientConnection> clients = new HashMap<String, ClientConnection>();
+    private EventServer eventServer;
+    private ForwardReceptionEventHandler forwardReception;
+    private Set<ForwardHandlerEvent> forwarded 
+        = Collections.newSetFromMap(new ConcurrentHashMap<ForwardHandlerEvent, Boolean>());
+    private ConcurrentMap<String, ForwardEventHandler> forwardHandlers 
+        = new ConcurrentHashMap<String, ForwardEventHandler>();
+    private WritingWorker[] connections; // client side, primary server first
+    private WritingWorker[] bridges; // primary server side, further shards
+    private ShardRing ring;
+    private Map<String, ClientConnection> clients = new ConcurrentHashMap<String, ClientConnection>();
     private Map<String, EventHandler<? extends IEvent>> clientHandlers 
-        = new HashMap<String, EventHandler<? extends IEvent>>();
+        = new ConcurrentHashMap<String, EventHandler<? extends IEvent>>();
     private Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
     private boolean isClient;
     private long timerPeriod;
+    private TimerWheel timerWheel;
+    private TimerWheel.Timeout globalTimer;
+    private ConcurrentMap<AbstractTimerEventHandler, TimerWheel.Timeout> timers 
+        = new ConcurrentHashMap<AbstractTimerEventHandler, TimerWheel.Timeout>();
+    private volatile EventAuditLog auditLog;
+    private final EventBusTelemetry telemetry = new EventBusTelemetry();
+    private TimerWheel.Timeout telemetryTimer;
     
     /**
      * Registers an event handler.
@@ -85,37 +116,82 @@ public class EventManager {
      */
     public void doRegister(EventHandler<? extends IEvent> handler) {
         Class<? extends IEvent> eClass = handler.handles();
-        List<EventHandler<? extends IEvent>> handlers = registrations.get(handler.getEventClassName());
-        if (null == handlers) {
-            handlers = new ArrayList<EventHandler<? extends IEvent>>();
-            registrations.put(handler.getEventClassName(), handlers);
-        }
         if (isClient) {
             if (null == executor) {
-                executor = Executors.newCachedThreadPool();                    
+                executor = createDispatchExecutor();
             }
             if (!ILocalEvent.class.isAssignableFrom(eClass)) {
                 // this is one, we may have multiple forward handlers for different events
-                doSend(new ForwardHandlerEvent(managerId, handler.getEventClassName()));
-                ClientConnection conn = clients.get(managerId); // get own socket
-                if (null != conn) {
-                    clients.remove(managerId); // start the reading worker only the first time
-                    Socket socket = conn.getSocket();
-                    if (null != socket) {
-                        try {
-                            // this is a client, inform the server for receiving events but register the handler
-                            ReadingWorker worker = new ReadingWorker(socket, true);
-                            startThread(worker);
-                        } catch (IOException e) {
-                            LOGGER.error("While setting up event forwarding: " + e.getMessage());
-                        }
-                    }
+                ForwardHandlerEvent fwd = createForward(handler);
+                if (forwarded.add(fwd)) { // for reconnecting, the server knows already about equal subscriptions
+                    doSend(fwd); // to all shards
                 }
+                startReading(connections);
             }
-        } 
-        handlers.add(handler);
+        }
+        synchronized (registrationLock) {
+            dispatchTable = dispatchTable.register(handler);
+        }
+        WritingWorker[] workers = bridges;
+        if (null != workers && isForwarded(handler)) { // primary server, subscribe the local handler at the shards
+            subscribeAtShards(handler, workers);
+            startReading(workers);
+        }
+        if (handler instanceof AbstractTimerEventHandler) {
+            AbstractTimerEventHandler tHandler = (AbstractTimerEventHandler) handler;
+            tHandler.attach(this);
+            updateTimer(tHandler);
+        }
     }
     
+    /**
+     * Creates the forward event subscribing <code>handler</code> at the event bus server or at the further shards.
+     * 
+     * @param handler the handler
+     * @return the forward event
+     */
+    private ForwardHandlerEvent createForward(EventHandler<?> handler) {
+        return new ForwardHandlerEvent(managerId, handler.getEventClassName(), handler.getSubscription());
+    }
+
+    /**
+     * Returns whether <code>handler</code> is subscribed at the event bus server (client) or at the further shards
+     * (primary server), i.e., whether it handles non-local events and is not one of the internal forwarding handlers.
+     * 
+     * @param handler the handler
+     * @return <code>true</code> if the handler is subscribed remotely, <code>false</code> else
+     */
+    private boolean isForwarded(EventHandler<?> handler) {
+        return !ILocalEvent.class.isAssignableFrom(handler.handles()) && !(handler instanceof ForwardEventHandler) 
+            && !(handler instanceof ForwardReceptionEventHandler);
+    }
+
+    /**
+     * Subscribes a local handler of the primary server at the further shards if not already done.
+     * 
+     * @param handler the handler
+     * @param workers the bridges to the further shards
+     */
+    private void subscribeAtShards(EventHandler<?> handler, WritingWorker[] workers) {
+        ForwardHandlerEvent fwd = createForward(handler);
+        if (forwarded.add(fwd)) {
+            for (int w = 0; w < workers.length; w++) {
+                enqueue(workers[w], fwd);
+            }
+        }
+    }
+
+    /**
+     * Starts receiving forwarded events on the given connections if not already done.
+     * 
+     * @param workers the connections (may be <b>null</b>)
+     */
+    private void startReading(WritingWorker[] workers) {
+        for (int w = 0; null != workers && w < workers.length; w++) {
+            workers[w].startReading();
+        }
+    }
+
     /**
      * Starts and registers a thread for a runnable.
      * 
@@ -127,6 +203,47 @@ public class EventManager {
         threads.add(thread);
     }
 
+    /**
+     * A daemon thread that must not be blocked by a full dispatch lane, i.e., a thread of the dispatch pool (to detect 
+     * dispatching from within an event handler) or an {@link EventServer} thread (to keep serving the other clients).
+     * 
+     * @author Holger Eichelberger
+     */
+    static class NonBlockingThread extends Thread {
+
+        /**
+         * Creates a non-blocking thread.
+         * 
+         * @param runnable the runnable
+         * @param name the name of the thread
+         */
+        NonBlockingThread(Runnable runnable, String name) {
+            super(runnable, name);
+            setDaemon(true);
+        }
+
+    }
+
+    /**
+     * Creates the executor for the {@link DispatchLane dispatch lanes}, a fixed pool of 
+     * {@link Configuration#getEventDispatchThreads()} threads preferring lanes with events of higher 
+     * {@link EventPriority priority}.
+     * 
+     * @return the executor
+     */
+    private static DispatchExecutor createDispatchExecutor() {
+        return new DispatchExecutor(Configuration.getEventDispatchThreads(), Configuration.getEventPriorityAging(), 
+            new ThreadFactory() {
+
+                private AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    return new NonBlockingThread(runnable, "EventDispatch-" + count.getAndIncrement());
+                }
+            });
+    }
+
     /**
      * Notifies about ending the current thread.
      */
@@ -158,9 +275,25 @@ public class EventManager {
      * @param handler the event handler
      */
     public void doUnregister(EventHandler<? extends IEvent> handler) {
-        List<EventHandler<? extends IEvent>> handlers = registrations.get(handler.getEventClassName());
-        if (null != handlers) {
-            handlers.remove(handler);
+        synchronized (registrationLock) {
+            dispatchTable = dispatchTable.unregister(handler);
+            if (isForwarded(handler)) { // re-subscribe on re-registration and not when reconnecting
+                ForwardHandlerEvent fwd = createForward(handler);
+                boolean used = false;
+                for (EventHandler<?> other : dispatchTable.getHandlers()) {
+                    used |= isForwarded(other) && fwd.equals(createForward(other));
+                }
+                if (!used) {
+                    forwarded.remove(fwd);
+                }
+            }
+        }
+        lanes.remove(handler); // already queued events are still handled
+        if (handler instanceof AbstractTimerEventHandler) {
+            ((AbstractTimerEventHandler) handler).attach(null);
+            synchronized (timers) {
+                cancelTimer(timers.remove(handler));
+            }
         }
     }
 
@@ -195,17 +328,114 @@ public class EventManager {
     /**
      * Sets the client timer period.
      * 
-     * @param period the period in ms (no timer events if not positive, negative values become zero, 
-     *     must be greater then {@link #WRITE_WAIT})
+     * @param period the period in ms (no timer events if not positive, negative values become zero)
      */
-    public void doSetTimerPeriod(long period) {
+    public synchronized void doSetTimerPeriod(long period) {
         if (isClient) {
-            if (period > WRITE_WAIT) {
-                this.timerPeriod = period - WRITE_WAIT;
-            } else {
-                this.timerPeriod = 0;
+            period = Math.max(0, period);
+            if (period != timerPeriod) {
+                this.timerPeriod = period;
+                cancelTimer(globalTimer);
+                globalTimer = null;
+                if (period > 0) {
+                    globalTimer = doSchedule(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            handleGlobalTimer();
+                        }
+
+                    }, 0, period);
+                }
+            }
+        }
+    }
+
+    /**
+     * Passes a timer event to the handlers without own timer period. [timer thread]
+     */
+    private void handleGlobalTimer() {
+        EventHandler<?>[] handlers = dispatchTable.getHandlers(TimerEvent.class, TimerEvent.CHANNEL);
+        for (int h = 0; h < handlers.length; h++) {
+            EventHandler<?> handler = handlers[h];
+            if (!(handler instanceof AbstractTimerEventHandler 
+                && ((AbstractTimerEventHandler) handler).getTimerPeriod() > 0) 
+                && !handler.consume(TimerEvent.INSTANCE)) {
+                dispatch(handler, TimerEvent.INSTANCE, false); // do not block the timer
+            }
+        }
+    }
+
+    /**
+     * Updates the timer of a handler with own timer period. [registered handlers only]
+     * 
+     * @param handler the handler
+     */
+    void updateTimer(final AbstractTimerEventHandler handler) {
+        synchronized (timers) {
+            long period = handler.getTimerPeriod();
+            TimerWheel.Timeout timeout = timers.get(handler);
+            if (null == timeout || timeout.getPeriod() != period) {
+                if (period > 0) {
+                    timeout = timers.put(handler, doSchedule(new Runnable() {
+    
+                        @Override
+                        public void run() {
+                            if (!handler.consume(TimerEvent.INSTANCE)) {
+                                dispatch(handler, TimerEvent.INSTANCE, false); // do not block the timer
+                            }
+                        }
+    
+                    }, period, period));
+                } else {
+                    timeout = timers.remove(handler);
+                }
+                cancelTimer(timeout);
+            }
+        }
+    }
+
+    /**
+     * Cancels a timer registration.
+     * 
+     * @param timeout the registration (may be <b>null</b>)
+     */
+    private static void cancelTimer(TimerWheel.Timeout timeout) {
+        if (null != timeout) {
+            timeout.cancel();
+        }
+    }
+
+    /**
+     * Schedules a task on the shared timer thread of the event manager. The task shall return quickly.
+     * 
+     * @param task the task to run
+     * @param delay the delay until the first run in ms
+     * @param period the period of subsequent runs in ms, a one-shot task if not positive
+     * @return the registration for cancelling the task
+     */
+    public static TimerWheel.Timeout schedule(Runnable task, long delay, long period) {
+        return INSTANCE.doSchedule(task, delay, period);
+    }
+
+    /**
+     * Schedules a task on the shared timer thread of this event manager. The task shall return quickly.
+     * 
+     * @param task the task to run
+     * @param delay the delay until the first run in ms
+     * @param period the period of subsequent runs in ms, a one-shot task if not positive
+     * @return the registration for cancelling the task
+     */
+    public TimerWheel.Timeout doSchedule(Runnable task, long delay, long period) {
+        TimerWheel wheel;
+        synchronized (timers) {
+            if (null == timerWheel) {
+                timerWheel = new TimerWheel(TIMER_TICK, TIMER_WHEEL_SIZE);
             }
+            wheel = timerWheel;
+            wheel.start(TIMER_THREAD);
         }
+        return wheel.schedule(task, delay, period);
     }
     
     /**
@@ -223,13 +453,7 @@ public class EventManager {
      * @return the client-side timer period
      */
     public long doGetTimerPeriod() {
-        long result;
-        if (timerPeriod > 0) {
-            result = timerPeriod + WRITE_WAIT;
-        } else {
-            result = 0;
-        }
-        return result;
+        return timerPeriod;
     }
 
     /**
@@ -267,12 +491,16 @@ public class EventManager {
     private void doHandleImpl(IEvent event) {
         if (null != event) {
             if (isLoggingEnabled(event)) {
-                LOGGER.info(LOG_PREFIX_RECEIVED + " " + event);
+                audit(EventAuditLog.Kind.RECEIVED, event, -1);
             }
-            if (null != toSend) { // client
-                try {
-                    toSend.put(event);
-                } catch (InterruptedException e) {
+            WritingWorker[] conns = connections;
+            if (null != conns) { // client
+                if (event instanceof ForwardHandlerEvent) { // subscriptions apply to all shards
+                    for (int c = 0; c < conns.length; c++) {
+                        enqueue(conns[c], event);
+                    }
+                } else {
+                    enqueue(conns[getShard(event)], event);
                 }
             } else {
                 boolean done = false;
@@ -286,6 +514,90 @@ public class EventManager {
         }
     }
     
+    /**
+     * Queues an event for sending on a connection.
+     * 
+     * @param worker the connection
+     * @param event the event
+     */
+    private void enqueue(WritingWorker worker, IEvent event) {
+        unsent.incrementAndGet();
+        try {
+            if (!worker.toSend.put(event)) { // conflated or dropped
+                unsent.decrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            unsent.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the shard to send an event to, i.e., the shard of the pipeline for pipeline-scoped events and the
+     * primary server for all other events and for responses (which may need to be passed to the primary server).
+     * 
+     * @param event the event
+     * @return the index of the shard in {@link #connections}
+     */
+    private int getShard(IEvent event) {
+        return getShard(ring, event);
+    }
+
+    /**
+     * Returns the shard to send an event to.
+     * 
+     * @param ring the shard ring (may be <b>null</b> for a single server)
+     * @param event the event
+     * @return the index of the shard in {@link #getShards()}
+     * @see #getShard(IEvent)
+     */
+    static int getShard(ShardRing ring, IEvent event) {
+        int result = 0;
+        if (null != ring && event instanceof IPipelineScopedEvent && !(event instanceof IResponseEvent)) {
+            String pipeline = ((IPipelineScopedEvent) event).getPipeline();
+            if (null != pipeline) {
+                result = ring.getShard(pipeline);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Called by the {@link EventServer} when a client sent its id. [server side]
+     * 
+     * @param conn the client connection
+     */
+    void handleConnected(ClientConnection conn) {
+        clients.put(conn.getClientId(), conn);
+    }
+
+    /**
+     * Called by the {@link EventServer} when an event was received. [server side]
+     * 
+     * @param event the received event
+     */
+    void handleReceived(IEvent event) {
+        doHandleImpl(event);
+    }
+
+    /**
+     * Called by the {@link EventServer} when a client connection was closed. Unregisters the forward handlers of the 
+     * client. [server side]
+     * 
+     * @param conn the client connection
+     */
+    void handleDisconnected(ClientConnection conn) {
+        String id = conn.getClientId();
+        if (null != id && clients.get(id) == conn) {
+            clients.remove(id);
+            clientHandlers.remove(id);
+        }
+        for (ForwardEventHandler handler : forwardHandlers.values()) {
+            if (handler.conn == conn) {
+                handler.close();
+            }
+        }
+    }
+
     /**
      * Handles a response event.
      * 
@@ -299,7 +611,7 @@ public class EventManager {
         if (null != receiverId && !receiverId.equals(managerId)) { // local
             EventHandler<?> handler = clientHandlers.get(receiverId);
             if (null != handler && !handler.consume(event)) {
-                executor.execute(new DispatchRunnable(handler, event));
+                dispatch(handler, event);
                 done = true;
             }
         }
@@ -308,31 +620,136 @@ public class EventManager {
     
     /**
      * Handles events locally, i.e., without offering them to the send queue and sending them. This is required
-     * for handling forward events on client side.
+     * for handling forward events on client side. Events to be forwarded to clients are serialized once and the 
+     * same frame is queued for all subscribed clients.
      * 
      * @param event the event to be handled.
      */
     private void doHandleLocal(IEvent event) {
+        doHandleLocal(event, true);
+    }
+
+    /**
+     * Handles events locally, i.e., without offering them to the send queue and sending them.
+     * 
+     * @param event the event to be handled.
+     * @param forward whether the event shall also be forwarded to subscribed clients, <code>false</code> for events
+     *     bridged from a further shard, which forwarded them already to its clients
+     */
+    private void doHandleLocal(IEvent event, boolean forward) {
         if (null != executor) {
-            Set<EventHandler<? extends IEvent>> handlers = getHandlers(event.getClass(), event.getChannel(), null);
-            if (null != handlers) {
-                try {
-                    for (EventHandler<? extends IEvent> handler : handlers) {
-                        unprocessed.incrementAndGet();
-                        boolean consume = handler.consume(event);
-                        if (isLoggingEnabled(event)) {
-                            LOGGER.info((consume ? "consumed" : "dispatching") + " " + event);
-                        }
-                        if (!consume) {
-                            executor.execute(new DispatchRunnable(handler, event));
+            // immutable snapshot, registrations during dispatching apply to the next event
+            EventHandler<?>[] handlers = dispatchTable.getHandlers(event.getClass(), event.getChannel());
+            boolean log = handlers.length > 0 && isLoggingEnabled(event);
+            byte[] frame = null;
+            EventPriority priority = null;
+            for (int h = 0; h < handlers.length; h++) {
+                EventHandler<?> handler = handlers[h];
+                if (forward || !(handler instanceof ForwardEventHandler)) {
+                    boolean consume = handler.consume(event);
+                    if (log) {
+                        audit(consume ? EventAuditLog.Kind.CONSUMED : EventAuditLog.Kind.DISPATCHED, event, -1);
+                    }
+                    if (!consume) {
+                        if (handler instanceof ForwardEventHandler) {
+                            if (null == frame) {
+                                frame = toForwardFrame(event);
+                                priority = EventPriority.of(event);
+                            }
+                            ((ForwardEventHandler) handler).forward(event, frame, priority);
+                        } else {
+                            dispatch(handler, event);
                         }
                     }
-                } catch (ConcurrentModificationException e) {
-                    // a handler was added/removed during execution - just ignore
                 }
             }
         }
     }
+
+    /**
+     * Turns an event into a frame for forwarding.
+     * 
+     * @param event the event
+     * @return the frame, empty if the event cannot be serialized
+     */
+    private static byte[] toForwardFrame(IEvent event) {
+        byte[] frame;
+        try {
+            frame = EventCodecs.toFrame(event);
+        } catch (IOException e) {
+            LOGGER.error("Cannot forward " + event + ": " + e.getMessage(), e);
+            frame = new byte[0];
+        }
+        return frame;
+    }
+
+    /**
+     * Dispatches an event to the {@link DispatchLane dispatch lane} of <code>handler</code>. Events for the same 
+     * handler are handled in the order of dispatching. Dispatch threads (e.g., handlers sending events) are never 
+     * blocked by {@link DispatchOverflowPolicy#BLOCK} to avoid dead-locks, server I/O threads are never blocked so 
+     * that a slow handler does not stall the connections of all clients served by the same thread.
+     * 
+     * @param handler the handler
+     * @param event the event
+     */
+    private void dispatch(EventHandler<?> handler, IEvent event) {
+        dispatch(handler, event, !(Thread.currentThread() instanceof NonBlockingThread));
+    }
+
+    /**
+     * Dispatches an event to a handler via the dispatch lane of the handler.
+     * 
+     * @param handler the handler
+     * @param event the event
+     * @param mayBlock whether the calling thread may block if the lane is full
+     */
+    private void dispatch(EventHandler<?> handler, IEvent event, boolean mayBlock) {
+        DispatchExecutor exec = executor;
+        if (null != exec) {
+            unprocessed.incrementAndGet();
+            DispatchLane lane = lanes.get(handler);
+            if (null == lane) {
+                int capacity = handler.getDispatchCapacity();
+                if (capacity <= 0) {
+                    capacity = Configuration.getEventDispatchCapacity();
+                }
+                DispatchOverflowPolicy policy = handler.getDispatchOverflowPolicy();
+                if (null == policy) {
+                    policy = DispatchOverflowPolicy.parse(Configuration.getEventDispatchOverflow(), 
+                        DispatchOverflowPolicy.BLOCK);
+                }
+                DispatchLane tmp = new DispatchLane(handler, capacity, policy, exec, unprocessed, 
+                    telemetry);
+                lane = lanes.putIfAbsent(handler, tmp);
+                if (null == lane) {
+                    lane = tmp;
+                }
+            }
+            lane.offer(event, mayBlock);
+        }
+    }
+
+    /**
+     * Returns the statistics of the dispatch lanes.
+     * 
+     * @return the statistics, one entry per event handler having received events
+     */
+    public static List<DispatchLaneStatistics> getDispatchStatistics() {
+        return INSTANCE.doGetDispatchStatistics();
+    }
+
+    /**
+     * Returns the statistics of the dispatch lanes of this event manager.
+     * 
+     * @return the statistics, one entry per event handler having received events
+     */
+    public List<DispatchLaneStatistics> doGetDispatchStatistics() {
+        List<DispatchLaneStatistics> result = new ArrayList<DispatchLaneStatistics>();
+        for (DispatchLane lane : lanes.values()) {
+            result.add(lane.getStatistics());
+        }
+        return result;
+    }
     
     /**
      * Returns whether <code>host</code> is localhost.
@@ -362,67 +779,6 @@ public class EventManager {
         return result;
     }
     
-    /**
-     * Returns all handlers for <code>cls</code>.
-     * 
-     * @param cls the event class to search for
-     * @param channel the event channel name (may be <b>null</b> for all)
-     * @param handlers the actual handlers (may be <b>null</b> at call)
-     * @return the handlers for <code>cls</code> (may be <b>null</b> if there are none)
-     */
-    private Set<EventHandler<? extends IEvent>> getHandlers(Class<?> cls, String channel,  
-        Set<EventHandler<? extends IEvent>> handlers) {
-        List<EventHandler<? extends IEvent>> tmp = registrations.get(cls.getName());
-        if (null != tmp) {
-            if (null == handlers) {
-                handlers = new HashSet<EventHandler<? extends IEvent>>();
-            }
-            for (int t = 0; t < tmp.size(); t++) {
-                EventHandler<? extends IEvent> handler = tmp.get(t);
-                if (handler.handlesChannel(channel)) {
-                    handlers.add(handler);
-                }
-            }
-        }
-        if (null != cls.getSuperclass()) {
-            handlers = getHandlers(cls.getSuperclass(), channel, handlers);
-        }
-        Class<?>[] ifaces = cls.getInterfaces();
-        for (int i = 0, n = ifaces.length; i < n; i++) {
-            handlers = getHandlers(ifaces[i], channel, handlers);
-        }
-        return handlers;
-    }
-
-    /**
-     * Dispatches the event to an event handler.
-     * 
-     * @author Holger Eichelberger
-     */
-    private class DispatchRunnable implements Runnable {
-        
-        private EventHandler<?> handler;
-        private IEvent event;
-        
-        /**
-         * Creates the runnable.
-         * 
-         * @param handler the event handler for dispatching the event
-         * @param event the event
-         */
-        DispatchRunnable(EventHandler<?> handler, IEvent event) {
-            this.handler = handler;
-            this.event = event;
-        }
-
-        @Override
-        public void run() {
-            handler.doHandle(event);
-            unprocessed.decrementAndGet();
-        }
-        
-    }
-    
     /**
      * Returns the number of unprocessed messages. [testing]
      * 
@@ -484,14 +840,22 @@ public class EventManager {
             String id = event.getClientId();
             ClientConnection conn = clients.get(id);
             if (null != conn) {
-                try {
-                    ForwardEventHandler handler = new ForwardEventHandler(event.getEventClass(), conn);
-                    register(handler);
-                    clientHandlers.put(id, handler);
-                } catch (IOException e) {
-                    LOGGER.error("cannot create forward event handler for " + event.getClientId() + " "
-                        + event.getEventClass() + ":" + e.getMessage());
+                // one handler per client and event class, else the client receives events multiple times
+                String key = id + " " + event.getEventClass();
+                ForwardEventHandler handler = forwardHandlers.get(key);
+                if (null != handler && handler.conn != conn) { // reconnected
+                    handler.close();
+                    handler = null;
+                }
+                if (null == handler) {
+                    handler = new ForwardEventHandler(key, event.getEventClass(), conn);
+                    handler.subscribe(event.getSubscription());
+                    forwardHandlers.put(key, handler);
+                    doRegister(handler);
+                } else {
+                    handler.subscribe(event.getSubscription());
                 }
+                clientHandlers.put(id, handler);
             } else {
                 LOGGER.error("cannot create forward event handler for " + event.getClientId() + " " 
                     + event.getEventClass() + ": no such client");
@@ -501,27 +865,30 @@ public class EventManager {
     }
     
     /**
-     * Forwards events to a client.
+     * Forwards events to a client. Events not matching the subscriptions of the client are consumed.
      * 
      * @author Holger Eichelberger
      */
     private class ForwardEventHandler extends EventHandler<IEvent> {
 
+        private String key;
         private ClientConnection conn;
         private String eventClass;
+        private volatile EventSubscription[] subscriptions = new EventSubscription[0]; // copy-on-write
+        private volatile boolean unrestricted;
 
         /**
          * Forwards events to a client.
          * 
+         * @param key the key of this handler in {@link EventManager#forwardHandlers}
          * @param eventClass the event class
          * @param conn the client connection
-         * @throws IOException if the event handler cannot be created due to I/O problems
          */
-        protected ForwardEventHandler(String eventClass, ClientConnection conn) throws IOException {
+        protected ForwardEventHandler(String key, String eventClass, ClientConnection conn) {
             super(IEvent.class);
+            this.key = key;
             this.eventClass = eventClass;
             this.conn = conn;
-            conn.getStream(); // if not open, force sending the header
         }
         
         @Override
@@ -529,34 +896,60 @@ public class EventManager {
             return eventClass;
         }
 
+        /**
+         * Adds a subscription. [dispatch lane of the forward reception handler]
+         * 
+         * @param subscription the subscription (may be <b>null</b> for all events)
+         */
+        private void subscribe(EventSubscription subscription) {
+            if (null == subscription) {
+                unrestricted = true;
+            } else if (!Arrays.asList(subscriptions).contains(subscription)) {
+                EventSubscription[] tmp = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+                tmp[tmp.length - 1] = subscription;
+                subscriptions = tmp;
+            }
+        }
+
+        @Override
+        protected boolean consume(IEvent event) {
+            boolean matches = unrestricted || event instanceof IResponseEvent; // responses are addressed explicitly
+            EventSubscription[] subs = subscriptions;
+            for (int s = 0; !matches && s < subs.length; s++) {
+                matches = subs[s].matches(event);
+            }
+            return !matches;
+        }
+
         @Override
         protected void handle(IEvent event) {
-            boolean unregister = false;
-            try {
-                ObjectOutputStream out = conn.getStream();
-                if (null == out) {
-                    unregister = true;
-                } else {
-                    try {
-                        synchronized (out) { // multiple forward handlers may share out
-                            out.writeObject(event);
-                        }
-                    } catch (EOFException | SocketException e) {
-                        // client disconnected
-                        unregister = true;
-                    }
+            forward(event, toForwardFrame(event), EventPriority.of(event));
+        }
+
+        /**
+         * Forwards a frame to the client. Does not block, the frame is written by the I/O thread of the connection.
+         * 
+         * @param event the event to forward
+         * @param frame the frame (not modified, may be shared among forward handlers, ignored if empty)
+         * @param priority the priority of the forwarded event
+         */
+        private void forward(IEvent event, byte[] frame, EventPriority priority) {
+            if (frame.length > 0) {
+                if (conn.send(frame, priority)) {
+                    telemetry.sent(event);
+                } else { // client disconnected
+                    close();
                 }
-            } catch (IOException e) {
-                LOGGER.error("handling " + getEventClassName() + ": " + e.getMessage(), e);
-            }
-            if (unregister) {
-                String id = conn.getClientId();
-                clients.remove(id);
-                clientHandlers.remove(id);
-                unregister(this);
-                conn.close();
             }
         }
+
+        /**
+         * Unregisters this handler.
+         */
+        private void close() {
+            forwardHandlers.remove(key, this);
+            doUnregister(this);
+        }
         
     }
 
@@ -568,38 +961,38 @@ public class EventManager {
      */
     public void doStart(boolean localMode, boolean server) {
         if (!isRunning) {
+            startAuditLog();
+            startTelemetry();
+            synchronized (timers) {
+                if (null != timerWheel && !timers.isEmpty()) { // handlers with own timer survive a restart
+                    timerWheel.start(TIMER_THREAD);
+                }
+            }
             if (server) {
-                executor = Executors.newCachedThreadPool();
+                executor = createDispatchExecutor();
                 if (!localMode) {
-                    try {
-                        serverSocket = new ServerSocket(Configuration.getEventPort());
-                        serverSocket.setSoTimeout(SO_TIMEOUT); // enable non-blocking accepts
-                        isRunning = true;
-                        startThread(new ServerRunnable());
-                        register(new ForwardReceptionEventHandler());
-                        LOGGER.info(" Event manager started in server mode.");
-                    } catch (IOException e) {
-                        LOGGER.error(e.getMessage() + " - Event manager not started.");
-                    }
+                    startServer(Configuration.getEventPort(), true);
                 } else {
                     isRunning = true;
                 }
             } else {
                 String conn = Configuration.getEventHost() + "/" + Configuration.getEventPort();
                 try {
-                    Socket s = createClientSocket();
-                    toSend = new LinkedBlockingQueue<IEvent>();
-                    // store for forwarding, will be removed if forwarding is enabled
-                    clients.put(managerId, new ClientConnection(managerId, s)); 
-                    WritingWorker worker = new WritingWorker(s);
-                    worker.sendId();
+                    List<InetSocketAddress> shards = getShards();
+                    unsent.set(0);
+                    WritingWorker[] workers = createWorkers(shards, false);
+                    ring = shards.size() > 1 ? new ShardRing(getShardNames(shards)) : null;
+                    connections = workers;
                     isRunning = true;
-                    startThread(worker);
-                    LOGGER.info(" Event manager started in client mode (server " + conn + ").");
+                    for (int w = 0; w < workers.length; w++) {
+                        startThread(workers[w]);
+                    }
+                    LOGGER.info(" Event manager started in client mode (server " + conn 
+                        + (shards.size() > 1 ? ", shards " + getShardNames(shards) : "") + ").");
                     isClient = true;
                 } catch (IOException e) {
                     if (localMode) {
-                        executor = Executors.newCachedThreadPool();
+                        executor = createDispatchExecutor();
                         isRunning = true;
                     } else {
                         LOGGER.error(e.getMessage() + " - Event manager client not started (server " + conn + ").");
@@ -611,14 +1004,152 @@ public class EventManager {
     }
 
     /**
-     * Creates a client socket.
+     * Starts an event bus shard, i.e., a server without local handlers at <code>port</code>. The clients connect to
+     * the shards given in {@link Configuration#getEventShards()}. Intended for running shards in separate processes, 
+     * but can also be used to run all shards within one JVM.
      * 
-     * @return the client socket
+     * @param port the port of the shard
+     */
+    public static void startShard(int port) {
+        INSTANCE.doStartShard(port);
+    }
+
+    /**
+     * Starts this event manager as event bus shard.
+     * 
+     * @param port the port of the shard
+     * @see #startShard(int)
+     */
+    public void doStartShard(int port) {
+        if (!isRunning) {
+            startAuditLog();
+            startTelemetry();
+            executor = createDispatchExecutor();
+            startServer(port, false);
+        }
+        disableLoggingFor(Configuration.getEventDisableLogging());
+    }
+
+    /**
+     * Starts the event server. [server side]
+     * 
+     * @param port the port to listen on
+     * @param primary whether this is the primary server, which bridges the events subscribed by its local handlers 
+     *     from the further {@link Configuration#getEventShards() shards}
+     */
+    private void startServer(int port, boolean primary) {
+        try {
+            eventServer = new EventServer(this, port, Configuration.getEventServerIoThreads(), 
+                Configuration.getEventServerSendCapacity(), Configuration.getEventPriorityAging());
+            isRunning = true;
+            eventServer.start();
+            forwardReception = new ForwardReceptionEventHandler();
+            doRegister(forwardReception);
+            List<InetSocketAddress> shards = primary ? getShards() : null;
+            if (null != shards && shards.size() > 1) {
+                WritingWorker[] workers = createWorkers(shards.subList(1, shards.size()), true);
+                bridges = workers;
+                // handlers registered before starting or surviving a restart
+                for (EventHandler<?> handler : dispatchTable.getHandlers()) {
+                    if (isForwarded(handler)) {
+                        subscribeAtShards(handler, workers);
+                    }
+                }
+                for (int w = 0; w < workers.length; w++) {
+                    startThread(workers[w]);
+                }
+                startReading(workers);
+                LOGGER.info(" Event manager started in server mode (bridging shards " + getShardNames(shards) + ").");
+            } else {
+                LOGGER.info(" Event manager started in server mode" + (primary ? "" : " as shard on port " + port)
+                    + ".");
+            }
+        } catch (IOException e) {
+            LOGGER.error(e.getMessage() + " - Event manager not started.");
+        }
+    }
+
+    /**
+     * Returns the event bus servers, the primary server at {@link Configuration#getEventHost()}/
+     * {@link Configuration#getEventPort()} first, followed by the further {@link Configuration#getEventShards()
+     * shards}. Illegal shard specifications are logged and ignored.
+     * 
+     * @return the servers
+     */
+    static List<InetSocketAddress> getShards() {
+        List<InetSocketAddress> result = new ArrayList<InetSocketAddress>();
+        result.add(InetSocketAddress.createUnresolved(Configuration.getEventHost(), Configuration.getEventPort()));
+        StringTokenizer tokens = new StringTokenizer(Configuration.getEventShards(), ",");
+        while (tokens.hasMoreTokens()) {
+            String token = tokens.nextToken().trim();
+            int pos = token.lastIndexOf(':');
+            try {
+                if (pos <= 0) {
+                    throw new NumberFormatException("no port");
+                }
+                result.add(InetSocketAddress.createUnresolved(token.substring(0, pos).trim(), 
+                    Integer.parseInt(token.substring(pos + 1).trim())));
+            } catch (IllegalArgumentException e) { // includes NumberFormatException
+                LOGGER.error("Illegal event bus shard " + token + ": " + e.getMessage() + ". Ignored.");
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the names of the given servers as used in the shard ring.
+     * 
+     * @param shards the servers
+     * @return the names in the sequence of <code>shards</code>
+     */
+    static List<String> getShardNames(List<InetSocketAddress> shards) {
+        List<String> result = new ArrayList<String>();
+        for (InetSocketAddress shard : shards) {
+            result.add(shard.getHostString() + ":" + shard.getPort());
+        }
+        return result;
+    }
+
+    /**
+     * Creates the connection workers for the given servers. The threads of the workers are not started.
+     * 
+     * @param shards the servers
+     * @param bridge whether the connections bridge events to the primary server (<code>true</code>) or belong to a
+     *     client (<code>false</code>), where the first server must be reachable 
+     * @return the workers in the sequence of <code>shards</code>
+     * @throws IOException in case that the first server of a client cannot be reached
+     */
+    private WritingWorker[] createWorkers(List<InetSocketAddress> shards, boolean bridge) throws IOException {
+        WritingWorker[] result = new WritingWorker[shards.size()];
+        for (int s = 0; s < result.length; s++) {
+            InetSocketAddress shard = shards.get(s);
+            Socket socket = null;
+            try {
+                socket = createClientSocket(shard.getHostString(), shard.getPort());
+            } catch (IOException e) {
+                if (!bridge && 0 == s) {
+                    throw e;
+                }
+                LOGGER.warn("Cannot connect to event bus shard " + shard + ": " + e.getMessage() + ". Reconnecting.");
+            }
+            result[s] = new WritingWorker(shard, socket, bridge);
+            if (null != socket) {
+                result[s].sendId();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates a client socket.
+     * 
+     * @param host the host to connect to
+     * @param port the port to connect to
+     * @return the client socket
      * @throws IOException in case that creating the client socket fails
      */
-    private static Socket createClientSocket() throws IOException {
-        Socket s = new Socket(InetAddress.getByName(Configuration.getEventHost()), 
-            Configuration.getEventPort());
+    static Socket createClientSocket(String host, int port) throws IOException {
+        Socket s = new Socket(InetAddress.getByName(host), port);
         s.setKeepAlive(true);
         s.setSoTimeout(SO_TIMEOUT); // enable non-blocking communication, also for properly ending threads
         return s;
@@ -642,7 +1173,24 @@ public class EventManager {
      * Clears the handler registrations.
      */
     public void doClearRegistrations() {
-        registrations.clear();
+        synchronized (registrationLock) {
+            dispatchTable = DispatchTable.EMPTY;
+        }
+        lanes.clear();
+        clearTimers();
+    }
+
+    /**
+     * Cancels the timers of handlers with own timer period.
+     */
+    private void clearTimers() {
+        synchronized (timers) {
+            for (Map.Entry<AbstractTimerEventHandler, TimerWheel.Timeout> ent : timers.entrySet()) {
+                ent.getKey().attach(null);
+                ent.getValue().cancel();
+            }
+            timers.clear();
+        }
     }
 
     /**
@@ -651,13 +1199,39 @@ public class EventManager {
     public synchronized void doStop() {
         if (isRunning) {
             isRunning = false;
+            if (null != eventServer) {
+                eventServer.stop(SO_TIMEOUT);
+                eventServer = null;
+            }
+            if (null != forwardReception) { // else duplicated forward handlers after restart
+                doUnregister(forwardReception);
+                forwardReception = null;
+            }
+            for (ForwardEventHandler handler : forwardHandlers.values()) {
+                handler.close();
+            }
+            bridges = null;
+            forwarded.clear();
+            for (DispatchLane lane : lanes.values()) {
+                lane.close();
+            }
+            lanes.clear();
             if (null != executor) {
                 executor.shutdown();
                 executor = null;
             }
             clients.clear();
             clientHandlers.clear();
+            cancelTimer(globalTimer);
+            globalTimer = null;
+            cancelTimer(telemetryTimer);
+            telemetryTimer = null;
             timerPeriod = 0;
+            synchronized (timers) {
+                if (null != timerWheel) {
+                    timerWheel.stop(); // keep registrations of handlers with own timer period for restart
+                }
+            }
             
             // wait for end of threads (may take 500 ms due to SOTimeouts), but not longer than 4*SO_TIMEOUT
             long timestamp = System.currentTimeMillis();
@@ -667,6 +1241,163 @@ public class EventManager {
                 } catch (InterruptedException e) {
                 }
             }
+            EventAuditLog log = auditLog;
+            auditLog = null;
+            if (null != log) {
+                log.stop();
+            }
+        }
+    }
+
+    /**
+     * Starts the event audit log if {@link Configuration#getEventAuditDir() configured}.
+     */
+    private void startAuditLog() {
+        String dir = Configuration.getEventAuditDir();
+        if (null != dir && dir.trim().length() > 0) {
+            EventAuditLog log = new EventAuditLog(new File(dir.trim()), Configuration.getEventAuditCapacity());
+            log.start();
+            auditLog = log;
+        }
+    }
+
+    /**
+     * Records an event sent by an {@link EventSender} in the telemetry and the audit log (if enabled) of the event 
+     * manager.
+     * 
+     * @param event the event
+     * @param size the size of the frame in bytes
+     */
+    static void notifySent(IEvent event, int size) {
+        INSTANCE.telemetry.sent(event);
+        INSTANCE.telemetry.written(size);
+        if (INSTANCE.isLoggingEnabled(event)) {
+            INSTANCE.audit(EventAuditLog.Kind.SENT, event, size);
+        }
+    }
+
+    /**
+     * Records an event dropped by an {@link EventSender} in the telemetry of the event manager.
+     * 
+     * @param event the event
+     */
+    static void notifyDropped(IEvent event) {
+        INSTANCE.telemetry.dropped(event);
+    }
+
+    /**
+     * Returns the telemetry of this event manager.
+     * 
+     * @return the telemetry
+     */
+    EventBusTelemetry getTelemetry() {
+        return telemetry;
+    }
+
+    /**
+     * Returns the current event bus statistics of the event manager with the cumulative latencies. The statistics 
+     * are also published periodically as {@link EventBusMonitoringEvent} if {@link 
+     * Configuration#getEventTelemetryPeriod() configured}, then with the latencies of the last period.
+     * 
+     * @return the statistics
+     */
+    public static EventBusStatistics getStatistics() {
+        return INSTANCE.doGetStatistics();
+    }
+
+    /**
+     * Returns the current event bus statistics of this event manager with the cumulative latencies.
+     * 
+     * @return the statistics
+     */
+    public EventBusStatistics doGetStatistics() {
+        return getStatistics(false);
+    }
+
+    /**
+     * Returns the current event bus statistics of this event manager.
+     * 
+     * @param period whether the latencies of the current telemetry period shall be taken (and a new period started)
+     *     rather than the cumulative latencies
+     * @return the statistics
+     */
+    private EventBusStatistics getStatistics(boolean period) {
+        int sendQueue = 0;
+        WritingWorker[] workers = connections;
+        for (int w = 0; null != workers && w < workers.length; w++) {
+            sendQueue += workers[w].toSend.size();
+        }
+        workers = bridges;
+        for (int w = 0; null != workers && w < workers.length; w++) {
+            sendQueue += workers[w].toSend.size();
+        }
+        long forwardQueue = 0;
+        for (ClientConnection conn : clients.values()) {
+            forwardQueue += conn.getPending();
+        }
+        int dispatchQueue = unprocessed.get();
+        return period ? telemetry.snapshotAndReset(managerId, sendQueue, forwardQueue, dispatchQueue) 
+            : telemetry.snapshot(managerId, sendQueue, forwardQueue, dispatchQueue);
+    }
+
+    /**
+     * Starts publishing the telemetry if {@link Configuration#getEventTelemetryPeriod() configured}.
+     */
+    private void startTelemetry() {
+        int period = Configuration.getEventTelemetryPeriod();
+        if (period > 0 && null == telemetryTimer) {
+            telemetryTimer = doSchedule(new Runnable() {
+
+                @Override
+                public void run() {
+                    if (isRunning) {
+                        doHandle(new EventBusMonitoringEvent(ComponentKey.getLocalHostName(), getStatistics(true)));
+                    }
+                }
+
+            }, period, period);
+        }
+    }
+
+    /**
+     * Returns the client id of the {@link EventSender event senders} of this JVM. The id differs from the one of the
+     * event manager so that senders and an event manager client can be used in the same JVM.
+     * 
+     * @return the id
+     */
+    static String getSenderId() {
+        return INSTANCE.managerId + "-sender";
+    }
+
+    /**
+     * Records an event in the audit log or, if the audit log is disabled, logs the event via the logging framework.
+     * Callers shall check {@link #isLoggingEnabled(IEvent)} before.
+     * 
+     * @param kind the kind of record
+     * @param event the event
+     * @param size the serialized size of the event in bytes, -1 if unknown
+     */
+    private void audit(EventAuditLog.Kind kind, IEvent event, int size) {
+        EventAuditLog log = auditLog;
+        if (null != log) {
+            log.record(kind, event, size);
+        } else {
+            String prefix;
+            switch (kind) {
+            case RECEIVED:
+                prefix = LOG_PREFIX_RECEIVED;
+                break;
+            case SENT:
+                prefix = "sending";
+                break;
+            case CONSUMED:
+                prefix = "consumed";
+                break;
+            default:
+                prefix = "dispatching";
+                break;
+            }
+            LOGGER.info(prefix + " " + event);
         }
     }
 
@@ -681,7 +1412,7 @@ public class EventManager {
      * Cleans up the event processing by waiting and blocking until all events are processed.
      */
     public void doCleanup() {
-        while (unprocessed.get() > 0 || (null != toSend && !toSend.isEmpty())) {
+        while (unprocessed.get() > 0 || unsent.get() > 0) {
             try {
                 Thread.sleep(100);
             } catch (InterruptedException e) {
@@ -690,84 +1421,43 @@ public class EventManager {
     }
     
     /**
-     * Implements a reconnectable server process.
-     * 
-     * @author Holger Eichelberger
-     */
-    private class ServerRunnable implements Runnable {
-
-        @Override
-        public void run() {
-            while (isRunning) {
-                try {
-                    Socket s = serverSocket.accept();
-                    LOGGER.info("accepted event connection from " + s.getRemoteSocketAddress());
-                    ReadingWorker worker = new ReadingWorker(s, false);
-                    startThread(worker);
-                } catch (SocketTimeoutException e) {
-                    // this is ok due to non-blocking mode
-                } catch (IOException e) {
-                    LOGGER.error(e.getMessage(), e);
-                }
-                try {
-                    Thread.sleep(50);
-                } catch (InterruptedException e) {
-                }
-            }
-            try {
-                serverSocket.close();
-            } catch (IOException e) {
-                LOGGER.error(e.getMessage(), e);
-            }
-            notifyThreadEnd();
-        }
-    }
-    
-    /**
-     * Implements the reading thread receiving and dispatching messages.
+     * Implements the client-side reading thread receiving and locally dispatching forwarded events.
      * 
      * @author Holger Eichelberger
      */
     private class ReadingWorker implements Runnable {
 
         private Socket socket;
-        private ObjectInputStream in;
+        private DataInputStream in;
         private boolean isReading = true;
-        private String clientId;
-        private boolean handleLocal;
+        private boolean bridge;
         
         /**
          * Creates a reading worker.
          * 
          * @param socket the socket to listen to / read from
-         * @param handleLocal whether the event shall potentially be sent or handled locally (forward reception)
+         * @param bridge whether events are bridged from a further shard to the primary server
          * @throws IOException if the stream cannot be opened
          */
-        public ReadingWorker(Socket socket, boolean handleLocal) throws IOException {
+        public ReadingWorker(Socket socket, boolean bridge) throws IOException {
             this.socket = socket;
-            this.handleLocal = handleLocal;
-            in = new ObjectInputStream(socket.getInputStream());
+            this.bridge = bridge;
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
         }
         
         @Override
         public void run() {
-            while (!handleLocal && isRunning && null == clientId) {
-                try {
-                    if (in.available() > 0) {
-                        clientId = in.readUTF();
-                        clients.put(clientId, new ClientConnection(clientId, socket));
-                    } // not ready
-                } catch (IOException e) {
-                    // not ready
-                }
-                if (null == clientId) {
-                    sleep(10);
-                }
-            }
             while (isRunning && isReading) {
                 IEvent event = null;
                 try {
-                    event = (IEvent) in.readObject();
+                    int length = in.readInt();
+                    EventCodecs.checkFrameLength(length);
+                    byte[] data = new byte[length];
+                    in.readFully(data);
+                    event = EventCodecs.fromFrame(data, 0, length); // null if frame cannot be decoded, skip frame
+                    if (null != event) {
+                        telemetry.received(event, EventCodecs.HEADER_LENGTH + length);
+                    }
                 } catch (SocketTimeoutException e) {
                     // this is ok due to non-blocking mode
                 } catch (EOFException | SocketException e) {
@@ -776,18 +1466,10 @@ public class EventManager {
                 } catch (IOException e) {
                     //LOGGER.error(e.getMessage(), e);
                     isReading = false;
-                } catch (ClassNotFoundException e) {
-                    LOGGER.error(e.getMessage(), e);
-                    isReading = false;
                 }
                 if (null != event) {
-                    if (handleLocal) {
-                        doHandleLocal(event);
-                    } else {
-                        doHandleImpl(event);
-                    }
+                    doHandleLocal(event, !bridge);
                 }
-                sleep(20);
             }
             try {
                 in.close();
@@ -800,18 +1482,6 @@ public class EventManager {
         
     }
     
-    /**
-     * Sleeps for a given time.
-     * 
-     * @param ms the time to sleep
-     */
-    private static void sleep(int ms) {
-        try {
-            Thread.sleep(ms);
-        } catch (InterruptedException e) {
-        }
-    }
-
     /**
      * Fills a returnable event with return information.
      * 
@@ -823,25 +1493,61 @@ public class EventManager {
     }
 
     /**
-     * Implements the writing thread for sending messages.
+     * Implements the writing thread for sending messages. The worker blocks on the send queue, drains all pending 
+     * events (up to {@link Configuration#getEventSendBatchSize()}, optionally lingering for 
+     * {@link Configuration#getEventSendLinger()} ms to complete a batch) and writes them with a single flush. If
+     * the connection is lost, the worker reconnects every {@link #RECONNECT_WAIT} ms, restores event forwarding and 
+     * reports the events dropped meanwhile by the bounded send queue. There is one worker (and send queue) per
+     * event bus shard.
      * 
      * @author Holger Eichelberger
      */
     private class WritingWorker implements Runnable {
 
+        private InetSocketAddress server;
+        private boolean bridge;
+        private EventSendQueue toSend = new EventSendQueue(Configuration.getEventSendConflate(), 
+            Configuration.getEventSendCapacity(), DispatchOverflowPolicy.parse(Configuration.getEventSendOverflow(), 
+            DispatchOverflowPolicy.DROP_OLDEST), Configuration.getEventPriorityAging(), telemetry);
+        private Socket forwardSocket; // stored for forwarding, cleared if forwarding is enabled
         private Socket socket;
-        private ObjectOutputStream out;
-        private long lastTimerEvent;
+        private DataOutputStream out;
+        private long lastConnect;
+        private int batchSize = Configuration.getEventSendBatchSize();
+        private long linger = Configuration.getEventSendLinger();
+        private List<IEvent> batch = new ArrayList<IEvent>(batchSize);
 
         /**
          * Creates a writing worker.
          * 
-         * @param socket the socket to listen to / read from
+         * @param server the server to connect to
+         * @param socket the socket to listen to / read from (may be <b>null</b> if not connected yet)
+         * @param bridge whether the worker bridges events from a further shard to the primary server
          * @throws IOException if the stream cannot be opened
          */
-        private WritingWorker(Socket socket) throws IOException {
-            this.socket = socket;
-            out = new ObjectOutputStream(socket.getOutputStream());
+        private WritingWorker(InetSocketAddress server, Socket socket, boolean bridge) throws IOException {
+            this.server = server;
+            this.bridge = bridge;
+            if (null != socket) {
+                this.socket = socket;
+                forwardSocket = socket;
+                out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            }
+        }
+
+        /**
+         * Starts the reading worker for forwarded events on the connection of this worker if not already done.
+         */
+        private void startReading() {
+            Socket s = forwardSocket;
+            if (null != s) {
+                forwardSocket = null; // start the reading worker only the first time
+                try {
+                    startThread(new ReadingWorker(s, bridge));
+                } catch (IOException e) {
+                    LOGGER.error("While setting up event forwarding: " + e.getMessage());
+                }
+            }
         }
         
         /**
@@ -851,117 +1557,204 @@ public class EventManager {
          */
         public void sendId() throws IOException {
             out.writeUTF(managerId);
+            out.flush();
         }
         
         @Override
         public void run() {
-            boolean workerRunning = true;
-            while (isRunning && workerRunning) {
+            while (isRunning) {
+                if (null == out) {
+                    reconnect();
+                }
                 try {
-                    if (!toSend.isEmpty()) { // needed to allow thread to be terminated
-                        IEvent event = toSend.take();
-                        out.writeObject(event);
-                        if (isLoggingEnabled(event)) {
-                            LOGGER.info("sending " + event);
+                    if (null != out) {
+                        // blocks, but needed to allow thread to be terminated
+                        IEvent event = toSend.poll(POLL_WAIT);
+                        if (null != event) {
+                            batch.add(event);
+                            fillBatch();
+                            writeBatch();
                         }
-                        toSend.poll();
+                    } else {
+                        Thread.sleep(POLL_WAIT); // events are queued meanwhile
                     }
-                    Thread.sleep(WRITE_WAIT);
-                } catch (SocketException e) {
-                    workerRunning = false;
+                } catch (IOException e) { // state of the stream unknown, codec problems are handled per event
+                    LOGGER.warn("Lost event bus connection: " + e.getMessage() + ". Reconnecting.");
+                    close();
+                    lastConnect = System.currentTimeMillis();
                 } catch (InterruptedException e) {
-                } catch (IOException e) {
-                    LOGGER.error(e.getMessage(), e);
-                }
-                if (timerPeriod > 0) {
-                    long now = System.currentTimeMillis();
-                    if (0 == lastTimerEvent || (now - lastTimerEvent) > timerPeriod) {
-                        doHandleLocal(TimerEvent.INSTANCE);
-                        lastTimerEvent = now;
-                    }
                 }
             }
+            close();
+            notifyThreadEnd();
+        }
+
+        /**
+         * Closes the connection.
+         */
+        private void close() {
             try {
-                out.close();
-                socket.close();
+                if (null != out) {
+                    out.close();
+                }
+                if (null != socket) {
+                    socket.close();
+                }
             } catch (SocketException e) {
               // already done  
             } catch (IOException e) {
                 LOGGER.error(e.getMessage(), e);
             }
-            notifyThreadEnd();
+            out = null;
+            socket = null;
+        }
+
+        /**
+         * Tries to reconnect to the event bus server if {@link #RECONNECT_WAIT} passed since the last attempt. Restores
+         * the event forwarding and reports the events dropped while being disconnected.
+         */
+        private void reconnect() {
+            long now = System.currentTimeMillis();
+            if (now - lastConnect >= RECONNECT_WAIT) {
+                lastConnect = now;
+                try {
+                    Socket s = createClientSocket(server.getHostString(), server.getPort());
+                    socket = s;
+                    out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+                    out.writeUTF(managerId);
+                    for (ForwardHandlerEvent fwd : forwarded) { // before any queued event
+                        EventCodecs.writeFrame(fwd, out);
+                    }
+                    out.flush();
+                    if (forwarded.isEmpty()) {
+                        forwardSocket = s;
+                    } else {
+                        startThread(new ReadingWorker(s, bridge));
+                    }
+                    Map<String, Long> dropped = toSend.clearDropped();
+                    LOGGER.info("Event bus connection recovered" 
+                        + (dropped.isEmpty() ? "." : ", dropped events meanwhile: " + dropped));
+                } catch (IOException e) {
+                    close();
+                }
+            }
+        }
+        
+        /**
+         * Drains the pending events into {@link #batch}, lingering for further events if configured.
+         * 
+         * @throws InterruptedException if waiting for further events was interrupted
+         */
+        private void fillBatch() throws InterruptedException {
+            toSend.drainTo(batch, batchSize - batch.size());
+            if (linger > 0 && batch.size() < batchSize) {
+                long end = System.currentTimeMillis() + linger;
+                long remaining = linger;
+                while (remaining > 0 && batch.size() < batchSize) {
+                    IEvent event = toSend.poll(remaining);
+                    if (null == event) {
+                        remaining = 0;
+                    } else {
+                        batch.add(event);
+                        toSend.drainTo(batch, batchSize - batch.size());
+                        remaining = end - System.currentTimeMillis();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Writes all events in {@link #batch} and flushes the connection once. In case of I/O problems, the events 
+         * from the first unwritten one on are counted as dropped.
+         * 
+         * @throws IOException in case of I/O problems
+         */
+        private void writeBatch() throws IOException {
+            int size = batch.size();
+            int e = 0;
+            try {
+                for (; e < size; e++) {
+                    IEvent event = batch.get(e);
+                    byte[] frame = null;
+                    try {
+                        frame = EventCodecs.toFrame(event);
+                    } catch (IOException ex) { // do not lose the connection due to a single event
+                        LOGGER.error("Cannot send " + event + ": " + ex.getMessage());
+                        toSend.drop(event);
+                    }
+                    if (null != frame) {
+                        out.write(frame);
+                        telemetry.sent(event);
+                        telemetry.written(frame.length);
+                        if (isLoggingEnabled(event)) {
+                            audit(EventAuditLog.Kind.SENT, event, frame.length);
+                        }
+                    }
+                }
+                out.flush();
+            } catch (IOException ex) {
+                for (; e < size; e++) { // codec failures are before e and already dropped
+                    toSend.drop(batch.get(e));
+                }
+                throw ex;
+            } finally {
+                batch.clear();
+                unsent.addAndGet(-size);
+            }
         }
         
     }
     
     /**
-     * Implements an auto-reconnecting simple event connection for sending events directly to the event bus. This class 
-     * is intended to reduce the overall number of threads as it sends events directly. However, do not use instances 
-     * of this class together with event bus clients in the same JVM.
+     * Implements a simple event connection for sending events directly to the event bus. This class is intended to 
+     * reduce the overall number of threads as it sends events without starting an event manager. All instances in a 
+     * JVM share one {@link MultiplexedSender auto-reconnecting connection}, i.e., {@link #send(IEvent)} just queues 
+     * the event without blocking the caller.
      * 
      * @author Holger Eichelberger
      */
     public static class EventSender {
 
-        private Socket socket;
-        private ObjectOutputStream out;
+        private volatile MultiplexedSender sender;
 
         /**
          * Creates an event sender for the event bus.
          */
         public EventSender() {
-            connect();
+            sender = MultiplexedSender.acquire();
         }
 
         /**
-         * Tries connecting to the event bus.
+         * Sends an event to the event bus. Does not block, the event is dropped if the shared send queue is full. The 
+         * event is encoded asynchronously, i.e., it must not be modified after sending.
+         * 
+         * @param event the event (ignored if <b>null</b> or if this sender is closed, must not be modified afterwards)
          */
-        private void connect() {
-            try {
-                this.socket = createClientSocket();
-                out = new ObjectOutputStream(socket.getOutputStream());
-                out.writeUTF(INSTANCE.managerId);
-            } catch (IOException e) {
-                close();
+        public void send(IEvent event) {
+            MultiplexedSender snd = sender;
+            if (null != snd && null != event) {
+                snd.send(event);
             }
         }
-        
+
         /**
-         * Sends an event to the event bus.
+         * Returns the number of events dropped by the shared connection so far.
          * 
-         * @param event the event
+         * @return the number of dropped events, 0 if this sender is closed
          */
-        public void send(IEvent event) {
-            if (null == out) {
-                connect();
-            }
-            if (null != out) {
-                try {
-                    out.writeObject(event);
-                    if (INSTANCE.isLoggingEnabled(event)) {
-                        LOGGER.info("sending " + event);
-                    }
-                } catch (IOException e) {
-                    close();
-                }
-            }
+        public long getDropped() {
+            MultiplexedSender snd = sender;
+            return null == snd ? 0 : snd.getDropped();
         }
 
         /**
-         * Closes the event sender.
+         * Closes the event sender. The shared connection is closed after sending the queued events when the last 
+         * sender is closed.
          */
-        public void close() {
-            if (null != out) {
-                try {
-                    out.close();
-                } catch (IOException e) {
-                }
-            }
-            if (null != socket) {
-                try {
-                    socket.close();
-                } catch (IOException e) {
-                }
+        public synchronized void close() {
+            if (null != sender) {
+                MultiplexedSender.release(sender);
+                sender = null;
             }
         }
         
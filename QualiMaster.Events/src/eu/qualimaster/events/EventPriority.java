@@ -0,0 +1,92 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.events;
+
+import eu.qualimaster.infrastructure.InfrastructureEvent;
+import eu.qualimaster.logging.events.LoggingEvent;
+import eu.qualimaster.monitoring.events.IEnactmentCompletedMonitoringEvent;
+import eu.qualimaster.monitoring.events.MonitoringEvent;
+
+/**
+ * The priority classes of events. On the send and the dispatch paths of the event bus, events of a higher priority 
+ * overtake queued events of lower priority. To bound starvation, a queued event is overtaken by at most 
+ * {@link eu.qualimaster.Configuration#getEventPriorityAging() aging} events per priority class above.
+ * 
+ * @author Holger Eichelberger
+ */
+public enum EventPriority {
+
+    /**
+     * Control traffic, e.g., infrastructure events such as pipeline lifecycle or shutdown, signals, commands and 
+     * responses.
+     */
+    CONTROL,
+
+    /**
+     * All events not classified otherwise.
+     */
+    NORMAL,
+
+    /**
+     * High-volume telemetry, i.e., monitoring and logging events.
+     */
+    TELEMETRY;
+
+    /**
+     * Returns the priority of an event.
+     * 
+     * @param event the event
+     * @return the priority, given by the event if it is an {@link IPrioritizedEvent}
+     */
+    public static EventPriority of(IEvent event) {
+        EventPriority result;
+        if (event instanceof IPrioritizedEvent) {
+            result = ((IPrioritizedEvent) event).getPriority();
+        } else if (event instanceof IResponseEvent || event instanceof InfrastructureEvent) {
+            result = CONTROL;
+        } else if (isTelemetry(event)) {
+            result = TELEMETRY;
+        } else {
+            result = NORMAL;
+        }
+        return null == result ? NORMAL : result;
+    }
+
+    /**
+     * Returns whether <code>event</code> is a telemetry event. Enactment completion events are not considered as 
+     * telemetry as they are part of the adaptation protocol.
+     * 
+     * @param event the event
+     * @return <code>true</code> for telemetry, <code>false</code> else
+     */
+    private static boolean isTelemetry(IEvent event) {
+        return (event instanceof MonitoringEvent && !(event instanceof IEnactmentCompletedMonitoringEvent)) 
+            || event instanceof LoggingEvent;
+    }
+
+    /**
+     * Returns the virtual deadline for queueing an item of this priority, i.e., items are taken in the order of 
+     * their deadlines.
+     * 
+     * @param sequence the current queueing sequence number
+     * @param aging the starvation bound, see {@link eu.qualimaster.Configuration#getEventPriorityAging()}
+     * @return the deadline
+     */
+    long deadline(long sequence, int aging) {
+        return sequence + ordinal() * (long) aging;
+    }
+
+}
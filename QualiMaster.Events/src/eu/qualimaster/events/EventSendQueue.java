@@ -0,0 +1,310 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.events;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The bounded client-side queue of events to be sent. Events are queued per {@link EventPriority priority} and taken 
+ * in the order of their virtual deadlines, i.e., control events overtake queued telemetry events, but a queued event
+ * is overtaken by at most <code>aging</code> events per higher priority class. Events of the same priority keep their
+ * order. If the queue is full, queued telemetry events are dropped first (oldest first), then the 
+ * {@link DispatchOverflowPolicy overflow policy} applies, but an event never evicts a more important one, i.e., it 
+ * is dropped itself instead. Dropped events are counted per event class. If conflation 
+ * is enabled, a queued {@link IConflatableEvent} is replaced in place by a newer event with the same conflation key, 
+ * i.e., a slow connection sends the most recent values rather than a growing backlog of outdated ones. Other events 
+ * are never conflated.
+ * 
+ * @author Holger Eichelberger
+ */
+class EventSendQueue {
+
+    private static final EventPriority[] PRIORITIES = EventPriority.values();
+    private static final int TELEMETRY = EventPriority.TELEMETRY.ordinal();
+
+    private final boolean conflate;
+    private final int capacity;
+    private final DispatchOverflowPolicy policy;
+    private final int aging;
+    private final EventBusTelemetry telemetry;
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final ArrayDeque<Entry>[] queues = new ArrayDeque[PRIORITIES.length];
+    private final Map<Object, Entry> conflatable = new HashMap<Object, Entry>();
+    private final Map<String, Long> dropped = new TreeMap<String, Long>();
+    private long sequence;
+    private long conflated;
+
+    /**
+     * A queue entry. Entries of conflatable events are replaced in place.
+     * 
+     * @author Holger Eichelberger
+     */
+    private static class Entry {
+
+        private final long deadline;
+        private final Object key;
+        private IEvent event;
+
+        /**
+         * Creates an entry.
+         * 
+         * @param deadline the virtual deadline determining the sending order
+         * @param key the conflation key (may be <b>null</b>)
+         * @param event the event
+         */
+        private Entry(long deadline, Object key, IEvent event) {
+            this.deadline = deadline;
+            this.key = key;
+            this.event = event;
+        }
+
+    }
+
+    /**
+     * Creates a send queue.
+     * 
+     * @param conflate whether conflatable events shall be conflated
+     * @param capacity the maximum number of queued events (at least 1)
+     * @param policy the overflow policy if there is no telemetry event to drop
+     * @param aging the starvation bound for lower priorities (at least 1)
+     * @param telemetry the telemetry to count dropped events in
+     */
+    EventSendQueue(boolean conflate, int capacity, DispatchOverflowPolicy policy, int aging, 
+        EventBusTelemetry telemetry) {
+        this.conflate = conflate;
+        this.capacity = Math.max(1, capacity);
+        this.policy = policy;
+        this.aging = Math.max(1, aging);
+        this.telemetry = telemetry;
+        for (int q = 0; q < queues.length; q++) {
+            queues[q] = new ArrayDeque<Entry>();
+        }
+    }
+
+    /**
+     * Adds an event to the queue. May block for {@link DispatchOverflowPolicy#BLOCK}.
+     * 
+     * @param event the event
+     * @return <code>true</code> if the number of queued events increased, <code>false</code> if the event was 
+     *     conflated, dropped or replaced a dropped event
+     * @throws InterruptedException if waiting for space was interrupted
+     */
+    synchronized boolean put(IEvent event) throws InterruptedException {
+        boolean grown = false;
+        Object key = conflate && event instanceof IConflatableEvent 
+            ? ((IConflatableEvent) event).getConflationKey() : null;
+        Entry entry = null == key ? null : conflatable.get(key);
+        if (null != entry) {
+            entry.event = event;
+            conflated++;
+        } else {
+            EventPriority priority = EventPriority.of(event);
+            ArrayDeque<Entry> telemetry = queues[TELEMETRY];
+            boolean add = true;
+            if (size() >= capacity) {
+                if (!telemetry.isEmpty() && (EventPriority.TELEMETRY != priority 
+                    || DispatchOverflowPolicy.DROP_NEWEST != policy)) {
+                    drop(telemetry.poll());
+                } else if (DispatchOverflowPolicy.DROP_OLDEST == policy) {
+                    Entry evicted = pollLowest(priority);
+                    if (null != evicted) {
+                        drop(evicted);
+                    } else { // never evict more important events
+                        drop(event);
+                        add = false;
+                    }
+                } else if (DispatchOverflowPolicy.DROP_NEWEST == policy) {
+                    drop(event);
+                    add = false;
+                } else {
+                    while (size() >= capacity) {
+                        wait();
+                    }
+                    grown = true;
+                }
+            } else {
+                grown = true;
+            }
+            if (add) {
+                entry = new Entry(priority.deadline(sequence++, aging), key, event);
+                if (null != key) {
+                    conflatable.put(key, entry);
+                }
+                queues[priority.ordinal()].add(entry);
+                notifyAll();
+            }
+        }
+        return grown;
+    }
+
+    /**
+     * Counts a dropped event.
+     * 
+     * @param entry the entry of the dropped event
+     */
+    private void drop(Entry entry) {
+        if (null != entry.key) {
+            conflatable.remove(entry.key);
+        }
+        drop(entry.event);
+    }
+
+    /**
+     * Counts a dropped event. Shall also be called for events which were taken from this queue but could not be 
+     * sent.
+     * 
+     * @param event the dropped event
+     */
+    synchronized void drop(IEvent event) {
+        String name = event.getClass().getName();
+        Long count = dropped.get(name);
+        dropped.put(name, null == count ? 1 : count + 1);
+        telemetry.dropped(event);
+    }
+
+    /**
+     * Removes the entry with the earliest deadline. Requires the monitor of this instance.
+     * 
+     * @return the entry, <b>null</b> if the queue is empty
+     */
+    private Entry pollHead() {
+        ArrayDeque<Entry> first = null;
+        long deadline = Long.MAX_VALUE;
+        for (int q = 0; q < queues.length; q++) {
+            Entry head = queues[q].peek();
+            if (null != head && (null == first || head.deadline < deadline)) {
+                first = queues[q];
+                deadline = head.deadline;
+            }
+        }
+        return null == first ? null : first.poll();
+    }
+
+    /**
+     * Removes the oldest entry of the lowest priority that is not more important than <code>priority</code>. 
+     * Requires the monitor of this instance.
+     * 
+     * @param priority the priority of the event to make room for
+     * @return the entry, <b>null</b> if there is no such entry
+     */
+    private Entry pollLowest(EventPriority priority) {
+        Entry result = null;
+        for (int q = queues.length - 1; null == result && q >= priority.ordinal(); q--) {
+            result = queues[q].poll();
+        }
+        return result;
+    }
+
+    /**
+     * Removes the event with the earliest deadline. Requires the monitor of this instance.
+     * 
+     * @return the event, <b>null</b> if the queue is empty
+     */
+    private IEvent removeHead() {
+        IEvent result = null;
+        Entry head = pollHead();
+        if (null != head) {
+            if (null != head.key) {
+                conflatable.remove(head.key);
+            }
+            result = head.event;
+            notifyAll();
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves and removes the head of the queue, waiting up to <code>timeout</code> for an event.
+     * 
+     * @param timeout the maximum time to wait in ms
+     * @return the head event, <b>null</b> if no event became available in time
+     * @throws InterruptedException if waiting was interrupted
+     */
+    synchronized IEvent poll(long timeout) throws InterruptedException {
+        if (isEmpty() && timeout > 0) {
+            long end = System.currentTimeMillis() + timeout;
+            long remaining = timeout;
+            while (isEmpty() && remaining > 0) {
+                wait(remaining);
+                remaining = end - System.currentTimeMillis();
+            }
+        }
+        return removeHead();
+    }
+
+    /**
+     * Removes up to <code>max</code> events and adds them to <code>target</code>.
+     * 
+     * @param target the collection to add the events to
+     * @param max the maximum number of events to remove
+     * @return the number of events removed
+     */
+    synchronized int drainTo(Collection<? super IEvent> target, int max) {
+        int count = 0;
+        while (count < max && !isEmpty()) {
+            target.add(removeHead());
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns whether the queue is empty. Requires the monitor of this instance.
+     * 
+     * @return <code>true</code> if empty, <code>false</code> else
+     */
+    private boolean isEmpty() {
+        return 0 == size();
+    }
+
+    /**
+     * Returns the number of queued events.
+     * 
+     * @return the number of queued events
+     */
+    synchronized int size() {
+        int size = 0;
+        for (int q = 0; q < queues.length; q++) {
+            size += queues[q].size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of events replaced by newer ones so far.
+     * 
+     * @return the number of conflated events
+     */
+    synchronized long getConflated() {
+        return conflated;
+    }
+
+    /**
+     * Returns and resets the numbers of dropped events.
+     * 
+     * @return the numbers of dropped events per event class name, empty if no event was dropped
+     */
+    synchronized Map<String, Long> clearDropped() {
+        Map<String, Long> result = new TreeMap<String, Long>(dropped);
+        dropped.clear();
+        return result;
+    }
+
+}
@@ -0,0 +1,381 @@
+/*
+ * Copyright 2009-2016 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.events;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * The selector-based server side of the event bus. One acceptor thread accepts connections and assigns them
+ * round-robin to a fixed number of I/O threads, each serving its connections via a selector with non-blocking
+ * framed reads and queued writes. Received events are passed to the {@link EventManager} for dispatching.
+ *
+ * @author Holger Eichelberger
+ */
+class EventServer {
+
+    private static final Logger LOGGER = LogManager.getLogger(EventServer.class);
+    private static final long SELECT_TIMEOUT = 500;
+
+    private EventManager manager;
+    private long sendCapacity;
+    private int aging;
+    private ServerSocketChannel serverChannel;
+    private Selector acceptSelector;
+    private IoWorker[] workers;
+    private List<Thread> threads = new ArrayList<Thread>();
+    private volatile boolean running;
+
+    /**
+     * Serves a set of client connections.
+     *
+     * @author Holger Eichelberger
+     */
+    class IoWorker implements Runnable {
+
+        private Selector selector;
+        private Queue<SocketChannel> pendingChannels = new ConcurrentLinkedQueue<SocketChannel>();
+        private Queue<ClientConnection> pendingWrites = new ConcurrentLinkedQueue<ClientConnection>();
+        private List<IEvent> received = new ArrayList<IEvent>();
+
+        /**
+         * Creates an I/O worker.
+         *
+         * @throws IOException in case that the selector cannot be opened
+         */
+        private IoWorker() throws IOException {
+            selector = Selector.open();
+        }
+
+        /**
+         * Adds an accepted channel to be served by this worker.
+         *
+         * @param channel the channel
+         */
+        private void add(SocketChannel channel) {
+            pendingChannels.add(channel);
+            selector.wakeup();
+        }
+
+        /**
+         * Requests writing the queued frames of <code>conn</code>. May be called by any thread.
+         *
+         * @param conn the connection
+         */
+        void requestWrite(ClientConnection conn) {
+            pendingWrites.add(conn);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    selector.select(SELECT_TIMEOUT);
+                    registerPending();
+                    writePending();
+                    Iterator<SelectionKey> iter = selector.selectedKeys().iterator();
+                    while (iter.hasNext()) {
+                        SelectionKey key = iter.next();
+                        iter.remove();
+                        handle(key);
+                    }
+                } catch (IOException e) {
+                    LOGGER.error(e.getMessage(), e);
+                }
+            }
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof ClientConnection) {
+                    close((ClientConnection) key.attachment());
+                }
+            }
+            SocketChannel channel;
+            while (null != (channel = pendingChannels.poll())) {
+                closeQuietly(channel);
+            }
+            closeQuietly(selector);
+        }
+
+        /**
+         * Registers the pending channels with the selector.
+         */
+        private void registerPending() {
+            SocketChannel channel;
+            while (null != (channel = pendingChannels.poll())) {
+                ClientConnection conn = new ClientConnection(channel, this, sendCapacity, aging, 
+                    manager.getTelemetry());
+                try {
+                    channel.register(selector, SelectionKey.OP_READ, conn);
+                } catch (IOException e) {
+                    LOGGER.error("Cannot serve " + conn + ": " + e.getMessage());
+                    close(conn);
+                }
+            }
+        }
+
+        /**
+         * Writes the pending outgoing frames, registers for writing if the frames cannot be written completely.
+         */
+        private void writePending() {
+            ClientConnection conn;
+            while (null != (conn = pendingWrites.poll())) {
+                SelectionKey key = conn.getChannel().keyFor(selector);
+                if (null != key && key.isValid()) {
+                    write(conn, key);
+                }
+            }
+        }
+
+        /**
+         * Handles a selected key. Failures of a connection, including runtime exceptions while handling its events, 
+         * close only that connection, i.e., the other connections served by this thread are not affected.
+         *
+         * @param key the key
+         */
+        private void handle(SelectionKey key) {
+            ClientConnection conn = (ClientConnection) key.attachment();
+            try {
+                if (key.isValid() && key.isReadable()) {
+                    try {
+                        boolean known = null != conn.getClientId();
+                        boolean open = conn.read(received);
+                        if (!known && null != conn.getClientId()) {
+                            manager.handleConnected(conn);
+                        }
+                        for (int e = 0; e < received.size(); e++) {
+                            manager.handleReceived(received.get(e));
+                        }
+                        if (!open) {
+                            close(conn);
+                        }
+                    } catch (IOException e) {
+                        LOGGER.info("Closing event connection " + conn + ": " + e.getMessage());
+                        close(conn);
+                    } finally {
+                        received.clear();
+                    }
+                }
+                if (key.isValid() && key.isWritable()) {
+                    write(conn, key);
+                }
+            } catch (RuntimeException e) {
+                LOGGER.error("Closing event connection " + conn + ": " + e.getMessage(), e);
+                close(conn);
+            }
+        }
+
+        /**
+         * Writes the queued frames of <code>conn</code> and adjusts the interest in writing.
+         *
+         * @param conn the connection
+         * @param key the selection key of <code>conn</code>
+         */
+        private void write(ClientConnection conn, SelectionKey key) {
+            try {
+                if (conn.write()) {
+                    key.interestOps(SelectionKey.OP_READ);
+                } else {
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                }
+            } catch (IOException e) {
+                LOGGER.info("Closing event connection " + conn + ": " + e.getMessage());
+                close(conn);
+            }
+        }
+
+        /**
+         * Closes a connection and informs the event manager.
+         *
+         * @param conn the connection
+         */
+        private void close(ClientConnection conn) {
+            boolean wasOpen = !conn.isClosed();
+            conn.close();
+            if (wasOpen) {
+                manager.handleDisconnected(conn);
+            }
+        }
+
+    }
+
+    /**
+     * Accepts new connections.
+     *
+     * @author Holger Eichelberger
+     */
+    private class Acceptor implements Runnable {
+
+        private int next;
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    acceptSelector.select(SELECT_TIMEOUT);
+                    Iterator<SelectionKey> iter = acceptSelector.selectedKeys().iterator();
+                    while (iter.hasNext()) {
+                        iter.next();
+                        iter.remove();
+                        accept();
+                    }
+                } catch (IOException e) {
+                    LOGGER.error(e.getMessage(), e);
+                }
+            }
+            closeQuietly(acceptSelector);
+            closeQuietly(serverChannel);
+        }
+
+        /**
+         * Accepts the pending connections.
+         *
+         * @throws IOException in case of I/O problems
+         */
+        private void accept() throws IOException {
+            SocketChannel channel;
+            while (null != (channel = serverChannel.accept())) {
+                LOGGER.info("accepted event connection from " + channel.socket().getRemoteSocketAddress());
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                channel.socket().setKeepAlive(true);
+                workers[next].add(channel);
+                next = (next + 1) % workers.length;
+            }
+        }
+
+    }
+
+    /**
+     * Creates and binds the server.
+     *
+     * @param manager the event manager to pass received events to
+     * @param port the port to listen on
+     * @param ioThreads the number of I/O threads (at least 1)
+     * @param sendCapacity the maximum number of bytes queued for sending per client
+     * @param aging the starvation bound for frames of lower priority sent to a client
+     * @throws IOException in case that the server cannot be bound
+     */
+    EventServer(EventManager manager, int port, int ioThreads, long sendCapacity, int aging) throws IOException {
+        this.manager = manager;
+        this.sendCapacity = sendCapacity;
+        this.aging = aging;
+        serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.socket().setReuseAddress(true);
+            serverChannel.socket().bind(new InetSocketAddress(port));
+            serverChannel.configureBlocking(false);
+            acceptSelector = Selector.open();
+            serverChannel.register(acceptSelector, SelectionKey.OP_ACCEPT);
+            workers = new IoWorker[Math.max(1, ioThreads)];
+            for (int w = 0; w < workers.length; w++) {
+                workers[w] = new IoWorker();
+            }
+        } catch (IOException e) {
+            closeQuietly(acceptSelector);
+            if (null != workers) {
+                for (int w = 0; w < workers.length; w++) {
+                    if (null != workers[w]) {
+                        closeQuietly(workers[w].selector);
+                    }
+                }
+            }
+            closeQuietly(serverChannel);
+            throw e;
+        }
+    }
+
+    /**
+     * Starts the acceptor and the I/O threads.
+     */
+    void start() {
+        running = true;
+        for (int w = 0; w < workers.length; w++) {
+            startThread(workers[w], "EventServer-IO-" + w);
+        }
+        startThread(new Acceptor(), "EventServer-Accept");
+    }
+
+    /**
+     * Starts a server thread. Server threads never block on full dispatch lanes.
+     *
+     * @param runnable the runnable
+     * @param name the thread name
+     */
+    private void startThread(Runnable runnable, String name) {
+        Thread thread = new EventManager.NonBlockingThread(runnable, name);
+        thread.start();
+        threads.add(thread);
+    }
+
+    /**
+     * Stops the server, closes all connections and waits for the end of the server threads.
+     *
+     * @param timeout the maximum time to wait in ms
+     */
+    void stop(long timeout) {
+        running = false;
+        acceptSelector.wakeup();
+        for (int w = 0; w < workers.length; w++) {
+            workers[w].selector.wakeup();
+        }
+        long end = System.currentTimeMillis() + timeout;
+        for (int t = 0; t < threads.size(); t++) {
+            long remaining = end - System.currentTimeMillis();
+            if (remaining > 0) {
+                try {
+                    threads.get(t).join(remaining);
+                } catch (InterruptedException e) {
+                }
+            }
+        }
+        threads.clear();
+        for (int w = 0; w < workers.length; w++) { // accepted while the I/O thread was already ending
+            SocketChannel channel;
+            while (null != (channel = workers[w].pendingChannels.poll())) {
+                closeQuietly(channel);
+            }
+        }
+    }
+
+    /**
+     * Closes a closeable and ignores exceptions.
+     *
+     * @param closeable the closeable (may be <b>null</b>)
+     */
+    private static void closeQuietly(Closeable closeable) {
+        if (null != closeable) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.events;
+
+import java.io.Serializable;
+
+/**
+ * A subscription predicate of a client for forwarded events. The event bus server forwards an event to a client 
+ * only if it matches at least one of the subscriptions of the client for the event class. A subscription matches if 
+ * all of its given (non-<b>null</b>) parts match. Pipeline and pipeline element are only checked for 
+ * {@link IPipelineScopedEvent pipeline-scoped events}, and an event for all pipelines (elements) matches any pipeline 
+ * (element).
+ * 
+ * @author Holger Eichelberger
+ */
+public class EventSubscription implements Serializable {
+
+    private static final long serialVersionUID = 2430876619127546601L;
+    private String channel;
+    private String pipeline;
+    private String pipelineElement;
+
+    /**
+     * Creates a subscription.
+     * 
+     * @param channel the channel to subscribe to (may be <b>null</b> for any channel)
+     * @param pipeline the pipeline to subscribe to (may be <b>null</b> for any pipeline)
+     * @param pipelineElement the pipeline element to subscribe to (may be <b>null</b> for any pipeline element)
+     */
+    public EventSubscription(String channel, String pipeline, String pipelineElement) {
+        this.channel = channel;
+        this.pipeline = pipeline;
+        this.pipelineElement = pipelineElement;
+    }
+
+    /**
+     * Creates a channel subscription.
+     * 
+     * @param channel the channel to subscribe to (may be <b>null</b> for any channel)
+     * @return the subscription
+     */
+    public static EventSubscription forChannel(String channel) {
+        return new EventSubscription(channel, null, null);
+    }
+
+    /**
+     * Creates a pipeline subscription.
+     * 
+     * @param pipeline the pipeline to subscribe to (may be <b>null</b> for any pipeline)
+     * @param pipelineElement the pipeline element to subscribe to (may be <b>null</b> for any pipeline element)
+     * @return the subscription
+     */
+    public static EventSubscription forPipeline(String pipeline, String pipelineElement) {
+        return new EventSubscription(null, pipeline, pipelineElement);
+    }
+
+    /**
+     * Returns the subscribed channel.
+     * 
+     * @return the channel (may be <b>null</b> for any channel)
+     */
+    public String getChannel() {
+        return channel;
+    }
+
+    /**
+     * Returns the subscribed pipeline.
+     * 
+     * @return the pipeline (may be <b>null</b> for any pipeline)
+     */
+    public String getPipeline() {
+        return pipeline;
+    }
+
+    /**
+     * Returns the subscribed pipeline element.
+     * 
+     * @return the pipeline element (may be <b>null</b> for any pipeline element)
+     */
+    public String getPipelineElement() {
+        return pipelineElement;
+    }
+
+    /**
+     * Returns whether this subscription accepts any event.
+     * 
+     * @return <code>true</code> for any event, <code>false</code> else
+     */
+    public boolean isUnrestricted() {
+        return null == channel && null == pipeline && null == pipelineElement;
+    }
+
+    /**
+     * Returns whether <code>event</code> matches this subscription.
+     * 
+     * @param event the event
+     * @return <code>true</code> if <code>event</code> matches, <code>false</code> else
+     */
+    public boolean matches(IEvent event) {
+        boolean matches = null == channel || channel.equals(event.getChannel());
+        if (matches && event instanceof IPipelineScopedEvent) {
+            IPipelineScopedEvent evt = (IPipelineScopedEvent) event;
+            matches = matches(pipeline, evt.getPipeline()) && matches(pipelineElement, evt.getPipelineElement());
+        }
+        return matches;
+    }
+
+    /**
+     * Returns whether a subscribed name matches the name given by an event.
+     * 
+     * @param subscribed the subscribed name (may be <b>null</b> for any)
+     * @param name the name given by the event (may be <b>null</b> for all)
+     * @return <code>true</code> if the names match, <code>false</code> else
+     */
+    private static boolean matches(String subscribed, String name) {
+        return null == subscribed || null == name || subscribed.equals(name);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        boolean result = false;
+        if (obj instanceof EventSubscription) {
+            EventSubscription other = (EventSubscription) obj;
+            result = equals(channel, other.channel) && equals(pipeline, other.pipeline) 
+                && equals(pipelineElement, other.pipelineElement);
+        }
+        return result;
+    }
+
+    /**
+     * Null-safe equality of two strings.
+     * 
+     * @param s1 the first string (may be <b>null</b>)
+     * @param s2 the second string (may be <b>null</b>)
+     * @return <code>true</code> if both are equal, <code>false</code> else
+     */
+    private static boolean equals(String s1, String s2) {
+        return null == s1 ? null == s2 : s1.equals(s2);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode(channel) + 31 * (hashCode(pipeline) + 31 * hashCode(pipelineElement));
+    }
+
+    /**
+     * Null-safe hash code of a string.
+     * 
+     * @param string the string (may be <b>null</b>)
+     * @return the hash code
+     */
+    private static int hashCode(String string) {
+        return null == string ? 0 : string.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "channel " + channel + " pipeline " + pipeline + " element " + pipelineElement;
+    }
+
+}
@@ -29,16 +29,29 @@ class ForwardHandlerEvent extends AbstractEvent {
     private static final long serialVersionUID = -6353697868091603805L;
     private String clientId;
     private String eventClass;
+    private EventSubscription subscription;
 
     /**
-     * Creates a forward event.
+     * Creates a forward event for all events of <code>eventClass</code>.
      * 
      * @param clientId the client VM id to send information to
      * @param eventClass the event class to handle
      */
     public ForwardHandlerEvent(String clientId, String eventClass) {
+        this(clientId, eventClass, null);
+    }
+
+    /**
+     * Creates a forward event.
+     * 
+     * @param clientId the client VM id to send information to
+     * @param eventClass the event class to handle
+     * @param subscription the subscription restricting the events to forward (may be <b>null</b> for all events)
+     */
+    public ForwardHandlerEvent(String clientId, String eventClass, EventSubscription subscription) {
         this.clientId = clientId;
         this.eventClass = eventClass;
+        this.subscription = null == subscription || subscription.isUnrestricted() ? null : subscription;
     }
     
     /**
@@ -59,4 +72,29 @@ class ForwardHandlerEvent extends AbstractEvent {
         return eventClass;
     }
 
+    /**
+     * Returns the subscription restricting the events to forward.
+     * 
+     * @return the subscription, <b>null</b> for all events
+     */
+    public EventSubscription getSubscription() {
+        return subscription;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        boolean result = false;
+        if (obj instanceof ForwardHandlerEvent) {
+            ForwardHandlerEvent other = (ForwardHandlerEvent) obj;
+            result = clientId.equals(other.clientId) && eventClass.equals(other.eventClass) 
+                && (null == subscription ? null == other.subscription : subscription.equals(other.subscription));
+        }
+        return result;
+    }
+
+    @Override
+    public int hashCode() {
+        return clientId.hashCode() + 31 * eventClass.hashCode() + (null == subscription ? 0 : subscription.hashCode());
+    }
+
 }
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.events;
+
+/**
+ * An event carrying a state value where only the most recent value is relevant. If enabled, a queued conflatable 
+ * event is replaced by a newer one with an equal {@link #getConflationKey() conflation key} before sending.
+ * 
+ * @author Holger Eichelberger
+ */
+public interface IConflatableEvent extends IEvent {
+
+    /**
+     * Returns the conflation key, i.e., events with equal keys (in terms of {@link Object#equals(Object)} and 
+     * {@link Object#hashCode()}) represent values of the same state. 
+     * 
+     * @return the conflation key (<b>null</b> disables conflation for this event)
+     */
+    public Object getConflationKey();
+
+}
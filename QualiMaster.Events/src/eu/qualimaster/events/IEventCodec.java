@@ -0,0 +1,57 @@
+/*
+ * Copyright 2009-2016 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.events;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Defines a compact wire encoding for a specific (high-volume) event class. Codecs are registered
+ * with {@link EventCodecs}. Events without registered codec are transferred via Java serialization.
+ *
+ * @param <E> the type of event handled
+ * @author Holger Eichelberger
+ */
+public interface IEventCodec<E extends IEvent> {
+
+    /**
+     * Returns the (exact) event class handled by this codec.
+     *
+     * @return the handled event class
+     */
+    public Class<E> handles();
+
+    /**
+     * Encodes <code>event</code> to <code>out</code>.
+     *
+     * @param event the event to encode
+     * @param out the output to write to
+     * @throws IOException in case that encoding fails, in particular if this codec cannot encode <code>event</code>
+     *     (leads to falling back to Java serialization)
+     */
+    public void encode(E event, DataOutput out) throws IOException;
+
+    /**
+     * Decodes an event from <code>in</code>.
+     *
+     * @param in the input to read from
+     * @return the decoded event
+     * @throws IOException in case that decoding fails
+     */
+    public E decode(DataInput in) throws IOException;
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.events;
+
+/**
+ * An event affecting a certain pipeline or pipeline element. Allows the event bus server to apply 
+ * {@link EventSubscription subscriptions} before forwarding the event to a client.
+ * 
+ * @author Holger Eichelberger
+ */
+public interface IPipelineScopedEvent extends IEvent {
+
+    /**
+     * Returns the pipeline affected by this event.
+     * 
+     * @return the pipeline name (may be <b>null</b> for all)
+     */
+    public String getPipeline();
+
+    /**
+     * Returns the pipeline element affected by this event.
+     * 
+     * @return the pipeline element name (may be <b>null</b> for all)
+     */
+    public String getPipelineElement();
+
+}
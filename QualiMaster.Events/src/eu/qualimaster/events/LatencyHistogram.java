@@ -0,0 +1,245 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.events;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A concurrent histogram of latencies with logarithmic buckets, i.e., recording takes constant time and memory 
+ * without locking. Each power of two is split into {@link #SUB_BUCKETS} linear sub-buckets, i.e., percentiles are 
+ * reported with a relative error of at most 25%. Values are recorded in microseconds and capped at 2^40 (about 
+ * 12 days).
+ * 
+ * @author Holger Eichelberger
+ */
+public class LatencyHistogram {
+
+    static final int SUB_BUCKETS = 4;
+    private static final int SUB_BITS = 2;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BITS + 1) * SUB_BUCKETS;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+
+    /**
+     * A snapshot of a histogram. Snapshots are immutable unless passed for reuse to 
+     * {@link LatencyHistogram#snapshotAndReset(Snapshot)}.
+     * 
+     * @author Holger Eichelberger
+     */
+    public static class Snapshot implements Serializable {
+
+        private static final long serialVersionUID = -3427351658312958716L;
+        private long[] counts;
+        private long count;
+        private long max;
+        private long sum;
+
+        /**
+         * Creates an empty snapshot.
+         */
+        Snapshot() {
+            counts = new long[BUCKETS];
+        }
+
+        /**
+         * Adds the values of another snapshot to this one.
+         * 
+         * @param other the other snapshot
+         */
+        void add(Snapshot other) {
+            for (int b = 0; b < BUCKETS; b++) {
+                counts[b] += other.counts[b];
+            }
+            count += other.count;
+            max = Math.max(max, other.max);
+            sum += other.sum;
+        }
+
+        /**
+         * Returns the number of recorded values.
+         * 
+         * @return the number of values
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Returns the maximum recorded value.
+         * 
+         * @return the maximum in microseconds, 0 if there are no values
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Returns the mean of the recorded values.
+         * 
+         * @return the mean in microseconds, 0 if there are no values
+         */
+        public double getMean() {
+            return 0 == count ? 0 : sum / (double) count;
+        }
+
+        /**
+         * Returns a percentile of the recorded values, i.e., the upper bound of the bucket containing the percentile.
+         * 
+         * @param percentile the percentile in [0;100]
+         * @return the percentile in microseconds, 0 if there are no values
+         */
+        public long getPercentile(double percentile) {
+            long result = 0;
+            if (count > 0) {
+                long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * count));
+                long seen = 0;
+                int b = 0;
+                while (b < BUCKETS - 1 && seen + counts[b] < rank) {
+                    seen += counts[b];
+                    b++;
+                }
+                result = Math.min(upperBound(b), max);
+            }
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "count " + count + " mean " + Math.round(getMean()) + " p50 " + getPercentile(50) + " p95 " 
+                + getPercentile(95) + " p99 " + getPercentile(99) + " max " + max;
+        }
+
+    }
+
+    /**
+     * Records a latency.
+     * 
+     * @param micros the latency in microseconds (negative values are considered as 0)
+     */
+    public void record(long micros) {
+        long value = Math.min(MAX_VALUE, Math.max(0, micros));
+        counts.incrementAndGet(index(value));
+        sum.addAndGet(value);
+        long m = max.get();
+        while (value > m && !max.compareAndSet(m, value)) {
+            m = max.get();
+        }
+    }
+
+    /**
+     * Records a latency given in nanoseconds.
+     * 
+     * @param nanos the latency in nanoseconds
+     */
+    public void recordNanos(long nanos) {
+        record(nanos / 1000);
+    }
+
+    /**
+     * Returns a snapshot of this histogram. Values recorded concurrently may be partially contained.
+     * 
+     * @return the snapshot
+     */
+    public Snapshot snapshot() {
+        return snapshot(false, null);
+    }
+
+    /**
+     * Returns a snapshot of this histogram and resets it, i.e., starts a new recording interval. Each recorded value
+     * is either contained in the returned snapshot or remains in this histogram. However, the maximum and the sum may 
+     * be attributed to the other interval than the count of a concurrently recorded value.
+     * 
+     * @return the snapshot
+     */
+    public Snapshot snapshotAndReset() {
+        return snapshot(true, null);
+    }
+
+    /**
+     * Returns a snapshot of this histogram and resets it as {@link #snapshotAndReset()}, but reuses the memory of a
+     * previous snapshot, e.g., for taking snapshots periodically without allocating memory.
+     * 
+     * @param reuse the snapshot to be overwritten (may be <b>null</b> for a new snapshot)
+     * @return the snapshot, <code>reuse</code> if not <b>null</b>
+     */
+    public Snapshot snapshotAndReset(Snapshot reuse) {
+        return snapshot(true, reuse);
+    }
+
+    /**
+     * Returns a snapshot of this histogram.
+     * 
+     * @param reset whether this histogram shall be reset while taking the snapshot
+     * @param reuse the snapshot to be overwritten (may be <b>null</b> for a new snapshot)
+     * @return the snapshot
+     */
+    private Snapshot snapshot(boolean reset, Snapshot reuse) {
+        Snapshot result = null == reuse ? new Snapshot() : reuse;
+        result.count = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            long c = reset ? counts.getAndSet(b, 0) : counts.get(b);
+            result.counts[b] = c;
+            result.count += c;
+        }
+        result.max = reset ? max.getAndSet(0) : max.get();
+        result.sum = reset ? sum.getAndSet(0) : sum.get();
+        return result;
+    }
+
+    /**
+     * Returns the bucket index for a value.
+     * 
+     * @param value the value in [0;{@link #MAX_VALUE}]
+     * @return the bucket index
+     */
+    static int index(long value) {
+        int result;
+        if (value < SUB_BUCKETS) {
+            result = (int) value;
+        } else {
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+            result = SUB_BUCKETS + (exponent - SUB_BITS) * SUB_BUCKETS + sub;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the largest value of a bucket.
+     * 
+     * @param index the bucket index
+     * @return the largest value
+     */
+    static long upperBound(int index) {
+        long result;
+        if (index < SUB_BUCKETS) {
+            result = index;
+        } else {
+            int exponent = (index - SUB_BUCKETS) / SUB_BUCKETS + SUB_BITS;
+            int sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+            long lower = (long) (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+            result = lower + (1L << (exponent - SUB_BITS)) - 1;
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.events;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import eu.qualimaster.Configuration;
+
+/**
+ * The connection shared by all {@link EventManager.EventSender event senders} of a JVM. Senders hand in events via a
+ * lock-free multi-producer queue bounded by {@link Configuration#getEventSendCapacity()}, i.e., sending never blocks
+ * the caller and drops (and counts) events if the queue is full. A single writer thread drains up to 
+ * {@link Configuration#getEventSendBatchSize()} events at a time, writes them to the event bus (or the respective 
+ * {@link Configuration#getEventShards() shard}) and flushes once per batch. Lost connections are re-established 
+ * lazily every {@link #RECONNECT_WAIT} ms, events that cannot be sent meanwhile or cannot be encoded are dropped. 
+ * As events are encoded asynchronously, they must not be modified after sending. The instance is reference counted,
+ * the writer terminates after draining the queue when the last sender is closed.
+ * 
+ * @author Holger Eichelberger
+ */
+class MultiplexedSender implements Runnable {
+
+    private static final Logger LOGGER = LogManager.getLogger(MultiplexedSender.class);
+    private static final long PARK_WAIT = TimeUnit.MILLISECONDS.toNanos(200);
+    private static final long RECONNECT_WAIT = 1000;
+    private static MultiplexedSender instance;
+    private static int users;
+
+    private final ConcurrentLinkedQueue<IEvent> queue = new ConcurrentLinkedQueue<IEvent>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final int capacity = Math.max(1, Configuration.getEventSendCapacity());
+    private final int batchSize = Math.max(1, Configuration.getEventSendBatchSize());
+    private final List<InetSocketAddress> servers = EventManager.getShards();
+    private final ShardRing ring;
+    private final Socket[] sockets;
+    private final DataOutputStream[] outs;
+    private final long[] lastConnect;
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile boolean parked;
+
+    /**
+     * Creates the shared connection and starts its writer thread.
+     */
+    private MultiplexedSender() {
+        ring = servers.size() > 1 ? new ShardRing(EventManager.getShardNames(servers)) : null;
+        sockets = new Socket[servers.size()];
+        outs = new DataOutputStream[servers.size()];
+        lastConnect = new long[servers.size()];
+        writer = new Thread(this, "EventSender");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Returns the shared connection for a new sender.
+     * 
+     * @return the shared connection
+     */
+    static synchronized MultiplexedSender acquire() {
+        if (null == instance) {
+            instance = new MultiplexedSender();
+        }
+        users++;
+        return instance;
+    }
+
+    /**
+     * Releases the shared connection for a closed sender. Stops the connection after sending the queued events if
+     * there are no further senders.
+     * 
+     * @param sender the shared connection obtained by {@link #acquire()}
+     */
+    static synchronized void release(MultiplexedSender sender) {
+        if (sender == instance && --users <= 0) {
+            instance = null;
+            users = 0;
+            sender.running = false;
+            LockSupport.unpark(sender.writer);
+        }
+    }
+
+    /**
+     * Queues an event for sending. Does not block.
+     * 
+     * @param event the event
+     * @return <code>true</code> if the event was queued, <code>false</code> if it was dropped
+     */
+    boolean send(IEvent event) {
+        boolean queued = false;
+        if (running) {
+            if (size.incrementAndGet() > capacity) {
+                size.decrementAndGet();
+                dropped.incrementAndGet();
+                EventManager.notifyDropped(event);
+            } else {
+                queue.offer(event);
+                queued = true;
+                if (parked) {
+                    LockSupport.unpark(writer);
+                }
+            }
+        }
+        return queued;
+    }
+
+    /**
+     * Returns the number of events dropped so far as the queue was full or the event bus was not reachable.
+     * 
+     * @return the number of dropped events
+     */
+    long getDropped() {
+        return dropped.get();
+    }
+
+    @Override
+    public void run() {
+        List<IEvent> batch = new ArrayList<IEvent>(batchSize);
+        while (running || !queue.isEmpty()) {
+            IEvent event = queue.poll();
+            if (null == event) {
+                parked = true;
+                if (running && queue.isEmpty()) { // re-check after announcing, else a wake-up may be missed
+                    LockSupport.parkNanos(this, PARK_WAIT);
+                }
+                parked = false;
+            } else {
+                do {
+                    batch.add(event);
+                } while (batch.size() < batchSize && null != (event = queue.poll()));
+                size.addAndGet(-batch.size());
+                writeBatch(batch);
+                batch.clear();
+            }
+        }
+        for (int s = 0; s < sockets.length; s++) {
+            close(s);
+        }
+    }
+
+    /**
+     * Writes a batch of events and flushes the used connections once. [writer thread]
+     * 
+     * @param batch the events
+     */
+    private void writeBatch(List<IEvent> batch) {
+        boolean[] written = new boolean[outs.length];
+        for (int e = 0; e < batch.size(); e++) {
+            IEvent event = batch.get(e);
+            int shard = EventManager.getShard(ring, event);
+            DataOutputStream out = connect(shard);
+            byte[] frame = null;
+            if (null != out) {
+                try {
+                    frame = EventCodecs.toFrame(event);
+                } catch (IOException ex) { // do not lose the connection due to a single event
+                    LOGGER.error("Cannot send " + event + ": " + ex.getMessage());
+                } catch (RuntimeException ex) { // e.g., event modified while encoding, do not lose the writer
+                    LOGGER.error("Cannot send " + event + ": " + ex.getMessage(), ex);
+                }
+            }
+            if (null == frame) {
+                dropped.incrementAndGet();
+                EventManager.notifyDropped(event);
+            } else {
+                try {
+                    out.write(frame);
+                    written[shard] = true;
+                    EventManager.notifySent(event, frame.length);
+                } catch (IOException ex) {
+                    dropped.incrementAndGet();
+                    EventManager.notifyDropped(event);
+                    close(shard);
+                }
+            }
+        }
+        for (int s = 0; s < outs.length; s++) {
+            if (written[s] && null != outs[s]) {
+                try {
+                    outs[s].flush();
+                } catch (IOException ex) {
+                    close(s);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the connection to a server, tries to connect if {@link #RECONNECT_WAIT} passed since the last attempt. 
+     * [writer thread]
+     * 
+     * @param shard the index of the server
+     * @return the connection, <b>null</b> if not connected
+     */
+    private DataOutputStream connect(int shard) {
+        long now = System.currentTimeMillis();
+        if (null == outs[shard] && now - lastConnect[shard] >= RECONNECT_WAIT) {
+            lastConnect[shard] = now;
+            InetSocketAddress server = servers.get(shard);
+            try {
+                sockets[shard] = EventManager.createClientSocket(server.getHostString(), server.getPort());
+                outs[shard] = new DataOutputStream(new BufferedOutputStream(sockets[shard].getOutputStream()));
+                outs[shard].writeUTF(EventManager.getSenderId());
+            } catch (IOException e) {
+                LOGGER.warn("Cannot connect event sender to " + server + ": " + e.getMessage());
+                close(shard);
+            }
+        }
+        return outs[shard];
+    }
+
+    /**
+     * Closes the connection to a server. [writer thread]
+     * 
+     * @param shard the index of the server
+     */
+    private void close(int shard) {
+        if (null != outs[shard]) {
+            try {
+                outs[shard].close();
+            } catch (IOException e) {
+            }
+            outs[shard] = null;
+        }
+        if (null != sockets[shard]) {
+            try {
+                sockets[shard].close();
+            } catch (IOException e) {
+            }
+            sockets[shard] = null;
+        }
+    }
+
+}
@@ -15,9 +15,13 @@
  */
 package eu.qualimaster.events;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.Map;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Implements a time-based response store for events. This store does not clear itself
@@ -28,6 +32,11 @@ import java.util.Map;
  * through a replaceable plug-in {@link IStoreHandler store handler} and provide a default
  * store handler for the QualiMaster event bus.
  * 
+ * Records are kept in a concurrent map, i.e., recording and matching responses do not lock the store. For 
+ * timeouts, records are also placed into the bucket of a hashed timing wheel according to their expiry. 
+ * {@link #clear()} just visits the buckets elapsed since its last call, i.e., expiring a record takes constant time 
+ * instead of scanning all records.
+ * 
  * @param <E> the basic event type (may be <code>Object</code> in case of unrelated event hierarchies)
  * @param <R> the request message type
  * @param <A> the answer/response message type
@@ -117,15 +126,18 @@ public class ResponseStore<E, R extends E, A extends E> {
     protected static class EventRecord<R> {
         
         private R event;
+        private String messageId;
         private long timestamp = System.currentTimeMillis();
 
         /**
          * Creates the event record.
          * 
          * @param event the event sent
+         * @param messageId the message id the event is stored for
          */
-        private EventRecord(R event) {
+        private EventRecord(R event, String messageId) {
             this.event = event;
+            this.messageId = messageId;
         }
         
         /**
@@ -148,10 +160,14 @@ public class ResponseStore<E, R extends E, A extends E> {
         
     }
 
+    private static final int WHEEL_SIZE = 512;
+
     private int timeout;
-    private long lastCleanup;
     private IStoreHandler<E, R, A> handler;
-    private Map<String, EventRecord<R>> data = new HashMap<String, EventRecord<R>>();
+    private ConcurrentMap<String, EventRecord<R>> data = new ConcurrentHashMap<String, EventRecord<R>>();
+    private long tick;
+    private List<Queue<EventRecord<R>>> wheel;
+    private long nextTick; // the next wheel tick to expire, guarded by wheel
 
     /**
      * Creates a response store with a certain timeout.
@@ -162,6 +178,15 @@ public class ResponseStore<E, R extends E, A extends E> {
     public ResponseStore(int timeout, IStoreHandler<E, R, A> handler) {
         this.timeout = Math.max(0, timeout);
         this.handler = handler;
+        if (this.timeout > 0) {
+            // one revolution covers at least twice the timeout, i.e., a record is due when its bucket is visited
+            tick = Math.max(1, 2L * this.timeout / WHEEL_SIZE + 1);
+            wheel = new ArrayList<Queue<EventRecord<R>>>(WHEEL_SIZE);
+            for (int b = 0; b < WHEEL_SIZE; b++) {
+                wheel.add(new ConcurrentLinkedQueue<EventRecord<R>>());
+            }
+            nextTick = System.currentTimeMillis() / tick;
+        }
     }
 
     /**
@@ -222,10 +247,32 @@ public class ResponseStore<E, R extends E, A extends E> {
      * @param messageId the message id to store events
      */
     public void sent(R event, String messageId) {
-        synchronized (data) {
-            data.put(messageId, new EventRecord<R>(event));
+        EventRecord<R> record = new EventRecord<R>(event, messageId);
+        data.put(messageId, record); // a replaced record just does not expire anymore
+        if (null != wheel) {
+            wheel.get(bucket(getDeadline(record) / tick)).add(record);
         }
     }
+
+    /**
+     * Returns the deadline of a record.
+     * 
+     * @param record the record
+     * @return the deadline in ms
+     */
+    private long getDeadline(EventRecord<R> record) {
+        return record.getTimestamp() + timeout;
+    }
+
+    /**
+     * Returns the wheel bucket for a tick.
+     * 
+     * @param tick the tick
+     * @return the bucket index
+     */
+    private static int bucket(long tick) {
+        return (int) (tick % WHEEL_SIZE);
+    }
     
     /**
      * To be called when an event is received.
@@ -254,11 +301,10 @@ public class ResponseStore<E, R extends E, A extends E> {
     public R received(A event) {
         R result = null;
         String respId = handler.getResponseMessageId(event);
-        synchronized (data) {
-            EventRecord<R> record = data.get(respId);
-            if (null != record && checkRemove(event, record)) {
-                data.remove(respId);
-                if (null != record) {
+        EventRecord<R> record = data.get(respId);
+        if (null != record) {
+            synchronized (record) { // checkRemove may modify the recorded event
+                if (checkRemove(event, record) && data.remove(respId, record)) {
                     result = record.getEvent();
                 }
             }
@@ -284,11 +330,7 @@ public class ResponseStore<E, R extends E, A extends E> {
      * @return <code>true</code> if known, <code>false</code> else
      */
     public boolean registered(String messageId) {
-        boolean result = false;
-        synchronized (data) {
-            result = data.containsKey(messageId);
-        }
-        return result;
+        return data.containsKey(messageId);
     }
     
     /**
@@ -297,18 +339,25 @@ public class ResponseStore<E, R extends E, A extends E> {
      * @see #removingBytimeout(EventRecord)
      */
     public void clear() {
-        long border = System.currentTimeMillis() - timeout;
-        if (timeout > 0 && (0 == lastCleanup || lastCleanup < border)) {
-            // currently we expect that not so many entries will remain, if any
-            synchronized (data) {
-                Iterator<EventRecord<R>> iter = data.values().iterator();
-                while (iter.hasNext()) {
-                    EventRecord<R> rec = iter.next();
-                    if (rec.getTimestamp() < border) {
-                        iter.remove();
-                        removingBytimeout(rec);
+        if (null != wheel) {
+            long now = System.currentTimeMillis();
+            synchronized (wheel) {
+                long currentTick = now / tick;
+                // visit the completely elapsed ticks, each bucket at most once if not cleared for long
+                long first = Math.max(nextTick, currentTick - WHEEL_SIZE);
+                for (long t = first; t < currentTick; t++) {
+                    Iterator<EventRecord<R>> iter = wheel.get(bucket(t)).iterator();
+                    while (iter.hasNext()) {
+                        EventRecord<R> rec = iter.next();
+                        if (getDeadline(rec) < now) {
+                            iter.remove();
+                            if (data.remove(rec.messageId, rec)) { // else already answered or replaced
+                                removingBytimeout(rec);
+                            }
+                        }
                     }
                 }
+                nextTick = Math.max(nextTick, currentTick);
             }
         }
     }
@@ -325,8 +374,11 @@ public class ResponseStore<E, R extends E, A extends E> {
      * Clears all entries.
      */
     public void clearAll() {
-        synchronized (data) {
-            data.clear();
+        data.clear();
+        if (null != wheel) {
+            for (int b = 0; b < WHEEL_SIZE; b++) {
+                wheel.get(b).clear();
+            }
         }
     }
     
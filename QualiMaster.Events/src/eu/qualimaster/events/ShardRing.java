@@ -0,0 +1,96 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.events;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A consistent hashing ring mapping keys (pipeline names) to event bus shards. Each shard is placed 
+ * {@link #VIRTUAL_NODES} times on the ring according to the hash of its name (endpoint) so that adding or removing a
+ * shard moves only the keys of that shard. A key belongs to the first shard clockwise from its hash.
+ * 
+ * @author Holger Eichelberger
+ */
+class ShardRing {
+
+    static final int VIRTUAL_NODES = 64;
+
+    private final int[] hashes;
+    private final int[] shards;
+
+    /**
+     * Creates a ring.
+     * 
+     * @param names the names of the shards, the index in this list is the shard number
+     */
+    ShardRing(List<String> names) {
+        int size = names.size() * VIRTUAL_NODES;
+        long[] nodes = new long[size]; // hash in upper, shard in lower half for sorting both together
+        for (int s = 0; s < names.size(); s++) {
+            for (int v = 0; v < VIRTUAL_NODES; v++) {
+                nodes[s * VIRTUAL_NODES + v] = ((long) hash(names.get(s) + "#" + v) << 32) | s;
+            }
+        }
+        Arrays.sort(nodes);
+        hashes = new int[size];
+        shards = new int[size];
+        for (int n = 0; n < size; n++) {
+            hashes[n] = (int) (nodes[n] >> 32);
+            shards[n] = (int) nodes[n];
+        }
+    }
+
+    /**
+     * Returns the shard for a key.
+     * 
+     * @param key the key
+     * @return the shard number
+     */
+    int getShard(String key) {
+        int result = 0;
+        if (hashes.length > 0) {
+            int pos = Arrays.binarySearch(hashes, hash(key));
+            if (pos < 0) {
+                pos = -pos - 1; // insertion point, the next node clockwise
+            }
+            result = shards[pos % hashes.length];
+        }
+        return result;
+    }
+
+    /**
+     * Hashes a string (FNV-1a with a final avalanche step). Unlike {@link String#hashCode()}, similar names such as
+     * numbered pipelines are spread over the whole ring.
+     * 
+     * @param string the string
+     * @return the hash
+     */
+    static int hash(String string) {
+        int hash = 0x811C9DC5;
+        for (int c = 0; c < string.length(); c++) {
+            hash ^= string.charAt(c);
+            hash *= 0x01000193;
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.events;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * A hashed timer wheel running many independent periodic and one-shot timer registrations on a single thread. Time 
+ * is divided into ticks, a registration is put into the bucket of the tick it expires in (modulo the wheel size) 
+ * together with the number of full wheel rounds to wait. Thus, scheduling and cancelling is O(1) and each tick only 
+ * touches one bucket. Timers fire with tick precision, never earlier than requested. Timer tasks run on the timer 
+ * thread and shall return quickly, e.g., by handing over work to another thread.
+ * 
+ * @author Holger Eichelberger
+ */
+public class TimerWheel {
+
+    private static final Logger LOGGER = LogManager.getLogger(TimerWheel.class);
+
+    private final long tick;
+    private final int mask;
+    private final List<List<Timeout>> wheel;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<Timeout>();
+    private final long start = now();
+    private final Object lock = new Object();
+    private long ticks; // [timer thread]
+    private volatile boolean running;
+    private Thread thread;
+
+    /**
+     * A timer registration.
+     * 
+     * @author Holger Eichelberger
+     */
+    public static class Timeout {
+
+        private final Runnable task;
+        private final long period;
+        private long deadline; // ms relative to start
+        private long rounds; // [timer thread]
+        private volatile boolean cancelled;
+
+        /**
+         * Creates a timer registration.
+         * 
+         * @param task the task to run
+         * @param deadline the first expiration in ms relative to the start of the wheel
+         * @param period the period in ms, one-shot if not positive
+         */
+        private Timeout(Runnable task, long deadline, long period) {
+            this.task = task;
+            this.deadline = deadline;
+            this.period = period;
+        }
+
+        /**
+         * Cancels this registration. The task will not run anymore, unless it is currently running.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * Returns whether this registration was cancelled.
+         * 
+         * @return <code>true</code> if cancelled, <code>false</code> else
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Returns the period.
+         * 
+         * @return the period in ms, not positive for a one-shot registration
+         */
+        public long getPeriod() {
+            return period;
+        }
+
+    }
+
+    /**
+     * Creates a timer wheel.
+     * 
+     * @param tick the duration of a tick in ms (at least 1)
+     * @param size the number of buckets, rounded up to the next power of 2
+     */
+    public TimerWheel(long tick, int size) {
+        this.tick = Math.max(1, tick);
+        int buckets = 1;
+        while (buckets < size) {
+            buckets <<= 1;
+        }
+        mask = buckets - 1;
+        wheel = new ArrayList<List<Timeout>>(buckets);
+        for (int b = 0; b < buckets; b++) {
+            wheel.add(new ArrayList<Timeout>());
+        }
+    }
+
+    /**
+     * Returns the current time in ms based on the monotonic clock.
+     * 
+     * @return the current time
+     */
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * Starts the timer thread if not already running.
+     * 
+     * @param name the name of the timer thread
+     */
+    public synchronized void start(String name) {
+        if (!running) {
+            running = true;
+            thread = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    runWheel();
+                }
+
+            }, name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Stops the timer thread. Registrations are kept but do not fire until the next {@link #start(String)}.
+     */
+    public synchronized void stop() {
+        if (running) {
+            running = false;
+            synchronized (lock) {
+                lock.notifyAll();
+            }
+            if (Thread.currentThread() != thread) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                }
+            }
+            thread = null;
+        }
+    }
+
+    /**
+     * Schedules a task. May be called by any thread.
+     * 
+     * @param task the task to run
+     * @param delay the delay until the first run in ms
+     * @param period the period of subsequent runs in ms, a one-shot registration if not positive
+     * @return the registration handle for cancelling
+     */
+    public Timeout schedule(Runnable task, long delay, long period) {
+        Timeout timeout = new Timeout(task, now() - start + Math.max(0, delay), period);
+        pending.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * The loop of the timer thread.
+     */
+    private void runWheel() {
+        while (running) {
+            long next = (ticks + 1) * tick;
+            long wait = next - (now() - start);
+            if (wait > 0) {
+                synchronized (lock) {
+                    try {
+                        lock.wait(wait);
+                    } catch (InterruptedException e) {
+                    }
+                }
+            } else {
+                ticks++;
+                transferPending();
+                expire(wheel.get((int) (ticks & mask)));
+            }
+        }
+    }
+
+    /**
+     * Puts the pending registrations into their buckets. [timer thread]
+     */
+    private void transferPending() {
+        Timeout timeout = pending.poll();
+        while (null != timeout) {
+            if (!timeout.cancelled) {
+                long expires = Math.max(ticks, (timeout.deadline + tick - 1) / tick); // round up, not before
+                timeout.rounds = (expires - ticks) / wheel.size();
+                wheel.get((int) (expires & mask)).add(timeout);
+            }
+            timeout = pending.poll();
+        }
+    }
+
+    /**
+     * Runs the expired registrations of a bucket and reschedules periodic ones. [timer thread]
+     * 
+     * @param bucket the bucket
+     */
+    private void expire(List<Timeout> bucket) {
+        int keep = 0;
+        for (int t = 0, size = bucket.size(); t < size; t++) {
+            Timeout timeout = bucket.get(t);
+            if (timeout.cancelled) {
+                // drop
+            } else if (timeout.rounds > 0) {
+                timeout.rounds--;
+                bucket.set(keep++, timeout);
+            } else {
+                try {
+                    timeout.task.run();
+                } catch (Throwable th) { // keep the timer alive
+                    LOGGER.error("While running timer task " + timeout.task + ": " + th.getMessage(), th);
+                }
+                if (timeout.period > 0 && !timeout.cancelled) {
+                    long now = now() - start;
+                    timeout.deadline += timeout.period;
+                    if (timeout.deadline <= now) { // skip missed runs rather than catching up
+                        timeout.deadline = now + timeout.period;
+                    }
+                    pending.add(timeout);
+                }
+            }
+        }
+        for (int t = bucket.size() - 1; t >= keep; t--) {
+            bucket.remove(t);
+        }
+    }
+
+}
@@ -2,6 +2,7 @@ package eu.qualimaster.infrastructure;
 
 import eu.qualimaster.adaptation.events.AdaptationEvent;
 import eu.qualimaster.common.QMInternal;
+import eu.qualimaster.events.IPipelineScopedEvent;
 import eu.qualimaster.events.IReturnableEvent;
 
 /**
@@ -10,7 +11,7 @@ import eu.qualimaster.events.IReturnableEvent;
  * @author Holger Eichelberger
  */
 @QMInternal
-public class PipelineLifecycleEvent extends InfrastructureEvent {
+public class PipelineLifecycleEvent extends InfrastructureEvent implements IPipelineScopedEvent {
 
     /**
      * The actual pipeline status.
@@ -226,6 +227,15 @@ public class PipelineLifecycleEvent extends InfrastructureEvent {
         return pipeline;
     }
 
+    /**
+     * The pipeline element being affected.
+     * 
+     * @return <b>null</b> as a lifecycle event affects the whole pipeline
+     */
+    public String getPipelineElement() {
+        return null;
+    }
+
     /**
      * Returns the status of the specified pipeline.
      * 
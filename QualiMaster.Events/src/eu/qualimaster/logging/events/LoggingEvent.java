@@ -57,6 +57,24 @@ public class LoggingEvent extends AbstractEvent {
         }
     }
 
+    /**
+     * Creates a logging event with explicit host address, e.g., when decoding a received event.
+     * 
+     * @param timeStamp the logging time stamp
+     * @param level the logging level
+     * @param message the logging message
+     * @param threadName the thread name
+     * @param address the host address (may be <b>null</b>)
+     */
+    @QMInternal
+    public LoggingEvent(long timeStamp, String level, String message, String threadName, InetAddress address) {
+        this.timeStamp = timeStamp;
+        this.level = level;
+        this.message = message;
+        this.threadName = threadName;
+        this.address = address;
+    }
+
     /**
      * Returns the logging level.
      * 
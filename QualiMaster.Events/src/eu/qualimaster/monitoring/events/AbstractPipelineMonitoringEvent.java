@@ -1,6 +1,7 @@
 package eu.qualimaster.monitoring.events;
 
 import eu.qualimaster.common.QMInternal;
+import eu.qualimaster.events.IPipelineScopedEvent;
 
 /**
  * A monitoring event dedicated to a pipeline.
@@ -8,7 +9,7 @@ import eu.qualimaster.common.QMInternal;
  * @author Holger Eichelberger
  */
 @QMInternal
-public class AbstractPipelineMonitoringEvent extends MonitoringEvent {
+public class AbstractPipelineMonitoringEvent extends MonitoringEvent implements IPipelineScopedEvent {
 
     private static final long serialVersionUID = -4568996824357199616L;
     private String pipeline;
@@ -31,4 +32,13 @@ public class AbstractPipelineMonitoringEvent extends MonitoringEvent {
         return pipeline;
     }
 
+    /**
+     * Returns the pipeline element to be affected.
+     * 
+     * @return the pipeline element to be affected (<b>null</b> for all)
+     */
+    public String getPipelineElement() {
+        return null;
+    }
+
 }
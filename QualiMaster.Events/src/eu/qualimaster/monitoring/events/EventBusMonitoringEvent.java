@@ -0,0 +1,64 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.monitoring.events;
+
+import eu.qualimaster.common.QMInternal;
+import eu.qualimaster.events.EventBusStatistics;
+
+/**
+ * Periodically publishes the {@link EventBusStatistics telemetry} of an event manager, i.e., the event counters per
+ * event class, the bytes on the wire, the queue depths and the dispatch latencies of the last period. Allows telling 
+ * whether delays are caused by the event bus or by the receiving components.
+ * 
+ * @author Holger Eichelberger
+ */
+@QMInternal
+public class EventBusMonitoringEvent extends MonitoringEvent {
+
+    private static final long serialVersionUID = -4120418733462154397L;
+    private String host;
+    private EventBusStatistics statistics;
+
+    /**
+     * Creates an event bus monitoring event.
+     * 
+     * @param host the host the event manager is running on
+     * @param statistics the statistics of the event manager
+     */
+    public EventBusMonitoringEvent(String host, EventBusStatistics statistics) {
+        this.host = host;
+        this.statistics = statistics;
+    }
+
+    /**
+     * Returns the host the event manager is running on.
+     * 
+     * @return the host name
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * Returns the statistics of the event manager.
+     * 
+     * @return the statistics
+     */
+    public EventBusStatistics getStatistics() {
+        return statistics;
+    }
+
+}
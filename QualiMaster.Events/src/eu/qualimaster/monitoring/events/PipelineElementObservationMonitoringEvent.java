@@ -1,6 +1,9 @@
 package eu.qualimaster.monitoring.events;
 
+import java.util.Arrays;
+
 import eu.qualimaster.common.QMInternal;
+import eu.qualimaster.events.IConflatableEvent;
 import eu.qualimaster.observables.IObservable;
 
 /**
@@ -9,7 +12,8 @@ import eu.qualimaster.observables.IObservable;
  * @author Holger Eichelberger
  */
 @QMInternal
-public class PipelineElementObservationMonitoringEvent extends AbstractPipelineElementMonitoringEvent {
+public class PipelineElementObservationMonitoringEvent extends AbstractPipelineElementMonitoringEvent 
+    implements IConflatableEvent {
 
     private static final long serialVersionUID = 1647581745427624957L;
     private IObservable observable;
@@ -63,4 +67,15 @@ public class PipelineElementObservationMonitoringEvent extends AbstractPipelineE
         return observation;
     }
 
+    /**
+     * Returns the conflation key, i.e., observations for the same observable of the same pipeline element replace 
+     * each other.
+     * 
+     * @return the conflation key
+     */
+    @Override
+    public Object getConflationKey() {
+        return Arrays.asList(getClass(), getPipeline(), getPipelineElement(), getKey(), observable);
+    }
+
 }
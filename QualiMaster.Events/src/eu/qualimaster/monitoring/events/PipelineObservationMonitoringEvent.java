@@ -16,8 +16,10 @@
 package eu.qualimaster.monitoring.events;
 
 import java.io.Serializable;
+import java.util.Arrays;
 
 import eu.qualimaster.common.QMInternal;
+import eu.qualimaster.events.IConflatableEvent;
 import eu.qualimaster.observables.IObservable;
 
 /**
@@ -27,7 +29,7 @@ import eu.qualimaster.observables.IObservable;
  */
 
 @QMInternal
-public class PipelineObservationMonitoringEvent extends AbstractPipelineMonitoringEvent {
+public class PipelineObservationMonitoringEvent extends AbstractPipelineMonitoringEvent implements IConflatableEvent {
 
     private static final long serialVersionUID = -5621010499788402674L;
     private IObservable observable;
@@ -89,5 +91,16 @@ public class PipelineObservationMonitoringEvent extends AbstractPipelineMonitori
     public Serializable getKey() {
         return key;
     }
-    
+
+    /**
+     * Returns the conflation key, i.e., observations for the same observable of the same pipeline replace 
+     * each other.
+     * 
+     * @return the conflation key
+     */
+    @Override
+    public Object getConflationKey() {
+        return Arrays.asList(getClass(), getPipeline(), key, observable);
+    }
+
 }
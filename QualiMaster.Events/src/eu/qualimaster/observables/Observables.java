@@ -16,7 +16,9 @@
 package eu.qualimaster.observables;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Summarizes all obserables.
@@ -28,6 +30,14 @@ public class Observables {
     public static final IObservable[] OBSERVABLES = combine(TimeBehavior.values(), FunctionalSuitability.values(), 
         ResourceUsage.values(), Scalability.values(), AnalysisObservables.values(), CloudResourceUsage.values());
 
+    private static final Map<IObservable, Integer> INDEX = new HashMap<IObservable, Integer>();
+
+    static {
+        for (int o = 0; o < OBSERVABLES.length; o++) {
+            INDEX.put(OBSERVABLES[o], o);
+        }
+    }
+
     /**
      * Combines multiple arrays of observables into one.
      * 
@@ -63,5 +73,16 @@ public class Observables {
         }
         return result;
     }
+
+    /**
+     * Returns the index of <code>observable</code> in {@link #OBSERVABLES}.
+     * 
+     * @param observable the observable (may be <b>null</b>)
+     * @return the index, <code>-1</code> if <code>observable</code> is <b>null</b> or unknown
+     */
+    public static final int indexOf(IObservable observable) {
+        Integer result = null == observable ? null : INDEX.get(observable);
+        return null == result ? -1 : result;
+    }
     
 }
@@ -0,0 +1,336 @@
+/*
+ * Copyright 2009-2016 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.observables;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A map of observations backed by a primitive array indexed by {@link Observables#indexOf(IObservable)}, i.e., 
+ * setting and reading values via {@link #set(IObservable, double)}, {@link #nextIndex(int)} and 
+ * {@link #getValue(int)} neither boxes values nor allocates memory. Observables not contained in 
+ * {@link Observables#OBSERVABLES} and <b>null</b> values are supported through the {@link Map} interface, but
+ * the former fall back to a hash map. Not thread-safe.
+ * 
+ * @author Holger Eichelberger
+ */
+public class ObservationSnapshot extends AbstractMap<IObservable, Double> implements Serializable {
+
+    private static final long serialVersionUID = -1590766924213416254L;
+    private static final byte ABSENT = 0;
+    private static final byte VALUE = 1;
+    private static final byte NULL = 2;
+
+    private double[] values;
+    private byte[] state;
+    private int size;
+    private Map<IObservable, Double> others;
+
+    /**
+     * Creates an empty snapshot.
+     */
+    public ObservationSnapshot() {
+        values = new double[Observables.OBSERVABLES.length];
+        state = new byte[values.length];
+    }
+
+    /**
+     * Creates a copy of <code>source</code>.
+     * 
+     * @param source the source snapshot
+     */
+    private ObservationSnapshot(ObservationSnapshot source) {
+        values = source.values.clone();
+        state = source.state.clone();
+        size = source.size;
+        if (null != source.others) {
+            others = new HashMap<IObservable, Double>(source.others);
+        }
+    }
+
+    /**
+     * Sets the value of an observable.
+     * 
+     * @param observable the observable (ignored if <b>null</b>)
+     * @param value the value
+     */
+    public void set(IObservable observable, double value) {
+        int index = Observables.indexOf(observable);
+        if (index >= 0) {
+            set(index, value);
+        } else if (null != observable) {
+            getOthers().put(observable, value);
+        }
+    }
+
+    /**
+     * Sets the value of an observable given by its index.
+     * 
+     * @param index the index of the observable in {@link Observables#OBSERVABLES}
+     * @param value the value
+     */
+    private void set(int index, double value) {
+        if (ABSENT == state[index]) {
+            size++;
+        }
+        state[index] = VALUE;
+        values[index] = value;
+    }
+
+    /**
+     * Returns the map for observables not contained in {@link Observables#OBSERVABLES}.
+     * 
+     * @return the map
+     */
+    private Map<IObservable, Double> getOthers() {
+        if (null == others) {
+            others = new HashMap<IObservable, Double>();
+        }
+        return others;
+    }
+
+    /**
+     * Returns the index of the next observable in {@link Observables#OBSERVABLES} having a value in this snapshot.
+     * Observables held in the fallback map are not considered.
+     * 
+     * @param from the index to start searching at (inclusive)
+     * @return the index of the next observable, <code>-1</code> if there is none
+     */
+    public int nextIndex(int from) {
+        int result = -1;
+        for (int i = Math.max(0, from); result < 0 && i < state.length; i++) {
+            if (ABSENT != state[i]) {
+                result = i;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether the value of the observable at <code>index</code> is <b>null</b>.
+     * 
+     * @param index the index of the observable in {@link Observables#OBSERVABLES}
+     * @return <code>true</code> if the value is <b>null</b> or absent, <code>false</code> else
+     */
+    public boolean isNull(int index) {
+        return VALUE != state[index];
+    }
+
+    /**
+     * Returns the value of the observable at <code>index</code>.
+     * 
+     * @param index the index of the observable in {@link Observables#OBSERVABLES}
+     * @return the value, <code>0</code> if {@link #isNull(int) null} 
+     */
+    public double getValue(int index) {
+        return VALUE == state[index] ? values[index] : 0;
+    }
+
+    /**
+     * Returns the observations for observables not contained in {@link Observables#OBSERVABLES}.
+     * 
+     * @return the observations (may be <b>null</b> if there are none)
+     */
+    public Map<IObservable, Double> getOtherObservations() {
+        return others;
+    }
+
+    /**
+     * Returns a copy of this snapshot.
+     * 
+     * @return the copy
+     */
+    public ObservationSnapshot copy() {
+        return new ObservationSnapshot(this);
+    }
+
+    @Override
+    public Double put(IObservable key, Double value) {
+        Double result;
+        int index = Observables.indexOf(key);
+        if (index >= 0) {
+            result = get(index);
+            if (null == value) {
+                if (ABSENT == state[index]) {
+                    size++;
+                }
+                state[index] = NULL;
+            } else {
+                set(index, value);
+            }
+        } else if (null != key) {
+            result = getOthers().put(key, value);
+        } else {
+            throw new NullPointerException();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the (boxed) value of the observable at <code>index</code>.
+     * 
+     * @param index the index of the observable in {@link Observables#OBSERVABLES}
+     * @return the value, <b>null</b> if absent or <b>null</b>
+     */
+    private Double get(int index) {
+        return VALUE == state[index] ? values[index] : null;
+    }
+
+    @Override
+    public Double get(Object key) {
+        Double result = null;
+        if (key instanceof IObservable) {
+            int index = Observables.indexOf((IObservable) key);
+            if (index >= 0) {
+                result = get(index);
+            } else if (null != others) {
+                result = others.get(key);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        boolean result = false;
+        if (key instanceof IObservable) {
+            int index = Observables.indexOf((IObservable) key);
+            if (index >= 0) {
+                result = ABSENT != state[index];
+            } else if (null != others) {
+                result = others.containsKey(key);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Double remove(Object key) {
+        Double result = null;
+        if (key instanceof IObservable) {
+            int index = Observables.indexOf((IObservable) key);
+            if (index >= 0) {
+                result = get(index);
+                if (ABSENT != state[index]) {
+                    state[index] = ABSENT;
+                    size--;
+                }
+            } else if (null != others) {
+                result = others.remove(key);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int size() {
+        return size + (null == others ? 0 : others.size());
+    }
+
+    @Override
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(state, ABSENT);
+            size = 0;
+        }
+        if (null != others) {
+            others.clear();
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<IObservable, Double>> entrySet() {
+        return new AbstractSet<Map.Entry<IObservable, Double>>() {
+
+            @Override
+            public Iterator<Map.Entry<IObservable, Double>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return ObservationSnapshot.this.size();
+            }
+
+        };
+    }
+
+    /**
+     * Iterates over the entries of the snapshot, first the indexed ones then the fallback ones.
+     * 
+     * @author Holger Eichelberger
+     */
+    private class EntryIterator implements Iterator<Map.Entry<IObservable, Double>> {
+
+        private int next = nextIndex(0);
+        private int last = -1;
+        private Iterator<Map.Entry<IObservable, Double>> otherIter;
+
+        @Override
+        public boolean hasNext() {
+            return next >= 0 || (null != others && getOtherIterator().hasNext());
+        }
+
+        /**
+         * Returns the iterator over the fallback map.
+         * 
+         * @return the iterator
+         */
+        private Iterator<Map.Entry<IObservable, Double>> getOtherIterator() {
+            if (null == otherIter) {
+                otherIter = others.entrySet().iterator();
+            }
+            return otherIter;
+        }
+
+        @Override
+        public Map.Entry<IObservable, Double> next() {
+            Map.Entry<IObservable, Double> result;
+            if (next >= 0) {
+                last = next;
+                next = nextIndex(next + 1);
+                result = new SimpleEntry<IObservable, Double>(Observables.OBSERVABLES[last], get(last));
+            } else if (null != others) {
+                last = -1;
+                result = getOtherIterator().next();
+            } else {
+                throw new NoSuchElementException();
+            }
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            if (last >= 0) {
+                ObservationSnapshot.this.remove(Observables.OBSERVABLES[last]);
+                last = -1;
+            } else if (null != otherIter) {
+                otherIter.remove();
+            } else {
+                throw new IllegalStateException();
+            }
+        }
+
+    }
+
+}
@@ -12,7 +12,15 @@ public enum TimeBehavior implements IObservable {
     LATENCY,
     THROUGHPUT_ITEMS,
     THROUGHPUT_VOLUME,
-    ENACTMENT_DELAY;
+    ENACTMENT_DELAY,
+    LATENCY_P50,
+    LATENCY_P95,
+    LATENCY_P99,
+    LATENCY_MAX,
+    TRACE_LATENCY_P50,
+    TRACE_LATENCY_P95,
+    TRACE_LATENCY_P99,
+    TRACE_LATENCY_MAX;
 
     @QMInternal
     @Override
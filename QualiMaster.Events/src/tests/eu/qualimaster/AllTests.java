@@ -4,11 +4,15 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
 import tests.eu.qualimaster.events.ComponentKeyTests;
+import tests.eu.qualimaster.events.EventAuditLogTests;
+import tests.eu.qualimaster.events.EventBusTelemetryTests;
+import tests.eu.qualimaster.events.EventCodecsTests;
 import tests.eu.qualimaster.events.EventHandlerTests;
 import tests.eu.qualimaster.events.EventsTests;
 import tests.eu.qualimaster.events.ForwardTests;
 import tests.eu.qualimaster.events.PipelineStatusTrackerTest;
 import tests.eu.qualimaster.events.RemoteHandlerTests;
+import tests.eu.qualimaster.events.TimerWheelTests;
 
 /**
  * The test suite for the event handler.
@@ -16,9 +20,11 @@ import tests.eu.qualimaster.events.RemoteHandlerTests;
  * @author Holger Eichelberger
  */
 @RunWith(Suite.class)
-@Suite.SuiteClasses({ConfigurationTests.class, EventHandlerTests.class, EventsTests.class, RemoteHandlerTests.class, 
+@Suite.SuiteClasses({EventHandlerTests.class, EventsTests.class, RemoteHandlerTests.class, 
     PipelineStatusTrackerTest.class, ForwardTests.class, PipelineOptionsTest.class, FrozenSystemStateTest.class, 
-    ComponentKeyTests.class, AlgorithmChangeParameterTest.class, ResponseStoreTest.class })
+    ComponentKeyTests.class, AlgorithmChangeParameterTest.class, ResponseStoreTest.class, 
+    EventCodecsTests.class, TimerWheelTests.class, EventAuditLogTests.class, EventBusTelemetryTests.class, 
+    ConfigurationTests.class /* last, clears the configuration options */ })
 public class AllTests {
 
 }
@@ -15,6 +15,9 @@
  */
 package tests.eu.qualimaster;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Test;
 import org.junit.Assert;
 
@@ -71,6 +74,31 @@ public class ResponseStoreTest {
         
     }
     
+    /**
+     * A response store recording the requests removed by timeout.
+     * 
+     * @author Holger Eichelberger
+     */
+    private static class TimeoutStore extends ResponseStore<IEvent, IReturnableEvent, IResponseEvent> {
+
+        private List<String> timedOut = new ArrayList<String>();
+
+        /**
+         * Creates the store.
+         * 
+         * @param timeout the timeout
+         */
+        private TimeoutStore(int timeout) {
+            super(timeout, DEFAULT_HANDLER);
+        }
+
+        @Override
+        protected void removingBytimeout(EventRecord<IReturnableEvent> rec) {
+            timedOut.add(rec.getEvent().getMessageId());
+        }
+
+    }
+
     /**
      * Tests the response store.
      * 
@@ -110,4 +138,41 @@ public class ResponseStoreTest {
         Assert.assertTrue(store.isEmpty());
     }
 
+    /**
+     * Tests the expiry of requests, also if the store was not cleared for longer than the timing wheel covers.
+     * 
+     * @throws InterruptedException shall not occur 
+     */
+    @Test
+    public void testTimeouts() throws InterruptedException {
+        TimeoutStore store = new TimeoutStore(100);
+        Returnable answered = new Returnable("answered");
+        Returnable replaced = new Returnable("replaced");
+        store.sent(new Returnable("expired"));
+        store.sent(answered);
+        store.sent(replaced);
+        Assert.assertNotNull(store.received(new Response(answered)));
+        Thread.sleep(50);
+        store.sent(replaced); // restarts the timeout
+        store.clear();
+        Assert.assertTrue(store.timedOut.isEmpty());
+        Thread.sleep(70);
+        store.clear();
+        Assert.assertEquals(1, store.timedOut.size());
+        Assert.assertEquals("expired", store.timedOut.get(0));
+        Assert.assertTrue(store.registered("replaced"));
+        Thread.sleep(100);
+        store.clear();
+        Assert.assertEquals(2, store.timedOut.size());
+        Assert.assertEquals("replaced", store.timedOut.get(1));
+        Assert.assertTrue(store.isEmpty());
+
+        store.sent(new Returnable("late"));
+        Thread.sleep(600); // more than a revolution of the timing wheel
+        store.clear();
+        Assert.assertEquals(3, store.timedOut.size());
+        Assert.assertEquals("late", store.timedOut.get(2));
+        Assert.assertTrue(store.isEmpty());
+    }
+
 }
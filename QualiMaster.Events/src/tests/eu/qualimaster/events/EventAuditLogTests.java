@@ -0,0 +1,164 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tests.eu.qualimaster.events;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.qualimaster.Configuration;
+import eu.qualimaster.events.EventAuditLog;
+import eu.qualimaster.events.EventAuditReader;
+import eu.qualimaster.events.EventManager;
+import eu.qualimaster.events.TimerEvent;
+import eu.qualimaster.infrastructure.PipelineLifecycleEvent;
+
+/**
+ * Tests the {@link EventAuditLog} and the {@link EventAuditReader}.
+ * 
+ * @author Holger Eichelberger
+ */
+public class EventAuditLogTests {
+
+    /**
+     * Tests writing, continuing and reading audit log segments.
+     * 
+     * @throws IOException shall not occur
+     */
+    @Test(timeout = 10000)
+    public void testAuditLog() throws IOException {
+        File dir = createTempDir();
+        PipelineLifecycleEvent scoped = new PipelineLifecycleEvent("pip", PipelineLifecycleEvent.Status.STARTING, 
+            null);
+        EventAuditLog log = new EventAuditLog(dir, 100);
+        log.start();
+        log.record(EventAuditLog.Kind.RECEIVED, scoped, 42);
+        log.record(EventAuditLog.Kind.DISPATCHED, TimerEvent.INSTANCE, -1);
+        log.stop();
+        log = new EventAuditLog(dir, 100); // continues the segment
+        log.start();
+        log.record(EventAuditLog.Kind.SENT, scoped, 43);
+        log.stop();
+        Assert.assertEquals(0, log.getDropped());
+
+        List<EventAuditReader.Entry> entries = readAll(dir);
+        Assert.assertEquals(3, entries.size());
+        EventAuditReader.Entry entry = entries.get(0);
+        Assert.assertEquals(EventAuditLog.Kind.RECEIVED, entry.getKind());
+        Assert.assertEquals(PipelineLifecycleEvent.class.getName(), entry.getEventClass());
+        Assert.assertEquals(42, entry.getSize());
+        Assert.assertEquals("pip", entry.getPipeline());
+        Assert.assertNull(entry.getPipelineElement());
+        Assert.assertTrue(Math.abs(System.currentTimeMillis() - entry.getTimestamp()) < 60000);
+        entry = entries.get(1);
+        Assert.assertEquals(EventAuditLog.Kind.DISPATCHED, entry.getKind());
+        Assert.assertEquals(TimerEvent.class.getName(), entry.getEventClass());
+        Assert.assertEquals(TimerEvent.CHANNEL, entry.getChannel());
+        Assert.assertEquals(-1, entry.getSize());
+        Assert.assertNull(entry.getPipeline());
+        entry = entries.get(2);
+        Assert.assertEquals(EventAuditLog.Kind.SENT, entry.getKind());
+        Assert.assertEquals(43, entry.getSize());
+        delete(dir);
+    }
+
+    /**
+     * Tests the audit log of the event manager.
+     * 
+     * @throws IOException shall not occur
+     */
+    @Test(timeout = 10000)
+    public void testManagerAudit() throws IOException {
+        File dir = createTempDir();
+        Configuration.configureLocal();
+        Properties prop = new Properties();
+        prop.put(Configuration.EVENT_AUDIT_DIR, dir.getAbsolutePath());
+        Configuration.configure(prop, false);
+        EventManager.start();
+        RecordingEventHandler<PipelineLifecycleEvent> handler 
+            = RecordingEventHandler.create(PipelineLifecycleEvent.class);
+        EventManager.handle(new PipelineLifecycleEvent("pip", PipelineLifecycleEvent.Status.STARTING, null));
+        EventManager.cleanup();
+        EventManager.unregister(handler);
+        EventManager.stop();
+        Configuration.configureLocal();
+        Assert.assertEquals(1, handler.getReceivedCount());
+
+        List<EventAuditReader.Entry> entries = readAll(dir);
+        Assert.assertEquals(2, entries.size());
+        Assert.assertEquals(EventAuditLog.Kind.RECEIVED, entries.get(0).getKind());
+        Assert.assertEquals(EventAuditLog.Kind.DISPATCHED, entries.get(1).getKind());
+        for (EventAuditReader.Entry entry : entries) {
+            Assert.assertEquals(PipelineLifecycleEvent.class.getName(), entry.getEventClass());
+            Assert.assertEquals("pip", entry.getPipeline());
+        }
+        delete(dir);
+    }
+
+    /**
+     * Reads all segments in <code>dir</code> in the order of their days.
+     * 
+     * @param dir the directory
+     * @return the entries
+     * @throws IOException in case that reading fails
+     */
+    private static List<EventAuditReader.Entry> readAll(File dir) throws IOException {
+        List<EventAuditReader.Entry> result = new ArrayList<EventAuditReader.Entry>();
+        File[] files = dir.listFiles();
+        Arrays.sort(files);
+        for (File file : files) {
+            EventAuditReader reader = new EventAuditReader(file);
+            EventAuditReader.Entry entry;
+            while (null != (entry = reader.next())) {
+                result.add(entry);
+            }
+            reader.close();
+        }
+        return result;
+    }
+
+    /**
+     * Creates an empty temporary directory.
+     * 
+     * @return the directory
+     * @throws IOException in case that the directory cannot be created
+     */
+    private static File createTempDir() throws IOException {
+        File dir = File.createTempFile("qmAudit", "");
+        Assert.assertTrue(dir.delete());
+        Assert.assertTrue(dir.mkdirs());
+        return dir;
+    }
+
+    /**
+     * Deletes a directory with its files.
+     * 
+     * @param dir the directory
+     */
+    private static void delete(File dir) {
+        for (File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+    }
+
+}
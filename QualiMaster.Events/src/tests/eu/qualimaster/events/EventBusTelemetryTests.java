@@ -0,0 +1,195 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tests.eu.qualimaster.events;
+
+import java.util.Properties;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.qualimaster.Configuration;
+import eu.qualimaster.events.EventBusStatistics;
+import eu.qualimaster.events.EventClassStatistics;
+import eu.qualimaster.events.EventManager;
+import eu.qualimaster.events.LatencyHistogram;
+import eu.qualimaster.infrastructure.PipelineLifecycleEvent;
+import eu.qualimaster.monitoring.events.EventBusMonitoringEvent;
+
+/**
+ * Tests the event bus telemetry.
+ * 
+ * @author Holger Eichelberger
+ */
+public class EventBusTelemetryTests {
+
+    /**
+     * Tests the latency histogram.
+     */
+    @Test
+    public void testHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        Assert.assertEquals(0, snapshot.getCount());
+        Assert.assertEquals(0, snapshot.getPercentile(99));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        snapshot = histogram.snapshot();
+        Assert.assertEquals(1000, snapshot.getCount());
+        Assert.assertEquals(1000, snapshot.getMax());
+        Assert.assertEquals(500.5, snapshot.getMean(), 0.001);
+        assertPercentile(500, snapshot.getPercentile(50));
+        assertPercentile(950, snapshot.getPercentile(95));
+        assertPercentile(990, snapshot.getPercentile(99));
+        Assert.assertEquals(1000, snapshot.getPercentile(100));
+        Assert.assertEquals(1, snapshot.getPercentile(0));
+
+        snapshot = histogram.snapshotAndReset();
+        Assert.assertEquals(1000, snapshot.getCount());
+        Assert.assertEquals(1000, snapshot.getMax());
+        snapshot = histogram.snapshot();
+        Assert.assertEquals(0, snapshot.getCount());
+        Assert.assertEquals(0, snapshot.getMax());
+        histogram.record(5);
+        snapshot = histogram.snapshot();
+        Assert.assertEquals(1, snapshot.getCount());
+        Assert.assertEquals(5, snapshot.getMax());
+    }
+
+    /**
+     * Asserts a percentile with the relative error of the histogram buckets.
+     * 
+     * @param expected the expected value
+     * @param actual the actual value
+     */
+    private static void assertPercentile(long expected, long actual) {
+        Assert.assertTrue("expected " + expected + " actual " + actual, 
+            actual >= expected && actual <= expected * 1.25);
+    }
+
+    /**
+     * Tests the telemetry of the event manager including its periodic publication.
+     */
+    @Test(timeout = 10000)
+    public void testManagerTelemetry() {
+        Configuration.configureLocal();
+        Properties prop = new Properties();
+        prop.put(Configuration.EVENT_TELEMETRY_PERIOD, "100");
+        Configuration.configure(prop, false);
+        EventManager.start();
+        RecordingEventHandler<PipelineLifecycleEvent> handler 
+            = RecordingEventHandler.create(PipelineLifecycleEvent.class);
+        RecordingEventHandler<EventBusMonitoringEvent> monitor 
+            = RecordingEventHandler.create(EventBusMonitoringEvent.class);
+        long before = getDispatched(EventManager.getStatistics());
+        final int count = 10;
+        for (int i = 0; i < count; i++) {
+            EventManager.handle(new PipelineLifecycleEvent("pip", PipelineLifecycleEvent.Status.STARTING, null));
+        }
+        EventManager.cleanup();
+        EventBusStatistics stats = EventManager.getStatistics();
+        Assert.assertEquals(before + count, getDispatched(stats));
+        Assert.assertTrue(stats.getClassStatistics(PipelineLifecycleEvent.class).getLatency().getCount() >= count);
+        Assert.assertEquals(0, stats.getDispatchQueueDepth());
+        while (0 == monitor.getReceivedCount()) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+            }
+        }
+        EventManager.unregister(handler);
+        EventManager.unregister(monitor);
+        EventManager.stop();
+        Configuration.configureLocal();
+        Assert.assertEquals(count, handler.getReceivedCount());
+
+        EventBusStatistics published = monitor.getReceived(0).getStatistics();
+        Assert.assertNotNull(published);
+        Assert.assertEquals(stats.getId(), published.getId());
+        Assert.assertNotNull(monitor.getReceived(0).getHost());
+    }
+
+    /**
+     * Tests that the published telemetry contains the latencies of the last period while {@link 
+     * EventManager#getStatistics()} keeps the cumulative latencies.
+     */
+    @Test(timeout = 10000)
+    public void testPeriodTelemetry() {
+        Configuration.configureLocal();
+        Properties prop = new Properties();
+        prop.put(Configuration.EVENT_TELEMETRY_PERIOD, "100");
+        Configuration.configure(prop, false);
+        EventManager.start();
+        RecordingEventHandler<PipelineLifecycleEvent> handler 
+            = RecordingEventHandler.create(PipelineLifecycleEvent.class);
+        RecordingEventHandler<EventBusMonitoringEvent> monitor 
+            = RecordingEventHandler.create(EventBusMonitoringEvent.class);
+        final int count = 10;
+        for (int i = 0; i < count; i++) {
+            EventManager.handle(new PipelineLifecycleEvent("pip", PipelineLifecycleEvent.Status.STARTING, null));
+        }
+        EventManager.cleanup();
+        int period = -1; // the first period containing the events
+        while (period < 0 || monitor.getReceivedCount() <= period + 1) {
+            for (int r = 0; period < 0 && r < monitor.getReceivedCount(); r++) {
+                if (getLatencyCount(monitor.getReceived(r).getStatistics()) > 0) {
+                    period = r;
+                }
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+            }
+        }
+        EventBusStatistics stats = EventManager.getStatistics();
+        EventManager.unregister(handler);
+        EventManager.unregister(monitor);
+        EventManager.stop();
+        Configuration.configureLocal();
+
+        long published = 0;
+        for (int r = 0; r <= period; r++) {
+            published += getLatencyCount(monitor.getReceived(r).getStatistics());
+        }
+        Assert.assertTrue(published >= count);
+        Assert.assertEquals(0, getLatencyCount(monitor.getReceived(period + 1).getStatistics())); // reset
+        Assert.assertTrue(getLatencyCount(stats) >= count); // cumulative
+    }
+
+    /**
+     * Returns the number of dispatching latencies recorded for {@link PipelineLifecycleEvent pipeline lifecycle 
+     * events}.
+     * 
+     * @param stats the statistics
+     * @return the number of latencies
+     */
+    private static long getLatencyCount(EventBusStatistics stats) {
+        EventClassStatistics cls = stats.getClassStatistics(PipelineLifecycleEvent.class);
+        return null == cls ? 0 : cls.getLatency().getCount();
+    }
+
+    /**
+     * Returns the number of dispatched {@link PipelineLifecycleEvent pipeline lifecycle events}.
+     * 
+     * @param stats the statistics
+     * @return the number of dispatched events
+     */
+    private static long getDispatched(EventBusStatistics stats) {
+        EventClassStatistics cls = stats.getClassStatistics(PipelineLifecycleEvent.class);
+        return null == cls ? 0 : cls.getDispatched();
+    }
+
+}
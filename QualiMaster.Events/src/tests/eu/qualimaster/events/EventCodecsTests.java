@@ -0,0 +1,399 @@
+/*
+ * Copyright 2009-2016 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tests.eu.qualimaster.events;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.qualimaster.Configuration;
+import eu.qualimaster.events.AbstractEvent;
+import eu.qualimaster.events.EventCodecs;
+import eu.qualimaster.events.IEvent;
+import eu.qualimaster.events.IEventCodec;
+import eu.qualimaster.infrastructure.PipelineLifecycleEvent;
+import eu.qualimaster.infrastructure.PipelineLifecycleEvent.Status;
+import eu.qualimaster.logging.events.LoggingEvent;
+import eu.qualimaster.monitoring.events.ComponentKey;
+import eu.qualimaster.monitoring.events.FrozenSystemState;
+import eu.qualimaster.monitoring.events.HardwareAliveEvent;
+import eu.qualimaster.monitoring.events.PipelineElementMultiObservationMonitoringEvent;
+import eu.qualimaster.monitoring.events.PipelineElementObservationMonitoringEvent;
+import eu.qualimaster.monitoring.events.PipelineObservationMonitoringEvent;
+import eu.qualimaster.observables.IObservable;
+import eu.qualimaster.observables.ObservationSnapshot;
+import eu.qualimaster.observables.ResourceUsage;
+import eu.qualimaster.observables.Scalability;
+import eu.qualimaster.observables.TimeBehavior;
+
+/**
+ * Tests the event codecs and the frame format.
+ *
+ * @author Holger Eichelberger
+ */
+public class EventCodecsTests {
+
+    /**
+     * A (serialized) event carrying a system state like the adaptation events.
+     *
+     * @author Holger Eichelberger
+     */
+    private static class StateEvent extends AbstractEvent {
+
+        private static final long serialVersionUID = 8131573298707356447L;
+        private FrozenSystemState state;
+
+        /**
+         * Creates the event.
+         *
+         * @param state the state
+         */
+        private StateEvent(FrozenSystemState state) {
+            this.state = state;
+        }
+
+    }
+
+    /**
+     * A (serialized) event failing with a runtime exception when being deserialized.
+     *
+     * @author Holger Eichelberger
+     */
+    private static class FailingEvent extends AbstractEvent {
+
+        private static final long serialVersionUID = -2830383465640183264L;
+
+        /**
+         * Fails deserializing.
+         * 
+         * @param in the input stream
+         */
+        private void readObject(ObjectInputStream in) {
+            throw new IllegalStateException("failing deserialization");
+        }
+
+    }
+
+    /**
+     * An event encoded in a single byte.
+     *
+     * @author Holger Eichelberger
+     */
+    private static class TinyEvent extends AbstractEvent {
+
+        private static final long serialVersionUID = 3924171437468906716L;
+        private byte value;
+
+        /**
+         * Creates the event.
+         *
+         * @param value the value
+         */
+        private TinyEvent(byte value) {
+            this.value = value;
+        }
+
+    }
+
+    /**
+     * The codec for {@link TinyEvent}.
+     */
+    private static final IEventCodec<TinyEvent> TINY_CODEC = new IEventCodec<TinyEvent>() {
+
+        @Override
+        public Class<TinyEvent> handles() {
+            return TinyEvent.class;
+        }
+
+        @Override
+        public void encode(TinyEvent event, DataOutput out) throws IOException {
+            out.writeByte(event.value);
+        }
+
+        @Override
+        public TinyEvent decode(DataInput in) throws IOException {
+            return new TinyEvent(in.readByte());
+        }
+
+    };
+
+    /**
+     * Encodes and decodes an event via a frame.
+     *
+     * @param <E> the event type
+     * @param event the event
+     * @return the decoded event
+     * @throws IOException shall not occur
+     */
+    static <E extends IEvent> E transfer(E event) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EventCodecs.writeFrame(event, out);
+        byte[] data = out.toByteArray();
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        IEvent result = EventCodecs.readFrame(in);
+        Assert.assertEquals(0, in.available());
+        Assert.assertNotNull(result);
+        Assert.assertEquals(event.getClass(), result.getClass());
+        @SuppressWarnings("unchecked")
+        E tmp = (E) result;
+        return tmp;
+    }
+
+    /**
+     * Returns the size of an event in Java serialization.
+     *
+     * @param event the event
+     * @return the size in bytes
+     * @throws IOException shall not occur
+     */
+    static int serializedSize(IEvent event) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(out);
+        oos.writeObject(event);
+        oos.close();
+        return out.size();
+    }
+
+    /**
+     * Tests the monitoring event codecs.
+     *
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testMonitoringCodecs() throws IOException {
+        ComponentKey key = new ComponentKey("localhost", 7777, 4);
+        key.setThreadId(12);
+        PipelineElementObservationMonitoringEvent oEvent = new PipelineElementObservationMonitoringEvent("pip",
+            "proc", key, TimeBehavior.LATENCY, 500.0);
+        Assert.assertTrue(EventCodecs.hasCodec(oEvent.getClass()));
+        PipelineElementObservationMonitoringEvent oEvent2 = transfer(oEvent);
+        Assert.assertEquals(oEvent.getPipeline(), oEvent2.getPipeline());
+        Assert.assertEquals(oEvent.getPipelineElement(), oEvent2.getPipelineElement());
+        Assert.assertEquals(oEvent.getKey(), oEvent2.getKey());
+        Assert.assertEquals(oEvent.getObservable(), oEvent2.getObservable());
+        Assert.assertEquals(oEvent.getObservation(), oEvent2.getObservation());
+
+        oEvent = new PipelineElementObservationMonitoringEvent("pip", null, null, ResourceUsage.MEMORY_USE, null);
+        oEvent2 = transfer(oEvent);
+        Assert.assertNull(oEvent2.getPipelineElement());
+        Assert.assertNull(oEvent2.getKey());
+        Assert.assertNull(oEvent2.getObservation());
+
+        Map<IObservable, Double> obs = new HashMap<IObservable, Double>();
+        obs.put(TimeBehavior.THROUGHPUT_ITEMS, 5.0);
+        obs.put(TimeBehavior.LATENCY, 1.5);
+        obs.put(ResourceUsage.EXECUTORS, null);
+        PipelineElementMultiObservationMonitoringEvent moEvent = new PipelineElementMultiObservationMonitoringEvent(
+            "pip", "proc", key, obs);
+        PipelineElementMultiObservationMonitoringEvent moEvent2 = transfer(moEvent);
+        Assert.assertEquals(moEvent.getPipeline(), moEvent2.getPipeline());
+        Assert.assertEquals(moEvent.getPipelineElement(), moEvent2.getPipelineElement());
+        Assert.assertEquals(moEvent.getKey(), moEvent2.getKey());
+        Assert.assertEquals(obs, moEvent2.getObservations());
+        Assert.assertTrue(EventCodecs.toFrame(moEvent).length < serializedSize(moEvent));
+
+        ObservationSnapshot snapshot = new ObservationSnapshot();
+        snapshot.set(TimeBehavior.THROUGHPUT_ITEMS, 5.0);
+        snapshot.put(TimeBehavior.LATENCY, 1.5);
+        snapshot.put(ResourceUsage.EXECUTORS, null);
+        Assert.assertEquals(obs, snapshot);
+        Assert.assertEquals(obs.hashCode(), snapshot.hashCode());
+        moEvent = new PipelineElementMultiObservationMonitoringEvent("pip", "proc", key, snapshot.copy());
+        snapshot.clear();
+        Assert.assertTrue(snapshot.isEmpty());
+        Assert.assertEquals(obs, transfer(moEvent).getObservations());
+
+        PipelineObservationMonitoringEvent pEvent = new PipelineObservationMonitoringEvent("pip", key,
+            TimeBehavior.THROUGHPUT_VOLUME, 200);
+        PipelineObservationMonitoringEvent pEvent2 = transfer(pEvent);
+        Assert.assertEquals(pEvent.getPipeline(), pEvent2.getPipeline());
+        Assert.assertEquals(pEvent.getKey(), pEvent2.getKey());
+        Assert.assertEquals(pEvent.getObservable(), pEvent2.getObservable());
+        Assert.assertEquals(pEvent.getObservation(), pEvent2.getObservation());
+
+        HardwareAliveEvent hEvent = transfer(new HardwareAliveEvent("dfe"));
+        Assert.assertEquals("dfe", hEvent.getIdentifier());
+    }
+
+    /**
+     * Tests the logging event codec.
+     *
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testLoggingCodec() throws IOException {
+        LoggingEvent event = new LoggingEvent(1234, "INFO", "my message", "main");
+        LoggingEvent event2 = transfer(event);
+        Assert.assertEquals(event.getTimeStamp(), event2.getTimeStamp());
+        Assert.assertEquals(event.getLevel(), event2.getLevel());
+        Assert.assertEquals(event.getMessage(), event2.getMessage());
+        Assert.assertEquals(event.getThreadName(), event2.getThreadName());
+        Assert.assertEquals(event.getHostAddress(), event2.getHostAddress());
+    }
+
+    /**
+     * Tests the fallback to Java serialization.
+     *
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testFallback() throws IOException {
+        PipelineLifecycleEvent event = new PipelineLifecycleEvent("pip", Status.STARTING, null);
+        Assert.assertFalse(EventCodecs.hasCodec(event.getClass()));
+        PipelineLifecycleEvent event2 = transfer(event);
+        Assert.assertEquals(event.getPipeline(), event2.getPipeline());
+        Assert.assertEquals(event.getStatus(), event2.getStatus());
+    }
+
+    /**
+     * Tests reading a frame with an unknown codec id, i.e., that the frame is skipped.
+     *
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testUnknownCodec() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] frame = EventCodecs.toFrame(new HardwareAliveEvent("dfe"));
+        frame[EventCodecs.HEADER_LENGTH] = 0x7F; // corrupt the codec id
+        out.write(frame);
+        EventCodecs.writeFrame(new HardwareAliveEvent("dfe2"), out);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        Assert.assertNull(EventCodecs.readFrame(in));
+        IEvent event = EventCodecs.readFrame(in);
+        Assert.assertTrue(event instanceof HardwareAliveEvent);
+        Assert.assertEquals("dfe2", ((HardwareAliveEvent) event).getIdentifier());
+    }
+
+    /**
+     * Tests reading a frame failing with a runtime exception while decoding, i.e., that the frame is skipped.
+     *
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testFailingDecoding() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EventCodecs.writeFrame(new FailingEvent(), out);
+        EventCodecs.writeFrame(new HardwareAliveEvent("dfe"), out);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        Assert.assertNull(EventCodecs.readFrame(in));
+        IEvent event = EventCodecs.readFrame(in);
+        Assert.assertTrue(event instanceof HardwareAliveEvent);
+        Assert.assertEquals("dfe", ((HardwareAliveEvent) event).getIdentifier());
+    }
+
+    /**
+     * Tests reading a frame with a corrupted string length, i.e., that the frame is skipped without allocating the
+     * corrupted length.
+     *
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testCorruptedLength() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] frame = EventCodecs.toFrame(new HardwareAliveEvent("dfe"));
+        int pos = EventCodecs.HEADER_LENGTH + 2; // after the codec id
+        for (int b = 0; b < 4; b++) {
+            frame[pos + b] = (byte) (0 == b ? 0x7F : 0xFF); // the length of the identifier
+        }
+        out.write(frame);
+        EventCodecs.writeFrame(new HardwareAliveEvent("dfe2"), out);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        Assert.assertNull(EventCodecs.readFrame(in));
+        IEvent event = EventCodecs.readFrame(in);
+        Assert.assertTrue(event instanceof HardwareAliveEvent);
+        Assert.assertEquals("dfe2", ((HardwareAliveEvent) event).getIdentifier());
+    }
+
+    /**
+     * Tests the compression of large frames.
+     *
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testCompression() throws IOException {
+        FrozenSystemState state = new FrozenSystemState();
+        for (int p = 0; p < 10; p++) {
+            for (int e = 0; e < 20; e++) {
+                state.setObservation(FrozenSystemState.PIPELINE_ELEMENT, "pipeline" + p, "element" + e, 
+                    TimeBehavior.LATENCY, p * 100.0 + e);
+                state.setObservation(FrozenSystemState.PIPELINE_ELEMENT, "pipeline" + p, "element" + e, 
+                    Scalability.ITEMS, 1000.0 * e);
+            }
+        }
+        StateEvent event = new StateEvent(state);
+        byte[] frame = EventCodecs.toFrame(event);
+        Assert.assertTrue(0 != (frame[EventCodecs.HEADER_LENGTH] & 0x80));
+        Properties prop = new Properties();
+        prop.put(Configuration.EVENT_COMPRESSION_THRESHOLD, "0");
+        Configuration.configure(prop, false);
+        byte[] uncompressed = EventCodecs.toFrame(event);
+        Configuration.configureLocal();
+        Assert.assertTrue(0 == (uncompressed[EventCodecs.HEADER_LENGTH] & 0x80));
+        Assert.assertTrue(frame.length + " " + uncompressed.length, frame.length * 5 < uncompressed.length);
+
+        StateEvent event2 = transfer(event);
+        Assert.assertEquals(state.getMapping(), event2.state.getMapping());
+        Assert.assertNotNull(transfer(new HardwareAliveEvent("dfe"))); // small, not compressed
+        Assert.assertTrue(0 == (EventCodecs.toFrame(new HardwareAliveEvent("dfe"))[EventCodecs.HEADER_LENGTH] & 0x80));
+
+        frame[frame.length - 1] ^= 0x5A; // corrupt the compressed content
+        Assert.assertNull(EventCodecs.fromFrame(frame, EventCodecs.HEADER_LENGTH, 
+            frame.length - EventCodecs.HEADER_LENGTH));
+    }
+
+    /**
+     * Tests compressing with a small threshold, i.e., that events shorter than the compressed length header are not 
+     * compressed and that the per-thread compression buffer is reused correctly for frames of different sizes.
+     *
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testSmallCompressionThreshold() throws IOException {
+        final short id = 1000;
+        EventCodecs.register(id, TINY_CODEC);
+        Properties prop = new Properties();
+        prop.put(Configuration.EVENT_COMPRESSION_THRESHOLD, "1");
+        Configuration.configure(prop, false);
+        try {
+            Assert.assertEquals(7, transfer(new TinyEvent((byte) 7)).value);
+            Assert.assertEquals("dfe", transfer(new HardwareAliveEvent("dfe")).getIdentifier());
+            FrozenSystemState state = new FrozenSystemState();
+            for (int e = 0; e < 200; e++) {
+                state.setObservation(FrozenSystemState.PIPELINE_ELEMENT, "pipeline", "element" + e, 
+                    TimeBehavior.LATENCY, e * 1.0);
+            }
+            for (int r = 0; r < 2; r++) { // reuse the compression buffer
+                Assert.assertEquals(state.getMapping(), transfer(new StateEvent(state)).state.getMapping());
+                Assert.assertEquals(9, transfer(new TinyEvent((byte) 9)).value);
+            }
+        } finally {
+            Configuration.configureLocal();
+            EventCodecs.unregister(id);
+        }
+    }
+
+}
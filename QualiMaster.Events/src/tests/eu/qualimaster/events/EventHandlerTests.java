@@ -1,7 +1,11 @@
 package tests.eu.qualimaster.events;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
 
 import org.junit.After;
 import org.junit.Assert;
@@ -10,8 +14,14 @@ import org.junit.Test;
 
 import eu.qualimaster.Configuration;
 import eu.qualimaster.adaptation.events.AdaptationEvent;
+import eu.qualimaster.events.DispatchLaneStatistics;
+import eu.qualimaster.events.AbstractEvent;
+import eu.qualimaster.events.DispatchOverflowPolicy;
+import eu.qualimaster.events.EventHandler;
 import eu.qualimaster.events.EventManager;
+import eu.qualimaster.events.EventPriority;
 import eu.qualimaster.events.IEvent;
+import eu.qualimaster.events.IPrioritizedEvent;
 import eu.qualimaster.infrastructure.InfrastructureEvent;
 import eu.qualimaster.infrastructure.PipelineLifecycleEvent;
 import eu.qualimaster.infrastructure.PipelineLifecycleEvent.Status;
@@ -233,5 +243,319 @@ public class EventHandlerTests {
         EventManager.stop();
         Thread.sleep(500);
     }
-    
+
+    /**
+     * Tests that (un)registering handlers takes effect on already dispatched event types, i.e., that cached dispatch
+     * information is updated.
+     * 
+     * @throws InterruptedException in case that sleeping was interrupted (shall not occur)
+     */
+    @Test(timeout = 3000)
+    public void testRegistrationUpdate() throws InterruptedException {
+        Configuration.configureLocal();
+        EventManager.start();
+        Thread.sleep(500);
+
+        RecordingEventHandler<IEvent> recAll = RecordingEventHandler.create(IEvent.class); // registers
+        handleAndCheck(new PipelineLifecycleEvent("test1", Status.STOPPED, null), infra, others);
+        Assert.assertEquals(1, recAll.getReceivedCount());
+        EventManager.unregister(recAll);
+        handleAndCheck(new PipelineLifecycleEvent("test2", Status.STOPPED, null), infra, others);
+        Assert.assertEquals(1, recAll.getReceivedCount());
+
+        EventManager.register(recAll);
+        EventManager.register(recAll); // dispatched only once
+        handleAndCheck(new PipelineLifecycleEvent("test3", Status.STOPPED, null), infra, others);
+        Assert.assertEquals(2, recAll.getReceivedCount());
+
+        EventManager.unregister(recAll);
+        EventManager.unregister(recAll);
+        EventManager.cleanup();
+        EventManager.stop();
+        Thread.sleep(500);
+    }
+
+    /**
+     * A handler with a bounded dispatch lane which waits for a latch before handling its first event.
+     * 
+     * @author Holger Eichelberger
+     */
+    private static class BoundedEventHandler extends EventHandler<PipelineLifecycleEvent> {
+
+        private CountDownLatch latch = new CountDownLatch(1);
+        private CountDownLatch started = new CountDownLatch(1);
+        private List<String> received = Collections.synchronizedList(new ArrayList<String>());
+        private DispatchOverflowPolicy policy;
+
+        /**
+         * Creates the handler.
+         * 
+         * @param policy the overflow policy
+         */
+        private BoundedEventHandler(DispatchOverflowPolicy policy) {
+            super(PipelineLifecycleEvent.class);
+            this.policy = policy;
+        }
+
+        @Override
+        protected void handle(PipelineLifecycleEvent event) {
+            started.countDown();
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+            }
+            received.add(event.getPipeline());
+        }
+
+        @Override
+        protected int getDispatchCapacity() {
+            return 2;
+        }
+
+        @Override
+        protected DispatchOverflowPolicy getDispatchOverflowPolicy() {
+            return policy;
+        }
+
+    }
+
+    /**
+     * Sends <code>count</code> events to a bounded handler while it is blocked in its first event.
+     * 
+     * @param policy the overflow policy of the handler
+     * @param count the number of events
+     * @return the handler after processing all events
+     * @throws InterruptedException in case that waiting was interrupted (shall not occur)
+     */
+    private BoundedEventHandler dispatchBounded(DispatchOverflowPolicy policy, int count) 
+        throws InterruptedException {
+        BoundedEventHandler handler = new BoundedEventHandler(policy);
+        EventManager.register(handler);
+        EventManager.handle(new PipelineLifecycleEvent("p0", Status.STOPPED, null));
+        handler.started.await();
+        for (int e = 1; e < count; e++) {
+            EventManager.handle(new PipelineLifecycleEvent("p" + e, Status.STOPPED, null));
+        }
+        DispatchLaneStatistics stat = null;
+        for (DispatchLaneStatistics s : EventManager.getDispatchStatistics()) {
+            if (s.getHandler().equals(BoundedEventHandler.class.getName())) {
+                stat = s;
+            }
+        }
+        Assert.assertNotNull(stat);
+        Assert.assertEquals(2, stat.getCapacity());
+        Assert.assertEquals(2, stat.getDepth());
+        Assert.assertEquals(count - 3, stat.getDropped());
+        handler.latch.countDown();
+        EventManager.cleanup();
+        EventManager.unregister(handler);
+        return handler;
+    }
+
+    /**
+     * Tests the bounded, ordered dispatch lanes.
+     * 
+     * @throws InterruptedException in case that sleeping was interrupted (shall not occur)
+     */
+    @Test(timeout = 5000)
+    public void testDispatchLanes() throws InterruptedException {
+        Configuration.configureLocal();
+        EventManager.start();
+
+        BoundedEventHandler handler = dispatchBounded(DispatchOverflowPolicy.DROP_NEWEST, 5);
+        Assert.assertEquals(Arrays.asList("p0", "p1", "p2"), handler.received);
+        handler = dispatchBounded(DispatchOverflowPolicy.DROP_OLDEST, 5);
+        Assert.assertEquals(Arrays.asList("p0", "p3", "p4"), handler.received);
+
+        // events for a handler are handled in sequence
+        List<String> expected = new ArrayList<String>();
+        int start = rec1.getReceivedCount();
+        for (int e = 0; e < 100; e++) {
+            InfrastructureEvent event = new PipelineLifecycleEvent("test" + e, Status.STOPPED, null);
+            EventManager.handle(event);
+        }
+        EventManager.cleanup();
+        for (int e = 0; e < 100; e++) {
+            expected.add("test" + e);
+        }
+        List<String> actual = new ArrayList<String>();
+        for (int e = start; e < rec1.getReceivedCount(); e++) {
+            actual.add(((PipelineLifecycleEvent) rec1.getReceived(e)).getPipeline());
+        }
+        Assert.assertEquals(expected, actual);
+        Assert.assertEquals(0, EventManager.unprocessed());
+
+        EventManager.stop();
+        Thread.sleep(500);
+    }
+
+    /**
+     * A test event with given priority.
+     * 
+     * @author Holger Eichelberger
+     */
+    private static class PriorityEvent extends AbstractEvent implements IPrioritizedEvent {
+
+        private static final long serialVersionUID = 2287458719164302764L;
+        private EventPriority priority;
+
+        /**
+         * Creates the event.
+         * 
+         * @param priority the priority
+         */
+        private PriorityEvent(EventPriority priority) {
+            this.priority = priority;
+        }
+
+        @Override
+        public EventPriority getPriority() {
+            return priority;
+        }
+
+    }
+
+    /**
+     * Records the handling order of {@link PriorityEvent priority events} of a given priority. Blocks in its first 
+     * event until released if requested.
+     * 
+     * @author Holger Eichelberger
+     */
+    private static class PriorityEventHandler extends EventHandler<PriorityEvent> {
+
+        private String name;
+        private EventPriority priority;
+        private List<String> order;
+        private CountDownLatch latch;
+        private CountDownLatch started = new CountDownLatch(1);
+
+        /**
+         * Creates the handler.
+         * 
+         * @param name the name to record
+         * @param priority the priority of the events to handle
+         * @param order the handling order (modified as a side effect)
+         * @param latch the latch to wait for in the first event (may be <b>null</b> for none)
+         */
+        private PriorityEventHandler(String name, EventPriority priority, List<String> order, CountDownLatch latch) {
+            super(PriorityEvent.class);
+            this.name = name;
+            this.priority = priority;
+            this.order = order;
+            this.latch = latch;
+        }
+
+        @Override
+        protected boolean consume(IEvent event) {
+            return ((PriorityEvent) event).getPriority() != priority;
+        }
+
+        @Override
+        protected void handle(PriorityEvent event) {
+            started.countDown();
+            if (null != latch) {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                }
+            } else {
+                order.add(name);
+            }
+        }
+
+    }
+
+    /**
+     * Tests that dispatch lanes with control events overtake lanes with telemetry events, but only as many as 
+     * permitted by the aging bound.
+     * 
+     * @throws InterruptedException in case that waiting was interrupted (shall not occur)
+     */
+    @Test(timeout = 5000)
+    public void testDispatchPriorities() throws InterruptedException {
+        final int aging = 2;
+        final int controls = 6;
+        Configuration.configureLocal();
+        Properties prop = new Properties();
+        prop.put(Configuration.EVENT_DISPATCH_THREADS, "1");
+        prop.put(Configuration.EVENT_PRIORITY_AGING, String.valueOf(aging));
+        Configuration.configure(prop, false);
+        EventManager.start();
+
+        List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        CountDownLatch latch = new CountDownLatch(1);
+        PriorityEventHandler blocker = new PriorityEventHandler("B", EventPriority.NORMAL, order, latch);
+        List<PriorityEventHandler> handlers = new ArrayList<PriorityEventHandler>();
+        handlers.add(blocker);
+        handlers.add(new PriorityEventHandler("T", EventPriority.TELEMETRY, order, null));
+        for (int c = 0; c < controls; c++) {
+            handlers.add(new PriorityEventHandler("C" + c, EventPriority.CONTROL, order, null));
+        }
+        for (PriorityEventHandler handler : handlers) {
+            EventManager.register(handler);
+        }
+        EventManager.handle(new PriorityEvent(EventPriority.NORMAL));
+        blocker.started.await(); // the only dispatch thread is blocked now
+        EventManager.handle(new PriorityEvent(EventPriority.TELEMETRY));
+        EventManager.handle(new PriorityEvent(EventPriority.CONTROL)); // schedules one lane per control handler
+        latch.countDown();
+        EventManager.cleanup();
+        for (PriorityEventHandler handler : handlers) {
+            EventManager.unregister(handler);
+        }
+        EventManager.stop();
+        Configuration.configureLocal();
+
+        Assert.assertEquals(controls + 1, order.size());
+        Assert.assertEquals("C0", order.get(0)); // control overtakes telemetry
+        int pos = order.indexOf("T");
+        Assert.assertTrue(pos > 0 && pos <= 2 * aging); // but not more than twice the aging bound
+    }
+
+    /**
+     * Tests that a waiting dispatch lane is re-scheduled if a more important event joins its queue.
+     * 
+     * @throws InterruptedException in case that waiting was interrupted (shall not occur)
+     */
+    @Test(timeout = 5000)
+    public void testDispatchPriorityRaise() throws InterruptedException {
+        Configuration.configureLocal();
+        Properties prop = new Properties();
+        prop.put(Configuration.EVENT_DISPATCH_THREADS, "1");
+        prop.put(Configuration.EVENT_PRIORITY_AGING, "10");
+        Configuration.configure(prop, false);
+        EventManager.start();
+
+        List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        CountDownLatch latch = new CountDownLatch(1);
+        PriorityEventHandler blocker = new PriorityEventHandler("B", EventPriority.NORMAL, order, latch);
+        List<PriorityEventHandler> handlers = new ArrayList<PriorityEventHandler>();
+        handlers.add(blocker);
+        handlers.add(new PriorityEventHandler("N", EventPriority.NORMAL, order, null));
+        handlers.add(new PriorityEventHandler("M", EventPriority.TELEMETRY, order, null) {
+
+            @Override
+            protected boolean consume(IEvent event) {
+                return ((PriorityEvent) event).getPriority() == EventPriority.NORMAL;
+            }
+
+        });
+        for (PriorityEventHandler handler : handlers) {
+            EventManager.register(handler);
+        }
+        EventManager.handle(new PriorityEvent(EventPriority.NORMAL));
+        blocker.started.await(); // the only dispatch thread is blocked now, lane of N is waiting
+        EventManager.handle(new PriorityEvent(EventPriority.TELEMETRY)); // lane of M waits behind N
+        EventManager.handle(new PriorityEvent(EventPriority.CONTROL)); // lane of M shall overtake N now
+        latch.countDown();
+        EventManager.cleanup();
+        for (PriorityEventHandler handler : handlers) {
+            EventManager.unregister(handler);
+        }
+        EventManager.stop();
+        Configuration.configureLocal();
+
+        Assert.assertEquals(Arrays.asList("M", "M", "N"), order);
+    }
+
 }
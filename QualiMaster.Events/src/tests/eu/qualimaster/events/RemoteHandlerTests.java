@@ -1,19 +1,39 @@
 package tests.eu.qualimaster.events;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.net.Socket;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Assert;
 import org.junit.Test;
 
 import eu.qualimaster.Configuration;
+import eu.qualimaster.events.AbstractEvent;
+import eu.qualimaster.events.EventCodecs;
+import eu.qualimaster.events.EventHandler;
+import eu.qualimaster.events.DispatchOverflowPolicy;
 import eu.qualimaster.events.EventManager;
+import eu.qualimaster.events.EventSubscription;
 import eu.qualimaster.events.IEvent;
 import eu.qualimaster.infrastructure.InfrastructureEvent;
 import eu.qualimaster.infrastructure.PipelineLifecycleEvent;
 import eu.qualimaster.infrastructure.PipelineLifecycleEvent.Status;
 import eu.qualimaster.logging.events.LoggingFilterEvent;
+import eu.qualimaster.monitoring.events.ComponentKey;
+import eu.qualimaster.monitoring.events.PipelineElementObservationMonitoringEvent;
+import eu.qualimaster.observables.TimeBehavior;
 
 /**
  * Tests the remote functionality.
@@ -65,6 +85,411 @@ public class RemoteHandlerTests {
         System.out.println();
     }
 
+    /**
+     * A thread-safe counting handler for lifecycle events.
+     * 
+     * @author Holger Eichelberger
+     */
+    private static class CountingEventHandler extends EventHandler<PipelineLifecycleEvent> {
+
+        private AtomicInteger count = new AtomicInteger();
+        private EventSubscription subscription;
+        
+        /**
+         * Creates the handler.
+         */
+        protected CountingEventHandler() {
+            this(null);
+        }
+
+        /**
+         * Creates the handler with a subscription.
+         * 
+         * @param subscription the subscription (may be <b>null</b> for all events)
+         */
+        protected CountingEventHandler(EventSubscription subscription) {
+            super(PipelineLifecycleEvent.class);
+            this.subscription = subscription;
+        }
+
+        @Override
+        protected EventSubscription getSubscription() {
+            return subscription;
+        }
+
+        @Override
+        protected void handle(PipelineLifecycleEvent event) {
+            count.incrementAndGet();
+        }
+        
+        /**
+         * Returns the number of received events.
+         * 
+         * @return the number of received events
+         */
+        public int getCount() {
+            return count.get();
+        }
+        
+    }
+
+    /**
+     * Tests sending a burst of events from a client, i.e., that no event is lost when sending in batches.
+     */
+    @Test(timeout = 5000 + EventManager.SO_TIMEOUT)
+    public void testRemoteBurst() {
+        final int count = 500;
+        Configuration.configureLocal();
+        EventManager.startServer();
+        CountingEventHandler rec = new CountingEventHandler();
+        EventManager.register(rec);
+        
+        EventManager local = new EventManager();
+        local.doStart(false, false); // enforce the case that we are not local
+        for (int i = 0; i < count; i++) {
+            local.doSend(new PipelineLifecycleEvent("pipeline" + i, Status.STARTING, null));
+        }
+        local.doCleanup();
+        
+        waitFor(rec, count); // wait for transmission
+        
+        EventManager.cleanup();
+        local.doStop();
+        EventManager.stop();
+        EventManager.unregister(rec);
+        Assert.assertEquals(count, rec.getCount());
+    }
+
+    /**
+     * Waits until <code>rec</code> received <code>count</code> events, at maximum 3 seconds.
+     * 
+     * @param rec the counting handler
+     * @param count the expected number of events
+     */
+    private static void waitFor(CountingEventHandler rec, int count) {
+        long start = System.currentTimeMillis();
+        while (rec.getCount() < count && System.currentTimeMillis() - start < 3000) {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+            }
+        }
+    }
+
+    /**
+     * Tests many clients sending interleaved to the server, i.e., more connections than server I/O threads.
+     * 
+     * @throws IOException shall not occur
+     */
+    @Test(timeout = 5000 + EventManager.SO_TIMEOUT)
+    public void testManyClients() throws IOException {
+        final int clients = 20;
+        final int count = 50;
+        Configuration.configureLocal();
+        Properties prop = new Properties();
+        prop.put(Configuration.EVENT_SERVER_IO_THREADS, "2");
+        Configuration.configure(prop, false);
+        EventManager.startServer();
+        CountingEventHandler rec = new CountingEventHandler();
+        EventManager.register(rec);
+
+        Socket[] sockets = new Socket[clients];
+        for (int c = 0; c < clients; c++) {
+            sockets[c] = openRawClient("client" + c);
+        }
+        for (int i = 0; i < count; i++) {
+            for (int c = 0; c < clients; c++) {
+                sendRaw(sockets[c], "pipeline" + c, 1);
+            }
+        }
+        waitFor(rec, clients * count);
+        for (int c = 0; c < clients; c++) {
+            sockets[c].close();
+        }
+
+        EventManager.cleanup();
+        EventManager.stop();
+        EventManager.unregister(rec);
+        Configuration.configureLocal();
+        Assert.assertEquals(clients * count, rec.getCount());
+    }
+
+    /**
+     * Tests many senders sending interleaved to the server via the shared sender connection.
+     */
+    @Test(timeout = 5000 + EventManager.SO_TIMEOUT)
+    public void testManySenders() {
+        final int clients = 20;
+        final int count = 50;
+        Configuration.configureLocal();
+        EventManager.startServer();
+        CountingEventHandler rec = new CountingEventHandler();
+        EventManager.register(rec);
+
+        EventManager.EventSender[] senders = new EventManager.EventSender[clients];
+        for (int c = 0; c < clients; c++) {
+            senders[c] = new EventManager.EventSender();
+        }
+        for (int i = 0; i < count; i++) {
+            for (int c = 0; c < clients; c++) {
+                senders[c].send(new PipelineLifecycleEvent("pipeline" + c, Status.STARTING, null));
+            }
+        }
+        waitFor(rec, clients * count);
+        Assert.assertEquals(0, senders[0].getDropped());
+        for (int c = 0; c < clients; c++) {
+            senders[c].close();
+        }
+
+        EventManager.cleanup();
+        EventManager.stop();
+        EventManager.unregister(rec);
+        Assert.assertEquals(clients * count, rec.getCount());
+    }
+
+    /**
+     * Tests that an event failing with a runtime exception while being encoded is dropped and does not stop the
+     * shared sender connection.
+     */
+    @Test(timeout = 5000 + EventManager.SO_TIMEOUT)
+    public void testFailingSenderEvent() {
+        final int count = 10;
+        Configuration.configureLocal();
+        EventManager.startServer();
+        CountingEventHandler rec = new CountingEventHandler();
+        EventManager.register(rec);
+
+        EventManager.EventSender sender = new EventManager.EventSender();
+        long dropped = sender.getDropped();
+        sender.send(new FailingEvent());
+        for (int i = 0; i < count; i++) {
+            sender.send(new PipelineLifecycleEvent("pipeline", Status.STARTING, null));
+        }
+        waitFor(rec, count);
+        dropped = sender.getDropped() - dropped;
+        sender.close();
+
+        EventManager.cleanup();
+        EventManager.stop();
+        EventManager.unregister(rec);
+        Assert.assertEquals(count, rec.getCount());
+        Assert.assertEquals(1, dropped);
+    }
+
+    /**
+     * Tests concurrent senders on multiple threads, i.e., that sending does not block and no event is lost.
+     * 
+     * @throws InterruptedException shall not occur
+     */
+    @Test(timeout = 5000 + EventManager.SO_TIMEOUT)
+    public void testConcurrentSenders() throws InterruptedException {
+        final int threads = 8;
+        final int count = 250;
+        Configuration.configureLocal();
+        EventManager.startServer();
+        CountingEventHandler rec = new CountingEventHandler();
+        EventManager.register(rec);
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final EventManager.EventSender[] senders = new EventManager.EventSender[threads];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final EventManager.EventSender sender = new EventManager.EventSender();
+            senders[t] = sender;
+            final String pipeline = "pipeline" + t;
+            workers[t] = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                    }
+                    for (int i = 0; i < count; i++) {
+                        sender.send(new PipelineLifecycleEvent(pipeline, Status.STARTING, null));
+                    }
+                }
+
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (int t = 0; t < threads; t++) {
+            workers[t].join();
+        }
+        waitFor(rec, threads * count);
+        Assert.assertEquals(0, senders[0].getDropped());
+        for (int t = 0; t < threads; t++) {
+            senders[t].close();
+        }
+        EventManager.cleanup();
+        EventManager.stop();
+        EventManager.unregister(rec);
+        Assert.assertEquals(threads * count, rec.getCount());
+    }
+
+    /**
+     * Tests that the server assembles handshake and frames sent in fragments.
+     * 
+     * @throws IOException shall not occur
+     */
+    @Test(timeout = 5000 + EventManager.SO_TIMEOUT)
+    public void testFragmentedFrames() throws IOException {
+        Configuration.configureLocal();
+        EventManager.startServer();
+        CountingEventHandler rec = new CountingEventHandler();
+        EventManager.register(rec);
+
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(buf);
+        data.writeUTF("fragmentedClient");
+        EventCodecs.writeFrame(new PipelineLifecycleEvent("pipeline", Status.STARTING, null), data);
+        EventCodecs.writeFrame(new PipelineLifecycleEvent("pipeline", Status.STARTED, null), data);
+        byte[] bytes = buf.toByteArray();
+        Socket socket = new Socket(Configuration.getEventHost(), Configuration.getEventPort());
+        socket.setTcpNoDelay(true);
+        OutputStream out = socket.getOutputStream();
+        for (int b = 0; b < bytes.length; b++) {
+            out.write(bytes[b]);
+            out.flush();
+            if (b % 50 == 0) {
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                }
+            }
+        }
+        waitFor(rec, 2);
+        socket.close();
+
+        EventManager.cleanup();
+        EventManager.stop();
+        EventManager.unregister(rec);
+        Assert.assertEquals(2, rec.getCount());
+    }
+
+    /**
+     * Opens a raw client connection to the event server and sends the handshake.
+     * 
+     * @param clientId the client id
+     * @return the connection
+     * @throws IOException in case of I/O problems
+     */
+    private static Socket openRawClient(String clientId) throws IOException {
+        Socket socket = new Socket(Configuration.getEventHost(), Configuration.getEventPort());
+        socket.setTcpNoDelay(true);
+        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+        out.writeUTF(clientId);
+        out.flush();
+        return socket;
+    }
+
+    /**
+     * Sends lifecycle events for <code>pipeline</code> via a raw client connection.
+     * 
+     * @param socket the connection
+     * @param pipeline the pipeline name
+     * @param count the number of events
+     * @throws IOException in case of I/O problems
+     */
+    private static void sendRaw(Socket socket, String pipeline, int count) throws IOException {
+        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+        for (int i = 0; i < count; i++) {
+            EventCodecs.writeFrame(new PipelineLifecycleEvent(pipeline, Status.STARTING, null), out);
+        }
+        out.flush();
+    }
+
+    /**
+     * Tests that a blocked handler with a full {@link DispatchOverflowPolicy#BLOCK} lane does not stall the server 
+     * I/O thread, i.e., the other clients served by the same I/O thread are still served.
+     * 
+     * @throws IOException shall not occur
+     */
+    @Test(timeout = 5000 + EventManager.SO_TIMEOUT)
+    public void testBlockedHandlerDoesNotStallIo() throws IOException {
+        final int count = 10;
+        Configuration.configureLocal();
+        Properties prop = new Properties();
+        prop.put(Configuration.EVENT_SERVER_IO_THREADS, "1"); // both clients on the same I/O thread
+        Configuration.configure(prop, false);
+        EventManager.startServer();
+        BlockingEventHandler blocking = new BlockingEventHandler();
+        EventManager.register(blocking);
+        CountingEventHandler rec = new CountingEventHandler() {
+
+            @Override
+            protected void handle(PipelineLifecycleEvent event) {
+                if ("fast".equals(event.getPipeline())) {
+                    super.handle(event);
+                }
+            }
+
+        };
+        EventManager.register(rec);
+
+        Socket slow = openRawClient("slowClient");
+        Socket fast = openRawClient("fastClient");
+        sendRaw(slow, "slow", count); // blocks the handler and fills its lane
+        sleep(200);
+        sendRaw(fast, "fast", count);
+        waitFor(rec, count);
+        int received = rec.getCount();
+        blocking.latch.countDown();
+        slow.close();
+        fast.close();
+
+        EventManager.cleanup();
+        EventManager.stop();
+        EventManager.unregister(blocking);
+        EventManager.unregister(rec);
+        Configuration.configureLocal();
+        Assert.assertEquals(count, received);
+    }
+
+    /**
+     * Tests that a runtime exception while handling the events of a client closes only that client connection, i.e.,
+     * the other clients served by the same server I/O thread are still served.
+     * 
+     * @throws IOException shall not occur
+     */
+    @Test(timeout = 5000 + EventManager.SO_TIMEOUT)
+    public void testFailingHandlerDoesNotStallIo() throws IOException {
+        final int count = 10;
+        Configuration.configureLocal();
+        Properties prop = new Properties();
+        prop.put(Configuration.EVENT_SERVER_IO_THREADS, "1"); // both clients on the same I/O thread
+        Configuration.configure(prop, false);
+        EventManager.startServer();
+        CountingEventHandler rec = new CountingEventHandler() {
+
+            @Override
+            protected boolean consume(IEvent event) {
+                if ("bad".equals(((PipelineLifecycleEvent) event).getPipeline())) {
+                    throw new IllegalStateException("failing handler"); // called on the I/O thread
+                }
+                return super.consume(event);
+            }
+
+        };
+        EventManager.register(rec);
+
+        Socket bad = openRawClient("badClient");
+        Socket good = openRawClient("goodClient");
+        sendRaw(bad, "bad", 1);
+        sleep(200);
+        sendRaw(good, "good", count);
+        waitFor(rec, count);
+        bad.close();
+        good.close();
+
+        EventManager.cleanup();
+        EventManager.stop();
+        EventManager.unregister(rec);
+        Configuration.configureLocal();
+        Assert.assertEquals(count, rec.getCount());
+    }
+
     /**
      * Asserts the equality of a lifecycle event.
      * 
@@ -171,4 +596,425 @@ public class RemoteHandlerTests {
         System.out.println();
     }
 
-}
\ No newline at end of file
+    /**
+     * Records the observations of monitoring events.
+     * 
+     * @author Holger Eichelberger
+     */
+    private static class ObservationEventHandler extends EventHandler<PipelineElementObservationMonitoringEvent> {
+
+        private List<Double> observations = Collections.synchronizedList(new ArrayList<Double>());
+
+        /**
+         * Creates the handler.
+         */
+        protected ObservationEventHandler() {
+            super(PipelineElementObservationMonitoringEvent.class);
+        }
+
+        @Override
+        protected void handle(PipelineElementObservationMonitoringEvent event) {
+            observations.add(event.getObservation());
+        }
+
+    }
+
+    /**
+     * Tests conflating monitoring events in the client send queue, i.e., monitoring events may be replaced by newer
+     * ones but control events are never conflated.
+     */
+    @Test(timeout = 5000 + EventManager.SO_TIMEOUT)
+    public void testConflation() {
+        final int count = 1000;
+        ComponentKey key = new ComponentKey("localhost", 1234, 1);
+        Object key1 = new PipelineElementObservationMonitoringEvent("pip", "elt", key, TimeBehavior.LATENCY, 1)
+            .getConflationKey();
+        Object key2 = new PipelineElementObservationMonitoringEvent("pip", "elt", key, TimeBehavior.LATENCY, 2)
+            .getConflationKey();
+        Object key3 = new PipelineElementObservationMonitoringEvent("pip", "elt", key, TimeBehavior.THROUGHPUT_ITEMS, 1)
+            .getConflationKey();
+        Assert.assertEquals(key1, key2);
+        Assert.assertFalse(key1.equals(key3));
+
+        Configuration.configureLocal();
+        Properties prop = new Properties();
+        prop.put(Configuration.EVENT_SEND_CONFLATE, "true");
+        Configuration.configure(prop, false);
+        EventManager.startServer();
+        CountingEventHandler rec = new CountingEventHandler();
+        EventManager.register(rec);
+        ObservationEventHandler obs = new ObservationEventHandler();
+        EventManager.register(obs);
+
+        EventManager local = new EventManager();
+        local.doStart(false, false); // enforce the case that we are not local
+        for (int i = 0; i < count; i++) {
+            local.doSend(new PipelineElementObservationMonitoringEvent("pip", "elt", key, TimeBehavior.LATENCY, i));
+            if (i % 100 == 0) {
+                local.doSend(new PipelineLifecycleEvent("pipeline" + i, Status.STARTING, null));
+            }
+        }
+        local.doCleanup();
+        waitFor(rec, count / 100); // wait for transmission
+        long start = System.currentTimeMillis();
+        while (!obs.observations.contains(Double.valueOf(count - 1)) && System.currentTimeMillis() - start < 3000) {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+            }
+        }
+
+        EventManager.cleanup();
+        local.doStop();
+        EventManager.stop();
+        EventManager.unregister(rec);
+        EventManager.unregister(obs);
+        Configuration.configureLocal();
+
+        Assert.assertEquals(count / 100, rec.getCount());
+        List<Double> received = new ArrayList<Double>(obs.observations);
+        Assert.assertTrue(received.size() > 0 && received.size() <= count);
+        for (int i = 1; i < received.size(); i++) { // conflation keeps the order
+            Assert.assertTrue(received.get(i - 1) < received.get(i));
+        }
+        Assert.assertEquals(Double.valueOf(count - 1), received.get(received.size() - 1));
+    }
+
+    /**
+     * Tests the bounded client send queue while the server is not reachable, i.e., that monitoring events are 
+     * dropped first and that the client reconnects.
+     */
+    @Test(timeout = 10000 + EventManager.SO_TIMEOUT)
+    public void testReconnect() {
+        final int capacity = 10;
+        final int control = 5;
+        ComponentKey key = new ComponentKey("localhost", 1234, 1);
+        Configuration.configureLocal();
+        Properties prop = new Properties();
+        prop.put(Configuration.EVENT_SEND_CAPACITY, String.valueOf(capacity));
+        Configuration.configure(prop, false);
+        EventManager.startServer();
+        CountingEventHandler rec = new CountingEventHandler();
+        EventManager.register(rec);
+        ObservationEventHandler obs = new ObservationEventHandler();
+        EventManager.register(obs);
+
+        EventManager local = new EventManager();
+        local.doStart(false, false); // enforce the case that we are not local
+        EventManager.stop();
+        for (int i = 0; i < 3; i++) { // let the client detect the closed connection
+            local.doSend(new PipelineElementObservationMonitoringEvent("pip", "elt", key, TimeBehavior.LATENCY, -1));
+            sleep(200);
+        }
+        for (int i = 0; i < 6 * control; i++) {
+            local.doSend(new PipelineElementObservationMonitoringEvent("pip", "elt", key, TimeBehavior.LATENCY, i));
+            if (i % 6 == 0) {
+                local.doSend(new PipelineLifecycleEvent("pipeline" + i, Status.STARTING, null));
+            }
+        }
+        EventManager.startServer();
+        local.doCleanup();
+        waitFor(rec, control);
+        sleep(200);
+
+        EventManager.cleanup();
+        local.doStop();
+        EventManager.stop();
+        EventManager.unregister(rec);
+        EventManager.unregister(obs);
+        Configuration.configureLocal();
+
+        Assert.assertEquals(control, rec.getCount()); // no control event was dropped
+        List<Double> received = new ArrayList<Double>(obs.observations);
+        received.removeAll(Collections.singleton(Double.valueOf(-1))); // probes
+        Assert.assertEquals(capacity - control, received.size()); // the most recent monitoring events
+        for (int i = 0; i < received.size(); i++) {
+            Assert.assertEquals(Double.valueOf(6 * control - capacity + control + i), received.get(i));
+        }
+    }
+
+    /**
+     * Tests the bounded client send queue filled with control events while the server is not reachable, i.e., that
+     * monitoring events do not evict control events.
+     */
+    @Test(timeout = 10000 + EventManager.SO_TIMEOUT)
+    public void testSendQueueFullOfControl() {
+        final int capacity = 10;
+        ComponentKey key = new ComponentKey("localhost", 1234, 1);
+        Configuration.configureLocal();
+        Properties prop = new Properties();
+        prop.put(Configuration.EVENT_SEND_CAPACITY, String.valueOf(capacity));
+        prop.put(Configuration.EVENT_SEND_OVERFLOW, DispatchOverflowPolicy.DROP_OLDEST.name());
+        Configuration.configure(prop, false);
+        EventManager.startServer();
+        CountingEventHandler rec = new CountingEventHandler();
+        EventManager.register(rec);
+        ObservationEventHandler obs = new ObservationEventHandler();
+        EventManager.register(obs);
+
+        EventManager local = new EventManager();
+        local.doStart(false, false); // enforce the case that we are not local
+        EventManager.stop();
+        for (int i = 0; i < 3; i++) { // let the client detect the closed connection
+            local.doSend(new PipelineElementObservationMonitoringEvent("pip", "elt", key, TimeBehavior.LATENCY, -1));
+            sleep(200);
+        }
+        for (int i = 0; i < capacity; i++) { // control events, evict the probes
+            local.doSend(new PipelineLifecycleEvent("pipeline" + i, Status.STARTING, null));
+        }
+        for (int i = 0; i < capacity; i++) {
+            local.doSend(new PipelineElementObservationMonitoringEvent("pip", "elt", key, TimeBehavior.LATENCY, i));
+        }
+        EventManager.startServer();
+        local.doCleanup();
+        waitFor(rec, capacity);
+        sleep(200);
+
+        EventManager.cleanup();
+        local.doStop();
+        EventManager.stop();
+        EventManager.unregister(rec);
+        EventManager.unregister(obs);
+        Configuration.configureLocal();
+
+        Assert.assertEquals(capacity, rec.getCount()); // no control event was dropped
+        List<Double> received = new ArrayList<Double>(obs.observations);
+        received.removeAll(Collections.singleton(Double.valueOf(-1))); // probes
+        Assert.assertTrue(received.isEmpty());
+    }
+
+    /**
+     * A (serialized) event failing with a runtime exception when being serialized, e.g., as it is modified 
+     * concurrently.
+     * 
+     * @author Holger Eichelberger
+     */
+    private static class FailingEvent extends AbstractEvent {
+
+        private static final long serialVersionUID = 5014466934837218497L;
+
+        /**
+         * Fails serializing.
+         * 
+         * @param out the output stream
+         */
+        private void writeObject(ObjectOutputStream out) {
+            throw new ConcurrentModificationException();
+        }
+
+    }
+
+    /**
+     * A handler which blocks until released. As the dispatch queue is small and blocking, it also blocks the reading 
+     * of forwarded events, i.e., it makes the client slow.
+     * 
+     * @author Holger Eichelberger
+     */
+    private static class BlockingEventHandler extends EventHandler<PipelineLifecycleEvent> {
+
+        private CountDownLatch latch = new CountDownLatch(1);
+
+        /**
+         * Creates the handler.
+         */
+        protected BlockingEventHandler() {
+            super(PipelineLifecycleEvent.class);
+        }
+
+        @Override
+        protected void handle(PipelineLifecycleEvent event) {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+            }
+        }
+
+        @Override
+        protected int getDispatchCapacity() {
+            return 1;
+        }
+
+        @Override
+        protected DispatchOverflowPolicy getDispatchOverflowPolicy() {
+            return DispatchOverflowPolicy.BLOCK;
+        }
+
+    }
+
+    /**
+     * Tests forwarding events to multiple clients including a slow client, i.e., that the slow client does not block 
+     * the others.
+     */
+    @Test(timeout = 10000 + EventManager.SO_TIMEOUT)
+    public void testForwardFanOut() {
+        final int clients = 3;
+        final int count = 2000;
+        Configuration.configureLocal();
+        EventManager.startServer();
+
+        EventManager slow = new EventManager();
+        slow.doStart(false, false);
+        BlockingEventHandler blocking = new BlockingEventHandler();
+        slow.doRegister(blocking);
+        EventManager[] locals = new EventManager[clients];
+        CountingEventHandler[] recs = new CountingEventHandler[clients];
+        for (int c = 0; c < clients; c++) {
+            locals[c] = new EventManager();
+            locals[c].doStart(false, false); // enforce the case that we are not local
+            recs[c] = new CountingEventHandler();
+            locals[c].doRegister(recs[c]); // this shall start the forwarding
+        }
+        sleep(500); // subscriptions are processed asynchronously
+        for (int i = 0; i < count; i++) {
+            EventManager.send(new PipelineLifecycleEvent("pipeline" + i, Status.STARTING, null));
+        }
+        for (int c = 0; c < clients; c++) {
+            waitFor(recs[c], count);
+        }
+
+        EventManager.cleanup();
+        blocking.latch.countDown();
+        slow.doStop();
+        for (int c = 0; c < clients; c++) {
+            locals[c].doCleanup();
+            locals[c].doStop();
+        }
+        EventManager.stop();
+        for (int c = 0; c < clients; c++) {
+            Assert.assertEquals(count, recs[c].getCount());
+        }
+    }
+
+    /**
+     * Tests forwarding events to clients with subscriptions, i.e., that the server forwards only matching events and 
+     * each event at most once to a client.
+     */
+    @Test(timeout = 10000 + EventManager.SO_TIMEOUT)
+    public void testForwardSubscription() {
+        final int count = 20;
+        Configuration.configureLocal();
+        EventManager.startServer();
+
+        EventManager client1 = new EventManager();
+        client1.doStart(false, false);
+        CountingEventHandler rec1 = new CountingEventHandler(EventSubscription.forPipeline("p1", null));
+        client1.doRegister(rec1);
+        EventManager client2 = new EventManager();
+        client2.doStart(false, false);
+        CountingEventHandler rec2 = new CountingEventHandler();
+        client2.doRegister(rec2);
+        EventManager client3 = new EventManager();
+        client3.doStart(false, false);
+        CountingEventHandler rec3a = new CountingEventHandler(EventSubscription.forPipeline("p1", null));
+        client3.doRegister(rec3a);
+        CountingEventHandler rec3b = new CountingEventHandler(EventSubscription.forPipeline("p2", null));
+        client3.doRegister(rec3b);
+        sleep(500); // subscriptions are processed asynchronously
+        for (int i = 0; i < count; i++) {
+            EventManager.send(new PipelineLifecycleEvent(i % 2 == 0 ? "p1" : "p2", Status.STARTING, null));
+            EventManager.send(new PipelineLifecycleEvent("p3", Status.STARTING, null));
+        }
+        waitFor(rec1, count / 2);
+        waitFor(rec2, 2 * count);
+        waitFor(rec3a, count);
+        sleep(300); // give surplus events a chance
+
+        EventManager.cleanup();
+        client1.doStop();
+        client2.doStop();
+        client3.doStop();
+        EventManager.stop();
+        Assert.assertEquals(count / 2, rec1.getCount());
+        Assert.assertEquals(2 * count, rec2.getCount());
+        Assert.assertEquals(count, rec3a.getCount()); // client-side handlers do not filter by subscription
+        Assert.assertEquals(count, rec3b.getCount());
+    }
+
+    /**
+     * Tests a sharded event bus with all shards in this JVM, i.e., that pipeline-scoped events are distributed over
+     * the shards, bridged to the handlers of the primary server and received exactly once by subscribed clients. The
+     * handler of the primary server is registered before starting and survives a restart of the primary server.
+     */
+    @Test(timeout = 15000 + 6 * EventManager.SO_TIMEOUT)
+    public void testShards() {
+        final int count = 30;
+        Configuration.configureLocal();
+        int port = Configuration.getEventPort();
+        Properties prop = new Properties();
+        prop.put(Configuration.EVENT_SHARDS, "localhost:" + (port + 1) + ", localhost:" + (port + 2));
+        Configuration.configure(prop, false);
+        EventManager shard1 = new EventManager();
+        shard1.doStartShard(port + 1);
+        CountingEventHandler recShard1 = new CountingEventHandler();
+        shard1.doRegister(recShard1);
+        EventManager shard2 = new EventManager();
+        shard2.doStartShard(port + 2);
+        CountingEventHandler recShard2 = new CountingEventHandler();
+        shard2.doRegister(recShard2);
+        EventManager.clearRegistrations(); // registrations survive, all shall be subscribed at the shards
+        CountingEventHandler recServer = new CountingEventHandler();
+        EventManager.register(recServer);
+        EventManager.startServer();
+
+        EventManager receiver = new EventManager();
+        receiver.doStart(false, false);
+        CountingEventHandler recClient = new CountingEventHandler();
+        receiver.doRegister(recClient);
+        EventManager sender = new EventManager();
+        sender.doStart(false, false);
+        sleep(500); // subscriptions are processed asynchronously
+        for (int i = 0; i < count; i++) {
+            sender.doSend(new PipelineLifecycleEvent("pipeline" + i, Status.STARTING, null));
+        }
+        sender.doCleanup();
+        waitFor(recServer, count);
+        waitFor(recClient, count);
+        sleep(300); // give surplus events a chance
+
+        sender.doStop();
+        receiver.doStop();
+        EventManager.cleanup();
+        EventManager.stop();
+        int server = recServer.getCount();
+        int shards = recShard1.getCount() + recShard2.getCount();
+
+        EventManager.startServer(); // the handler of the primary server is subscribed at the shards again
+        sender = new EventManager();
+        sender.doStart(false, false);
+        sleep(500);
+        for (int i = 0; i < count; i++) {
+            sender.doSend(new PipelineLifecycleEvent("pipeline" + i, Status.STARTING, null));
+        }
+        sender.doCleanup();
+        waitFor(recServer, 2 * count);
+        sleep(300);
+
+        sender.doStop();
+        EventManager.cleanup();
+        EventManager.unregister(recServer);
+        EventManager.stop();
+        shard1.doStop();
+        shard2.doStop();
+        Configuration.configureLocal();
+        Assert.assertEquals(count, server); // routed to the primary server or bridged
+        Assert.assertEquals(count, recClient.getCount()); // from all shards, but not again via the bridges
+        Assert.assertTrue(recShard1.getCount() > 0);
+        Assert.assertTrue(recShard2.getCount() > 0);
+        Assert.assertTrue(shards < count);
+        Assert.assertEquals(2 * count, recServer.getCount()); // bridged again after the restart
+        Assert.assertEquals(2 * shards, recShard1.getCount() + recShard2.getCount());
+    }
+
+    /**
+     * Sleeps for the given time.
+     * 
+     * @param time the time to sleep in ms
+     */
+    private static void sleep(int time) {
+        try {
+            Thread.sleep(time);
+        } catch (InterruptedException e) {
+        }
+    }
+
+}
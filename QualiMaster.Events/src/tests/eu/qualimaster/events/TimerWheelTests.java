@@ -0,0 +1,161 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tests.eu.qualimaster.events;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.qualimaster.Configuration;
+import eu.qualimaster.events.AbstractTimerEventHandler;
+import eu.qualimaster.events.EventManager;
+import eu.qualimaster.events.TimerEvent;
+import eu.qualimaster.events.TimerWheel;
+
+/**
+ * Tests the {@link TimerWheel} and the timer periods of {@link AbstractTimerEventHandler}.
+ * 
+ * @author Holger Eichelberger
+ */
+public class TimerWheelTests {
+
+    /**
+     * A counting timer task.
+     * 
+     * @author Holger Eichelberger
+     */
+    private static class CountingTask implements Runnable {
+
+        private AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public void run() {
+            count.incrementAndGet();
+        }
+
+    }
+
+    /**
+     * A counting timer event handler.
+     * 
+     * @author Holger Eichelberger
+     */
+    private static class CountingTimerHandler extends AbstractTimerEventHandler {
+
+        private AtomicInteger count = new AtomicInteger();
+
+        /**
+         * Creates the handler.
+         * 
+         * @param period the own timer period
+         */
+        private CountingTimerHandler(long period) {
+            super(period);
+        }
+
+        @Override
+        protected void handle(TimerEvent event) {
+            count.incrementAndGet();
+        }
+
+    }
+
+    /**
+     * Tests one-shot, periodic and cancelled registrations on a timer wheel, including registrations spanning 
+     * multiple wheel rounds.
+     */
+    @Test(timeout = 5000)
+    public void testTimerWheel() {
+        TimerWheel wheel = new TimerWheel(5, 8); // one round takes 40 ms
+        wheel.start("TestTimer");
+        CountingTask oneShot = new CountingTask();
+        CountingTask late = new CountingTask();
+        CountingTask fast = new CountingTask();
+        CountingTask slow = new CountingTask();
+        CountingTask cancelled = new CountingTask();
+        wheel.schedule(oneShot, 20, 0);
+        wheel.schedule(late, 150, 0);
+        wheel.schedule(fast, 0, 20);
+        wheel.schedule(slow, 0, 100);
+        wheel.schedule(cancelled, 100, 0).cancel();
+        long start = System.currentTimeMillis();
+        sleep(120);
+        Assert.assertEquals(1, oneShot.count.get());
+        Assert.assertEquals(0, late.count.get()); // not earlier than requested
+        sleep(380);
+        long elapsed = System.currentTimeMillis() - start;
+        wheel.stop();
+        Assert.assertEquals(1, oneShot.count.get());
+        Assert.assertEquals(1, late.count.get());
+        Assert.assertEquals(0, cancelled.count.get());
+        assertCount(fast.count.get(), elapsed / 20 + 1);
+        assertCount(slow.count.get(), elapsed / 100 + 1);
+    }
+
+    /**
+     * Asserts that a periodic count is close to its expectation.
+     * 
+     * @param actual the actual count
+     * @param expected the expected count
+     */
+    private static void assertCount(int actual, long expected) {
+        Assert.assertTrue("actual " + actual + " expected " + expected, 
+            actual <= expected && actual >= expected / 2);
+    }
+
+    /**
+     * Tests that timer handlers receive timer events in their own periods.
+     */
+    @Test(timeout = 5000)
+    public void testHandlerPeriods() {
+        Configuration.configureLocal();
+        EventManager.start();
+        CountingTimerHandler fast = new CountingTimerHandler(50);
+        CountingTimerHandler slow = new CountingTimerHandler(200);
+        CountingTimerHandler changed = new CountingTimerHandler(500);
+        EventManager.register(fast);
+        EventManager.register(slow);
+        EventManager.register(changed);
+        changed.setTimerPeriod(100);
+        long start = System.currentTimeMillis();
+        sleep(1000);
+        EventManager.unregister(fast);
+        EventManager.unregister(slow);
+        EventManager.unregister(changed);
+        long elapsed = System.currentTimeMillis() - start;
+        int fastCount = fast.count.get();
+        sleep(200);
+        EventManager.stop();
+        assertCount(fastCount, elapsed / 50);
+        assertCount(slow.count.get(), elapsed / 200);
+        assertCount(changed.count.get(), elapsed / 100);
+        Assert.assertTrue(fast.count.get() <= fastCount + 1); // no further events after unregistering
+    }
+
+    /**
+     * Sleeps for the given time.
+     * 
+     * @param time the time to sleep in ms
+     */
+    private static void sleep(int time) {
+        try {
+            Thread.sleep(time);
+        } catch (InterruptedException e) {
+        }
+    }
+
+}
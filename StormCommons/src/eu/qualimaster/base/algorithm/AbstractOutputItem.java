@@ -18,16 +18,19 @@ package eu.qualimaster.base.algorithm;
 import org.apache.log4j.LogManager;
 
 /**
- * Provides the abstract base implementation of an output item.
+ * Provides the abstract base implementation of an output item. Output items are {@link ITraceable traceable}, the 
+ * trace header is transported if the item serializer includes the fields of this class, e.g., the default Kryo 
+ * field serializer.
  * 
  * @param <T> the item type
  * @author Holger Eichelberger
  * @author Cui Qin
  */
-public abstract class AbstractOutputItem <T extends IDirectGroupingInfo> implements IOutputItem <T> {
+public abstract class AbstractOutputItem <T extends IDirectGroupingInfo> implements IOutputItem <T>, ITraceable {
 
     private transient IItemsHolder<T> data;
     private transient IItemEmitter<T> emitter;
+    private TraceHeader traceHeader;
 
     /**
      * Creates an abstract top-level output item (for kryo). Call {@link #setParent(Object)} afterwards.
@@ -92,6 +95,16 @@ public abstract class AbstractOutputItem <T extends IDirectGroupingInfo> impleme
         this.emitter = emitter;
     }
     
+    @Override
+    public TraceHeader getTraceHeader() {
+        return traceHeader;
+    }
+
+    @Override
+    public void setTraceHeader(TraceHeader header) {
+        this.traceHeader = header;
+    }
+
     @Override
     public void emitDirect(String streamId, T item) {
         if (null == emitter) {
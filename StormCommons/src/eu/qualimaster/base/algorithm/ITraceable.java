@@ -0,0 +1,39 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.base.algorithm;
+
+/**
+ * An item which can carry a {@link TraceHeader} for end-to-end tuple tracing through a pipeline.
+ * 
+ * @author Holger Eichelberger
+ */
+public interface ITraceable {
+
+    /**
+     * Returns the trace header.
+     * 
+     * @return the trace header, <b>null</b> if this item is not traced
+     */
+    public TraceHeader getTraceHeader();
+
+    /**
+     * Changes the trace header.
+     * 
+     * @param header the trace header, <b>null</b> if this item shall not be traced
+     */
+    public void setTraceHeader(TraceHeader header);
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.base.algorithm;
+
+import java.io.Serializable;
+
+/**
+ * The trace header of a sampled tuple, i.e., the names of the pipeline elements the tuple passed and the (wall 
+ * clock) times it arrived there. The first hop is the spout which stamped the header. As the times are taken on
+ * different machines, latencies are subject to the clock differences of the cluster machines.
+ * 
+ * @author Holger Eichelberger
+ */
+public class TraceHeader implements Serializable {
+
+    private static final long serialVersionUID = 2784911540379102786L;
+    private static final int INITIAL_HOPS = 4;
+    private String[] elements;
+    private long[] times;
+    private int hops;
+
+    /**
+     * Creates a trace header for a tuple emitted by a spout.
+     * 
+     * @param origin the name of the spout
+     * @param time the emitting time in ms
+     */
+    public TraceHeader(String origin, long time) {
+        elements = new String[INITIAL_HOPS];
+        times = new long[INITIAL_HOPS];
+        stamp(origin, time);
+    }
+
+    /**
+     * Creates a copy of <code>source</code>.
+     * 
+     * @param source the source header
+     */
+    private TraceHeader(TraceHeader source) {
+        elements = source.elements.clone();
+        times = source.times.clone();
+        hops = source.hops;
+    }
+
+    /**
+     * Records the arrival of the traced tuple at a pipeline element.
+     * 
+     * @param element the name of the pipeline element
+     * @param time the arrival time in ms
+     */
+    public void stamp(String element, long time) {
+        if (hops == times.length) {
+            String[] tmpElements = new String[2 * hops];
+            System.arraycopy(elements, 0, tmpElements, 0, hops);
+            elements = tmpElements;
+            long[] tmpTimes = new long[2 * hops];
+            System.arraycopy(times, 0, tmpTimes, 0, hops);
+            times = tmpTimes;
+        }
+        elements[hops] = element;
+        times[hops] = time;
+        hops++;
+    }
+
+    /**
+     * Returns the number of hops including the origin.
+     * 
+     * @return the number of hops
+     */
+    public int getHopCount() {
+        return hops;
+    }
+
+    /**
+     * Returns the name of the pipeline element of a hop.
+     * 
+     * @param hop the hop index (0 for the origin)
+     * @return the name of the pipeline element
+     * @throws IndexOutOfBoundsException if <code>hop</code> is not in [0; {@link #getHopCount()})
+     */
+    public String getElement(int hop) {
+        checkHop(hop);
+        return elements[hop];
+    }
+
+    /**
+     * Returns the arrival time of a hop.
+     * 
+     * @param hop the hop index (0 for the origin)
+     * @return the arrival time in ms
+     * @throws IndexOutOfBoundsException if <code>hop</code> is not in [0; {@link #getHopCount()})
+     */
+    public long getTime(int hop) {
+        checkHop(hop);
+        return times[hop];
+    }
+
+    /**
+     * Checks a hop index.
+     * 
+     * @param hop the hop index
+     * @throws IndexOutOfBoundsException if <code>hop</code> is not in [0; {@link #getHopCount()})
+     */
+    private void checkHop(int hop) {
+        if (hop < 0 || hop >= hops) {
+            throw new IndexOutOfBoundsException("hop " + hop + " of " + hops);
+        }
+    }
+
+    /**
+     * Returns a copy of this header, e.g., for further tuples emitted for the same traced input.
+     * 
+     * @return the copy
+     */
+    public TraceHeader copy() {
+        return new TraceHeader(this);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("trace[");
+        for (int h = 0; h < hops; h++) {
+            if (h > 0) {
+                result.append(", ");
+            }
+            result.append(elements[h]);
+            result.append("@");
+            result.append(times[h]);
+        }
+        result.append("]");
+        return result.toString();
+    }
+
+}
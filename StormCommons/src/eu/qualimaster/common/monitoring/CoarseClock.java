@@ -0,0 +1,66 @@
+/*
+ * Copyright 2009-2016 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.common.monitoring;
+
+/**
+ * A cached wall clock with a resolution of {@link #RESOLUTION} ms for per-tuple code that needs to check time-based
+ * conditions only, e.g., whether monitoring data shall be sent. Reading the clock is a volatile read instead of a 
+ * system call. Do not use for measuring execution times. The clock is updated by a daemon thread started with 
+ * the first use of this class.
+ * 
+ * @author Holger Eichelberger
+ */
+public class CoarseClock {
+
+    public static final long RESOLUTION = 10;
+    private static volatile long now = System.currentTimeMillis();
+
+    static {
+        Thread updater = new Thread("QM coarse clock") {
+
+            @Override
+            public void run() {
+                while (true) {
+                    try {
+                        Thread.sleep(RESOLUTION);
+                    } catch (InterruptedException e) {
+                    }
+                    now = System.currentTimeMillis();
+                }
+            }
+
+        };
+        updater.setDaemon(true);
+        updater.start();
+    }
+
+    /**
+     * Prevents external creation.
+     */
+    private CoarseClock() {
+    }
+
+    /**
+     * Returns the cached current time.
+     * 
+     * @return the current time in ms, at most {@link #RESOLUTION} ms (plus scheduling delays) behind 
+     *     {@link System#currentTimeMillis()}
+     */
+    public static long currentTimeMillis() {
+        return now;
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2009-2016 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.common.monitoring;
+
+/**
+ * A thread-safe average of long values for frequent concurrent updates, based on a {@link StripedCounter} for the 
+ * sum and one for the count. The average is computed when reading. A concurrent update may be visible in the sum 
+ * but not yet in the count (or vice versa), i.e., a read average may be slightly off, but the error does not 
+ * accumulate.
+ * 
+ * @author Holger Eichelberger
+ */
+public class StripedAverage {
+
+    private final StripedCounter sum = new StripedCounter();
+    private final StripedCounter count = new StripedCounter();
+
+    /**
+     * Adds a value to the average.
+     * 
+     * @param value the new value
+     */
+    public void addValue(long value) {
+        sum.add(value);
+        count.increment();
+    }
+
+    /**
+     * Returns the average collected so far.
+     * 
+     * @return the average, <code>0</code> if no values were added
+     */
+    public double getAverage() {
+        long c = count.sum();
+        return c > 0 ? sum.sum() / (double) c : 0;
+    }
+
+    /**
+     * Returns the number of values added so far.
+     * 
+     * @return the number of values
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2009-2016 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.common.monitoring;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter for frequent concurrent updates and rare reads (in the style of the Java 8 <code>LongAdder</code>). 
+ * Updating threads are spread over cells by their thread id, i.e., threads rarely compete for the same cell. Cells
+ * are padded to separate cache lines to avoid false sharing. Reading sums up all cells.
+ * 
+ * @author Holger Eichelberger
+ */
+public class StripedCounter {
+
+    private static final int PADDING = 8; // longs per cache line
+    private static final int STRIPES = stripes(Runtime.getRuntime().availableProcessors());
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+    /**
+     * Returns the number of stripes for the given number of processors.
+     * 
+     * @param processors the number of processors
+     * @return the number of stripes, a power of two of at least twice the number of processors
+     */
+    private static int stripes(int processors) {
+        int result = 1;
+        while (result < 2 * processors) {
+            result <<= 1;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the index of the cell for the calling thread.
+     * 
+     * @return the index of the cell
+     */
+    private static int cell() {
+        long id = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L; // Fibonacci hashing spreads sequential ids
+        return ((int) (id >>> 32) & (STRIPES - 1)) * PADDING;
+    }
+
+    /**
+     * Adds a value.
+     * 
+     * @param value the value to add
+     */
+    public void add(long value) {
+        cells.addAndGet(cell(), value);
+    }
+
+    /**
+     * Adds one.
+     */
+    public void increment() {
+        add(1);
+    }
+
+    /**
+     * Returns the current sum. Updates happening concurrently may be partially contained.
+     * 
+     * @return the sum
+     */
+    public long sum() {
+        long result = 0;
+        for (int c = 0; c < cells.length(); c += PADDING) {
+            result += cells.get(c);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the current sum and resets the counter. Each concurrent update is either contained in the result or
+     * remains in the counter.
+     * 
+     * @return the sum
+     */
+    public long sumThenReset() {
+        long result = 0;
+        for (int c = 0; c < cells.length(); c += PADDING) {
+            result += cells.getAndSet(c, 0);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(sum());
+    }
+
+}
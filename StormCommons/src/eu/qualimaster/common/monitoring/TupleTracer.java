@@ -0,0 +1,210 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.common.monitoring;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import eu.qualimaster.base.algorithm.ITraceable;
+import eu.qualimaster.base.algorithm.TraceHeader;
+import eu.qualimaster.events.EventManager;
+import eu.qualimaster.events.LatencyHistogram;
+import eu.qualimaster.monitoring.events.ComponentKey;
+import eu.qualimaster.monitoring.events.PipelineElementMultiObservationMonitoringEvent;
+import eu.qualimaster.monitoring.events.PipelineObservationMonitoringEvent;
+import eu.qualimaster.observables.ObservationSnapshot;
+import eu.qualimaster.observables.TimeBehavior;
+
+/**
+ * Samples and records end-to-end tuple traces for a single pipeline element. Spouts {@link #sample(Object) sample} 
+ * one out of the configured number of emitted items by stamping a {@link TraceHeader}, bolts record the 
+ * {@link #arrived(Object) arrival} of traced items and {@link #propagate(Object) propagate} the header to their 
+ * output items, sinks {@link #completed() complete} the trace. Completed traces are recorded in latency histograms
+ * and {@link #send(String, ComponentKey) sent} as {@link TimeBehavior#TRACE_LATENCY_P50 trace latencies}, for the
+ * pipeline (end-to-end) and per pipeline element (time from the previous hop until arrival at the element). If 
+ * tracing is disabled, all operations return immediately. Sampling, arrival, propagation and completion must be 
+ * called by the executor thread.
+ * 
+ * @author Holger Eichelberger
+ */
+public class TupleTracer {
+
+    private final String element;
+    private final int sampling;
+    private final boolean enabled;
+    private int countdown;
+    private TraceHeader current;
+    private final LatencyHistogram endToEnd = new LatencyHistogram();
+    private final ConcurrentMap<String, LatencyHistogram> hops = new ConcurrentHashMap<String, LatencyHistogram>();
+
+    /**
+     * Creates a tuple tracer.
+     * 
+     * @param element the name of the pipeline element
+     * @param sampling trace one out of <code>sampling</code> items, not positive values disable tracing
+     */
+    public TupleTracer(String element, int sampling) {
+        this.element = element;
+        this.sampling = sampling;
+        this.enabled = sampling > 0;
+        this.countdown = sampling;
+    }
+
+    /**
+     * Returns whether tracing is enabled.
+     * 
+     * @return <code>true</code> if enabled, <code>false</code> else
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Samples an item to be emitted by a spout, i.e., stamps a new trace header on every n-th traceable item.
+     * 
+     * @param item the item (may be <b>null</b>, ignored if not {@link ITraceable})
+     * @return the trace header if <code>item</code> was sampled, <b>null</b> else
+     */
+    public TraceHeader sample(Object item) {
+        TraceHeader result = null;
+        if (enabled && item instanceof ITraceable && --countdown <= 0) {
+            countdown = sampling;
+            result = new TraceHeader(element, System.currentTimeMillis());
+            ((ITraceable) item).setTraceHeader(result);
+        }
+        return result;
+    }
+
+    /**
+     * Records the arrival of an input item at a bolt or sink. The trace header of <code>item</code> is copied as the 
+     * same item may be passed to multiple executors within a worker. The copy becomes the current trace header.
+     * 
+     * @param item the input item (may be <b>null</b>, ignored if not {@link ITraceable})
+     * @return the current trace header, <b>null</b> if <code>item</code> is not traced
+     */
+    public TraceHeader arrived(Object item) {
+        current = null;
+        if (enabled && item instanceof ITraceable) {
+            TraceHeader header = ((ITraceable) item).getTraceHeader();
+            if (null != header) {
+                current = header.copy();
+                current.stamp(element, System.currentTimeMillis());
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Propagates the current trace header (if there is one) to an output item.
+     * 
+     * @param item the output item (may be <b>null</b>, ignored if not {@link ITraceable})
+     */
+    public void propagate(Object item) {
+        if (null != current && item instanceof ITraceable) {
+            ((ITraceable) item).setTraceHeader(current);
+        }
+    }
+
+    /**
+     * Completes the current trace (if there is one) at a sink, i.e., records the end-to-end latency and the 
+     * latencies of the individual hops. A trace is completed only once.
+     */
+    public void completed() {
+        TraceHeader header = current;
+        if (null != header) {
+            current = null;
+            int count = header.getHopCount();
+            endToEnd.record((header.getTime(count - 1) - header.getTime(0)) * 1000);
+            for (int h = 1; h < count; h++) {
+                String hop = header.getElement(h);
+                LatencyHistogram histogram = hops.get(hop);
+                if (null == histogram) {
+                    histogram = new LatencyHistogram();
+                    LatencyHistogram tmp = hops.putIfAbsent(hop, histogram);
+                    if (null != tmp) {
+                        histogram = tmp;
+                    }
+                }
+                histogram.record((header.getTime(h) - header.getTime(h - 1)) * 1000);
+            }
+        }
+    }
+
+    /**
+     * Returns the end-to-end latencies recorded since the last {@link #send(String, ComponentKey) sending}.
+     * 
+     * @return the end-to-end latencies in microseconds
+     */
+    public LatencyHistogram.Snapshot getEndToEndLatencies() {
+        return endToEnd.snapshot();
+    }
+
+    /**
+     * Returns the latencies of a hop recorded since the last {@link #send(String, ComponentKey) sending}.
+     * 
+     * @param hop the name of the pipeline element of the hop
+     * @return the latencies in microseconds, <b>null</b> if no traces passing <code>hop</code> were completed
+     */
+    public LatencyHistogram.Snapshot getHopLatencies(String hop) {
+        LatencyHistogram histogram = hops.get(hop);
+        return null == histogram ? null : histogram.snapshot();
+    }
+
+    /**
+     * Sends the traces completed since the last sending to the monitoring layer and resets the recorded latencies.
+     * Sends nothing if no traces were completed. May be called by any thread.
+     * 
+     * @param pipeline the name of the pipeline
+     * @param key the component key of the sending pipeline element
+     */
+    public void send(String pipeline, ComponentKey key) {
+        if (enabled) {
+            LatencyHistogram.Snapshot snapshot = endToEnd.snapshotAndReset();
+            if (snapshot.getCount() > 0) {
+                send(pipeline, key, TimeBehavior.TRACE_LATENCY_P50, snapshot.getPercentile(50));
+                send(pipeline, key, TimeBehavior.TRACE_LATENCY_P95, snapshot.getPercentile(95));
+                send(pipeline, key, TimeBehavior.TRACE_LATENCY_P99, snapshot.getPercentile(99));
+                send(pipeline, key, TimeBehavior.TRACE_LATENCY_MAX, snapshot.getMax());
+            }
+            for (Map.Entry<String, LatencyHistogram> entry : hops.entrySet()) {
+                snapshot = entry.getValue().snapshotAndReset();
+                if (snapshot.getCount() > 0) {
+                    ObservationSnapshot observations = new ObservationSnapshot();
+                    observations.set(TimeBehavior.TRACE_LATENCY_P50, snapshot.getPercentile(50) / 1000.0);
+                    observations.set(TimeBehavior.TRACE_LATENCY_P95, snapshot.getPercentile(95) / 1000.0);
+                    observations.set(TimeBehavior.TRACE_LATENCY_P99, snapshot.getPercentile(99) / 1000.0);
+                    observations.set(TimeBehavior.TRACE_LATENCY_MAX, snapshot.getMax() / 1000.0);
+                    EventManager.send(new PipelineElementMultiObservationMonitoringEvent(pipeline, entry.getKey(), 
+                        key, observations));
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends a pipeline-level trace latency.
+     * 
+     * @param pipeline the name of the pipeline
+     * @param key the component key of the sending pipeline element
+     * @param observable the observable
+     * @param micros the latency in microseconds
+     */
+    private static void send(String pipeline, ComponentKey key, TimeBehavior observable, long micros) {
+        EventManager.send(new PipelineObservationMonitoringEvent(pipeline, key, observable, micros / 1000.0));
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.common.shedding;
+
+/**
+ * A shedder reacting on the local backlog of the hosting pipeline element (random early detection). Below the 
+ * {@link DefaultLoadSheddingParameter#LOW_WATERMARK low watermark} all tuples pass, above the 
+ * {@link DefaultLoadSheddingParameter#HIGH_WATERMARK high watermark} all tuples are shed, in between the shedding 
+ * probability rises linearly. Thus, shedding starts and stops within the worker as the backlog grows or drains 
+ * rather than after a monitoring and adaptation round trip. Starts deactivated and lets all tuples pass without a 
+ * {@link IBacklogProvider backlog provider}. Not thread-safe.
+ * 
+ * @author Holger Eichelberger
+ */
+public class BacklogShedder extends LoadShedder<Object> implements IBacklogAware {
+
+    private static final long serialVersionUID = 1527346183720658210L;
+    private transient IBacklogProvider provider;
+    private int low; // disabled if not positive
+    private int high;
+    private FastRandom random = new FastRandom();
+
+    /**
+     * Creates a shedder instance.
+     */
+    public BacklogShedder() {
+        super(DefaultLoadShedders.BACKLOG, Object.class, DefaultLoadSheddingParameter.LOW_WATERMARK, 
+            DefaultLoadSheddingParameter.HIGH_WATERMARK);
+    }
+
+    @Override
+    public void setBacklogProvider(IBacklogProvider provider) {
+        this.provider = provider;
+    }
+
+    @Override
+    protected boolean isEnabledImpl(Object tuple) {
+        boolean result = true;
+        if (low > 0 && null != provider) {
+            int backlog = provider.getBacklog();
+            if (backlog >= high) {
+                result = false;
+            } else if (backlog > low) {
+                result = !random.nextEvent((double) (backlog - low) / (high - low));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void configure(ILoadShedderConfigurer configurer) {
+        low = configurer.getIntParameter(DefaultLoadSheddingParameter.LOW_WATERMARK, 0);
+        if (low > 0) {
+            high = Math.max(low + 1, configurer.getIntParameter(DefaultLoadSheddingParameter.HIGH_WATERMARK, 2 * low));
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.common.shedding;
+
+import backtype.storm.tuple.Tuple;
+
+/**
+ * The default key extractor taking the first value of a Storm tuple or the given tuple object itself.
+ * 
+ * @author Holger Eichelberger
+ */
+public class DefaultKeyExtractor implements IKeyExtractor {
+
+    public static final DefaultKeyExtractor INSTANCE = new DefaultKeyExtractor();
+    private static final long serialVersionUID = -7048296651218773591L;
+
+    @Override
+    public Object getKey(Object tuple) {
+        Object result = tuple;
+        if (tuple instanceof Tuple) {
+            Tuple t = (Tuple) tuple;
+            result = t.size() > 0 ? t.getValue(0) : null;
+        }
+        return result;
+    }
+
+}
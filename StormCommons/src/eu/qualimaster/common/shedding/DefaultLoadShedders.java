@@ -26,7 +26,11 @@ import eu.qualimaster.common.QMSupport;
 public enum DefaultLoadShedders implements ILoadShedderDescriptor {
 
     NO_SHEDDING,
-    NTH_ITEM;
+    NTH_ITEM,
+    TOKEN_BUCKET,
+    PROBABILISTIC,
+    BACKLOG,
+    KEY_AWARE;
     
     /**
      * Creates a load schedder constant.
@@ -28,6 +28,43 @@ public enum DefaultLoadSheddingParameter implements ILoadSheddingParameter {
     /**
      * Shed the n-th tuple (Integer, disables if 0 or negative).
      */
-    NTH_TUPLE;
+    NTH_TUPLE,
+
+    /**
+     * The maximum number of tuples per second to pass (Integer, disables if 0 or negative).
+     */
+    RATE,
+
+    /**
+     * The maximum number of tuples passing in a burst above {@link #RATE} (Integer, at least 1, defaults to 
+     * {@link #RATE}, i.e., one second of tuples).
+     */
+    BURST,
+
+    /**
+     * The probability of shedding a tuple (Double in [0;1], disables if 0 or less).
+     */
+    PROBABILITY,
+
+    /**
+     * The backlog (pending items) up to which no tuple is shed (Integer, disables if 0 or negative).
+     */
+    LOW_WATERMARK,
+
+    /**
+     * The backlog (pending items) from which on all tuples are shed (Integer, larger than {@link #LOW_WATERMARK},
+     * defaults to twice {@link #LOW_WATERMARK}).
+     */
+    HIGH_WATERMARK,
+
+    /**
+     * The expected number of distinct keys sizing the key statistics (Integer, defaults to 1024).
+     */
+    KEYS,
+
+    /**
+     * The class name of the {@link IKeyExtractor} (String, defaults to {@link DefaultKeyExtractor}).
+     */
+    KEY_EXTRACTOR;
     
 }
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.common.shedding;
+
+import java.io.Serializable;
+
+/**
+ * A fast, unsynchronized xorshift random number generator for per-tuple shedding decisions. Unlike 
+ * {@link java.util.Random}, it neither synchronizes nor allocates. Not thread-safe.
+ * 
+ * @author Holger Eichelberger
+ */
+final class FastRandom implements Serializable {
+
+    /**
+     * The scale of {@link #next53()}, i.e., turns a probability into a threshold.
+     */
+    static final double SCALE = 1L << 53;
+    private static final long serialVersionUID = 6329870357152281094L;
+    private long state = System.nanoTime() ^ 0x5DEECE66DL;
+
+    /**
+     * Creates a generator seeded from the current time.
+     */
+    FastRandom() {
+        if (0 == state) {
+            state = 1; // xorshift must not be 0
+        }
+    }
+
+    /**
+     * Returns the next random number.
+     * 
+     * @return the random number, uniformly distributed in [0;{@link #SCALE})
+     */
+    long next53() {
+        long x = state;
+        x ^= x << 13;
+        x ^= x >>> 7;
+        x ^= x << 17;
+        state = x;
+        return x >>> 11;
+    }
+
+    /**
+     * Returns whether a random event with probability <code>probability</code> happens.
+     * 
+     * @param probability the probability in [0;1]
+     * @return <code>true</code> if the event happens, <code>false</code> else
+     */
+    boolean nextEvent(double probability) {
+        return next53() < (long) (probability * SCALE);
+    }
+
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.common.shedding;
+
+/**
+ * Provides the local pending work of a pipeline element, e.g., the number of queued tuples or items buffered by 
+ * an algorithm. Queried per tuple, so implementations must be cheap and shall not block.
+ * 
+ * @author Holger Eichelberger
+ */
+public interface IBacklogProvider {
+
+    /**
+     * Returns the actual backlog.
+     * 
+     * @return the number of pending items
+     */
+    public int getBacklog();
+
+}
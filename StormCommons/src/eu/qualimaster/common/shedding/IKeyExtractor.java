@@ -0,0 +1,37 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.common.shedding;
+
+import java.io.Serializable;
+
+/**
+ * Extracts the key of a tuple for key-aware load shedding, e.g., the symbol of a financial stream item. Extractors 
+ * given by class name must have a public default constructor. Called per tuple, i.e., shall be cheap.
+ * 
+ * @author Holger Eichelberger
+ */
+public interface IKeyExtractor extends Serializable {
+
+    /**
+     * Returns the key of <code>tuple</code>. Keys must implement {@link Object#hashCode()} and 
+     * {@link Object#equals(Object)} consistently.
+     * 
+     * @param tuple the tuple
+     * @return the key, <b>null</b> if <code>tuple</code> has no key (the tuple shall pass then)
+     */
+    public Object getKey(Object tuple);
+
+}
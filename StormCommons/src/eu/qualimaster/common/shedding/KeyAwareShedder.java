@@ -0,0 +1,184 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.common.shedding;
+
+import java.util.Arrays;
+
+import org.apache.log4j.Logger;
+
+/**
+ * A shedder preserving the coverage of all keys under overload by dropping from heavy hitters first. The tuples per 
+ * key and second are counted in a count-min sketch of fixed size (conservative update), i.e., neither the memory 
+ * nor the per-tuple cost depend on the number of keys and no key objects are retained. Within a second, a tuple 
+ * passes while its key has seen less than the per-key budget. After each second, the budget is adjusted towards
+ * the max-min fair share of {@link DefaultLoadSheddingParameter#RATE}, i.e., infrequent keys are never shed and each 
+ * key keeps at least one tuple per second. Keys are determined by an {@link IKeyExtractor}, by default the
+ * {@link DefaultKeyExtractor}. Starts deactivated. Not thread-safe.
+ * 
+ * @author Holger Eichelberger
+ */
+public class KeyAwareShedder extends LoadShedder<Object> {
+
+    private static final long serialVersionUID = 4719542203346291776L;
+    private static final long WINDOW = 1000000000L; // ns, one second as the rate is in tuples/s
+    private static final int DEPTH = 4;
+    private static final int DEFAULT_KEYS = 1024;
+    private static final int MAX_WIDTH = 1 << 20;
+    private IKeyExtractor extractor = DefaultKeyExtractor.INSTANCE;
+    private int rate; // disabled if not positive
+    private int budget;
+    private int[] counts; // DEPTH rows of width counters
+    private int mask;
+    private long windowEnd;
+    private int passed;
+
+    /**
+     * Creates a shedder instance.
+     */
+    public KeyAwareShedder() {
+        super(DefaultLoadShedders.KEY_AWARE, Object.class, DefaultLoadSheddingParameter.RATE, 
+            DefaultLoadSheddingParameter.KEYS, DefaultLoadSheddingParameter.KEY_EXTRACTOR);
+    }
+
+    /**
+     * Defines the key extractor.
+     * 
+     * @param extractor the extractor (<b>null</b> for {@link DefaultKeyExtractor})
+     */
+    public void setKeyExtractor(IKeyExtractor extractor) {
+        this.extractor = null == extractor ? DefaultKeyExtractor.INSTANCE : extractor;
+    }
+
+    /**
+     * Returns the actual per-key budget.
+     * 
+     * @return the maximum number of tuples per key and second
+     */
+    public int getBudget() {
+        return budget;
+    }
+
+    @Override
+    protected boolean isEnabledImpl(Object tuple) {
+        boolean result = true;
+        if (rate > 0) {
+            long now = nanoTime();
+            if (now - windowEnd >= 0) {
+                endWindow(now);
+            }
+            Object key = extractor.getKey(tuple);
+            if (null != key) {
+                int h = key.hashCode() * 0x9E3779B9;
+                h ^= h >>> 16;
+                int step = (h >>> 11) | 1;
+                int width = mask + 1;
+                int min = Integer.MAX_VALUE;
+                for (int d = 0, i = h; d < DEPTH; d++, i += step) {
+                    min = Math.min(min, counts[d * width + (i & mask)]);
+                }
+                if (min < Integer.MAX_VALUE) {
+                    int count = min + 1;
+                    for (int d = 0, i = h; d < DEPTH; d++, i += step) {
+                        int pos = d * width + (i & mask);
+                        if (counts[pos] < count) {
+                            counts[pos] = count;
+                        }
+                    }
+                }
+                result = min < budget;
+            }
+            if (result) {
+                passed++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the actual time for determining the windows. [testing]
+     * 
+     * @return the actual time in nanoseconds, by default {@link System#nanoTime()}
+     */
+    protected long nanoTime() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Ends the actual window, adjusts the budget and resets the counters.
+     * 
+     * @param now the actual time in nanoseconds
+     */
+    private void endWindow(long now) {
+        if (passed > 0) {
+            budget = (int) Math.max(1, Math.min(rate, (long) budget * rate / passed));
+        } else {
+            budget = rate;
+        }
+        passed = 0;
+        Arrays.fill(counts, 0);
+        windowEnd = now + WINDOW;
+    }
+
+    /**
+     * Creates a key extractor.
+     * 
+     * @param className the class name of the extractor
+     * @return the extractor, <b>null</b> if it cannot be created
+     */
+    private static IKeyExtractor createKeyExtractor(String className) {
+        IKeyExtractor result = null;
+        try {
+            Object extractor = Class.forName(className).newInstance();
+            if (extractor instanceof IKeyExtractor) {
+                result = (IKeyExtractor) extractor;
+            } else {
+                Logger.getLogger(KeyAwareShedder.class).error("Not a key extractor: " + className);
+            }
+        } catch (ClassNotFoundException e) {
+            Logger.getLogger(KeyAwareShedder.class).error("Cannot create key extractor: " + e.getMessage());
+        } catch (InstantiationException e) {
+            Logger.getLogger(KeyAwareShedder.class).error("Cannot create key extractor: " + e.getMessage());
+        } catch (IllegalAccessException e) {
+            Logger.getLogger(KeyAwareShedder.class).error("Cannot create key extractor: " + e.getMessage());
+        }
+        return result;
+    }
+
+    @Override
+    public void configure(ILoadShedderConfigurer configurer) {
+        Object cls = configurer.getParameter(DefaultLoadSheddingParameter.KEY_EXTRACTOR);
+        if (null != cls) {
+            setKeyExtractor(createKeyExtractor(cls.toString()));
+        }
+        rate = configurer.getIntParameter(DefaultLoadSheddingParameter.RATE, 0);
+        if (rate > 0) {
+            int keys = Math.max(1, configurer.getIntParameter(DefaultLoadSheddingParameter.KEYS, DEFAULT_KEYS));
+            int width = Integer.highestOneBit(4 * Math.min(keys, MAX_WIDTH / 4) - 1) << 1;
+            if (null == counts || counts.length != DEPTH * width) {
+                counts = new int[DEPTH * width];
+            } else {
+                Arrays.fill(counts, 0);
+            }
+            mask = width - 1;
+            budget = rate;
+            passed = 0;
+            windowEnd = nanoTime() + WINDOW;
+        } else {
+            counts = null;
+        }
+    }
+
+}
@@ -33,6 +33,10 @@ public class LoadShedderFactory {
     static {
         // don't register the no shedder as it is default anyway
         register(DefaultLoadShedders.NTH_ITEM, NthItemSchedder.class);
+        register(DefaultLoadShedders.TOKEN_BUCKET, TokenBucketShedder.class);
+        register(DefaultLoadShedders.PROBABILISTIC, ProbabilisticShedder.class);
+        register(DefaultLoadShedders.BACKLOG, BacklogShedder.class);
+        register(DefaultLoadShedders.KEY_AWARE, KeyAwareShedder.class);
     }
     
     /**
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.common.shedding;
+
+/**
+ * A shedder dropping each tuple independently with a given probability (Bernoulli sampling), i.e., shedding is 
+ * spread smoothly over bursts rather than hitting every n-th tuple. Uses a {@link FastRandom fast random number 
+ * generator} to avoid synchronization and allocation per tuple. Starts deactivated. Not thread-safe.
+ * 
+ * @author Holger Eichelberger
+ */
+public class ProbabilisticShedder extends LoadShedder<Object> {
+
+    private static final long serialVersionUID = -2236197052617264170L;
+    private long threshold; // shed if the next 53 random bits are below, disabled if not positive
+    private FastRandom random = new FastRandom();
+
+    /**
+     * Creates a shedder instance.
+     */
+    public ProbabilisticShedder() {
+        super(DefaultLoadShedders.PROBABILISTIC, Object.class, DefaultLoadSheddingParameter.PROBABILITY);
+    }
+
+    @Override
+    protected boolean isEnabledImpl(Object tuple) {
+        boolean result = true;
+        if (threshold > 0) {
+            result = random.next53() >= threshold;
+        }
+        return result;
+    }
+
+    @Override
+    public void configure(ILoadShedderConfigurer configurer) {
+        double probability = configurer.getDoubleParameter(DefaultLoadSheddingParameter.PROBABILITY, 0);
+        if (probability > 0) {
+            threshold = (long) (Math.min(1, probability) * FastRandom.SCALE);
+        } else {
+            threshold = 0;
+        }
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.common.shedding;
+
+/**
+ * A shedder capping the passing tuples at a given rate. Implemented as a token bucket in terms of the generic cell 
+ * rate algorithm, i.e., the bucket is represented by the theoretical arrival time of the next tuple so that neither
+ * refilling nor deciding allocates memory. Starts deactivated. Not thread-safe.
+ * 
+ * @author Holger Eichelberger
+ */
+public class TokenBucketShedder extends LoadShedder<Object> {
+
+    private static final long serialVersionUID = 8163934532276495841L;
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    private long interval; // ns per tuple, disabled if not positive
+    private long tolerance; // ns a tuple may arrive ahead of its theoretical arrival time
+    private long arrival; // theoretical arrival time of the next tuple
+
+    /**
+     * Creates a shedder instance.
+     */
+    public TokenBucketShedder() {
+        super(DefaultLoadShedders.TOKEN_BUCKET, Object.class, DefaultLoadSheddingParameter.RATE, 
+            DefaultLoadSheddingParameter.BURST);
+    }
+
+    @Override
+    protected boolean isEnabledImpl(Object tuple) {
+        boolean result = true;
+        if (interval > 0) {
+            long now = System.nanoTime();
+            if (arrival - now < 0) { // bucket is full
+                arrival = now;
+            }
+            if (arrival - now > tolerance) { // bucket is empty
+                result = false;
+            } else {
+                arrival += interval;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void configure(ILoadShedderConfigurer configurer) {
+        int rate = configurer.getIntParameter(DefaultLoadSheddingParameter.RATE, 0);
+        if (rate > 0) {
+            int burst = Math.max(1, configurer.getIntParameter(DefaultLoadSheddingParameter.BURST, rate));
+            interval = Math.max(1, NANOS_PER_SECOND / rate);
+            tolerance = (burst - 1) * interval;
+            arrival = System.nanoTime();
+        } else {
+            interval = 0;
+        }
+    }
+
+}
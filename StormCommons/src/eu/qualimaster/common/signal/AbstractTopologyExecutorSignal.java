@@ -24,6 +24,7 @@ import java.io.ObjectOutputStream;
 import org.apache.storm.curator.framework.CuratorFramework;
 
 import eu.qualimaster.common.QMInternal;
+import eu.qualimaster.events.IPipelineScopedEvent;
 
 /**
  * Defines an abstract topology executor signal, i.e., a signal that is sent to an executor in a topology. 
@@ -31,7 +32,7 @@ import eu.qualimaster.common.QMInternal;
  * @author Holger Eichelberger
  */
 @QMInternal
-public abstract class AbstractTopologyExecutorSignal extends TopologySignal {
+public abstract class AbstractTopologyExecutorSignal extends TopologySignal implements IPipelineScopedEvent {
 
     public static final String SEPARATOR = "/";
     private static final long serialVersionUID = 7262999433585164281L;
@@ -39,6 +40,10 @@ public abstract class AbstractTopologyExecutorSignal extends TopologySignal {
     private String executor;
     private String causeMsgId;
 
+    static {
+        SignalCodecs.register();
+    }
+
     /**
      * Creates a topology executor signal.
      * 
@@ -69,6 +74,16 @@ public abstract class AbstractTopologyExecutorSignal extends TopologySignal {
     public String getExecutor() {
         return executor;
     }
+
+    @Override
+    public String getPipeline() {
+        return namespace;
+    }
+
+    @Override
+    public String getPipelineElement() {
+        return executor;
+    }
     
     /**
      * Executes / sends the signal on the pipeline / infrastructure. Please note that this method
@@ -16,6 +16,7 @@
 package eu.qualimaster.common.signal;
 
 import eu.qualimaster.events.EventHandler;
+import eu.qualimaster.events.EventSubscription;
 
 /**
  * Implements an abstract topology executor signal handler.
@@ -28,6 +29,10 @@ public abstract class AbstractTopologyExecutorSignalHandler <E extends AbstractT
 
     private String channel;
 
+    static {
+        SignalCodecs.register();
+    }
+
     /**
      * Creates a signal handler.
      * 
@@ -45,4 +50,9 @@ public abstract class AbstractTopologyExecutorSignalHandler <E extends AbstractT
         return this.channel.equals(channel); // channel may be null
     }
 
+    @Override
+    protected EventSubscription getSubscription() {
+        return EventSubscription.forChannel(channel); // signals of other executors are not forwarded
+    }
+
 }
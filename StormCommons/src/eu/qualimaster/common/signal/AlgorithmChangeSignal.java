@@ -166,6 +166,15 @@ public class AlgorithmChangeSignal extends AbstractTopologyExecutorSignal {
     public Map<AlgorithmChangeParameter, Serializable> getParameters() {
         return AlgorithmChangeParameter.convert(parameters);
     }
+
+    /**
+     * Returns the parameters by name. [codecs]
+     * 
+     * @return the parameters (modifiable)
+     */
+    Map<String, Serializable> getParameterMap() {
+        return parameters;
+    }
     
     // >>remove after cleanup of ParameterChangeSignal
     
@@ -188,6 +197,15 @@ public class AlgorithmChangeSignal extends AbstractTopologyExecutorSignal {
     public ParameterChange getChange(int index) {
         return changes.get(index);
     }
+
+    /**
+     * Returns the parameter changes. [codecs]
+     * 
+     * @return the changes
+     */
+    List<ParameterChange> getChanges() {
+        return changes;
+    }
     
     // <<remove after cleanup of ParameterChangeSignal
     
@@ -6,6 +6,9 @@ import org.apache.log4j.Logger;
 
 import eu.qualimaster.Configuration;
 import eu.qualimaster.common.monitoring.MonitoringPluginRegistry;
+import eu.qualimaster.common.monitoring.TupleTracer;
+import eu.qualimaster.common.shedding.IBacklogAware;
+import eu.qualimaster.common.shedding.IBacklogProvider;
 import eu.qualimaster.common.shedding.LoadShedder;
 import eu.qualimaster.common.shedding.LoadShedderFactory;
 import eu.qualimaster.common.shedding.NoShedder;
@@ -24,13 +27,14 @@ import backtype.storm.tuple.Tuple;
  */
 @SuppressWarnings("serial")
 public abstract class BaseSignalBolt extends BaseRichBolt implements SignalListener, IAlgorithmChangeListener, 
-    IParameterChangeListener, IShutdownListener, ILoadSheddingListener, IMonitoringChangeListener {
+    IParameterChangeListener, IShutdownListener, ILoadSheddingListener, IMonitoringChangeListener, IBacklogProvider {
 
     private static final Logger LOGGER = Logger.getLogger(BaseSignalBolt.class);
     private String name;
     private String namespace;
     private boolean sendRegular;
     private LoadShedder<?> shedder = NoShedder.INSTANCE;
+    private transient volatile int backlog;
     private transient StormSignalConnection signalConnection;
     private transient AlgorithmChangeEventHandler algorithmEventHandler;
     private transient ParameterChangeEventHandler parameterEventHandler;
@@ -97,11 +101,13 @@ public abstract class BaseSignalBolt extends BaseRichBolt implements SignalListe
     }
 
     /**
-     * Counts emitting for a sink execution method.
+     * Counts emitting for a sink execution method. Completes the end-to-end trace of the actual input tuple if it is 
+     * traced.
      * 
      * @param tuple the tuple emitted
      */
     protected void emitted(Object tuple) {
+        monitor.getTracer().completed();
         if (Constants.MEASURE_BY_TASK_HOOKS) {
             monitor.emitted(tuple);
         } else {
@@ -232,6 +238,9 @@ public abstract class BaseSignalBolt extends BaseRichBolt implements SignalListe
     public final void notifyLoadShedding(LoadSheddingSignal signal) {
         shedder = LoadShedderFactory.createShedder(signal.getShedder());
         shedder.configure(signal);
+        if (shedder instanceof IBacklogAware) {
+            ((IBacklogAware) shedder).setBacklogProvider(this);
+        }
         EventManager.send(new LoadSheddingChangedMonitoringEvent(namespace, name, 
             signal.getShedder(), shedder.getDescriptor().getIdentifier(), signal.getCauseMessageId()));
     }
@@ -247,7 +256,8 @@ public abstract class BaseSignalBolt extends BaseRichBolt implements SignalListe
 
     /**
      * Process a single tuple of input. Considers {@link #isEnabled(Object)} for 
-     * load shedding, calls {@link #startMonitoring()} and {@link #endMonitoring()}. Delegates
+     * load shedding, calls {@link #startMonitoring()} and {@link #endMonitoring()}, records the arrival of traced 
+     * tuples (see {@link #propagateTrace(Object)}). Delegates
      * to {@link #doExecute(Tuple)} for the real work. Subclasses may override this method
      * but shall consider load shedding and monitoring (or just do their work in {@link #doExecute(Tuple)}.
      * 
@@ -256,6 +266,10 @@ public abstract class BaseSignalBolt extends BaseRichBolt implements SignalListe
     @Override
     public void execute(Tuple input) {
         if (isEnabled(input)) {
+            TupleTracer tracer = monitor.getTracer();
+            if (tracer.isEnabled() && input.size() > 0) {
+                tracer.arrived(input.getValue(0));
+            }
             startMonitoring();
             doExecute(input);
             endMonitoring();
@@ -270,6 +284,16 @@ public abstract class BaseSignalBolt extends BaseRichBolt implements SignalListe
      */
     protected void doExecute(Tuple input) {
     }
+
+    /**
+     * Propagates the end-to-end trace of the actual input tuple to an output item (if the input is traced). Shall be 
+     * called for each item before emitting it.
+     * 
+     * @param item the item to be emitted (ignored if not {@link eu.qualimaster.base.algorithm.ITraceable})
+     */
+    protected void propagateTrace(Object item) {
+        monitor.getTracer().propagate(item);
+    }
     
     /**
      * Returns the active load shedder.
@@ -289,6 +313,28 @@ public abstract class BaseSignalBolt extends BaseRichBolt implements SignalListe
     protected boolean isEnabled(Object tuple) {
         return shedder.isEnabled(tuple);
     }
+
+    /**
+     * Reports the actual local backlog of this bolt, e.g., the number of items buffered by the algorithm. Used by 
+     * {@link IBacklogAware backlog-aware} load shedders. May be called by any thread.
+     * 
+     * @param backlog the number of pending items
+     */
+    protected void reportBacklog(int backlog) {
+        this.backlog = backlog;
+    }
+
+    /**
+     * Returns the actual local backlog of this bolt. By default, the value last passed to 
+     * {@link #reportBacklog(int)}. Subclasses having direct access to their pending work may override this method, 
+     * but it is called per tuple when a backlog-aware shedder is active.
+     * 
+     * @return the number of pending items
+     */
+    @Override
+    public int getBacklog() {
+        return backlog;
+    }
     
     /**
      * Called to prepare the shutdown of this executor as part of shutting down
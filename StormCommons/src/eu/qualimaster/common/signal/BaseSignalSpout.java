@@ -6,6 +6,8 @@ import org.apache.log4j.Logger;
 
 import eu.qualimaster.Configuration;
 import eu.qualimaster.common.monitoring.MonitoringPluginRegistry;
+import eu.qualimaster.common.shedding.IBacklogAware;
+import eu.qualimaster.common.shedding.IBacklogProvider;
 import eu.qualimaster.common.shedding.LoadShedder;
 import eu.qualimaster.common.shedding.LoadShedderFactory;
 import eu.qualimaster.common.shedding.NoShedder;
@@ -23,13 +25,14 @@ import backtype.storm.topology.base.*;
  */
 @SuppressWarnings("serial")
 public abstract class BaseSignalSpout extends BaseRichSpout implements SignalListener, IParameterChangeListener, 
-    IShutdownListener, ILoadSheddingListener, IMonitoringChangeListener {
+    IShutdownListener, ILoadSheddingListener, IMonitoringChangeListener, IBacklogProvider {
 
     private static final Logger LOGGER = Logger.getLogger(BaseSignalSpout.class);
     private String name;
     private String namespace;
     private boolean sendRegular;
     private LoadShedder<?> shedder = NoShedder.INSTANCE;
+    private transient volatile int backlog;
     private transient StormSignalConnection signalConnection;
     private transient ParameterChangeEventHandler parameterEventHandler;
     private transient ShutdownEventHandler shutdownEventHandler;
@@ -212,6 +215,9 @@ public abstract class BaseSignalSpout extends BaseRichSpout implements SignalLis
     public final void notifyLoadShedding(LoadSheddingSignal signal) {
         shedder = LoadShedderFactory.createShedder(signal.getShedder());
         shedder.configure(signal);
+        if (shedder instanceof IBacklogAware) {
+            ((IBacklogAware) shedder).setBacklogProvider(this);
+        }
         EventManager.send(new LoadSheddingChangedMonitoringEvent(namespace, name, 
             signal.getShedder(), shedder.getDescriptor().getIdentifier(), signal.getCauseMessageId()));
     }
@@ -244,6 +250,28 @@ public abstract class BaseSignalSpout extends BaseRichSpout implements SignalLis
         return shedder.isEnabled(tuple);
     }
 
+    /**
+     * Reports the actual local backlog of this spout, e.g., the number of items buffered by the algorithm. Used by 
+     * {@link IBacklogAware backlog-aware} load shedders. May be called by any thread.
+     * 
+     * @param backlog the number of pending items
+     */
+    protected void reportBacklog(int backlog) {
+        this.backlog = backlog;
+    }
+
+    /**
+     * Returns the actual local backlog of this spout. By default, the value last passed to 
+     * {@link #reportBacklog(int)}. Subclasses having direct access to their pending work may override this method, 
+     * but it is called per tuple when a backlog-aware shedder is active.
+     * 
+     * @return the number of pending items
+     */
+    @Override
+    public int getBacklog() {
+        return backlog;
+    }
+
     /**
      * Returns the name of this bolt.
      * 
@@ -286,4 +314,14 @@ public abstract class BaseSignalSpout extends BaseRichSpout implements SignalLis
     protected void doNextTuple() {
     }
 
+    /**
+     * Samples an item for end-to-end tracing if tracing is {@link eu.qualimaster.Configuration#PIPELINE_TRACE_SAMPLING
+     * enabled}. Shall be called for each item before emitting it.
+     * 
+     * @param item the item to be emitted (ignored if not {@link eu.qualimaster.base.algorithm.ITraceable})
+     */
+    protected void trace(Object item) {
+        monitor.getTracer().sample(item);
+    }
+
 }
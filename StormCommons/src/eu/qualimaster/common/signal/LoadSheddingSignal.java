@@ -84,6 +84,26 @@ public class LoadSheddingSignal extends AbstractTopologyExecutorSignal implement
         return getIntParameter(param.name(), dflt);
     }
 
+    @Override
+    public double getDoubleParameter(String name, double dflt) {
+        double result = dflt;
+        Serializable tmp = parameter.get(name);
+        if (tmp instanceof Number) {
+            result = ((Number) tmp).doubleValue();
+        } else if (null != tmp) {
+            try {
+                result = Double.parseDouble(tmp.toString().trim());
+            } catch (NumberFormatException e) {
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public double getDoubleParameter(ILoadSheddingParameter param, double dflt) {
+        return getDoubleParameter(param.name(), dflt);
+    }
+
     @Override
     public Serializable getParameter(ILoadSheddingParameter param) {
         return getParameter(param.name());
@@ -30,10 +30,15 @@ import backtype.storm.hooks.info.EmitInfo;
 import backtype.storm.hooks.info.SpoutAckInfo;
 import backtype.storm.hooks.info.SpoutFailInfo;
 import backtype.storm.task.TopologyContext;
-import eu.qualimaster.base.algorithm.IncrementalAverage;
+import eu.qualimaster.Configuration;
+import eu.qualimaster.common.monitoring.CoarseClock;
 import eu.qualimaster.common.monitoring.MonitoringPluginRegistry;
+import eu.qualimaster.common.monitoring.StripedAverage;
+import eu.qualimaster.common.monitoring.StripedCounter;
+import eu.qualimaster.common.monitoring.TupleTracer;
 import eu.qualimaster.events.AbstractTimerEventHandler;
 import eu.qualimaster.events.EventManager;
+import eu.qualimaster.events.LatencyHistogram;
 import eu.qualimaster.events.TimerEvent;
 import eu.qualimaster.monitoring.events.ComponentKey;
 import eu.qualimaster.monitoring.events.PipelineElementMultiObservationMonitoringEvent;
@@ -41,6 +46,7 @@ import eu.qualimaster.monitoring.events.PipelineElementObservationMonitoringEven
 import eu.qualimaster.monitoring.spassMeter.QmPlugin;
 import eu.qualimaster.observables.IObservable;
 import eu.qualimaster.observables.MonitoringFrequency;
+import eu.qualimaster.observables.ObservationSnapshot;
 import eu.qualimaster.observables.ResourceUsage;
 import eu.qualimaster.observables.TimeBehavior;
 
@@ -51,6 +57,15 @@ import eu.qualimaster.observables.TimeBehavior;
  * {@link MonitoringPluginRegistry#emitted(backtype.storm.hooks.info.EmitInfo)}, 
  * {@link MonitoringPluginRegistry#endMonitoring()}. Calls {@link MonitoringPluginRegistry#collectObservations(Map)}.
  * 
+ * The execution times are also recorded in a {@link LatencyHistogram} which is reset at each send interval, i.e., 
+ * the percentiles {@link TimeBehavior#LATENCY_P50}, {@link TimeBehavior#LATENCY_P95}, 
+ * {@link TimeBehavior#LATENCY_P99} and {@link TimeBehavior#LATENCY_MAX} are sent along with the average 
+ * {@link TimeBehavior#LATENCY} and describe the last send interval only. The per-tuple hooks do not allocate memory
+ * and use the {@link CoarseClock}, the observations are collected into a reused {@link ObservationSnapshot}.
+ * Counters and averages are striped, i.e., multiple threads (see {@link #createThreadMonitor()}) can update them
+ * without contending for the same memory location. Completed end-to-end traces of the {@link #getTracer() tracer} are 
+ * sent along with the observations.
+ * 
  * Example:
  * <pre>
  *    startMonitoring();
@@ -65,14 +80,19 @@ public class Monitor extends AbstractMonitor implements IMonitoringChangeListene
     //private static final IMemoryDataGatherer MEMGATHERER = GathererFactory.getMemoryDataGatherer();
     private String namespace;
     private String name;
-    private IncrementalAverage executionTime;
+    private StripedAverage executionTime = new StripedAverage();
+    private LatencyHistogram latencies = new LatencyHistogram();
+    private LatencyHistogram.Snapshot interval; // guarded by observations
+    private ObservationSnapshot observations = new ObservationSnapshot();
+    private TupleTracer tracer;
     private long sendInterval; 
     private ComponentKey key;
     private AtomicLong lastSend = new AtomicLong();
-    private AtomicLong itemsSend = new AtomicLong(0);
+    private StripedCounter itemsSend = new StripedCounter();
     private AtomicLong itemsVolume = new AtomicLong(-1);
     private boolean includeItems;
     private TimerEventHandler timerHandler;
+    private boolean timerRegistered; // guarded by this
     private boolean collectVolume = false; // TODO activate by default?
     
     /**
@@ -88,11 +108,11 @@ public class Monitor extends AbstractMonitor implements IMonitoringChangeListene
     public Monitor(String namespace, String name, boolean includeItems, TopologyContext context, boolean sendRegular) {
         this.namespace = namespace;
         this.name = name;
-        this.executionTime = new IncrementalAverage();
         this.sendInterval = 500;
         this.key = new ComponentKey(context.getThisWorkerPort(), context.getThisTaskId());
         this.key.setThreadId(Thread.currentThread().getId());
         this.includeItems = includeItems;
+        this.tracer = new TupleTracer(name, Configuration.getPipelineTraceSampling());
 
         Map<IObservable, Double> data = new HashMap<IObservable, Double>();
         data.put(ResourceUsage.EXECUTORS, 1.0);
@@ -107,19 +127,27 @@ public class Monitor extends AbstractMonitor implements IMonitoringChangeListene
 
         if (sendRegular) {
             // works only in cluster mode due to event handler
-            timerHandler = new TimerEventHandler();
-            EventManager.setTimerPeriod(sendInterval + 100); // allow for tolerances
-            EventManager.register(timerHandler);
+            timerHandler = new TimerEventHandler(sendInterval + 100); // allow for tolerances
+            registerTimer(true);
         }
     }
     
     /**
-     * Reacts on timer events.
+     * Reacts on timer events in the period of this monitor.
      * 
      * @author Holger Eichelberger
      */
     private class TimerEventHandler extends AbstractTimerEventHandler {
 
+        /**
+         * Creates the handler.
+         * 
+         * @param period the timer period in ms
+         */
+        private TimerEventHandler(long period) {
+            super(period);
+        }
+
         @Override
         protected void handle(TimerEvent event) {
             // works only in cluster mode due to event handler
@@ -149,7 +177,8 @@ public class Monitor extends AbstractMonitor implements IMonitoringChangeListene
     public void aggregateExecutionTime(long start, int itemsCount) {
         long now = System.currentTimeMillis();
         executionTime.addValue(now - start);
-        itemsSend.addAndGet(Math.max(0, itemsCount));
+        latencies.record((now - start) * 1000);
+        itemsSend.add(Math.max(0, itemsCount));
         checkSend(now);
     }
 
@@ -159,29 +188,47 @@ public class Monitor extends AbstractMonitor implements IMonitoringChangeListene
      * @param now the current time
      */
     private void checkSend(long now) {
-        if (sendInterval > 0 && now - lastSend.get() > sendInterval) {
-            if (includeItems) {
-                Map<IObservable, Double> data = new HashMap<IObservable, Double>();
-                MonitoringPluginRegistry.collectObservations(data);
-                data.put(TimeBehavior.LATENCY, executionTime.getAverage());
-                data.put(TimeBehavior.THROUGHPUT_ITEMS, Double.valueOf(itemsSend.get()));
-                long itemsTmp = itemsVolume.get();
-                if (collectVolume && itemsTmp > 0) {
-                    data.put(TimeBehavior.THROUGHPUT_VOLUME, Double.valueOf(itemsTmp));
-                }
-                EventManager.send(new PipelineElementMultiObservationMonitoringEvent(namespace, name, key, data));
-            } else {
-                if (MonitoringPluginRegistry.getRegisteredPluginCount() > 0) {
-                    Map<IObservable, Double> data = new HashMap<IObservable, Double>();
-                    MonitoringPluginRegistry.collectObservations(data);
-                    data.put(TimeBehavior.LATENCY, executionTime.getAverage());
-                    EventManager.send(new PipelineElementMultiObservationMonitoringEvent(namespace, name, key, data));
+        long last = lastSend.get();
+        if (sendInterval > 0 && now - last > sendInterval && lastSend.compareAndSet(last, now)) {
+            synchronized (observations) {
+                interval = latencies.snapshotAndReset(interval);
+                if (includeItems || MonitoringPluginRegistry.getRegisteredPluginCount() > 0 
+                    || interval.getCount() > 0) {
+                    observations.clear();
+                    MonitoringPluginRegistry.collectObservations(observations);
+                    observations.set(TimeBehavior.LATENCY, executionTime.getAverage());
+                    addLatencies(observations, interval);
+                    if (includeItems) {
+                        observations.set(TimeBehavior.THROUGHPUT_ITEMS, itemsSend.sum());
+                        long itemsTmp = itemsVolume.get();
+                        if (collectVolume && itemsTmp > 0) {
+                            observations.set(TimeBehavior.THROUGHPUT_VOLUME, itemsTmp);
+                        }
+                    }
+                    // the event is queued asynchronously, i.e., it must not share the reused snapshot
+                    EventManager.send(new PipelineElementMultiObservationMonitoringEvent(namespace, name, key, 
+                        observations.copy()));
                 } else {
                     EventManager.send(new PipelineElementObservationMonitoringEvent(namespace, name, key, 
                         TimeBehavior.LATENCY, executionTime.getAverage()));
                 }
+                tracer.send(namespace, key);
             }
-            lastSend.set(now);
+        }
+    }
+
+    /**
+     * Adds the latency percentiles of a send interval to <code>data</code>.
+     * 
+     * @param data the observations to be sent (modified as a side effect)
+     * @param snapshot the latency histogram of the send interval (in microseconds), nothing is added if empty
+     */
+    private static void addLatencies(ObservationSnapshot data, LatencyHistogram.Snapshot snapshot) {
+        if (snapshot.getCount() > 0) {
+            data.set(TimeBehavior.LATENCY_P50, snapshot.getPercentile(50) / 1000.0);
+            data.set(TimeBehavior.LATENCY_P95, snapshot.getPercentile(95) / 1000.0);
+            data.set(TimeBehavior.LATENCY_P99, snapshot.getPercentile(99) / 1000.0);
+            data.set(TimeBehavior.LATENCY_MAX, snapshot.getMax() / 1000.0);
         }
     }
     
@@ -193,16 +240,40 @@ public class Monitor extends AbstractMonitor implements IMonitoringChangeListene
     public ComponentKey getComponentKey() {
         return key;
     }
+
+    /**
+     * Returns the tuple tracer of the monitored pipeline element.
+     * 
+     * @return the tuple tracer
+     */
+    public TupleTracer getTracer() {
+        return tracer;
+    }
     
     /**
      * Informs this monitor about a shutdown currently being processed by the hosting pipeline element.
      */
-    void shutdown() {
-        if (null != timerHandler) {
-            EventManager.unregister(timerHandler);
-        }
+    synchronized void shutdown() {
+        registerTimer(false);
         timerHandler = null;
     }
+
+    /**
+     * Registers or unregisters the timer handler if this monitor sends regular events. A timer period of 0 does not
+     * disable the handler, as it then receives the events of the global timer period.
+     * 
+     * @param register <code>true</code> for registering, <code>false</code> for unregistering
+     */
+    private synchronized void registerTimer(boolean register) {
+        if (null != timerHandler && register != timerRegistered) {
+            if (register) {
+                EventManager.register(timerHandler);
+            } else {
+                EventManager.unregister(timerHandler);
+            }
+            timerRegistered = register;
+        }
+    }
     
     /**
      * Explicitly sets the volume of emitted tuples.
@@ -218,11 +289,14 @@ public class Monitor extends AbstractMonitor implements IMonitoringChangeListene
         Integer tmp = signal.getFrequency(MonitoringFrequency.PIPELINE_NODE);
         if (null != tmp) {
             sendInterval = tmp;
-            if (null != timerHandler) {
-                if (0 == tmp) {
-                    EventManager.setTimerPeriod(0); // disable
-                } else {
-                    EventManager.setTimerPeriod(tmp + 100); // allow for tolerances
+            synchronized (this) {
+                if (null != timerHandler) {
+                    if (0 == tmp) {
+                        registerTimer(false);
+                    } else {
+                        timerHandler.setTimerPeriod(tmp + 100); // allow for tolerances
+                        registerTimer(true);
+                    }
                 }
             }
         }
@@ -250,7 +324,7 @@ public class Monitor extends AbstractMonitor implements IMonitoringChangeListene
     @Override
     public void emit(EmitInfo info) {
         if (null != info && null != info.values) {
-            itemsSend.addAndGet(info.values.size());
+            itemsSend.add(info.values.size());
             /*if (collectVolume) {
                 itemsVolume.addAndGet(MEMGATHERER.getObjectSize(info.values));
             }*/
@@ -270,7 +344,8 @@ public class Monitor extends AbstractMonitor implements IMonitoringChangeListene
     public void boltExecute(BoltExecuteInfo info) {
         if (null != info && null != info.executeLatencyMs) {
             executionTime.addValue(info.executeLatencyMs);
-            checkSend(System.currentTimeMillis());
+            latencies.record(info.executeLatencyMs * 1000);
+            checkSend(CoarseClock.currentTimeMillis());
         }
     }
 
@@ -289,7 +364,7 @@ public class Monitor extends AbstractMonitor implements IMonitoringChangeListene
      */
     public void emitted(Object tuple) {
         if (null != tuple) {
-            itemsSend.incrementAndGet();
+            itemsSend.increment();
             /*if (collectVolume) {
                 itemsVolume.addAndGet(MEMGATHERER.getObjectSize(tuple));
             }*/
@@ -95,6 +95,20 @@ public class ParameterChangeSignal extends AbstractTopologyExecutorSignal {
             throw new IllegalArgumentException("changes must be given");
         }
     }
+
+    /**
+     * Creates a parameter change signal without validating the changes, e.g., for a decoded signal that had an empty
+     * change list. [codecs]
+     * 
+     * @param topology the topology name
+     * @param executor the executor name
+     * @param causeMsgId the message id of the causing message (may be <b>null</b> or empty if there is none)
+     * @param changes the parameter changes on the same executor (may be empty)
+     */
+    ParameterChangeSignal(String topology, String executor, String causeMsgId, List<ParameterChange> changes) {
+        super(topology, executor, causeMsgId);
+        this.changes = changes;
+    }
     
     /**
      * Returns the number of parameter changes.
@@ -115,6 +129,15 @@ public class ParameterChangeSignal extends AbstractTopologyExecutorSignal {
     public ParameterChange getChange(int index) {
         return changes.get(index);
     }
+
+    /**
+     * Returns the parameter changes. [codecs]
+     * 
+     * @return the changes
+     */
+    List<ParameterChange> getChanges() {
+        return changes;
+    }
     
     /**
      * The name of the of the first parameter to change.
@@ -0,0 +1,379 @@
+/*
+ * Copyright 2009-2016 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.qualimaster.common.signal;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import eu.qualimaster.common.QMInternal;
+import eu.qualimaster.events.EventCodecs;
+import eu.qualimaster.events.IEventCodec;
+import eu.qualimaster.observables.IObservable;
+import eu.qualimaster.observables.MonitoringFrequency;
+
+/**
+ * The event bus codecs for the topology signals. Type tags 16-31 are reserved for this class. Signals are encoded 
+ * field by field rather than via their textual curator payload, which cannot represent all values.
+ *
+ * @author Holger Eichelberger
+ */
+@QMInternal
+public class SignalCodecs {
+
+    static final short ID_ALGORITHM_CHANGE = 16;
+    static final short ID_PARAMETER_CHANGE = 17;
+    static final short ID_SHUTDOWN = 18;
+    static final short ID_LOAD_SHEDDING = 19;
+    static final short ID_REPLAY = 20;
+    static final short ID_MONITORING_CHANGE = 21;
+
+    private static final MonitoringFrequency[] FREQUENCIES = MonitoringFrequency.values();
+    private static boolean registered = false;
+
+    /**
+     * The codec for {@link AlgorithmChangeSignal}.
+     */
+    static final IEventCodec<AlgorithmChangeSignal> ALGORITHM_CHANGE = new IEventCodec<AlgorithmChangeSignal>() {
+
+        @Override
+        public Class<AlgorithmChangeSignal> handles() {
+            return AlgorithmChangeSignal.class;
+        }
+
+        @Override
+        public void encode(AlgorithmChangeSignal signal, DataOutput out) throws IOException {
+            writeHeader(out, signal);
+            EventCodecs.writeString(out, signal.getAlgorithm());
+            writeChanges(out, signal.getChanges());
+            Map<String, Serializable> parameters = signal.getParameterMap();
+            out.writeInt(parameters.size());
+            for (Map.Entry<String, Serializable> entry : parameters.entrySet()) {
+                EventCodecs.writeString(out, entry.getKey());
+                EventCodecs.writeValue(out, entry.getValue());
+            }
+        }
+
+        @Override
+        public AlgorithmChangeSignal decode(DataInput in) throws IOException {
+            String namespace = EventCodecs.readString(in);
+            String executor = EventCodecs.readString(in);
+            String causeMsgId = EventCodecs.readString(in);
+            String algorithm = EventCodecs.readString(in);
+            List<ParameterChange> changes = readChanges(in);
+            AlgorithmChangeSignal result = new AlgorithmChangeSignal(namespace, executor, algorithm, changes, 
+                causeMsgId);
+            Map<String, Serializable> parameters = result.getParameterMap();
+            int count = in.readInt();
+            for (int p = 0; p < count; p++) {
+                String name = EventCodecs.readString(in);
+                parameters.put(name, EventCodecs.readValue(in));
+            }
+            return result;
+        }
+
+    };
+
+    /**
+     * The codec for {@link ParameterChangeSignal}.
+     */
+    static final IEventCodec<ParameterChangeSignal> PARAMETER_CHANGE = new IEventCodec<ParameterChangeSignal>() {
+
+        @Override
+        public Class<ParameterChangeSignal> handles() {
+            return ParameterChangeSignal.class;
+        }
+
+        @Override
+        public void encode(ParameterChangeSignal signal, DataOutput out) throws IOException {
+            writeHeader(out, signal);
+            writeChanges(out, signal.getChanges());
+        }
+
+        @Override
+        public ParameterChangeSignal decode(DataInput in) throws IOException {
+            String namespace = EventCodecs.readString(in);
+            String executor = EventCodecs.readString(in);
+            String causeMsgId = EventCodecs.readString(in);
+            return new ParameterChangeSignal(namespace, executor, causeMsgId, readChanges(in));
+        }
+
+    };
+
+    /**
+     * The codec for {@link ShutdownSignal}.
+     */
+    static final IEventCodec<ShutdownSignal> SHUTDOWN = new IEventCodec<ShutdownSignal>() {
+
+        @Override
+        public Class<ShutdownSignal> handles() {
+            return ShutdownSignal.class;
+        }
+
+        @Override
+        public void encode(ShutdownSignal signal, DataOutput out) throws IOException {
+            writeHeader(out, signal);
+        }
+
+        @Override
+        public ShutdownSignal decode(DataInput in) throws IOException {
+            String namespace = EventCodecs.readString(in);
+            String executor = EventCodecs.readString(in);
+            EventCodecs.readString(in); // cause message id, not supported by shutdown signals
+            return new ShutdownSignal(namespace, executor);
+        }
+
+    };
+
+    /**
+     * The codec for {@link LoadSheddingSignal}.
+     */
+    static final IEventCodec<LoadSheddingSignal> LOAD_SHEDDING = new IEventCodec<LoadSheddingSignal>() {
+
+        @Override
+        public Class<LoadSheddingSignal> handles() {
+            return LoadSheddingSignal.class;
+        }
+
+        @Override
+        public void encode(LoadSheddingSignal signal, DataOutput out) throws IOException {
+            writeHeader(out, signal);
+            EventCodecs.writeString(out, signal.getShedder());
+            out.writeInt(signal.getParameterNames().size());
+            for (String name : signal.getParameterNames()) {
+                EventCodecs.writeString(out, name);
+                EventCodecs.writeValue(out, signal.getParameter(name));
+            }
+        }
+
+        @Override
+        public LoadSheddingSignal decode(DataInput in) throws IOException {
+            String namespace = EventCodecs.readString(in);
+            String executor = EventCodecs.readString(in);
+            String causeMsgId = EventCodecs.readString(in);
+            String shedder = EventCodecs.readString(in);
+            Map<String, Serializable> parameter = new HashMap<String, Serializable>();
+            int count = in.readInt();
+            for (int p = 0; p < count; p++) {
+                String name = EventCodecs.readString(in);
+                parameter.put(name, EventCodecs.readValue(in));
+            }
+            return new LoadSheddingSignal(namespace, executor, shedder, parameter, causeMsgId);
+        }
+
+    };
+
+    /**
+     * The codec for {@link ReplaySignal}.
+     */
+    static final IEventCodec<ReplaySignal> REPLAY = new IEventCodec<ReplaySignal>() {
+
+        @Override
+        public Class<ReplaySignal> handles() {
+            return ReplaySignal.class;
+        }
+
+        @Override
+        public void encode(ReplaySignal signal, DataOutput out) throws IOException {
+            writeHeader(out, signal);
+            out.writeBoolean(signal.getStartReplay());
+            out.writeInt(signal.getTicket());
+            writeDate(out, signal.getStart());
+            writeDate(out, signal.getEnd());
+            out.writeInt(signal.getSpeed());
+            EventCodecs.writeString(out, signal.getQuery());
+        }
+
+        @Override
+        public ReplaySignal decode(DataInput in) throws IOException {
+            String namespace = EventCodecs.readString(in);
+            String executor = EventCodecs.readString(in);
+            String causeMsgId = EventCodecs.readString(in);
+            ReplaySignal result = new ReplaySignal(namespace, executor, in.readBoolean(), in.readInt(), causeMsgId);
+            Date start = readDate(in);
+            Date end = readDate(in);
+            int speed = in.readInt();
+            result.setReplayStartInfo(start, end, speed, EventCodecs.readString(in));
+            return result;
+        }
+
+    };
+
+    /**
+     * The codec for {@link MonitoringChangeSignal}.
+     */
+    static final IEventCodec<MonitoringChangeSignal> MONITORING_CHANGE = new IEventCodec<MonitoringChangeSignal>() {
+
+        @Override
+        public Class<MonitoringChangeSignal> handles() {
+            return MonitoringChangeSignal.class;
+        }
+
+        @Override
+        public void encode(MonitoringChangeSignal signal, DataOutput out) throws IOException {
+            writeHeader(out, signal);
+            Map<MonitoringFrequency, Integer> frequencies = signal.getFrequencies();
+            if (null == frequencies) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(frequencies.size());
+                for (Map.Entry<MonitoringFrequency, Integer> entry : frequencies.entrySet()) {
+                    out.writeShort(null == entry.getKey() ? -1 : entry.getKey().ordinal());
+                    EventCodecs.writeValue(out, entry.getValue());
+                }
+            }
+            Map<IObservable, Boolean> observables = signal.getObservables();
+            if (null == observables) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(observables.size());
+                for (Map.Entry<IObservable, Boolean> entry : observables.entrySet()) {
+                    EventCodecs.writeObservable(out, entry.getKey());
+                    EventCodecs.writeValue(out, entry.getValue());
+                }
+            }
+        }
+
+        @Override
+        public MonitoringChangeSignal decode(DataInput in) throws IOException {
+            String namespace = EventCodecs.readString(in);
+            String executor = EventCodecs.readString(in);
+            String causeMsgId = EventCodecs.readString(in);
+            Map<MonitoringFrequency, Integer> frequencies = null;
+            int count = in.readInt();
+            if (count >= 0) {
+                frequencies = new HashMap<MonitoringFrequency, Integer>();
+                for (int f = 0; f < count; f++) {
+                    int ordinal = in.readShort();
+                    if (ordinal >= FREQUENCIES.length) {
+                        throw new IOException("Unknown monitoring frequency " + ordinal);
+                    }
+                    frequencies.put(ordinal < 0 ? null : FREQUENCIES[ordinal], (Integer) EventCodecs.readValue(in));
+                }
+            }
+            Map<IObservable, Boolean> observables = null;
+            count = in.readInt();
+            if (count >= 0) {
+                observables = new HashMap<IObservable, Boolean>();
+                for (int o = 0; o < count; o++) {
+                    IObservable observable = EventCodecs.readObservable(in);
+                    observables.put(observable, (Boolean) EventCodecs.readValue(in));
+                }
+            }
+            return new MonitoringChangeSignal(namespace, executor, frequencies, observables, causeMsgId);
+        }
+
+    };
+
+    /**
+     * Prevents external creation.
+     */
+    private SignalCodecs() {
+    }
+
+    /**
+     * Registers the signal codecs with the event bus. Must be called on all communicating machines, i.e., on
+     * the event bus server and on the workers. Repeated calls are ignored.
+     */
+    public static synchronized void register() {
+        if (!registered) {
+            EventCodecs.register(ID_ALGORITHM_CHANGE, ALGORITHM_CHANGE);
+            EventCodecs.register(ID_PARAMETER_CHANGE, PARAMETER_CHANGE);
+            EventCodecs.register(ID_SHUTDOWN, SHUTDOWN);
+            EventCodecs.register(ID_LOAD_SHEDDING, LOAD_SHEDDING);
+            EventCodecs.register(ID_REPLAY, REPLAY);
+            EventCodecs.register(ID_MONITORING_CHANGE, MONITORING_CHANGE);
+            registered = true;
+        }
+    }
+
+    /**
+     * Writes the common signal information, i.e., namespace, executor and cause message id.
+     *
+     * @param out the output
+     * @param signal the signal
+     * @throws IOException in case of I/O problems
+     */
+    private static void writeHeader(DataOutput out, AbstractTopologyExecutorSignal signal) throws IOException {
+        EventCodecs.writeString(out, signal.getNamespace());
+        EventCodecs.writeString(out, signal.getExecutor());
+        EventCodecs.writeString(out, signal.getCauseMessageId());
+    }
+
+    /**
+     * Writes parameter changes.
+     *
+     * @param out the output
+     * @param changes the changes
+     * @throws IOException in case of I/O problems
+     */
+    private static void writeChanges(DataOutput out, List<ParameterChange> changes) throws IOException {
+        out.writeInt(changes.size());
+        for (ParameterChange change : changes) {
+            EventCodecs.writeString(out, change.getName());
+            EventCodecs.writeValue(out, change.getValue());
+        }
+    }
+
+    /**
+     * Reads parameter changes written by {@link #writeChanges(DataOutput, List)}.
+     *
+     * @param in the input
+     * @return the changes
+     * @throws IOException in case of I/O problems
+     */
+    private static List<ParameterChange> readChanges(DataInput in) throws IOException {
+        int count = in.readInt();
+        List<ParameterChange> result = new ArrayList<ParameterChange>(Math.max(0, count));
+        for (int c = 0; c < count; c++) {
+            String name = EventCodecs.readString(in);
+            result.add(new ParameterChange(name, EventCodecs.readValue(in)));
+        }
+        return result;
+    }
+
+    /**
+     * Writes a date.
+     *
+     * @param out the output
+     * @param date the date (may be <b>null</b>)
+     * @throws IOException in case of I/O problems
+     */
+    private static void writeDate(DataOutput out, Date date) throws IOException {
+        out.writeBoolean(null != date);
+        if (null != date) {
+            out.writeLong(date.getTime());
+        }
+    }
+
+    /**
+     * Reads a date written by {@link #writeDate(DataOutput, Date)}.
+     *
+     * @param in the input
+     * @return the date (may be <b>null</b>)
+     * @throws IOException in case of I/O problems
+     */
+    private static Date readDate(DataInput in) throws IOException {
+        return in.readBoolean() ? new Date(in.readLong()) : null;
+    }
+
+}
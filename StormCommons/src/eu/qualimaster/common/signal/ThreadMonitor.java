@@ -16,7 +16,8 @@
 package eu.qualimaster.common.signal;
 
 /**
- * A monitor for additional parallel threads.
+ * A monitor for additional parallel threads. Forwards to the parent monitor, which stripes its counters so that 
+ * parallel threads do not contend for them.
  * 
  * @author Holger Eichelberger
  */
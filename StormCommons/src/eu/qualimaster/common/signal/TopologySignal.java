@@ -17,6 +17,8 @@ package eu.qualimaster.common.signal;
 
 import eu.qualimaster.common.QMInternal;
 import eu.qualimaster.events.AbstractEvent;
+import eu.qualimaster.events.EventPriority;
+import eu.qualimaster.events.IPrioritizedEvent;
 
 /**
  * Defines the root of the topology signals, i.e., QM events that may be sent through the event
@@ -26,7 +28,7 @@ import eu.qualimaster.events.AbstractEvent;
  * @author Holger Eichelberger
  */
 @QMInternal
-public abstract class TopologySignal extends AbstractEvent {
+public abstract class TopologySignal extends AbstractEvent implements IPrioritizedEvent {
 
     private static final long serialVersionUID = -6179915335623274137L;
     
@@ -37,4 +39,9 @@ public abstract class TopologySignal extends AbstractEvent {
      * @throws SignalException in case that the execution / signal sending fails
      */
     public abstract void sendSignal(AbstractSignalConnection connection) throws SignalException;
+
+    @Override
+    public EventPriority getPriority() {
+        return EventPriority.CONTROL;
+    }
 }
@@ -25,6 +25,9 @@ import org.junit.runners.Suite;
  */
 @RunWith(Suite.class)
 @Suite.SuiteClasses({tests.eu.qualimaster.common.signal.AllTests.class, 
+    tests.eu.qualimaster.common.shedding.LoadSheddersTest.class, 
+    tests.eu.qualimaster.common.monitoring.StripedCounterTest.class, 
+    tests.eu.qualimaster.common.monitoring.TupleTracerTest.class, 
     RecordingTopologyBuilderTest.class, OutputItemsTest.class, HardwareConnectionTest.class, 
     AlgorithmUtilsTest.class })
 public class AllTests {
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2009-2016 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tests.eu.qualimaster.common.monitoring;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.qualimaster.common.monitoring.StripedAverage;
+import eu.qualimaster.common.monitoring.StripedCounter;
+
+/**
+ * Tests the striped counters.
+ * 
+ * @author Holger Eichelberger
+ */
+public class StripedCounterTest {
+
+    private static final int THREADS = 8;
+    private static final int UPDATES = 100000;
+
+    /**
+     * Tests the counter and the average for concurrent updates.
+     * 
+     * @throws InterruptedException shall not occur
+     */
+    @Test(timeout = 20000)
+    public void testConcurrentUpdates() throws InterruptedException {
+        final StripedCounter counter = new StripedCounter();
+        final StripedAverage average = new StripedAverage();
+        Assert.assertEquals(0, counter.sum());
+        Assert.assertEquals(0, average.getAverage(), 0.0001);
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            final int value = 2 * t;
+            threads[t] = new Thread() {
+                
+                @Override
+                public void run() {
+                    for (int u = 0; u < UPDATES; u++) {
+                        counter.increment();
+                        average.addValue(value);
+                    }
+                }
+
+            };
+            threads[t].start();
+        }
+        for (int t = 0; t < THREADS; t++) {
+            threads[t].join();
+        }
+        Assert.assertEquals(THREADS * UPDATES, counter.sum());
+        Assert.assertEquals(THREADS * UPDATES, average.getCount());
+        Assert.assertEquals(THREADS - 1, average.getAverage(), 0.0001); // mean of 0, 2, ..., 2 * (THREADS - 1)
+        Assert.assertEquals(THREADS * UPDATES, counter.sumThenReset());
+        Assert.assertEquals(0, counter.sum());
+        counter.add(5);
+        Assert.assertEquals(5, counter.sum());
+    }
+
+}
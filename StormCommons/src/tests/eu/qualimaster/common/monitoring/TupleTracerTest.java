@@ -0,0 +1,109 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tests.eu.qualimaster.common.monitoring;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.qualimaster.base.algorithm.ITraceable;
+import eu.qualimaster.base.algorithm.TraceHeader;
+import eu.qualimaster.common.monitoring.TupleTracer;
+
+/**
+ * Tests the end-to-end tuple tracing.
+ * 
+ * @author Holger Eichelberger
+ */
+public class TupleTracerTest {
+
+    /**
+     * A traceable test item.
+     * 
+     * @author Holger Eichelberger
+     */
+    private static class Item implements ITraceable {
+
+        private TraceHeader header;
+
+        @Override
+        public TraceHeader getTraceHeader() {
+            return header;
+        }
+
+        @Override
+        public void setTraceHeader(TraceHeader header) {
+            this.header = header;
+        }
+
+    }
+
+    /**
+     * Tests sampling, propagation and completion of traces along spout, bolt and sink.
+     */
+    @Test
+    public void testTracing() {
+        TupleTracer spout = new TupleTracer("spout", 2);
+        TupleTracer bolt = new TupleTracer("bolt", 2);
+        TupleTracer sink = new TupleTracer("sink", 2);
+        Assert.assertTrue(spout.isEnabled());
+        Item[] items = new Item[4];
+        int sampled = 0;
+        for (int i = 0; i < items.length; i++) {
+            items[i] = new Item();
+            if (null != spout.sample(items[i])) {
+                sampled++;
+            }
+        }
+        Assert.assertEquals(2, sampled);
+        Assert.assertNull(spout.sample("no item"));
+
+        for (int i = 0; i < items.length; i++) {
+            TraceHeader header = bolt.arrived(items[i]);
+            Item out = new Item();
+            bolt.propagate(out);
+            Assert.assertEquals(null != items[i].getTraceHeader(), null != out.getTraceHeader());
+            if (null != header) {
+                Assert.assertEquals(1, items[i].getTraceHeader().getHopCount()); // input is not modified
+                Assert.assertEquals(2, header.getHopCount());
+                Assert.assertEquals("bolt", header.getElement(1));
+            }
+            sink.arrived(out);
+            sink.completed();
+            sink.completed(); // completes only once
+        }
+        Assert.assertEquals(2, sink.getEndToEndLatencies().getCount());
+        Assert.assertEquals(2, sink.getHopLatencies("bolt").getCount());
+        Assert.assertEquals(2, sink.getHopLatencies("sink").getCount());
+        Assert.assertNull(sink.getHopLatencies("spout"));
+    }
+
+    /**
+     * Tests disabled tracing.
+     */
+    @Test
+    public void testDisabled() {
+        TupleTracer tracer = new TupleTracer("spout", 0);
+        Assert.assertFalse(tracer.isEnabled());
+        Item item = new Item();
+        Assert.assertNull(tracer.sample(item));
+        Assert.assertNull(item.getTraceHeader());
+        item.setTraceHeader(new TraceHeader("other", 0));
+        Assert.assertNull(tracer.arrived(item));
+        tracer.completed();
+        Assert.assertEquals(0, tracer.getEndToEndLatencies().getCount());
+    }
+
+}
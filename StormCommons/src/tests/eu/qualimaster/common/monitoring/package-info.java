@@ -0,0 +1,4 @@
+/**
+ * Monitoring support tests. 
+ */
+package tests.eu.qualimaster.common.monitoring;
\ No newline at end of file
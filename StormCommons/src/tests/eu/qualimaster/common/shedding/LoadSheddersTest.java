@@ -0,0 +1,323 @@
+/*
+ * Copyright 2009-2015 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tests.eu.qualimaster.common.shedding;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.qualimaster.common.shedding.BacklogShedder;
+import eu.qualimaster.common.shedding.DefaultLoadShedders;
+import eu.qualimaster.common.shedding.DefaultLoadSheddingParameter;
+import eu.qualimaster.common.shedding.IBacklogProvider;
+import eu.qualimaster.common.shedding.ILoadShedderConfigurer;
+import eu.qualimaster.common.shedding.IKeyExtractor;
+import eu.qualimaster.common.shedding.ILoadSheddingParameter;
+import eu.qualimaster.common.shedding.KeyAwareShedder;
+import eu.qualimaster.common.shedding.LoadShedder;
+import eu.qualimaster.common.shedding.LoadShedderFactory;
+import eu.qualimaster.common.shedding.ProbabilisticShedder;
+import eu.qualimaster.common.shedding.TokenBucketShedder;
+
+/**
+ * Tests the default load shedders.
+ * 
+ * @author Holger Eichelberger
+ */
+public class LoadSheddersTest {
+
+    private static final Object TUPLE = "tuple";
+
+    /**
+     * A map-based configurer following the parameter conversion of the load shedding signal.
+     * 
+     * @author Holger Eichelberger
+     */
+    private static class TestConfigurer implements ILoadShedderConfigurer {
+
+        private Map<String, Serializable> parameter;
+
+        /**
+         * Creates a configurer.
+         * 
+         * @param parameter the parameters
+         */
+        private TestConfigurer(Map<String, Serializable> parameter) {
+            this.parameter = parameter;
+        }
+
+        @Override
+        public int getIntParameter(String name, int dflt) {
+            Serializable tmp = parameter.get(name);
+            return tmp instanceof Number ? ((Number) tmp).intValue() : dflt;
+        }
+
+        @Override
+        public int getIntParameter(ILoadSheddingParameter param, int dflt) {
+            return getIntParameter(param.name(), dflt);
+        }
+
+        @Override
+        public double getDoubleParameter(String name, double dflt) {
+            Serializable tmp = parameter.get(name);
+            double result = dflt;
+            if (tmp instanceof Number) {
+                result = ((Number) tmp).doubleValue();
+            } else if (null != tmp) {
+                result = Double.parseDouble(tmp.toString());
+            }
+            return result;
+        }
+
+        @Override
+        public double getDoubleParameter(ILoadSheddingParameter param, double dflt) {
+            return getDoubleParameter(param.name(), dflt);
+        }
+
+        @Override
+        public Serializable getParameter(ILoadSheddingParameter param) {
+            return getParameter(param.name());
+        }
+
+        @Override
+        public Serializable getParameter(String name) {
+            return parameter.get(name);
+        }
+
+    }
+
+    /**
+     * Configures a shedder.
+     * 
+     * @param shedder the shedder to configure
+     * @param parameter the parameters
+     */
+    private static void configure(LoadShedder<?> shedder, Map<String, Serializable> parameter) {
+        shedder.configure(new TestConfigurer(parameter));
+    }
+
+    /**
+     * Counts the tuples passing <code>shedder</code>.
+     * 
+     * @param shedder the shedder
+     * @param count the number of tuples to offer
+     * @return the number of passed tuples
+     */
+    private static int countPassed(LoadShedder<?> shedder, int count) {
+        int result = 0;
+        for (int i = 0; i < count; i++) {
+            if (shedder.isEnabled(TUPLE)) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Tests the factory registration.
+     */
+    @Test
+    public void testFactory() {
+        Assert.assertTrue(LoadShedderFactory.createShedder(DefaultLoadShedders.TOKEN_BUCKET) 
+            instanceof TokenBucketShedder);
+        Assert.assertTrue(LoadShedderFactory.createShedder(DefaultLoadShedders.PROBABILISTIC) 
+            instanceof ProbabilisticShedder);
+        Assert.assertTrue(LoadShedderFactory.createShedder(DefaultLoadShedders.BACKLOG) instanceof BacklogShedder);
+        Assert.assertTrue(LoadShedderFactory.createShedder(DefaultLoadShedders.KEY_AWARE) 
+            instanceof KeyAwareShedder);
+    }
+
+    /**
+     * Tests the token bucket shedder.
+     */
+    @Test
+    public void testTokenBucket() {
+        TokenBucketShedder shedder = new TokenBucketShedder();
+        Assert.assertEquals(1000, countPassed(shedder, 1000)); // deactivated
+
+        Map<String, Serializable> parameter = new HashMap<String, Serializable>();
+        parameter.put(DefaultLoadSheddingParameter.RATE.name(), 1); // one per second, quasi no refill during test
+        parameter.put(DefaultLoadSheddingParameter.BURST.name(), 10);
+        configure(shedder, parameter);
+        Assert.assertEquals(10, countPassed(shedder, 1000));
+
+        parameter.put(DefaultLoadSheddingParameter.RATE.name(), 0);
+        configure(shedder, parameter);
+        Assert.assertEquals(1000, countPassed(shedder, 1000));
+    }
+
+    /**
+     * Tests the probabilistic shedder.
+     */
+    @Test
+    public void testProbabilistic() {
+        final int count = 100000;
+        ProbabilisticShedder shedder = new ProbabilisticShedder();
+        Assert.assertEquals(count, countPassed(shedder, count)); // deactivated
+
+        Map<String, Serializable> parameter = new HashMap<String, Serializable>();
+        parameter.put(DefaultLoadSheddingParameter.PROBABILITY.name(), 0.25);
+        configure(shedder, parameter);
+        int passed = countPassed(shedder, count);
+        Assert.assertTrue("passed " + passed, Math.abs(passed - 0.75 * count) < 0.01 * count);
+
+        parameter.put(DefaultLoadSheddingParameter.PROBABILITY.name(), "1");
+        configure(shedder, parameter);
+        Assert.assertEquals(0, countPassed(shedder, count));
+
+        parameter.put(DefaultLoadSheddingParameter.PROBABILITY.name(), 0.0);
+        configure(shedder, parameter);
+        Assert.assertEquals(count, countPassed(shedder, count));
+    }
+
+    /**
+     * A backlog provider with settable backlog.
+     * 
+     * @author Holger Eichelberger
+     */
+    private static class TestBacklogProvider implements IBacklogProvider {
+
+        private int backlog;
+
+        @Override
+        public int getBacklog() {
+            return backlog;
+        }
+
+    }
+
+    /**
+     * Tests the backlog shedder.
+     */
+    @Test
+    public void testBacklog() {
+        final int count = 100000;
+        BacklogShedder shedder = new BacklogShedder();
+        TestBacklogProvider provider = new TestBacklogProvider();
+        provider.backlog = 1000;
+        Map<String, Serializable> parameter = new HashMap<String, Serializable>();
+        parameter.put(DefaultLoadSheddingParameter.LOW_WATERMARK.name(), 100);
+        parameter.put(DefaultLoadSheddingParameter.HIGH_WATERMARK.name(), 200);
+        configure(shedder, parameter);
+        Assert.assertEquals(count, countPassed(shedder, count)); // no provider
+
+        shedder.setBacklogProvider(provider);
+        Assert.assertEquals(0, countPassed(shedder, count)); // above high watermark
+        provider.backlog = 150;
+        int passed = countPassed(shedder, count);
+        Assert.assertTrue("passed " + passed, Math.abs(passed - 0.5 * count) < 0.01 * count);
+        provider.backlog = 100; // drained
+        Assert.assertEquals(count, countPassed(shedder, count));
+
+        parameter.remove(DefaultLoadSheddingParameter.HIGH_WATERMARK.name()); // default 2 * low
+        configure(shedder, parameter);
+        provider.backlog = 199;
+        Assert.assertTrue(countPassed(shedder, count) > 0);
+        provider.backlog = 200;
+        Assert.assertEquals(0, countPassed(shedder, count));
+
+        parameter.put(DefaultLoadSheddingParameter.LOW_WATERMARK.name(), 0); // disabled
+        configure(shedder, parameter);
+        Assert.assertEquals(count, countPassed(shedder, count));
+    }
+
+    /**
+     * A key extractor taking the part of a string tuple before the first colon.
+     * 
+     * @author Holger Eichelberger
+     */
+    public static class PrefixKeyExtractor implements IKeyExtractor {
+
+        private static final long serialVersionUID = 3093450912311276416L;
+
+        @Override
+        public Object getKey(Object tuple) {
+            String tmp = tuple.toString();
+            int pos = tmp.indexOf(':');
+            return pos < 0 ? null : tmp.substring(0, pos);
+        }
+
+    }
+
+    /**
+     * Offers a heavy hitter key and light keys to <code>shedder</code> and asserts the number of passed tuples.
+     * 
+     * @param shedder the shedder
+     * @param heavyPassed the expected number of passed tuples of the heavy hitter
+     */
+    private static void assertKeyAware(KeyAwareShedder shedder, int heavyPassed) {
+        int heavy = 0;
+        int light = 0;
+        for (int i = 0; i < 5000; i++) {
+            if (shedder.isEnabled("HEAVY:" + i)) {
+                heavy++;
+            }
+            if (i % 100 == 0) {
+                for (int k = 0; k < 50; k++) {
+                    if (shedder.isEnabled("LIGHT" + k + ":" + i)) {
+                        light++;
+                    }
+                }
+            }
+        }
+        Assert.assertEquals(heavyPassed, heavy);
+        Assert.assertEquals(50 * 50, light); // light keys are not shed
+    }
+
+    /**
+     * A key-aware shedder with a manually advanced clock, i.e., the windows do not depend on the wall-clock time.
+     * 
+     * @author Holger Eichelberger
+     */
+    private static class ClockedKeyAwareShedder extends KeyAwareShedder {
+
+        private static final long serialVersionUID = -6213290377196451583L;
+        private long time;
+
+        @Override
+        protected long nanoTime() {
+            return time;
+        }
+
+    }
+
+    /**
+     * Tests the key-aware shedder.
+     */
+    @Test
+    public void testKeyAware() {
+        ClockedKeyAwareShedder shedder = new ClockedKeyAwareShedder();
+        Assert.assertEquals(1000, countPassed(shedder, 1000)); // deactivated
+
+        Map<String, Serializable> parameter = new HashMap<String, Serializable>();
+        parameter.put(DefaultLoadSheddingParameter.RATE.name(), 5000);
+        parameter.put(DefaultLoadSheddingParameter.KEYS.name(), 64);
+        parameter.put(DefaultLoadSheddingParameter.KEY_EXTRACTOR.name(), PrefixKeyExtractor.class.getName());
+        configure(shedder, parameter);
+        assertKeyAware(shedder, 5000); // initial budget is the rate
+        shedder.time += 1000000000L; // next window, one second
+        assertKeyAware(shedder, 3333); // 7500 passed in the last second, budget 5000 * 5000 / 7500
+        Assert.assertEquals(1000, countPassed(shedder, 1000)); // no key, passes
+
+        parameter.put(DefaultLoadSheddingParameter.RATE.name(), 0);
+        configure(shedder, parameter);
+        assertKeyAware(shedder, 5000);
+    }
+
+}
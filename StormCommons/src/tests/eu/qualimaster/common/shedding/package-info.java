@@ -0,0 +1,4 @@
+/**
+ * Load shedding tests. 
+ */
+package tests.eu.qualimaster.common.shedding;
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2009-2016 University of Hildesheim, Software Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tests.eu.qualimaster.common.signal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.qualimaster.common.signal.AlgorithmChangeSignal;
+import eu.qualimaster.common.signal.LoadSheddingSignal;
+import eu.qualimaster.common.signal.MonitoringChangeSignal;
+import eu.qualimaster.common.signal.ParameterChange;
+import eu.qualimaster.common.signal.ParameterChangeSignal;
+import eu.qualimaster.common.signal.ReplaySignal;
+import eu.qualimaster.common.signal.ShutdownSignal;
+import eu.qualimaster.common.signal.SignalCodecs;
+import eu.qualimaster.events.EventCodecs;
+import eu.qualimaster.events.IEvent;
+import eu.qualimaster.observables.IObservable;
+import eu.qualimaster.observables.MonitoringFrequency;
+import eu.qualimaster.observables.TimeBehavior;
+import eu.qualimaster.pipeline.AlgorithmChangeParameter;
+
+/**
+ * Tests the event bus codecs for the signals.
+ *
+ * @author Holger Eichelberger
+ */
+public class SignalCodecsTest {
+
+    /**
+     * Encodes and decodes a signal via an event bus frame.
+     *
+     * @param <E> the signal type
+     * @param signal the signal
+     * @return the decoded signal
+     * @throws IOException shall not occur
+     */
+    private static <E extends IEvent> E transfer(E signal) throws IOException {
+        SignalCodecs.register();
+        Assert.assertTrue(EventCodecs.hasCodec(signal.getClass()));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EventCodecs.writeFrame(signal, out);
+        IEvent result = EventCodecs.readFrame(new DataInputStream(new ByteArrayInputStream(out.toByteArray())));
+        Assert.assertNotNull(result);
+        Assert.assertEquals(signal.getClass(), result.getClass());
+        @SuppressWarnings("unchecked")
+        E tmp = (E) result;
+        return tmp;
+    }
+
+    /**
+     * Tests the algorithm change, parameter change and shutdown signal codecs.
+     *
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testChangeCodecs() throws IOException {
+        List<ParameterChange> changes = new ArrayList<ParameterChange>();
+        changes.add(new ParameterChange("window", 5));
+        AlgorithmChangeSignal aSignal = new AlgorithmChangeSignal("pip", "elt", "alg1", changes, "msg");
+        AlgorithmChangeSignal aSignal2 = transfer(aSignal);
+        Assert.assertEquals(aSignal.getNamespace(), aSignal2.getNamespace());
+        Assert.assertEquals(aSignal.getExecutor(), aSignal2.getExecutor());
+        Assert.assertEquals(aSignal.getAlgorithm(), aSignal2.getAlgorithm());
+        Assert.assertEquals(aSignal.getCauseMessageId(), aSignal2.getCauseMessageId());
+        Assert.assertEquals(1, aSignal2.getChangeCount());
+        Assert.assertEquals("window", aSignal2.getChange(0).getName());
+
+        ParameterChangeSignal pSignal = new ParameterChangeSignal("pip", "elt", "window", 10, "msg");
+        ParameterChangeSignal pSignal2 = transfer(pSignal);
+        Assert.assertEquals(pSignal.getNamespace(), pSignal2.getNamespace());
+        Assert.assertEquals(pSignal.getExecutor(), pSignal2.getExecutor());
+        Assert.assertEquals(pSignal.getCauseMessageId(), pSignal2.getCauseMessageId());
+        Assert.assertEquals(1, pSignal2.getChangeCount());
+
+        ShutdownSignal sSignal2 = transfer(new ShutdownSignal("pip", "elt"));
+        Assert.assertEquals("pip", sSignal2.getNamespace());
+        Assert.assertEquals("elt", sSignal2.getExecutor());
+    }
+
+    /**
+     * Tests that the change signal codecs transfer values that the textual curator payload cannot represent.
+     *
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testChangeCodecsLossless() throws IOException {
+        List<ParameterChange> changes = new ArrayList<ParameterChange>();
+        changes.add(new ParameterChange("host", "tcp://localhost:8080"));
+        changes.add(new ParameterChange("window", 5));
+        changes.add(new ParameterChange("factor", 0.5));
+        changes.add(new ParameterChange("enabled", true));
+        ParameterChangeSignal pSignal = new ParameterChangeSignal("pip", "elt", changes, "msg:1:2");
+        ParameterChangeSignal pSignal2 = transfer(pSignal);
+        Assert.assertEquals("msg:1:2", pSignal2.getCauseMessageId());
+        Assert.assertEquals(changes.size(), pSignal2.getChangeCount());
+        for (int c = 0; c < changes.size(); c++) {
+            Assert.assertEquals(changes.get(c).getName(), pSignal2.getChange(c).getName());
+            Assert.assertEquals(changes.get(c).getValue(), pSignal2.getChange(c).getValue());
+        }
+        Assert.assertEquals(Integer.valueOf(5), pSignal2.getChange(1).getValue()); // not turned into String
+
+        List<ParameterChange> noChanges = new ArrayList<ParameterChange>();
+        noChanges.add(new ParameterChange("window", 5));
+        pSignal = new ParameterChangeSignal("pip", "elt", noChanges, "msg");
+        noChanges.clear(); // list is taken over by the signal
+        pSignal2 = transfer(pSignal);
+        Assert.assertEquals(0, pSignal2.getChangeCount());
+
+        AlgorithmChangeSignal aSignal = new AlgorithmChangeSignal("pip", "elt", "alg:1", changes, "msg:1");
+        aSignal.setIntParameter(AlgorithmChangeParameter.INPUT_PORT, 1234);
+        aSignal.setStringParameter(AlgorithmChangeParameter.COPROCESSOR_HOST, "host:1|a;b=c");
+        AlgorithmChangeSignal aSignal2 = transfer(aSignal);
+        Assert.assertEquals("alg:1", aSignal2.getAlgorithm());
+        Assert.assertEquals("msg:1", aSignal2.getCauseMessageId());
+        Assert.assertEquals(changes.size(), aSignal2.getChangeCount());
+        Assert.assertEquals("tcp://localhost:8080", aSignal2.getChange(0).getValue());
+        Assert.assertEquals(aSignal.getParameters(), aSignal2.getParameters());
+        Assert.assertEquals(Integer.valueOf(1234), 
+            aSignal2.getIntParameter(AlgorithmChangeParameter.INPUT_PORT, null));
+
+        aSignal2 = transfer(new AlgorithmChangeSignal("pip", "elt", "alg", new ArrayList<ParameterChange>(), null));
+        Assert.assertEquals(0, aSignal2.getChangeCount());
+        Assert.assertTrue(aSignal2.getParameters().isEmpty());
+    }
+
+    /**
+     * Tests the field-based signal codecs.
+     *
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testFieldCodecs() throws IOException {
+        Map<String, Serializable> params = new HashMap<String, Serializable>();
+        params.put("nth", 5);
+        params.put("name", "x");
+        LoadSheddingSignal lSignal = new LoadSheddingSignal("pip", "elt", "nth", params, "msg");
+        LoadSheddingSignal lSignal2 = transfer(lSignal);
+        Assert.assertEquals(lSignal.getNamespace(), lSignal2.getNamespace());
+        Assert.assertEquals(lSignal.getExecutor(), lSignal2.getExecutor());
+        Assert.assertEquals(lSignal.getCauseMessageId(), lSignal2.getCauseMessageId());
+        Assert.assertEquals(lSignal.getShedder(), lSignal2.getShedder());
+        Assert.assertEquals(5, lSignal2.getIntParameter("nth", 0));
+        Assert.assertEquals("x", lSignal2.getParameter("name"));
+
+        ReplaySignal rSignal = new ReplaySignal("pip", "elt", true, 3, "msg");
+        rSignal.setReplayStartInfo(new Date(), null, 10, "query");
+        ReplaySignal rSignal2 = transfer(rSignal);
+        Assert.assertEquals(rSignal.getNamespace(), rSignal2.getNamespace());
+        Assert.assertEquals(rSignal.getStartReplay(), rSignal2.getStartReplay());
+        Assert.assertEquals(rSignal.getTicket(), rSignal2.getTicket());
+        Assert.assertEquals(rSignal.getStart(), rSignal2.getStart());
+        Assert.assertNull(rSignal2.getEnd());
+        Assert.assertEquals(rSignal.getSpeed(), rSignal2.getSpeed());
+        Assert.assertEquals(rSignal.getQuery(), rSignal2.getQuery());
+
+        Map<MonitoringFrequency, Integer> frequencies = new HashMap<MonitoringFrequency, Integer>();
+        frequencies.put(MonitoringFrequency.PIPELINE_MONITORING, 500);
+        Map<IObservable, Boolean> observables = new HashMap<IObservable, Boolean>();
+        observables.put(TimeBehavior.LATENCY, false);
+        MonitoringChangeSignal mSignal = new MonitoringChangeSignal("pip", "elt", frequencies, observables, "msg");
+        MonitoringChangeSignal mSignal2 = transfer(mSignal);
+        Assert.assertEquals(mSignal.getNamespace(), mSignal2.getNamespace());
+        Assert.assertEquals(frequencies, mSignal2.getFrequencies());
+        Assert.assertEquals(observables, mSignal2.getObservables());
+        mSignal2 = transfer(new MonitoringChangeSignal("pip", "elt", null, null, null));
+        Assert.assertNull(mSignal2.getFrequencies());
+        Assert.assertNull(mSignal2.getObservables());
+    }
+
+}